@@ -0,0 +1,67 @@
+-- The base tables of the app's db, which the migrations add their indexes to. Used to set up the throwaway
+-- servers the scripts in bin start.
+CREATE TABLE country (
+    countryId INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    country VARCHAR(50) NOT NULL,
+    createDate DATETIME NOT NULL,
+    createdBy VARCHAR(40) NOT NULL,
+    lastUpdate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    lastUpdateBy VARCHAR(40) NOT NULL);
+CREATE TABLE city (
+    cityId INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    city VARCHAR(50) NOT NULL,
+    countryId INT NOT NULL,
+    createDate DATETIME NOT NULL,
+    createdBy VARCHAR(40) NOT NULL,
+    lastUpdate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    lastUpdateBy VARCHAR(40) NOT NULL,
+    FOREIGN KEY (countryId) REFERENCES country (countryId));
+CREATE TABLE address (
+    addressId INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    address VARCHAR(50) NOT NULL,
+    address2 VARCHAR(50) NOT NULL,
+    cityId INT NOT NULL,
+    postalCode VARCHAR(10) NOT NULL,
+    phone VARCHAR(20) NOT NULL,
+    createDate DATETIME NOT NULL,
+    createdBy VARCHAR(40) NOT NULL,
+    lastUpdate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    lastUpdateBy VARCHAR(40) NOT NULL,
+    FOREIGN KEY (cityId) REFERENCES city (cityId));
+CREATE TABLE customer (
+    customerId INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    customerName VARCHAR(45) NOT NULL,
+    addressId INT NOT NULL,
+    active TINYINT(1) NOT NULL,
+    createDate DATETIME NOT NULL,
+    createdBy VARCHAR(40) NOT NULL,
+    lastUpdate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    lastUpdateBy VARCHAR(40) NOT NULL,
+    FOREIGN KEY (addressId) REFERENCES address (addressId));
+CREATE TABLE user (
+    userId INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    userName VARCHAR(50) NOT NULL,
+    password VARCHAR(50) NOT NULL,
+    active TINYINT NOT NULL,
+    createDate DATETIME NOT NULL,
+    createdBy VARCHAR(40) NOT NULL,
+    lastUpdate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    lastUpdateBy VARCHAR(40) NOT NULL);
+CREATE TABLE appointment (
+    appointmentId INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    customerId INT NOT NULL,
+    userId INT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT NOT NULL,
+    location TEXT NOT NULL,
+    contact VARCHAR(255) NOT NULL,
+    type TEXT NOT NULL,
+    url VARCHAR(255) NOT NULL,
+    start DATETIME NOT NULL,
+    end DATETIME NOT NULL,
+    createDate DATETIME NOT NULL,
+    createdBy VARCHAR(40) NOT NULL,
+    lastUpdate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    lastUpdateBy VARCHAR(40) NOT NULL,
+    FOREIGN KEY (customerId) REFERENCES customer (customerId),
+    FOREIGN KEY (userId) REFERENCES user (userId));
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+#
+# Builds a class data sharing archive of the classes loaded while the app starts, so later starts map
+# them from the archive instead of loading and verifying them again. Requires JDK 11 or later.
+#
+# Usage: bin/cds-archive.sh <classpath> [archive]
+#
+# The app is started once with -Dc195.startup.exit=true, which exits as soon as the login view is shown
+# and the db is ready, so the db configured for the app must be reachable. Afterwards start the app with
+#
+#   java -XX:SharedArchiveFile=<archive> -Xshare:auto -cp <classpath> com.c195.App
+#
+# The archive only applies to the exact classpath and JDK it was built with, so rebuild it after either
+# one changes. The time each startup phase took is logged on every start for comparison.
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "usage: $0 <classpath> [archive]" >&2
+    exit 1
+fi
+
+CLASSPATH_ARG="$1"
+ARCHIVE="${2:-c195.jsa}"
+CLASS_LIST="$(mktemp)"
+trap 'rm -f "$CLASS_LIST"' EXIT
+
+java -Xshare:off -XX:DumpLoadedClassList="$CLASS_LIST" -Dc195.startup.exit=true \
+    -cp "$CLASSPATH_ARG" com.c195.App
+
+java -Xshare:dump -XX:SharedClassListFile="$CLASS_LIST" -XX:SharedArchiveFile="$ARCHIVE" \
+    -cp "$CLASSPATH_ARG"
+
+echo "wrote $ARCHIVE"
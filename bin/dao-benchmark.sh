@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+#
+# Runs the DAO benchmark against a throwaway MySQL server started in docker, so the real SQL is measured
+# on the real engine without touching the app's db. The server is removed once the benchmark is over.
+#
+# Usage: bin/dao-benchmark.sh <classpath> [--name=value ...]
+#
+# The arguments after the classpath are passed on to com.c195.util.benchmark.DaoBenchmark, for example
+#
+#   bin/dao-benchmark.sh "$CP" --scales=10000,100000 --threads=1,4 --save-baseline=dao-baseline.properties
+#   bin/dao-benchmark.sh "$CP" --scales=10000,100000 --threads=1,4 --baseline=dao-baseline.properties
+#
+# BENCHMARK_CLASS runs another harness on the same server instead, such as the overlap check:
+#
+#   BENCHMARK_CLASS=com.c195.util.benchmark.OverlapCheck bin/dao-benchmark.sh "$CP" --history=100000
+#
+# The exit status is that of the benchmark, which is 1 when a result regressed against the baseline.
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "usage: $0 <classpath> [--name=value ...]" >&2
+    exit 1
+fi
+
+CLASSPATH_ARG="$1"
+shift
+IMAGE="${BENCHMARK_MYSQL_IMAGE:-mysql:8.0}"
+MAIN_CLASS="${BENCHMARK_CLASS:-com.c195.util.benchmark.DaoBenchmark}"
+PORT="${BENCHMARK_MYSQL_PORT:-33060}"
+CONTAINER="c195-benchmark-$$"
+CONFIG_DIR="$(mktemp -d)"
+trap 'docker rm -f "$CONTAINER" >/dev/null 2>&1 || true; rm -rf "$CONFIG_DIR"' EXIT
+
+docker run -d --name "$CONTAINER" -p "$PORT:3306" \
+    -e MYSQL_ROOT_PASSWORD=benchmark -e MYSQL_DATABASE=c195 \
+    "$IMAGE" --innodb-flush-log-at-trx-commit=2 >/dev/null
+
+until docker exec "$CONTAINER" mysql -uroot -pbenchmark -e 'SELECT 1' c195 >/dev/null 2>&1; do
+    sleep 1
+done
+
+# the base tables of the app's db, which the migrations add their indexes to
+docker exec -i "$CONTAINER" mysql -uroot -pbenchmark c195 2>/dev/null < "$(dirname "$0")/c195-schema.sql"
+
+cat > "$CONFIG_DIR/mysql.properties" <<PROPERTIES
+mysql.url=jdbc:mysql://127.0.0.1
+mysql.port=$PORT
+mysql.name=c195
+mysql.user=root
+mysql.pass=benchmark
+mysql.driver=com.mysql.cj.jdbc.Driver
+PROPERTIES
+
+java -cp "$CONFIG_DIR:$CLASSPATH_ARG" "$MAIN_CLASS" "$@"
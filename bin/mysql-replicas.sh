@@ -0,0 +1,84 @@
+#!/usr/bin/env bash
+#
+# Starts a MySQL primary and a replica of it in docker for trying out replica reads locally. The schema is
+# created on the primary and copied to the replica through replication, and a mysql.properties for the app
+# is written to the given directory, which is put ahead of the app's resources on the classpath.
+#
+# Usage: bin/mysql-replicas.sh <config-dir>
+#        bin/mysql-replicas.sh --stop
+#
+# The app's migrations run against the primary when it starts. To see reads fall back to the primary, stop
+# replication with
+#
+#   docker exec c195-replica mysql -uroot -preplicas -e 'STOP REPLICA SQL_THREAD'
+#
+# or pause the replica container, and watch the routing counters on the dashboard.
+
+set -euo pipefail
+
+IMAGE="${REPLICAS_MYSQL_IMAGE:-mysql:8.0}"
+PRIMARY_PORT="${REPLICAS_PRIMARY_PORT:-33070}"
+REPLICA_PORT="${REPLICAS_REPLICA_PORT:-33071}"
+NETWORK="c195-replicas"
+PRIMARY="c195-primary"
+REPLICA="c195-replica"
+PASSWORD="replicas"
+
+if [ "${1:-}" = "--stop" ]; then
+    docker rm -f "$PRIMARY" "$REPLICA" >/dev/null 2>&1 || true
+    docker network rm "$NETWORK" >/dev/null 2>&1 || true
+    exit 0
+fi
+
+if [ $# -lt 1 ]; then
+    echo "usage: $0 <config-dir> | --stop" >&2
+    exit 1
+fi
+
+CONFIG_DIR="$1"
+mkdir -p "$CONFIG_DIR"
+
+wait_for() {
+    until docker exec "$1" mysql -uroot -p"$PASSWORD" -e 'SELECT 1' >/dev/null 2>&1; do
+        sleep 1
+    done
+}
+
+docker network create "$NETWORK" >/dev/null
+docker run -d --name "$PRIMARY" --network "$NETWORK" -p "$PRIMARY_PORT:3306" \
+    -e MYSQL_ROOT_PASSWORD="$PASSWORD" -e MYSQL_DATABASE=c195 \
+    "$IMAGE" --server-id=1 --log-bin=mysql-bin --gtid-mode=ON --enforce-gtid-consistency=ON >/dev/null
+docker run -d --name "$REPLICA" --network "$NETWORK" -p "$REPLICA_PORT:3306" \
+    -e MYSQL_ROOT_PASSWORD="$PASSWORD" \
+    "$IMAGE" --server-id=2 --gtid-mode=ON --enforce-gtid-consistency=ON --super-read-only=ON >/dev/null
+wait_for "$PRIMARY"
+wait_for "$REPLICA"
+
+# the entrypoint's own setup is left out of the replica's history, so it starts from the schema
+docker exec -i "$PRIMARY" mysql -uroot -p"$PASSWORD" 2>/dev/null <<SQL
+RESET MASTER;
+CREATE USER 'replication'@'%' IDENTIFIED WITH mysql_native_password BY '$PASSWORD';
+GRANT REPLICATION SLAVE ON *.* TO 'replication'@'%';
+CREATE DATABASE IF NOT EXISTS c195;
+SQL
+docker exec -i "$PRIMARY" mysql -uroot -p"$PASSWORD" c195 2>/dev/null < "$(dirname "$0")/c195-schema.sql"
+docker exec -i "$REPLICA" mysql -uroot -p"$PASSWORD" 2>/dev/null <<SQL
+RESET MASTER;
+CHANGE MASTER TO MASTER_HOST='$PRIMARY', MASTER_USER='replication', MASTER_PASSWORD='$PASSWORD',
+    MASTER_AUTO_POSITION=1;
+START SLAVE;
+SQL
+
+cat > "$CONFIG_DIR/mysql.properties" <<PROPERTIES
+mysql.url=jdbc:mysql://127.0.0.1
+mysql.port=$PRIMARY_PORT
+mysql.name=c195
+mysql.user=root
+mysql.pass=$PASSWORD
+mysql.driver=com.mysql.cj.jdbc.Driver
+mysql.replica.urls=jdbc:mysql://127.0.0.1:$REPLICA_PORT
+mysql.replica.max.lag.seconds=5
+mysql.replica.lag.check.seconds=2
+PROPERTIES
+
+echo "primary on port $PRIMARY_PORT, replica on port $REPLICA_PORT, config written to $CONFIG_DIR/mysql.properties"
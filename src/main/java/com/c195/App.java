@@ -1,14 +1,42 @@
 package com.c195;
 
 import com.c195.controller.Controller;
+import com.c195.controller.View;
+import com.c195.controller.ViewRegistry;
+import com.c195.service.MessagingService;
+import com.c195.util.metrics.StartupTimer;
+import com.c195.util.recording.FlightRecording;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
+import java.util.concurrent.CompletableFuture;
+
 public class App extends Application {
 
+    /**
+     * Exits once the app has started, used for the training run that builds the class data sharing archive.
+     */
+    private static final String EXIT_AFTER_STARTUP = "c195.startup.exit";
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        Controller.eventViewHandler(getClass(), "view/login.fxml");
+        final StartupTimer startupTimer = StartupTimer.getInstance();
+        startupTimer.start("messages");
+        startupTimer.start("login.view");
+        // the messages and the db are readied in the background while the login view loads
+        CompletableFuture.runAsync(() -> {
+            MessagingService.getInstance();
+            startupTimer.end("messages");
+        });
+        CompletableFuture.runAsync(() -> FlightRecording.getInstance().start());
+        final CompletableFuture<?> bootstrap = Controller.bootstrapAsync();
+        ViewRegistry.getInstance().setStage(primaryStage);
+        ViewRegistry.getInstance().show(View.LOGIN);
+        startupTimer.end("login.view");
+        if (Boolean.getBoolean(EXIT_AFTER_STARTUP)) {
+            bootstrap.whenComplete((serviceResolver, e) -> Platform.runLater(Platform::exit));
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,17 @@
+package com.c195.common.appointment;
+
+import com.c195.util.event.ChangeEvent;
+import com.c195.util.event.ChangeType;
+
+import java.time.Instant;
+
+public class AppointmentChangeEvent extends ChangeEvent<AppointmentDTO> {
+
+    public AppointmentChangeEvent(ChangeType type, int appointmentId, AppointmentDTO appointmentDTO) {
+        super(type, appointmentId, appointmentDTO);
+    }
+
+    public AppointmentChangeEvent(ChangeType type, int appointmentId, AppointmentDTO appointmentDTO, Instant lastUpdate) {
+        super(type, appointmentId, appointmentDTO, lastUpdate);
+    }
+}
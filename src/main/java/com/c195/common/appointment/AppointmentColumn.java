@@ -0,0 +1,11 @@
+package com.c195.common.appointment;
+
+public enum AppointmentColumn {
+
+    TITLE,
+    LOCATION,
+    CUSTOMER,
+    TYPE,
+    START,
+    END
+}
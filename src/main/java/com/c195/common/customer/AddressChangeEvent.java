@@ -0,0 +1,11 @@
+package com.c195.common.customer;
+
+import com.c195.util.event.ChangeEvent;
+import com.c195.util.event.ChangeType;
+
+public class AddressChangeEvent extends ChangeEvent<AddressDTO> {
+
+    public AddressChangeEvent(ChangeType type, int addressId, AddressDTO addressDTO) {
+        super(type, addressId, addressDTO);
+    }
+}
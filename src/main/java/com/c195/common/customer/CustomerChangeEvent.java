@@ -0,0 +1,17 @@
+package com.c195.common.customer;
+
+import com.c195.util.event.ChangeEvent;
+import com.c195.util.event.ChangeType;
+
+import java.time.Instant;
+
+public class CustomerChangeEvent extends ChangeEvent<CustomerDTO> {
+
+    public CustomerChangeEvent(ChangeType type, int customerId, CustomerDTO customerDTO) {
+        super(type, customerId, customerDTO);
+    }
+
+    public CustomerChangeEvent(ChangeType type, int customerId, CustomerDTO customerDTO, Instant lastUpdate) {
+        super(type, customerId, customerDTO, lastUpdate);
+    }
+}
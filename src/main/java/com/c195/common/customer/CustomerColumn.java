@@ -0,0 +1,10 @@
+package com.c195.common.customer;
+
+public enum CustomerColumn {
+
+    ID,
+    NAME,
+    ADDRESS,
+    PHONE,
+    STATUS
+}
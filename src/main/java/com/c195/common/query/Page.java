@@ -0,0 +1,61 @@
+package com.c195.common.query;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A window of query results along with the query for the window that follows it.
+ *
+ * @param <T> the type of the rows.
+ * @param <C> the columns of the query.
+ */
+public class Page<T, C extends Enum<C>> {
+
+    private final List<T> items;
+    private final QuerySpec<C> nextSpec;
+
+    private Page(List<T> items, QuerySpec<C> nextSpec) {
+        this.items = items;
+        this.nextSpec = nextSpec;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasMore() {
+        return nextSpec != null;
+    }
+
+    public Optional<QuerySpec<C>> getNextSpec() {
+        return Optional.ofNullable(nextSpec);
+    }
+
+    /**
+     * Creates a page from rows that were fetched with a limit of one more than the page size.
+     * The extra row is only used to tell whether another page exists and is dropped.
+     *
+     * @param rows      fetched for the page, at most page size + 1.
+     * @param spec      the query that produced the rows.
+     * @param sortValue extracts the value of a sort column from a row.
+     * @param id        extracts the id of a row.
+     * @return the page, including the keyset query for the next page if there is one.
+     */
+    public static <T, C extends Enum<C>> Page<T, C> of(List<T> rows,
+                                                       QuerySpec<C> spec,
+                                                       BiFunction<T, C, Object> sortValue,
+                                                       Function<T, Integer> id) {
+        if (rows.size() <= spec.getPageSize()) {
+            return new Page<>(Collections.unmodifiableList(rows), null);
+        }
+        final List<T> items = rows.subList(0, spec.getPageSize());
+        final T last = items.get(items.size() - 1);
+        final QuerySpec<C> nextSpec = spec.toBuilder()
+                .withKeyset(sortValue.apply(last, spec.getSortColumn()), id.apply(last))
+                .build();
+        return new Page<>(Collections.unmodifiableList(items), nextSpec);
+    }
+}
@@ -0,0 +1,158 @@
+package com.c195.common.query;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Describes a single page of a table query: prefix filters per column, the column to sort by
+ * and where the page starts.
+ * <p>
+ * A page can start either at an offset or directly after the sort value and id of the last row
+ * of the previous page (keyset). Keyset pages cost the same no matter how deep into the table they
+ * are, so they are preferred when scrolling. Offsets are only useful for jumping to a position.
+ *
+ * @param <C> the columns that can be filtered and sorted on.
+ */
+public class QuerySpec<C extends Enum<C>> {
+
+    private final Map<C, String> filters;
+    private final C sortColumn;
+    private final SortDirection sortDirection;
+    private final int offset;
+    private final Object afterSortValue;
+    private final Integer afterId;
+    private final int pageSize;
+
+    private QuerySpec(Builder<C> builder) {
+        this.filters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.filters));
+        this.sortColumn = builder.sortColumn;
+        this.sortDirection = builder.sortDirection;
+        this.offset = builder.offset;
+        this.afterSortValue = builder.afterSortValue;
+        this.afterId = builder.afterId;
+        this.pageSize = builder.pageSize;
+    }
+
+    public Map<C, String> getFilters() {
+        return filters;
+    }
+
+    public C getSortColumn() {
+        return sortColumn;
+    }
+
+    public SortDirection getSortDirection() {
+        return sortDirection;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean hasKeyset() {
+        return afterId != null;
+    }
+
+    public Object getAfterSortValue() {
+        return afterSortValue;
+    }
+
+    public Optional<Integer> getAfterId() {
+        return Optional.ofNullable(afterId);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Creates a builder with the same filters, sort and page size but no starting position.
+     *
+     * @return a builder for the first page of the same query.
+     */
+    public Builder<C> toBuilder() {
+        final Builder<C> builder = new Builder<C>()
+                .withSort(sortColumn, sortDirection)
+                .withPageSize(pageSize);
+        filters.forEach(builder::withFilter);
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final QuerySpec<?> that = (QuerySpec<?>) o;
+        return offset == that.offset
+                && pageSize == that.pageSize
+                && filters.equals(that.filters)
+                && sortColumn == that.sortColumn
+                && sortDirection == that.sortDirection
+                && Objects.equals(afterSortValue, that.afterSortValue)
+                && Objects.equals(afterId, that.afterId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filters, sortColumn, sortDirection, offset, afterSortValue, afterId, pageSize);
+    }
+
+    public static class Builder<C extends Enum<C>> {
+
+        private final Map<C, String> filters = new LinkedHashMap<>();
+        private C sortColumn;
+        private SortDirection sortDirection = SortDirection.ASCENDING;
+        private int offset;
+        private Object afterSortValue;
+        private Integer afterId;
+        private int pageSize = 100;
+
+        public Builder<C> withFilter(C column, String prefix) {
+            if (prefix == null || prefix.isEmpty()) {
+                this.filters.remove(column);
+            } else {
+                this.filters.put(column, prefix);
+            }
+            return this;
+        }
+
+        public Builder<C> withSort(C sortColumn, SortDirection sortDirection) {
+            this.sortColumn = sortColumn;
+            this.sortDirection = sortDirection;
+            return this;
+        }
+
+        public Builder<C> withOffset(int offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder<C> withKeyset(Object afterSortValue, int afterId) {
+            this.afterSortValue = afterSortValue;
+            this.afterId = afterId;
+            return this;
+        }
+
+        public Builder<C> withPageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public QuerySpec<C> build() {
+            if (sortColumn == null) {
+                throw new IllegalStateException("Sort column is required");
+            }
+            if (pageSize <= 0) {
+                throw new IllegalStateException("Page size must be positive");
+            }
+            return new QuerySpec<>(this);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.c195.common.query;
+
+public enum SortDirection {
+
+    ASCENDING("ASC"),
+    DESCENDING("DESC");
+
+    private final String keyword;
+
+    SortDirection(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+}
@@ -0,0 +1,32 @@
+package com.c195.common.report;
+
+import java.util.Arrays;
+
+public enum ExportFormat {
+
+    CSV("CSV", "csv"),
+    JSON("JSON", "json");
+
+    private final String name;
+    private final String extension;
+
+    ExportFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat fromName(String name) {
+        return Arrays.stream(ExportFormat.values())
+                .filter(format -> format.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new ReportException("Export format not found for " + name));
+    }
+}
@@ -2,27 +2,64 @@ package com.c195.controller;
 
 import com.c195.common.CheckedSupplier;
 import com.c195.dao.DAOException;
+import com.c195.dao.MysqlRepositoryFactory;
+import com.c195.dao.QueryPlanVerifier;
+import com.c195.dao.coalescing.CoalescingRepositoryFactory;
 import com.c195.dao.config.DAOConfigException;
 import com.c195.dao.config.MysqlConfig;
 import com.c195.dao.config.MysqlConnection;
+import com.c195.dao.config.PersistenceBackend;
+import com.c195.dao.config.PersistenceConfig;
+import com.c195.dao.embedded.EmbeddedRepositoryFactory;
+import com.c195.dao.embedded.ReplicaRepositoryFactory;
+import com.c195.dao.jdbc.CancellationInterceptor;
+import com.c195.dao.jdbc.CircuitBreakerInterceptor;
+import com.c195.dao.jdbc.FlightRecorderInterceptor;
+import com.c195.dao.jdbc.InterceptingConnection;
+import com.c195.dao.jdbc.MetricsInterceptor;
+import com.c195.dao.jdbc.QueryTimeoutInterceptor;
+import com.c195.dao.jdbc.ReadRetryInterceptor;
+import com.c195.dao.jdbc.SlowQueryInterceptor;
+import com.c195.dao.jdbc.StatementInterceptor;
+import com.c195.dao.jdbc.TracingInterceptor;
+import com.c195.dao.migration.MigrationRunner;
+import com.c195.dao.repository.RepositoryFactory;
+import com.c195.dao.routing.ReplicaRouter;
 import com.c195.service.MessagingService;
 import com.c195.service.ServiceResolver;
-import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
+import com.c195.util.concurrent.CancellationToken;
+import com.c195.util.concurrent.Priority;
+import com.c195.util.concurrent.PriorityExecutor;
+import com.c195.util.event.EventBus;
+import com.c195.util.event.Subscription;
+import com.c195.util.logging.Logger;
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.StartupTimer;
+import com.c195.util.recording.NavigationEvent;
+import com.c195.util.recording.ServiceRequestEvent;
+import com.c195.util.security.SecurityConfig;
+import com.c195.util.security.SecurityConfigException;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
-import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
 import java.sql.Connection;
 import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -30,32 +67,122 @@ import java.util.function.Function;
  */
 public class Controller implements Initializable {
 
-    private static final String TITLE = "C195 Scheduling App";
+    private static final Logger logger = Logger.getLogger(Controller.class);
+    private static final Duration READ_RETRY_MAX_BACKOFF = Duration.ofSeconds(1);
+    /**
+     * Two of the threads are kept for interactive requests, and background work such as building the
+     * search index only gets a couple, so neither reports nor warm-ups can take every thread. They still
+     * share the one db connection with interactive requests, which wait for the statement running on it.
+     */
+    private static final PriorityExecutor backgroundExecutor = new PriorityExecutor.Builder("service-request")
+            .withMaxThreads(8)
+            .withReservedForInteractive(2)
+            .withLimit(Priority.NORMAL, 4)
+            .withLimit(Priority.BACKGROUND, 2)
+            .withAging(Duration.ofSeconds(2))
+            .build(MetricRegistry.getInstance());
+
+    static {
+        final MetricRegistry metricRegistry = MetricRegistry.getInstance();
+        metricRegistry.gauge("executor.service-request.active", backgroundExecutor::getActiveCount);
+        metricRegistry.gauge("executor.service-request.threads", backgroundExecutor::getPoolSize);
+    }
 
-    private Clock clock;
     private static ServiceResolver serviceResolver;
+    private static volatile RepositoryFactory repositoryFactory;
+    private static volatile ReplicaRouter replicaRouter;
+    private static CompletableFuture<ServiceResolver> bootstrap;
+    private static volatile CancellationToken viewToken = new CancellationToken();
+    private final List<Subscription> subscriptions = new ArrayList<>();
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        this.clock = Clock.systemUTC();
     }
 
     /**
-     * Provides a service resolver instance populated with a database connection
+     * Provides a service resolver instance populated with the configured repositories
      * and clock. Used to more conveniently access the different service classes
      * without having to initialize all of their dependencies.
+     * <p>
+     * Waits for {@link #bootstrapAsync()} if it is still running, or runs it if it has not run yet.
      *
      * @return an instance of {@link ServiceResolver}
      */
     protected ServiceResolver serviceResolver() {
         if (serviceResolver == null) {
-            serviceResolver = getDatabaseConnection()
-                    .map(connection -> new ServiceResolver(connection, clock))
-                    .orElse(null);
+            try {
+                serviceResolver = bootstrapAsync().join();
+            } catch (CompletionException e) {
+                bootstrapFailed();
+                if (e.getCause() instanceof DAOConfigException || e.getCause() instanceof DAOException) {
+                    databaseAlert().showAndWait();
+                } else {
+                    unexpectedAlert().showAndWait();
+                }
+            }
         }
         return serviceResolver;
     }
 
+    /**
+     * Same as {@link #serviceResolver()} but for use off of the FX thread, where the alerts cannot be shown.
+     *
+     * @return an instance of {@link ServiceResolver}
+     * @throws DAOException if the persistence backend could not be opened.
+     */
+    protected static ServiceResolver awaitServiceResolver() throws DAOException {
+        try {
+            return bootstrapAsync().join();
+        } catch (CompletionException e) {
+            bootstrapFailed();
+            if (e.getCause() instanceof DAOException) {
+                throw (DAOException) e.getCause();
+            } else if (e.getCause() instanceof DAOConfigException) {
+                throw new DAOException(e.getCause().getMessage(), e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the persistence backend and builds the services on a background thread, so the connection,
+     * migrations and search index are readied while the login view loads and waits for the user.
+     * The bootstrap only runs once, unless it fails, in which case it runs again when next asked for.
+     *
+     * @return the service resolver once the services are ready.
+     */
+    public static synchronized CompletableFuture<ServiceResolver> bootstrapAsync() {
+        if (bootstrap == null) {
+            final StartupTimer startupTimer = StartupTimer.getInstance();
+            startupTimer.start("bootstrap");
+            bootstrap = CompletableFuture.supplyAsync(() -> {
+                try {
+                    final SecurityConfig securityConfig = SecurityConfig.getInstance();
+                    final PersistenceConfig persistenceConfig = PersistenceConfig.getInstance();
+                    startupTimer.start("persistence");
+                    final RepositoryFactory repositoryFactory = openRepositoryFactory(persistenceConfig);
+                    startupTimer.end("persistence");
+                    final ServiceResolver serviceResolver =
+                            new ServiceResolver(repositoryFactory, securityConfig, persistenceConfig, Clock.systemUTC());
+                    serviceResolver.getSearchService()
+                            .buildIndexAsync(backgroundExecutor.forPriority(Priority.BACKGROUND));
+                    serviceResolver.getChangeDetectionService().start();
+                    // reads the reports kept from the last run and follows the changes made from now on
+                    serviceResolver.getReportCache();
+                    startupTimer.end("bootstrap");
+                    return serviceResolver;
+                } catch (SecurityConfigException | DAOConfigException | DAOException e) {
+                    throw new CompletionException(e);
+                }
+            }, backgroundExecutor.forPriority(Priority.INTERACTIVE)); // the login waits on it
+        }
+        return bootstrap;
+    }
+
+    private static synchronized void bootstrapFailed() {
+        bootstrap = null;
+    }
+
     /**
      * Provides a confirmation dialogue before handling the given service operation.
      *
@@ -96,37 +223,176 @@ public class Controller implements Initializable {
      * @return optional value of what is expected from the service operation.
      */
     protected static <T> Optional<T> serviceRequestHandler(CheckedSupplier<T> checkedSupplier) {
+        final ServiceRequestEvent event = newServiceRequestEvent(false);
+        event.begin();
         try {
-            return Optional.ofNullable(checkedSupplier.getWithIO());
+            final Optional<T> result = Optional.ofNullable(checkedSupplier.getWithIO());
+            commitServiceRequestEvent(event, null);
+            return result;
         } catch (DAOException e) {
+            commitServiceRequestEvent(event, e);
+            Tracer.getInstance().getCurrentSpan().ifPresent(span -> span.setFailure(e));
             databaseAlert().showAndWait();
         }
         return Optional.empty();
     }
 
+    /**
+     * Same as {@link #serviceRequestHandler(CheckedSupplier)} but performs the service operation on a
+     * background thread, for operations that are too slow to run on the FX thread.
+     *
+     * <p>
+     * The queries of the operation are cancelled if the user navigates to another view before it is done,
+     * in which case the result is empty and no alert is shown.
+     *
+     * @param checkedSupplier the service operation to be performed as a supplier.
+     * @param resultConsumer  receives the result of the service operation on the FX thread,
+     *                        empty if the operation failed or was cancelled.
+     * @param <T>             the return type expected from the service operation.
+     */
+    protected static <T> void asyncServiceRequestHandler(CheckedSupplier<T> checkedSupplier,
+                                                         Consumer<Optional<T>> resultConsumer) {
+        asyncServiceRequestHandler(Priority.INTERACTIVE, checkedSupplier, resultConsumer);
+    }
+
+    /**
+     * Same as {@link #asyncServiceRequestHandler(CheckedSupplier, Consumer)} but for operations that are
+     * less urgent than the user's interactions, which run once no more urgent operations are waiting.
+     *
+     * @param priority        how urgently the result is wanted.
+     * @param checkedSupplier the service operation to be performed as a supplier.
+     * @param resultConsumer  receives the result of the service operation on the FX thread,
+     *                        empty if the operation failed or was cancelled.
+     * @param <T>             the return type expected from the service operation.
+     */
+    protected static <T> void asyncServiceRequestHandler(Priority priority,
+                                                         CheckedSupplier<T> checkedSupplier,
+                                                         Consumer<Optional<T>> resultConsumer) {
+        final CancellationToken token = viewToken;
+        final ServiceRequestEvent requestEvent = newServiceRequestEvent(true);
+        final long queuedNanos = System.nanoTime();
+        // runs within the span of the action that requested it, which may have ended by the time it runs
+        final CheckedSupplier<T> tracedSupplier = Tracer.getInstance().wrap(() -> {
+            final long queueNanos = System.nanoTime() - queuedNanos;
+            try (SpanScope scope = Tracer.getInstance().startSpan("Controller.asyncServiceRequestHandler")) {
+                scope.getSpan().setAttribute("queueMicros", TimeUnit.NANOSECONDS.toMicros(queueNanos))
+                        .setAttribute("priority", priority.name());
+                requestEvent.queueTime = queueNanos;
+                requestEvent.begin();
+                try {
+                    final T result = checkedSupplier.getWithIO();
+                    commitServiceRequestEvent(requestEvent, null);
+                    return result;
+                } catch (DAOException | RuntimeException e) {
+                    commitServiceRequestEvent(requestEvent, e);
+                    scope.getSpan().setFailure(e);
+                    throw e;
+                }
+            }
+        });
+        final CheckedSupplier<T> cancellableSupplier = token.wrap(tracedSupplier);
+        final Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws DAOException {
+                return cancellableSupplier.getWithIO();
+            }
+        };
+        task.setOnSucceeded(event -> resultConsumer.accept(Optional.ofNullable(task.getValue())));
+        task.setOnFailed(event -> {
+            if (token.isCancelled()) {
+                logger.log("cancelled a service request of a view that is no longer shown");
+            } else if (task.getException() instanceof DAOException) {
+                databaseAlert().showAndWait();
+            } else {
+                unexpectedAlert().showAndWait();
+            }
+            resultConsumer.accept(Optional.empty());
+        });
+        backgroundExecutor.execute(priority, task);
+    }
+
+    /**
+     * Subscribes to events on the {@link EventBus} for as long as the view stays loaded, which for cached
+     * views includes the time they are not shown, so they are current when they are shown again.
+     * Events are handed to the subscriber on the FX thread, so it is free to update the view.
+     *
+     * @param eventType  the class of the events.
+     * @param subscriber receives each event.
+     * @param <E>        the type of the events.
+     */
+    protected <E> void subscribeWhileLoaded(Class<E> eventType, Consumer<? super E> subscriber) {
+        subscriptions.add(EventBus.getInstance()
+                .subscribe(eventType, event -> Platform.runLater(() -> subscriber.accept(event))));
+    }
+
+    /**
+     * Called each time the view is shown, including the first time right after it is loaded.
+     */
+    protected void onShow() {
+    }
+
+    /**
+     * Called each time another view is shown in place of this one.
+     */
+    protected void onHide() {
+    }
+
+    /**
+     * Called once the view is discarded by the {@link ViewRegistry}.
+     */
+    final void dispose() {
+        subscriptions.forEach(Subscription::cancel);
+        subscriptions.clear();
+    }
+
     /**
      * Wraps the view transitioning functionality, which is expected to be consistent across
-     * all sections of the app.
+     * all sections of the app. The queries still running for the view being left are cancelled.
      *
-     * @param actionEvent event that corresponds with the transition.
-     * @param clazz       controller class.
-     * @param viewPath    path of the view to transition to.
+     * @param view the view to transition to.
      */
-    protected void eventViewHandler(ActionEvent actionEvent, Class<?> clazz, String viewPath) {
+    protected static void eventViewHandler(View view) {
+        final CancellationToken previousToken = viewToken;
+        viewToken = new CancellationToken();
+        previousToken.cancel();
+        final NavigationEvent event = new NavigationEvent();
+        event.begin();
+        event.view = view.name();
         try {
-            viewHandler(actionEvent, clazz, viewPath);
+            ViewRegistry.getInstance().show(view);
+            event.commit();
         } catch (IOException e) {
+            event.failed = true;
+            event.commit();
             unexpectedAlert().showAndWait();
         }
     }
 
-    public static void eventViewHandler(Class<?> clazz, String viewPath) throws IOException {
-        setStage(FXMLLoader.load(clazz.getResource(viewPath)));
+    /**
+     * @param asynchronous whether the operation runs in the background.
+     * @return an event naming the controller method that requested the operation, which is only looked up
+     * while a flight recording is running.
+     */
+    private static ServiceRequestEvent newServiceRequestEvent(boolean asynchronous) {
+        final ServiceRequestEvent event = new ServiceRequestEvent();
+        event.asynchronous = asynchronous;
+        if (event.isEnabled()) {
+            event.caller = StackWalker.getInstance().walk(frames -> frames
+                    .filter(frame -> !frame.getClassName().equals(Controller.class.getName()))
+                    .findFirst()
+                    .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                            + "." + frame.getMethodName())
+                    .orElse(null));
+        }
+        return event;
     }
 
-    protected static void eventStageHandler(ActionEvent actionEvent, Parent parent) {
-        ((Node) (actionEvent.getSource())).getScene().getWindow().hide();
-        setStage(parent);
+    private static void commitServiceRequestEvent(ServiceRequestEvent event, Exception failure) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = failure == null ? "succeeded" : failure.getClass().getSimpleName();
+            event.commit();
+        }
     }
 
     protected static Alert infoAlert(String title, String header, String content) {
@@ -137,11 +403,6 @@ public class Controller implements Initializable {
         return alert(title, header, content, Alert.AlertType.ERROR);
     }
 
-    private static void viewHandler(ActionEvent actionEvent, Class<?> clazz, String viewPath) throws IOException {
-        ((Node) (actionEvent.getSource())).getScene().getWindow().hide();
-        eventViewHandler(clazz, viewPath);
-    }
-
     private static Alert confirmationAlert() {
         final MessagingService messagingService = ServiceResolver.getMessagingService();
         return infoAlert(messagingService.getConfirmationTitle(),
@@ -163,27 +424,87 @@ public class Controller implements Initializable {
                 messagingService.getUnexpectedErrorContent());
     }
 
-    private static void setStage(Parent parent) {
-        final Scene scene = new Scene(parent);
-        final Stage stage = new Stage();
-        stage.setTitle(TITLE);
-        stage.setScene(scene);
-        stage.show();
-        stage.setOnCloseRequest(windowEvent -> closeDatabaseConnection());
+    /**
+     * Opens the configured persistence backend. For MySQL this connects to the database and
+     * brings its schema up to date before anything else uses it. The replica connects to
+     * MySQL the same way, but only once it is reachable. Whichever backend it is, identical queries
+     * running at the same time are shared.
+     */
+    private static RepositoryFactory openRepositoryFactory(PersistenceConfig persistenceConfig)
+            throws DAOConfigException, DAOException {
+        final RepositoryFactory backendFactory;
+        if (persistenceConfig.getBackend() == PersistenceBackend.EMBEDDED) {
+            backendFactory = EmbeddedRepositoryFactory.open(persistenceConfig, Clock.systemUTC());
+        } else if (persistenceConfig.getBackend() == PersistenceBackend.REPLICA) {
+            backendFactory = ReplicaRepositoryFactory.open(persistenceConfig,
+                    () -> new MysqlRepositoryFactory(getDatabaseConnection()));
+        } else {
+            backendFactory = new MysqlRepositoryFactory(getDatabaseConnection());
+        }
+        repositoryFactory = new CoalescingRepositoryFactory(backendFactory, MetricRegistry.getInstance());
+        return repositoryFactory;
     }
 
-    private static Optional<Connection> getDatabaseConnection() {
-        try {
-            return Optional.ofNullable(MysqlConnection.getInstance(MysqlConfig.getInstance()));
-        } catch (DAOConfigException e) {
-            databaseAlert().showAndWait();
+    private static Connection getDatabaseConnection() throws DAOConfigException, DAOException {
+        final MysqlConfig mysqlConfig = MysqlConfig.getInstance();
+        final Connection connection = InterceptingConnection.wrap(
+                routeReads(MysqlConnection.getInstance(mysqlConfig), mysqlConfig),
+                getStatementInterceptors(mysqlConfig));
+        MigrationRunner.getInstance(connection, Clock.systemUTC()).migrate();
+        if (mysqlConfig.isQueryPlanVerificationEnabled()) {
+            new QueryPlanVerifier(connection).getUnindexedQueries().forEach(logger::log);
         }
-        return Optional.empty();
+        return connection;
+    }
+
+    /**
+     * @return the primary connection, or one that sends the reads of read-only service methods to the
+     * replicas when any are configured. The replicas are connected to once, however often the remote db
+     * is opened.
+     */
+    private static synchronized Connection routeReads(Connection primary, MysqlConfig mysqlConfig) {
+        if (mysqlConfig.getReplicaURLs().isEmpty()) {
+            return primary;
+        }
+        if (replicaRouter == null) {
+            replicaRouter = ReplicaRouter.open(primary, mysqlConfig, MetricRegistry.getInstance());
+        }
+        return replicaRouter.getConnection();
+    }
+
+    /**
+     * @return what every statement the DAOs execute is run through, outermost first.
+     */
+    private static List<StatementInterceptor> getStatementInterceptors(MysqlConfig mysqlConfig) {
+        final List<StatementInterceptor> interceptors = new ArrayList<>();
+        interceptors.add(new FlightRecorderInterceptor());
+        interceptors.add(new TracingInterceptor(Tracer.getInstance()));
+        interceptors.add(new MetricsInterceptor(MetricRegistry.getInstance()));
+        mysqlConfig.getSlowQueryThreshold().ifPresent(threshold ->
+                interceptors.add(new SlowQueryInterceptor(threshold, mysqlConfig.isSlowQueryExplainEnabled())));
+        // each retry goes through the circuit breaker, which fails it right away once the db is down
+        interceptors.add(new ReadRetryInterceptor(mysqlConfig.getReadRetries(), mysqlConfig.getReadRetryBackoff(),
+                READ_RETRY_MAX_BACKOFF, MetricRegistry.getInstance()));
+        interceptors.add(new CircuitBreakerInterceptor(mysqlConfig.getCircuitFailureThreshold(),
+                mysqlConfig.getCircuitOpenDuration(), MetricRegistry.getInstance()));
+        interceptors.add(new CancellationInterceptor());
+        interceptors.add(new QueryTimeoutInterceptor(mysqlConfig.getQueryTimeout(), mysqlConfig.getQueryTimeouts(),
+                MetricRegistry.getInstance()));
+        return interceptors;
     }
 
-    private static void closeDatabaseConnection() throws RuntimeException {
+    static void closeDatabaseConnection() throws RuntimeException {
         try {
-            MysqlConnection.close();
+            if (serviceResolver != null) {
+                serviceResolver.getChangeDetectionService().stop();
+            }
+            if (replicaRouter != null) {
+                replicaRouter.close();
+                replicaRouter = null;
+            }
+            if (repositoryFactory != null) {
+                repositoryFactory.close();
+            }
         } catch (DAOConfigException e) {
             throw new RuntimeException(e);
         }
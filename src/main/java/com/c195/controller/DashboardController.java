@@ -0,0 +1,300 @@
+package com.c195.controller;
+
+import com.c195.util.concurrent.Priority;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.Gauge;
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.Timer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Shows the health of the app as it runs: how busy the service threads and the db connection are, how long
+ * work waits for a thread at each priority, how well the caches do, where reads are routed, how the db has
+ * been failing, how long each DAO statement takes, the reminder lookups, the logger, and the heap and GC.
+ * <p>
+ * Everything is read from the {@link MetricRegistry} and the JVM's management beans once every
+ * {@link #REFRESH_INTERVAL} while the view is shown. Reading them only sums a few counters, and only the
+ * labels and cells whose text changed are updated, so refreshing takes little of the FX thread.
+ */
+public class DashboardController extends Controller implements Initializable {
+
+    private static final javafx.util.Duration REFRESH_INTERVAL = javafx.util.Duration.seconds(1);
+    private static final String DAO_TIMER_PREFIX = "dao.";
+    private static final String ROUTING_REPLICA_PREFIX = "routing.replica.";
+    private static final String[] CIRCUIT_STATES = {"closed", "open", "trying the db again"};
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    @FXML
+    private Label serviceThreadsLabel;
+
+    @FXML
+    private Label activeStatementsLabel;
+
+    @FXML
+    private Label reportCacheLabel;
+
+    @FXML
+    private Label coalescedLabel;
+
+    @FXML
+    private Label reminderLabel;
+
+    @FXML
+    private Label loggerLabel;
+
+    @FXML
+    private Label heapLabel;
+
+    @FXML
+    private Label gcLabel;
+
+    @FXML
+    private Label routingLabel;
+
+    @FXML
+    private Label failuresLabel;
+
+    @FXML
+    private Label queueWaitLabel;
+
+    @FXML
+    private TableView<StatementLatency> statementTable;
+
+    @FXML
+    private TableColumn<StatementLatency, String> statementColumn;
+
+    @FXML
+    private TableColumn<StatementLatency, Number> countColumn;
+
+    @FXML
+    private TableColumn<StatementLatency, String> meanColumn;
+
+    @FXML
+    private TableColumn<StatementLatency, String> p95Column;
+
+    @FXML
+    private TableColumn<StatementLatency, String> maxColumn;
+
+    @FXML
+    private BarChart<String, Number> latencyChart;
+
+    private final MetricRegistry metricRegistry = MetricRegistry.getInstance();
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Map<String, StatementLatency> statementLatencies = new HashMap<>();
+    private final XYChart.Series<String, Number> histogram = new XYChart.Series<>();
+    private Timeline refreshTimeline;
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        super.initialize(url, resourceBundle);
+        statementColumn.setCellValueFactory(c -> c.getValue().name);
+        countColumn.setCellValueFactory(c -> c.getValue().count);
+        meanColumn.setCellValueFactory(c -> c.getValue().mean);
+        p95Column.setCellValueFactory(c -> c.getValue().p95);
+        maxColumn.setCellValueFactory(c -> c.getValue().max);
+        statementTable.getSelectionModel().selectedItemProperty()
+                .addListener((observable, oldValue, newValue) -> refreshHistogram());
+
+        for (Duration bound : Timer.getBucketBounds()) {
+            histogram.getData().add(new XYChart.Data<>("<=" + bound.toMillis() + "ms", 0L));
+        }
+        histogram.getData().add(new XYChart.Data<>(">" + lastBound().toMillis() + "ms", 0L));
+        latencyChart.getData().add(histogram);
+
+        refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, actionEvent -> refresh()));
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    @Override
+    protected void onShow() {
+        refresh();
+        refreshTimeline.play();
+    }
+
+    @Override
+    protected void onHide() {
+        refreshTimeline.stop();
+    }
+
+    @FXML
+    public void back(ActionEvent actionEvent) {
+        eventViewHandler(View.MAIN);
+    }
+
+    private void refresh() {
+        final Map<String, Gauge> gauges = metricRegistry.getGauges();
+        final Map<String, Counter> counters = metricRegistry.getCounters();
+        final Map<String, Timer> timers = metricRegistry.getTimers();
+
+        serviceThreadsLabel.setText(String.format("%d busy of %d",
+                gaugeValue(gauges, "executor.service-request.active"),
+                gaugeValue(gauges, "executor.service-request.threads")));
+        activeStatementsLabel.setText(String.format("%d executing on the connection",
+                gaugeValue(gauges, "dao.statements.active")));
+        final long hits = count(counters, "report.cache.hits");
+        final long misses = count(counters, "report.cache.misses");
+        reportCacheLabel.setText(hits + misses == 0
+                ? "no reports built yet"
+                : String.format("%.0f%% hits (%d hits, %d misses)", 100.0 * hits / (hits + misses), hits, misses));
+        coalescedLabel.setText(String.format("%d queries shared with one in flight",
+                count(counters, "repository.coalesced")));
+        final Timer reminderTimer = metricRegistry.timer("reminder.lookup.latency");
+        reminderLabel.setText(String.format("%d lookups, %d with appointments due, mean %s",
+                reminderTimer.getCount(), count(counters, "reminder.due"), formatMillis(reminderTimer.getMean())));
+        final Timer writeTimer = metricRegistry.timer("logger.write.latency");
+        loggerLabel.setText(String.format("%d writes pending, mean %s, max %s",
+                gaugeValue(gauges, "logger.writes.pending"),
+                formatMillis(writeTimer.getMean()),
+                formatMillis(writeTimer.getMax())));
+        final MemoryUsage heap = memoryMXBean.getHeapMemoryUsage();
+        heapLabel.setText(String.format("%d MB used of %d MB committed, %s max",
+                heap.getUsed() / BYTES_PER_MB,
+                heap.getCommitted() / BYTES_PER_MB,
+                heap.getMax() < 0 ? "no" : heap.getMax() / BYTES_PER_MB + " MB"));
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean garbageCollectorMXBean : garbageCollectorMXBeans) {
+            collections += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+            collectionMillis += Math.max(0, garbageCollectorMXBean.getCollectionTime());
+        }
+        gcLabel.setText(String.format("%d collections taking %d ms in total", collections, collectionMillis));
+        routingLabel.setText(String.format("%d reads on replicas, %d reads and %d writes on the primary, "
+                        + "%d fallbacks after a write, %d with no replica available",
+                sumCounts(counters, ROUTING_REPLICA_PREFIX, ".reads"),
+                count(counters, "routing.primary.reads"),
+                count(counters, "routing.primary.writes"),
+                count(counters, "routing.fallback.recent-write"),
+                count(counters, "routing.fallback.unavailable")));
+        failuresLabel.setText(String.format("circuit %s, %d statements failed fast, %d timed out, %d reads retried",
+                CIRCUIT_STATES[(int) gaugeValue(gauges, "db.circuit.state")],
+                count(counters, "db.circuit.rejected"),
+                count(counters, "dao.timeouts"),
+                count(counters, "dao.retries")));
+        final StringBuilder queueWait = new StringBuilder();
+        for (Priority priority : Priority.values()) {
+            final String name = priority.getMetricName();
+            final Timer waitTimer = metricRegistry.timer("executor." + name + ".queue.wait");
+            queueWait.append(queueWait.length() == 0 ? "" : ", ")
+                    .append(String.format("%s %d queued, p95 %s", name,
+                            gaugeValue(gauges, "executor." + name + ".queued"),
+                            formatMillis(waitTimer.getPercentile(0.95))));
+        }
+        queueWaitLabel.setText(queueWait.toString());
+
+        timers.forEach((name, timer) -> {
+            if (name.startsWith(DAO_TIMER_PREFIX)) {
+                statementLatencies.computeIfAbsent(name, this::addStatementLatency).update(timer);
+            }
+        });
+        refreshHistogram();
+    }
+
+    /**
+     * Shows the histogram of the selected statement, or of every statement if none is selected.
+     */
+    private void refreshHistogram() {
+        final StatementLatency selected = statementTable.getSelectionModel().getSelectedItem();
+        final long[] counts = new long[Timer.getBucketBounds().size() + 1];
+        metricRegistry.getTimers().forEach((name, timer) -> {
+            if (selected == null ? name.startsWith(DAO_TIMER_PREFIX) : name.equals(selected.timerName)) {
+                final long[] timerCounts = timer.getBucketCounts();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += timerCounts[i];
+                }
+            }
+        });
+        final List<XYChart.Data<String, Number>> bars = histogram.getData();
+        for (int i = 0; i < counts.length; i++) {
+            final XYChart.Data<String, Number> bar = bars.get(i);
+            if (bar.getYValue().longValue() != counts[i]) {
+                bar.setYValue(counts[i]);
+            }
+        }
+        latencyChart.setTitle(selected == null ? "all statements" : selected.name.get());
+    }
+
+    private StatementLatency addStatementLatency(String timerName) {
+        final StatementLatency statementLatency = new StatementLatency(timerName);
+        statementTable.getItems().add(statementLatency);
+        return statementLatency;
+    }
+
+    private static Duration lastBound() {
+        final List<Duration> bounds = Timer.getBucketBounds();
+        return bounds.get(bounds.size() - 1);
+    }
+
+    private static long gaugeValue(Map<String, Gauge> gauges, String name) {
+        final Gauge gauge = gauges.get(name);
+        return gauge == null ? 0 : gauge.getValue();
+    }
+
+    private static long count(Map<String, Counter> counters, String name) {
+        final Counter counter = counters.get(name);
+        return counter == null ? 0 : counter.getCount();
+    }
+
+    private static long sumCounts(Map<String, Counter> counters, String prefix, String suffix) {
+        long sum = 0;
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            if (counter.getKey().startsWith(prefix) && counter.getKey().endsWith(suffix)) {
+                sum += counter.getValue().getCount();
+            }
+        }
+        return sum;
+    }
+
+    private static String formatMillis(Duration duration) {
+        return String.format("%.1f ms", duration.toNanos() / 1e6);
+    }
+
+    /**
+     * A row of the statement table, updated in place so the table keeps its selection and sort order.
+     */
+    private static final class StatementLatency {
+
+        private final String timerName;
+        private final StringProperty name;
+        private final LongProperty count = new SimpleLongProperty();
+        private final StringProperty mean = new SimpleStringProperty("");
+        private final StringProperty p95 = new SimpleStringProperty("");
+        private final StringProperty max = new SimpleStringProperty("");
+
+        private StatementLatency(String timerName) {
+            this.timerName = timerName;
+            this.name = new SimpleStringProperty(timerName.substring(DAO_TIMER_PREFIX.length()));
+        }
+
+        private void update(Timer timer) {
+            count.set(timer.getCount());
+            mean.set(formatMillis(timer.getMean()));
+            p95.set(formatMillis(timer.getPercentile(0.95)));
+            max.set(formatMillis(timer.getMax()));
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.net.URL;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 
 /**
  * Functionality specific to forms and submission.
@@ -72,6 +73,29 @@ public abstract class FormController<V extends TextInputControl> extends Control
         }
     }
 
+    /**
+     * Same as {@link #formSubmitHandler(InputForm, CheckedSupplier)} but performs the service operation
+     * on a background thread.
+     *
+     * @param inputForm      the structure containing the input field mapping and validation.
+     * @param formSupplier   the service operation to be performed as a supplier.
+     * @param resultConsumer receives the result of the service operation on the FX thread,
+     *                       empty if the form was invalid or the operation failed.
+     * @param <T>            the return type expected from the service operation.
+     */
+    protected <T> void asyncFormSubmitHandler(InputForm<V> inputForm,
+                                              CheckedSupplier<T> formSupplier,
+                                              Consumer<Optional<T>> resultConsumer) {
+        final Map<String, V> invalidFields = inputForm.getInvalidFields();
+        if (!invalidFields.isEmpty()) {
+            setRedOutput(ServiceResolver.getMessagingService().getRequiredFields() +
+                    ": " + String.join(", ", invalidFields.keySet()));
+            resultConsumer.accept(Optional.empty());
+        } else {
+            asyncServiceRequestHandler(formSupplier, resultConsumer);
+        }
+    }
+
     /**
      * Used to ensure that form based controllers
      * define the appropriate structure used for validation.
@@ -7,6 +7,8 @@ import com.c195.service.ServiceResolver;
 import com.c195.service.UserService;
 import com.c195.util.form.InputForm;
 import com.c195.util.logging.Logger;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -55,13 +57,12 @@ public class LoginController extends FormController<TextField> {
 
     private InputForm<TextField> inputForm;
     private MessagingService messagingService;
-    private UserService userService;
+    private volatile UserService userService;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         super.initialize(url, resourceBundle);
         this.messagingService = ServiceResolver.getMessagingService();
-        this.userService = serviceResolver().getUserService();
 
         usernameLabel.setText(messagingService.getUsername());
         passwordLabel.setText(messagingService.getPassword());
@@ -73,17 +74,33 @@ public class LoginController extends FormController<TextField> {
 
     @FXML
     public void login(ActionEvent actionEvent) {
+        final String username = usernameField.getText();
+        final String password = passwordField.getText();
         // passing the user service login functionality as a supplier to the form submit handler method
-        // which in this case will perform some validation and exception handling under the hood
-        final CheckedSupplier<Boolean> formSupplier = () -> userService.login(usernameField.getText(), passwordField.getText());
-        formSubmitHandler(inputForm, formSupplier)
-                .ifPresent(validLogin -> handleLoginStatus(actionEvent, validLogin));
+        // which in this case will perform some validation and exception handling under the hood.
+        // verifying the password and writing the log file both happen off of the FX thread,
+        // which also waits there for the db connection if it is still being opened
+        final CheckedSupplier<Boolean> formSupplier = () -> {
+            userService = awaitServiceResolver().getUserService();
+            final boolean validLogin = userService.login(username, password);
+            if (validLogin) {
+                logger.log(String.format("successful login for user: %s", getUserId()));
+            }
+            return validLogin;
+        };
+        loginButton.setDisable(true);
+        try (SpanScope ignored = Tracer.getInstance().startSpan("LoginController.login")) {
+            asyncFormSubmitHandler(inputForm, formSupplier, validLogin -> {
+                loginButton.setDisable(false);
+                validLogin.ifPresent(this::handleLoginStatus);
+            });
+        }
     }
 
-    private void handleLoginStatus(ActionEvent actionEvent, boolean validLogin) {
+    private void handleLoginStatus(boolean validLogin) {
         if (validLogin) {
-            logger.log(String.format("successful login for user: %s", getUserId()));
-            eventViewHandler(actionEvent, getClass(), "../view/main.fxml");
+            eventViewHandler(View.MAIN);
+            ViewRegistry.getInstance().preload(View.CUSTOMERS, View.APPOINTMENTS, View.REPORTS);
         } else {
             setRedOutput(messagingService.getInvalidLogin());
         }
@@ -3,15 +3,23 @@ package com.c195.controller;
 import com.c195.common.UserDTO;
 import com.c195.common.appointment.AppointmentDTO;
 import com.c195.service.UserService;
+import com.c195.util.recording.FlightRecording;
+import com.c195.util.tracing.Tracer;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Dialog;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -26,34 +34,91 @@ import java.util.stream.Collectors;
  */
 public class MainController extends Controller implements Initializable {
 
+    private static final Path RECORDING_DIRECTORY = Paths.get("recordings");
+    private static final Path TRACE_DIRECTORY = Paths.get("traces");
+
     private UserService userService;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         super.initialize(url, resourceBundle);
         this.userService = serviceResolver().getUserService();
+    }
+
+    @Override
+    protected void onShow() {
         getUpcomingAppointmentReminder();
     }
 
     @FXML
     public void manageCustomers(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../view/customer/customer.fxml");
+        eventViewHandler(View.CUSTOMERS);
     }
 
     @FXML
     public void manageAppointments(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../view/appointment/appointment.fxml");
+        eventViewHandler(View.APPOINTMENTS);
     }
 
     @FXML
     public void manageReports(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../view/report/report.fxml");
+        eventViewHandler(View.REPORTS);
+    }
+
+    @FXML
+    public void showDashboard(ActionEvent actionEvent) {
+        eventViewHandler(View.DASHBOARD);
     }
 
     @FXML
     public void logout(ActionEvent actionEvent) {
         userService.logout();
-        eventViewHandler(actionEvent, getClass(), "../view/login.fxml");
+        eventViewHandler(View.LOGIN);
+        // the cached views show the data of the user that logged out
+        ViewRegistry.getInstance().evictAll();
+    }
+
+    @FXML
+    public void saveRecording(ActionEvent actionEvent) {
+        // saving can take a moment for a full recording, so it is kept off the FX thread
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return FlightRecording.getInstance().dump(RECORDING_DIRECTORY);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((path, e) -> Platform.runLater(() -> {
+            if (e == null) {
+                infoAlert("Recording saved",
+                        "The flight recording was saved",
+                        path.toAbsolutePath().toString()).showAndWait();
+            } else {
+                errorAlert("Recording not saved",
+                        "The flight recording could not be saved",
+                        e.getCause() != null ? e.getCause().getMessage() : e.getMessage()).showAndWait();
+            }
+        }));
+    }
+
+    @FXML
+    public void saveTrace(ActionEvent actionEvent) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return Tracer.getInstance().export(TRACE_DIRECTORY);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((path, e) -> Platform.runLater(() -> {
+            if (e == null) {
+                infoAlert("Trace saved",
+                        "The trace was saved, it can be opened in chrome://tracing or the Perfetto UI",
+                        path.toAbsolutePath().toString()).showAndWait();
+            } else {
+                errorAlert("Trace not saved",
+                        "The trace could not be saved",
+                        e.getCause() != null ? e.getCause().getMessage() : e.getMessage()).showAndWait();
+            }
+        }));
     }
 
     private void getUpcomingAppointmentReminder() {
@@ -0,0 +1,41 @@
+package com.c195.controller;
+
+/**
+ * The views of the app, loaded and shown through the {@link ViewRegistry}.
+ * <p>
+ * Cached views are kept loaded once they have been shown, so their tables are only queried once and are
+ * kept current by change events afterwards. The login and form views are loaded again each time they are
+ * shown, so they never show the input of the last time they were used.
+ */
+public enum View {
+
+    LOGIN("login.fxml", false),
+    MAIN("main.fxml", true),
+    CUSTOMERS("customer/customer.fxml", true),
+    CUSTOMER_CREATE("customer/create.fxml", false),
+    CUSTOMER_UPDATE("customer/update.fxml", false),
+    APPOINTMENTS("appointment/appointment.fxml", true),
+    APPOINTMENT_CREATE("appointment/create.fxml", false),
+    APPOINTMENT_UPDATE("appointment/update.fxml", false),
+    REPORTS("report/report.fxml", true),
+    DASHBOARD("dashboard.fxml", true);
+
+    private final String path;
+    private final boolean cached;
+
+    View(String path, boolean cached) {
+        this.path = path;
+        this.cached = cached;
+    }
+
+    /**
+     * @return the path of the view's FXML, relative to the view package.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+}
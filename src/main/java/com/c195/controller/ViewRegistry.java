@@ -0,0 +1,166 @@
+package com.c195.controller;
+
+import com.c195.util.logging.Logger;
+import com.c195.util.metrics.MetricRegistry;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows every view in the same window by swapping the root of its scene, instead of opening a new
+ * window for each view.
+ * <p>
+ * Loaded views are kept along with their controllers. Cached views stay loaded until
+ * {@link #evictAll()}, the others only until another view is shown. The time taken to load each view
+ * is recorded as a "view.load.*" timer in the {@link MetricRegistry}.
+ * <p>
+ * Only to be used from the FX thread.
+ */
+public final class ViewRegistry {
+
+    private static final String TITLE = "C195 Scheduling App";
+    private static final String VIEW_PACKAGE = "/com/c195/view/";
+    private static final Logger logger = Logger.getLogger(ViewRegistry.class);
+
+    private static ViewRegistry registryInstance;
+    private final MetricRegistry metricRegistry;
+    private final Map<View, LoadedView> loadedViews = new EnumMap<>(View.class);
+    private Stage stage;
+    private View currentView;
+
+    private ViewRegistry(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    public static ViewRegistry getInstance() {
+        if (registryInstance == null) {
+            registryInstance = new ViewRegistry(MetricRegistry.getInstance());
+        }
+        return registryInstance;
+    }
+
+    /**
+     * Sets the window the views are shown in. Closing it closes the connection to the db.
+     */
+    public void setStage(Stage stage) {
+        this.stage = stage;
+        stage.setTitle(TITLE);
+        stage.setOnCloseRequest(windowEvent -> Controller.closeDatabaseConnection());
+    }
+
+    /**
+     * Shows the view, loading it first if it is not loaded yet.
+     *
+     * @throws IOException if the view could not be loaded.
+     */
+    public void show(View view) throws IOException {
+        final LoadedView loadedView = load(view);
+        final View previousView = currentView;
+        currentView = view;
+        if (stage.getScene() == null) {
+            stage.setScene(new Scene(loadedView.root));
+        } else {
+            stage.getScene().setRoot(loadedView.root);
+        }
+        stage.sizeToScene();
+        stage.show();
+        if (previousView != null && previousView != view) {
+            final LoadedView hiddenView = loadedViews.get(previousView);
+            hiddenView.controller.onHide();
+            if (!previousView.isCached()) {
+                loadedViews.remove(previousView);
+                hiddenView.controller.dispose();
+            }
+        }
+        loadedView.controller.onShow();
+    }
+
+    /**
+     * Loads the view without showing it, so its controller can be given what it is to show first.
+     *
+     * @return the controller of the view.
+     * @throws IOException if the view could not be loaded.
+     */
+    public <C extends Controller> C getController(View view) throws IOException {
+        @SuppressWarnings("unchecked")
+        final C controller = (C) load(view).controller;
+        return controller;
+    }
+
+    /**
+     * Loads the cached views that are not loaded yet, one at a time in between the handling of other
+     * events so the current view stays responsive.
+     */
+    public void preload(View... views) {
+        final Queue<View> pendingViews = new ArrayDeque<>(Arrays.asList(views));
+        pendingViews.removeIf(view -> !view.isCached() || loadedViews.containsKey(view));
+        preloadNext(pendingViews);
+    }
+
+    /**
+     * Discards every loaded view except the one being shown, for when what they show no longer applies,
+     * such as after the user logs out.
+     */
+    public void evictAll() {
+        final Iterator<Map.Entry<View, LoadedView>> entries = loadedViews.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<View, LoadedView> entry = entries.next();
+            if (entry.getKey() != currentView) {
+                entry.getValue().controller.dispose();
+                entries.remove();
+            }
+        }
+    }
+
+    private void preloadNext(Queue<View> pendingViews) {
+        final View view = pendingViews.poll();
+        if (view != null) {
+            Platform.runLater(() -> {
+                try {
+                    load(view);
+                } catch (IOException e) {
+                    logger.log(String.format("there was an issue preloading view %s: %s", view, e.getMessage()));
+                }
+                preloadNext(pendingViews);
+            });
+        }
+    }
+
+    private LoadedView load(View view) throws IOException {
+        final LoadedView loadedView = loadedViews.get(view);
+        if (loadedView != null) {
+            return loadedView;
+        }
+        final long startNanos = System.nanoTime();
+        final FXMLLoader fxmlLoader = new FXMLLoader(ViewRegistry.class.getResource(VIEW_PACKAGE + view.getPath()));
+        final Parent root = fxmlLoader.load();
+        final LoadedView newView = new LoadedView(root, fxmlLoader.getController());
+        loadedViews.put(view, newView);
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        metricRegistry.timer("view.load." + view.name().toLowerCase()).record(elapsedNanos);
+        logger.log(String.format("loaded view %s in %dms", view, TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+        return newView;
+    }
+
+    private static final class LoadedView {
+
+        private final Parent root;
+        private final Controller controller;
+
+        private LoadedView(Parent root, Controller controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+}
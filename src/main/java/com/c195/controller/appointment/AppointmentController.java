@@ -2,28 +2,38 @@ package com.c195.controller.appointment;
 
 import com.c195.common.CheckedSupplier;
 import com.c195.common.UserDTO;
+import com.c195.common.appointment.AppointmentChangeEvent;
+import com.c195.common.appointment.AppointmentColumn;
 import com.c195.common.appointment.AppointmentDTO;
 import com.c195.common.appointment.AppointmentView;
+import com.c195.common.customer.CustomerChangeEvent;
+import com.c195.common.query.Page;
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
 import com.c195.controller.Controller;
+import com.c195.controller.View;
+import com.c195.controller.ViewRegistry;
 import com.c195.service.AppointmentService;
+import com.c195.util.table.PagedTableModel;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +51,8 @@ import java.util.stream.Collectors;
  */
 public class AppointmentController extends Controller implements Initializable {
 
+    private static final Duration FILTER_DELAY = Duration.millis(250);
+
     @FXML
     private TableView<AppointmentDTO> appointmentTable;
 
@@ -65,7 +77,11 @@ public class AppointmentController extends Controller implements Initializable {
     @FXML
     private ComboBox<String> appointmentViewComboBox;
 
+    @FXML
+    private TextField filterField;
+
     private AppointmentService appointmentService;
+    private PagedTableModel<AppointmentDTO, AppointmentColumn> appointmentTableModel;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -77,29 +93,43 @@ public class AppointmentController extends Controller implements Initializable {
 
         createAppointmentTable();
         updateAppointmentsByViewSelection();
+        subscribeWhileLoaded(AppointmentChangeEvent.class, this::onAppointmentChange);
+        subscribeWhileLoaded(CustomerChangeEvent.class, this::onCustomerChange);
+        // the filter is only queried once the user stops typing for a moment, not for every key
+        final PauseTransition filterDelay = new PauseTransition(FILTER_DELAY);
+        filterDelay.setOnFinished(event -> appointmentTableModel.setFilter(AppointmentColumn.TITLE, filterField.getText()));
+        filterField.textProperty().addListener((observable, oldValue, newValue) -> filterDelay.playFromStart());
+    }
+
+    /**
+     * A page cancelled when the view was left is loaded once the view is shown again.
+     */
+    @Override
+    protected void onShow() {
+        appointmentTableModel.resume();
     }
 
     @FXML
     public void cancel(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/main.fxml");
+        eventViewHandler(View.MAIN);
     }
 
     @FXML
     public void create(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/appointment/create.fxml");
+        eventViewHandler(View.APPOINTMENT_CREATE);
     }
 
     @FXML
     public void update(ActionEvent actionEvent) throws IOException {
-        final FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("../../view/appointment/update.fxml"));
-        final Parent parent = fxmlLoader.load();
-        Optional.ofNullable(appointmentTable.getSelectionModel().getSelectedItem())
-                .ifPresent(selectedAppointment -> {
-                    final AppointmentUpdateController appointmentUpdateController = fxmlLoader.getController();
-                    appointmentUpdateController.setAppointmentId(selectedAppointment.getId());
-                    appointmentUpdateController.setFields(selectedAppointment);
-                    eventStageHandler(actionEvent, parent);
-                });
+        final Optional<AppointmentDTO> selectedAppointment =
+                Optional.ofNullable(appointmentTable.getSelectionModel().getSelectedItem());
+        if (selectedAppointment.isPresent()) {
+            final AppointmentUpdateController appointmentUpdateController =
+                    ViewRegistry.getInstance().getController(View.APPOINTMENT_UPDATE);
+            appointmentUpdateController.setAppointmentId(selectedAppointment.get().getId());
+            appointmentUpdateController.setFields(selectedAppointment.get());
+            eventViewHandler(View.APPOINTMENT_UPDATE);
+        }
     }
 
     @FXML
@@ -111,7 +141,18 @@ public class AppointmentController extends Controller implements Initializable {
     }
 
     private void createAppointmentTable() {
-        setAppointmentsByViewSelection();
+        final QuerySpec<AppointmentColumn> firstPageSpec = new QuerySpec.Builder<AppointmentColumn>()
+                .withSort(AppointmentColumn.START, SortDirection.ASCENDING)
+                .build();
+        // the table model will call back into the appointment service for each page as the table is scrolled
+        appointmentTableModel = new PagedTableModel<>(appointmentTable, this::getUpcomingAppointmentPage, firstPageSpec)
+                .withSortColumn(titleColumn, AppointmentColumn.TITLE)
+                .withSortColumn(locationColumn, AppointmentColumn.LOCATION)
+                .withSortColumn(customerNameColumn, AppointmentColumn.CUSTOMER)
+                .withSortColumn(typeColumn, AppointmentColumn.TYPE)
+                .withSortColumn(startColumn, AppointmentColumn.START)
+                .withSortColumn(endColumn, AppointmentColumn.END);
+        appointmentTableModel.reload();
         titleColumn.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().getTitle()));
         locationColumn.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().getLocation().getName()));
         customerNameColumn.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().getCustomerDTO().getName()));
@@ -121,51 +162,66 @@ public class AppointmentController extends Controller implements Initializable {
     }
 
     private void updateAppointmentsByViewSelection() {
-        appointmentViewComboBox.setOnAction(actionEvent -> setAppointmentsByViewSelection());
+        appointmentViewComboBox.setOnAction(actionEvent -> appointmentTableModel.reload());
     }
 
-    private void setAppointmentsByViewSelection() {
-        serviceResolver().getUserService()
+    private void getUpcomingAppointmentPage(QuerySpec<AppointmentColumn> querySpec,
+                                            Consumer<Optional<Page<AppointmentDTO, AppointmentColumn>>> pageConsumer) {
+        final AppointmentView view = getSelectedView();
+        final Optional<Integer> userId = serviceResolver().getUserService()
                 .getCurrentUser()
-                .map(UserDTO::getId)
-                .ifPresent(this::handleViewSelection);
-    }
-
-    private void handleViewSelection(int userId) {
-        final String selectedView = appointmentViewComboBox.getSelectionModel().getSelectedItem();
-        if (selectedView.equals(AppointmentView.WEEK.getName())) {
-            appointmentTable.setItems(getUpcomingAppointmentsByWeek(userId));
-        } else if (selectedView.equals(AppointmentView.MONTH.getName())) {
-            appointmentTable.setItems(getUpcomingAppointmentsByMonth(userId));
-        } else {
-            appointmentTable.setItems(getAllUpcomingAppointments(userId));
+                .map(UserDTO::getId);
+        if (!userId.isPresent()) {
+            pageConsumer.accept(Optional.empty());
+            return;
         }
+        asyncServiceRequestHandler(() ->
+                appointmentService.getUpcomingAppointmentPageByUser(userId.get(), view, querySpec), pageConsumer);
     }
 
-    private ObservableList<AppointmentDTO> getAllUpcomingAppointments(int userId) {
-        return getUpcomingAppointments(() -> appointmentService.getUpcomingAppointmentsByUser(userId));
-    }
-
-    private ObservableList<AppointmentDTO> getUpcomingAppointmentsByWeek(int userId) {
-        return getUpcomingAppointments(() -> appointmentService.getUpcomingAppointmentsByUserWeek(userId));
-    }
-
-    private ObservableList<AppointmentDTO> getUpcomingAppointmentsByMonth(int userId) {
-        return getUpcomingAppointments(() -> appointmentService.getUpcomingAppointmentsByUserMonth(userId));
+    private AppointmentView getSelectedView() {
+        final String selectedView = appointmentViewComboBox.getSelectionModel().getSelectedItem();
+        return Arrays.stream(AppointmentView.values())
+                .filter(view -> view.getName().equals(selectedView))
+                .findFirst()
+                .orElse(AppointmentView.ALL);
     }
 
     private CheckedSupplier<Void> appointmentDeleteSupplier(int appointmentId) {
         return () -> {
             appointmentService.deleteAppointment(appointmentId);
-            createAppointmentTable();
             return null;
         };
     }
 
-    private ObservableList<AppointmentDTO> getUpcomingAppointments(CheckedSupplier<List<AppointmentDTO>> appointmentSupplier) {
-        return serviceRequestHandler(appointmentSupplier)
-                .map(FXCollections::observableList)
-                .orElseGet(FXCollections::emptyObservableList);
+    /**
+     * Patches the loaded appointments instead of querying every page again. A new appointment could belong
+     * anywhere in the sort order, or outside of the selected view, so only that reloads the table.
+     */
+    private void onAppointmentChange(AppointmentChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                appointmentTableModel.reload();
+                break;
+            case UPDATED:
+                event.getValue().ifPresent(appointment ->
+                        appointmentTableModel.replace(row -> row.getId() == event.getId(), appointment));
+                break;
+            default:
+                appointmentTableModel.remove(row -> row.getId() == event.getId());
+        }
+    }
+
+    /**
+     * The table shows the customer of each appointment, so it is reloaded when one of those customers changes.
+     */
+    private void onCustomerChange(CustomerChangeEvent event) {
+        final boolean customerLoaded = appointmentTableModel.getItems()
+                .stream()
+                .anyMatch(row -> row.getCustomerDTO().getId() == event.getId());
+        if (customerLoaded) {
+            appointmentTableModel.reload();
+        }
     }
 
     private static ObservableList<String> getAppointmentViews() {
@@ -4,6 +4,9 @@ import com.c195.common.CheckedSupplier;
 import com.c195.common.UserDTO;
 import com.c195.common.appointment.AppointmentDTO;
 import com.c195.common.appointment.AppointmentTime;
+import com.c195.controller.View;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 
@@ -22,7 +25,7 @@ public class AppointmentCreateController extends AppointmentFormController {
 
     @FXML
     public void cancelCreate(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/appointment/appointment.fxml");
+        eventViewHandler(View.APPOINTMENTS);
     }
 
     @FXML
@@ -30,10 +33,12 @@ public class AppointmentCreateController extends AppointmentFormController {
         // gets the current user
         // maps that user to a saved appointment id (implicitly saves the appointment)
         // displays messaging to the user if an appointment id was returned
-        serviceResolver().getUserService()
-                .getCurrentUser()
-                .map(this::saveAppointment)
-                .ifPresent(savedAppointmentId -> setDefaultOutput("Appointment has been saved!"));
+        try (SpanScope ignored = Tracer.getInstance().startSpan("AppointmentCreateController.saveAppointment")) {
+            serviceResolver().getUserService()
+                    .getCurrentUser()
+                    .map(this::saveAppointment)
+                    .ifPresent(savedAppointmentId -> setDefaultOutput("Appointment has been saved!"));
+        }
     }
 
     private Integer saveAppointment(UserDTO userDTO) {
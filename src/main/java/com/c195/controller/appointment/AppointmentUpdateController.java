@@ -4,6 +4,9 @@ import com.c195.common.CheckedSupplier;
 import com.c195.common.UserDTO;
 import com.c195.common.appointment.AppointmentDTO;
 import com.c195.common.appointment.AppointmentTime;
+import com.c195.controller.View;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 
@@ -25,7 +28,7 @@ public class AppointmentUpdateController extends AppointmentFormController {
 
     @FXML
     public void cancelUpdate(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/appointment/appointment.fxml");
+        eventViewHandler(View.APPOINTMENTS);
     }
 
     @FXML
@@ -33,10 +36,12 @@ public class AppointmentUpdateController extends AppointmentFormController {
         // gets the current user
         // maps that username to an updated appointment id (implicitly updates the appointment)
         // displays messaging to the user if an appointment id was returned
-        serviceResolver().getUserService()
-                .getCurrentUser()
-                .map(this::updateAppointment)
-                .ifPresent(updatedAppointmentId -> setDefaultOutput("Appointment has been updated!"));
+        try (SpanScope ignored = Tracer.getInstance().startSpan("AppointmentUpdateController.updateAppointment")) {
+            serviceResolver().getUserService()
+                    .getCurrentUser()
+                    .map(this::updateAppointment)
+                    .ifPresent(updatedAppointmentId -> setDefaultOutput("Appointment has been updated!"));
+        }
     }
 
     public void setAppointmentId(Integer appointmentId) {
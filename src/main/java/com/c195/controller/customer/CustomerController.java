@@ -2,19 +2,25 @@ package com.c195.controller.customer;
 
 import com.c195.common.CheckedSupplier;
 import com.c195.common.customer.AddressDTO;
+import com.c195.common.customer.CustomerChangeEvent;
+import com.c195.common.customer.CustomerColumn;
 import com.c195.common.customer.CustomerDTO;
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
 import com.c195.controller.Controller;
+import com.c195.controller.View;
+import com.c195.controller.ViewRegistry;
 import com.c195.service.CustomerService;
+import com.c195.util.table.PagedTableModel;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.net.URL;
@@ -31,6 +37,8 @@ import java.util.ResourceBundle;
  */
 public class CustomerController extends Controller implements Initializable {
 
+    private static final Duration FILTER_DELAY = Duration.millis(250);
+
     @FXML
     private TableView<CustomerDTO> customerTable;
 
@@ -49,36 +57,53 @@ public class CustomerController extends Controller implements Initializable {
     @FXML
     private TableColumn<CustomerDTO, String> statusColumn;
 
+    @FXML
+    private TextField filterField;
+
     private CustomerService customerService;
+    private PagedTableModel<CustomerDTO, CustomerColumn> customerTableModel;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         super.initialize(url, resourceBundle);
         this.customerService = serviceResolver().getCustomerService();
         createCustomerTable();
+        subscribeWhileLoaded(CustomerChangeEvent.class, this::onCustomerChange);
+        // the filter is only queried once the user stops typing for a moment, not for every key
+        final PauseTransition filterDelay = new PauseTransition(FILTER_DELAY);
+        filterDelay.setOnFinished(event -> customerTableModel.setFilter(CustomerColumn.NAME, filterField.getText()));
+        filterField.textProperty().addListener((observable, oldValue, newValue) -> filterDelay.playFromStart());
+    }
+
+    /**
+     * A page cancelled when the view was left is loaded once the view is shown again.
+     */
+    @Override
+    protected void onShow() {
+        customerTableModel.resume();
     }
 
     @FXML
     public void cancel(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/main.fxml");
+        eventViewHandler(View.MAIN);
     }
 
     @FXML
     public void create(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/customer/create.fxml");
+        eventViewHandler(View.CUSTOMER_CREATE);
     }
 
     @FXML
     public void update(ActionEvent actionEvent) throws IOException {
-        final FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("../../view/customer/update.fxml"));
-        final Parent parent = fxmlLoader.load();
-        Optional.ofNullable(customerTable.getSelectionModel().getSelectedItem())
-                .ifPresent(selectedCustomer -> {
-                    final CustomerUpdateController customerUpdateController = fxmlLoader.getController();
-                    customerUpdateController.setCustomerDTO(selectedCustomer);
-                    customerUpdateController.setFields(selectedCustomer);
-                    eventStageHandler(actionEvent, parent);
-                });
+        final Optional<CustomerDTO> selectedCustomer =
+                Optional.ofNullable(customerTable.getSelectionModel().getSelectedItem());
+        if (selectedCustomer.isPresent()) {
+            final CustomerUpdateController customerUpdateController =
+                    ViewRegistry.getInstance().getController(View.CUSTOMER_UPDATE);
+            customerUpdateController.setCustomerDTO(selectedCustomer.get());
+            customerUpdateController.setFields(selectedCustomer.get());
+            eventViewHandler(View.CUSTOMER_UPDATE);
+        }
     }
 
     @FXML
@@ -90,7 +115,20 @@ public class CustomerController extends Controller implements Initializable {
     }
 
     private void createCustomerTable() {
-        customerTable.setItems(getAllCustomers());
+        final QuerySpec<CustomerColumn> firstPageSpec = new QuerySpec.Builder<CustomerColumn>()
+                .withSort(CustomerColumn.ID, SortDirection.ASCENDING)
+                .build();
+        // the table model will call back into the customer service for each page as the table is scrolled
+        customerTableModel = new PagedTableModel<>(customerTable,
+                (querySpec, pageConsumer) ->
+                        asyncServiceRequestHandler(() -> customerService.getCustomerPage(querySpec), pageConsumer),
+                firstPageSpec)
+                .withSortColumn(idColumn, CustomerColumn.ID)
+                .withSortColumn(nameColumn, CustomerColumn.NAME)
+                .withSortColumn(addressColumn, CustomerColumn.ADDRESS)
+                .withSortColumn(phoneColumn, CustomerColumn.PHONE)
+                .withSortColumn(statusColumn, CustomerColumn.STATUS);
+        customerTableModel.reload();
         idColumn.setCellValueFactory(c -> new SimpleStringProperty(String.valueOf(c.getValue().getId())));
         nameColumn.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().getName()));
         addressColumn.setCellValueFactory(c -> new SimpleStringProperty(toAddressLine(c.getValue().getAddressDTO())));
@@ -101,15 +139,26 @@ public class CustomerController extends Controller implements Initializable {
     private CheckedSupplier<Void> customerDeleteSupplier(int customerId) {
         return () -> {
             customerService.deleteCustomer(customerId);
-            createCustomerTable();
             return null;
         };
     }
 
-    private ObservableList<CustomerDTO> getAllCustomers() {
-        return serviceRequestHandler(() -> customerService.getAllCustomers())
-                .map(FXCollections::observableList)
-                .orElse(FXCollections.emptyObservableList());
+    /**
+     * Patches the loaded customers instead of querying every page again. A new customer could belong
+     * anywhere in the sort order, so only that reloads the table.
+     */
+    private void onCustomerChange(CustomerChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                customerTableModel.reload();
+                break;
+            case UPDATED:
+                event.getValue().ifPresent(customer ->
+                        customerTableModel.replace(row -> row.getId() == event.getId(), customer));
+                break;
+            default:
+                customerTableModel.remove(row -> row.getId() == event.getId());
+        }
     }
 
     private static String toAddressLine(AddressDTO addressDTO) {
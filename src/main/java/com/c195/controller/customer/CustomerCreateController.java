@@ -4,6 +4,9 @@ import com.c195.common.CheckedSupplier;
 import com.c195.common.UserDTO;
 import com.c195.common.customer.AddressDTO;
 import com.c195.common.customer.CustomerDTO;
+import com.c195.controller.View;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 
@@ -19,7 +22,7 @@ public class CustomerCreateController extends CustomerFormController {
 
     @FXML
     public void cancelCreate(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/customer/customer.fxml");
+        eventViewHandler(View.CUSTOMERS);
     }
 
     @FXML
@@ -27,10 +30,12 @@ public class CustomerCreateController extends CustomerFormController {
         // gets the current user
         // maps that user to a saved customer id (implicitly saves the customer)
         // displays messaging to the user if a customer id was returned
-        serviceResolver().getUserService()
-                .getCurrentUser()
-                .map(this::saveCustomer)
-                .ifPresent(savedCustomerId -> setDefaultOutput("Customer has been saved!"));
+        try (SpanScope ignored = Tracer.getInstance().startSpan("CustomerCreateController.saveCustomer")) {
+            serviceResolver().getUserService()
+                    .getCurrentUser()
+                    .map(this::saveCustomer)
+                    .ifPresent(savedCustomerId -> setDefaultOutput("Customer has been saved!"));
+        }
     }
 
     private Integer saveCustomer(UserDTO currentUser) {
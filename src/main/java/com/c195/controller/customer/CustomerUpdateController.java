@@ -4,6 +4,9 @@ import com.c195.common.CheckedSupplier;
 import com.c195.common.UserDTO;
 import com.c195.common.customer.AddressDTO;
 import com.c195.common.customer.CustomerDTO;
+import com.c195.controller.View;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 
@@ -21,7 +24,7 @@ public class CustomerUpdateController extends CustomerFormController {
 
     @FXML
     public void cancelUpdate(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/customer/customer.fxml");
+        eventViewHandler(View.CUSTOMERS);
     }
 
     @FXML
@@ -29,10 +32,12 @@ public class CustomerUpdateController extends CustomerFormController {
         // gets the current user
         // maps that username to an updated customer id (implicitly updates the customer)
         // displays messaging to the user if a customer id was returned
-        serviceResolver().getUserService()
-                .getCurrentUser()
-                .map(currentUser -> updateCustomer(customerDTO.getId(), customerDTO.getAddressDTO().getId(), currentUser))
-                .ifPresent(updatedCustomerId -> setDefaultOutput("Customer has been updated!"));
+        try (SpanScope ignored = Tracer.getInstance().startSpan("CustomerUpdateController.updateCustomer")) {
+            serviceResolver().getUserService()
+                    .getCurrentUser()
+                    .map(currentUser -> updateCustomer(customerDTO.getId(), customerDTO.getAddressDTO().getId(), currentUser))
+                    .ifPresent(updatedCustomerId -> setDefaultOutput("Customer has been updated!"));
+        }
     }
 
     public void setCustomerDTO(CustomerDTO customerDTO) {
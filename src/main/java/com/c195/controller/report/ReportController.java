@@ -2,24 +2,35 @@ package com.c195.controller.report;
 
 import com.c195.common.CheckedSupplier;
 import com.c195.common.appointment.AppointmentDTO;
+import com.c195.common.report.ExportFormat;
 import com.c195.common.report.ReportAggregationDTO;
+import com.c195.common.report.ReportException;
 import com.c195.common.report.ReportType;
 import com.c195.controller.Controller;
+import com.c195.controller.View;
+import com.c195.service.ReportExportService;
 import com.c195.service.ReportService;
+import com.c195.util.concurrent.Priority;
 import com.c195.util.report.AppointmentReportTree;
 import com.c195.util.report.CountReportTree;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TreeView;
+import javafx.stage.FileChooser;
 
+import java.io.File;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.stream.Collectors;
 
@@ -45,22 +56,64 @@ public class ReportController extends Controller implements Initializable {
     private ComboBox<String> reportTypeComboBox;
 
     private ReportService reportService;
+    private ReportExportService reportExportService;
+    private int reportRequest;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         super.initialize(url, resourceBundle);
         this.reportService = serviceResolver().getReportService();
+        this.reportExportService = serviceResolver().getReportExportService();
 
         reportTypeComboBox.setItems(getReportTypes());
         reportTypeComboBox.getSelectionModel().selectFirst();
 
         updateReportTreeByTypeSelection();
+    }
+
+    /**
+     * The reports are built again each time the view is shown, as the appointments may have changed since.
+     */
+    @Override
+    protected void onShow() {
         setReportTreeByTypeSelection();
     }
 
     @FXML
     public void cancel(ActionEvent actionEvent) {
-        eventViewHandler(actionEvent, getClass(), "../../view/main.fxml");
+        eventViewHandler(View.MAIN);
+    }
+
+    @FXML
+    public void export(ActionEvent actionEvent) {
+        final ReportType reportType = ReportType.fromName(reportTypeComboBox.getSelectionModel().getSelectedItem());
+        final FileChooser fileChooser = createExportFileChooser(reportType);
+        Optional.ofNullable(fileChooser.showSaveDialog(((Node) actionEvent.getSource()).getScene().getWindow()))
+                .ifPresent(file -> exportReport(reportType, toExportFormat(fileChooser), file));
+    }
+
+    /**
+     * Exports off the FX thread, as it aggregates every appointment and writes the file, behind the user's
+     * interactions like the reports themselves. A file that could not be written is reported by the result.
+     */
+    private void exportReport(ReportType reportType, ExportFormat exportFormat, File file) {
+        asyncServiceRequestHandler(Priority.NORMAL, () -> {
+            try (SpanScope scope = Tracer.getInstance().startSpan("ReportController.export")) {
+                scope.getSpan().setAttribute("reportType", reportType.name()).setAttribute("format", exportFormat.name());
+                return ExportResult.written(reportExportService.exportReport(reportType, exportFormat, file.toPath()));
+            } catch (ReportException e) {
+                return ExportResult.failed(e);
+            }
+        }, result -> result.ifPresent(exportResult -> {
+            if (exportResult.failure != null) {
+                errorAlert("Report export failed", exportResult.failure.getMessage(),
+                        String.valueOf(exportResult.failure.getCause())).showAndWait();
+            } else {
+                infoAlert("Report exported",
+                        reportType.getName() + " has been exported",
+                        exportResult.rows + " rows were written to " + file.getAbsolutePath()).showAndWait();
+            }
+        }));
     }
 
     private void updateReportTreeByTypeSelection() {
@@ -69,12 +122,15 @@ public class ReportController extends Controller implements Initializable {
 
     private void setReportTreeByTypeSelection() {
         final String selectedView = reportTypeComboBox.getSelectionModel().getSelectedItem();
-        if (selectedView.equals(ReportType.APPOINTMENT_TYPES_BY_MONTH.getName())) {
-            createAppointmentTypeCountByMonthTree();
-        } else if (selectedView.equals(ReportType.APPOINTMENT_TYPES_BY_CUSTOMER.getName())) {
-            createAppointmentTypeCountByCustomerTree();
-        } else {
-            createScheduleByContactTree();
+        try (SpanScope scope = Tracer.getInstance().startSpan("ReportController.setReportTreeByTypeSelection")) {
+            scope.getSpan().setAttribute("reportType", selectedView);
+            if (selectedView.equals(ReportType.APPOINTMENT_TYPES_BY_MONTH.getName())) {
+                createAppointmentTypeCountByMonthTree();
+            } else if (selectedView.equals(ReportType.APPOINTMENT_TYPES_BY_CUSTOMER.getName())) {
+                createAppointmentTypeCountByCustomerTree();
+            } else {
+                createScheduleByContactTree();
+            }
         }
     }
 
@@ -90,16 +146,41 @@ public class ReportController extends Controller implements Initializable {
         createAppointmentTree(() -> reportService.getAppointmentsByContact());
     }
 
+    /**
+     * Reports aggregate every appointment, so they are built off the FX thread behind the user's interactions.
+     * Only the report selected last is shown, should an earlier one finish after it.
+     */
     private void createCountTree(String rootLabel, CheckedSupplier<ReportAggregationDTO<Map<String, Long>>> reportSupplier) {
-        serviceRequestHandler(reportSupplier)
+        final int request = ++reportRequest;
+        asyncServiceRequestHandler(Priority.NORMAL, reportSupplier, report -> report
+                .filter(reportData -> request == reportRequest)
                 .map(reportData -> new CountReportTree(rootLabel, "Appointment Types", reportData).getTree())
-                .ifPresent(root -> reportTree.setRoot(root));
+                .ifPresent(root -> reportTree.setRoot(root)));
     }
 
     private void createAppointmentTree(CheckedSupplier<ReportAggregationDTO<List<AppointmentDTO>>> reportSupplier) {
-        serviceRequestHandler(reportSupplier)
+        final int request = ++reportRequest;
+        asyncServiceRequestHandler(Priority.NORMAL, reportSupplier, report -> report
+                .filter(reportData -> request == reportRequest)
                 .map(reportData -> new AppointmentReportTree("Schedules", reportData).getTree())
-                .ifPresent(root -> reportTree.setRoot(root));
+                .ifPresent(root -> reportTree.setRoot(root)));
+    }
+
+    private static FileChooser createExportFileChooser(ReportType reportType) {
+        final FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export " + reportType.getName());
+        fileChooser.setInitialFileName(reportType.name().toLowerCase());
+        Arrays.stream(ExportFormat.values())
+                .map(format -> new FileChooser.ExtensionFilter(format.getName(), "*." + format.getExtension()))
+                .forEach(filter -> fileChooser.getExtensionFilters().add(filter));
+        return fileChooser;
+    }
+
+    private static ExportFormat toExportFormat(FileChooser fileChooser) {
+        return Optional.ofNullable(fileChooser.getSelectedExtensionFilter())
+                .map(FileChooser.ExtensionFilter::getDescription)
+                .map(ExportFormat::fromName)
+                .orElse(ExportFormat.CSV);
     }
 
     private static ObservableList<String> getReportTypes() {
@@ -108,4 +189,26 @@ public class ReportController extends Controller implements Initializable {
                         .map(ReportType::getName)
                         .collect(Collectors.toList()));
     }
+
+    /**
+     * The rows an export wrote, or why it could not write the file.
+     */
+    private static final class ExportResult {
+
+        private final long rows;
+        private final ReportException failure;
+
+        private ExportResult(long rows, ReportException failure) {
+            this.rows = rows;
+            this.failure = failure;
+        }
+
+        private static ExportResult written(long rows) {
+            return new ExportResult(rows, null);
+        }
+
+        private static ExportResult failed(ReportException failure) {
+            return new ExportResult(0, failure);
+        }
+    }
 }
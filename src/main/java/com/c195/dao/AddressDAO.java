@@ -7,7 +7,7 @@ import java.util.Optional;
 
 public class AddressDAO {
 
-    private static final String ADDRESS_SQL = "" +
+    static final String ADDRESS_SQL = "" +
             "SELECT * " +
             "FROM address a " +
             "JOIN city ci " +
@@ -1,13 +1,20 @@
 package com.c195.dao;
 
+import com.c195.common.appointment.AppointmentColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.repository.ChangeWatermark;
 import com.c195.model.Appointment;
 
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Optional;
 
-public class AppointmentDAO {
+public class AppointmentDAO implements AppointmentRepository {
 
     private static final String ALL_APPOINTMENTS_SQL = "" +
             "SELECT * " +
@@ -23,7 +30,22 @@ public class AppointmentDAO {
             "JOIN user us " +
             "ON ap.userId = us.userId";
 
-    private static final String APPOINTMENTS_BY_USER_BETWEEN_SQL = "" +
+    private static final String APPOINTMENT_BY_ID_SQL = "" +
+            "SELECT * " +
+            "FROM appointment ap " +
+            "JOIN customer cu " +
+            "ON ap.customerId = cu.customerId " +
+            "JOIN address a " +
+            "ON cu.addressId = a.addressId " +
+            "JOIN city ci " +
+            "ON a.cityId = ci.cityId " +
+            "JOIN country co " +
+            "ON ci.countryId = co.countryId " +
+            "JOIN user us " +
+            "ON ap.userId = us.userId " +
+            "WHERE ap.appointmentId = ?";
+
+    static final String APPOINTMENTS_BY_USER_BETWEEN_SQL = "" +
             "SELECT * " +
             "FROM appointment ap " +
             "JOIN customer cu " +
@@ -39,7 +61,7 @@ public class AppointmentDAO {
             "WHERE ap.userId = ? " +
             "AND ap.start BETWEEN ? AND ?";
 
-    private static final String APPOINTMENTS_OVERLAP_BY_USER_SQL = "" +
+    static final String APPOINTMENTS_OVERLAP_BY_USER_SQL = "" +
             "SELECT * " +
             "FROM appointment ap " +
             "JOIN customer cu " +
@@ -53,11 +75,10 @@ public class AppointmentDAO {
             "JOIN user us " +
             "ON ap.userId = us.userId " +
             "WHERE ap.userId = ? " +
-            "AND (ap.start BETWEEN ? AND ? " +
-            "OR ap.end BETWEEN ? AND ? " +
-            "OR ? BETWEEN ap.start AND ap.end)";
+            "AND ap.start < ? " +
+            "AND ap.end > ?";
 
-    private static final String APPOINTMENTS_BY_USER_AFTER_SQL = "" +
+    static final String APPOINTMENTS_BY_USER_AFTER_SQL = "" +
             "SELECT * " +
             "FROM appointment ap " +
             "JOIN customer cu " +
@@ -73,6 +94,51 @@ public class AppointmentDAO {
             "WHERE ap.userId = ? " +
             "AND ap.start >= ?";
 
+    static final String APPOINTMENTS_BY_CONTACT_PAGE_SQL = "" +
+            "SELECT * " +
+            "FROM appointment ap " +
+            "JOIN customer cu " +
+            "ON ap.customerId = cu.customerId " +
+            "JOIN address a " +
+            "ON cu.addressId = a.addressId " +
+            "JOIN city ci " +
+            "ON a.cityId = ci.cityId " +
+            "JOIN country co " +
+            "on ci.countryId = co.countryId " +
+            "JOIN user us " +
+            "ON ap.userId = us.userId " +
+            "WHERE ap.contact > ? " +
+            "OR (ap.contact = ? AND ap.appointmentId > ?) " +
+            "ORDER BY ap.contact, ap.appointmentId " +
+            "LIMIT ?";
+
+    static final String APPOINTMENTS_UPDATED_SINCE_SQL = "" +
+            "SELECT * " +
+            "FROM appointment ap " +
+            "JOIN customer cu " +
+            "ON ap.customerId = cu.customerId " +
+            "JOIN address a " +
+            "ON cu.addressId = a.addressId " +
+            "JOIN city ci " +
+            "ON a.cityId = ci.cityId " +
+            "JOIN country co " +
+            "on ci.countryId = co.countryId " +
+            "JOIN user us " +
+            "ON ap.userId = us.userId " +
+            "WHERE ap.lastUpdate >= ?";
+
+    private static final String APPOINTMENT_WATERMARK_SQL = "" +
+            "SELECT MAX(lastUpdate) AS lastUpdate, COUNT(*) AS total " +
+            "FROM appointment";
+
+    private static final String APPOINTMENT_IDS_SQL = "" +
+            "SELECT appointmentId " +
+            "FROM appointment";
+
+    private static final String USER_APPOINTMENT_PAGE_CONDITION = "ap.userId = ?";
+    private static final String START_AFTER_PAGE_CONDITION = "ap.start >= ?";
+    private static final String START_BEFORE_PAGE_CONDITION = "ap.start <= ?";
+
     private static final String SAVE_APPOINTMENTS_SQL = "" +
             "INSERT INTO appointment " +
             "(customerId, userId, title, description, location, " +
@@ -99,6 +165,18 @@ public class AppointmentDAO {
             "DELETE FROM appointment " +
             "WHERE appointmentId = ?";
 
+    private static final PageQuery<AppointmentColumn> appointmentPageQuery = new PageQuery<>(
+            new EnumMap<AppointmentColumn, String>(AppointmentColumn.class) {
+                {
+                    put(AppointmentColumn.TITLE, "ap.title");
+                    put(AppointmentColumn.LOCATION, "ap.location");
+                    put(AppointmentColumn.CUSTOMER, "cu.customerName");
+                    put(AppointmentColumn.TYPE, "ap.type");
+                    put(AppointmentColumn.START, "ap.start");
+                    put(AppointmentColumn.END, "ap.end");
+                }
+            }, "ap.appointmentId");
+
     private static AppointmentDAO daoInstance;
     private final Connection connection;
 
@@ -113,6 +191,7 @@ public class AppointmentDAO {
         return daoInstance;
     }
 
+    @Override
     public List<Appointment> getAllAppointments() throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(ALL_APPOINTMENTS_SQL)) {
             final List<Appointment> appointments = new ArrayList<>();
@@ -126,6 +205,21 @@ public class AppointmentDAO {
         }
     }
 
+    @Override
+    public Optional<Appointment> getAppointmentById(int id) throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENT_BY_ID_SQL)) {
+            statement.setInt(1, id);
+            final ResultSet resultSet = statement.executeQuery();
+            if (resultSet.next()) {
+                return Optional.of(toAppointment(resultSet));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving an appointment", e);
+        }
+    }
+
+    @Override
     public List<Appointment> getAppointmentsByUserBetween(int userId, Instant start, Instant end) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENTS_BY_USER_BETWEEN_SQL)) {
             statement.setInt(1, userId);
@@ -142,16 +236,18 @@ public class AppointmentDAO {
         }
     }
 
+    /**
+     * Retrieves the user's appointments that overlap the half-open interval [start, end).
+     * Two intervals overlap when each one starts before the other one ends, so appointments
+     * that only touch the interval (ending exactly at its start or starting exactly at its end)
+     * are not included. Both comparisons are a range on the (userId, start, end) index.
+     */
+    @Override
     public List<Appointment> getOverlappingAppointmentsByUser(int userId, Instant start, Instant end) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENTS_OVERLAP_BY_USER_SQL)) {
-            final Timestamp startTime = Timestamp.from(start);
-            final Timestamp endTime = Timestamp.from(end);
             statement.setInt(1, userId);
-            statement.setTimestamp(2, startTime);
-            statement.setTimestamp(3, endTime);
-            statement.setTimestamp(4, startTime);
-            statement.setTimestamp(5, endTime);
-            statement.setTimestamp(6, startTime);
+            statement.setTimestamp(2, Timestamp.from(end));
+            statement.setTimestamp(3, Timestamp.from(start));
             final List<Appointment> appointments = new ArrayList<>();
             final ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
@@ -163,6 +259,7 @@ public class AppointmentDAO {
         }
     }
 
+    @Override
     public List<Appointment> getAppointmentsByUserAfter(int userId, Instant start) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENTS_BY_USER_AFTER_SQL)) {
             statement.setInt(1, userId);
@@ -178,6 +275,62 @@ public class AppointmentDAO {
         }
     }
 
+    /**
+     * Retrieves a single page of a user's appointments that start within the interval.
+     * One row more than the page size is returned when another page exists.
+     */
+    @Override
+    public List<Appointment> getAppointmentPageByUserBetween(int userId,
+                                                             Instant start,
+                                                             Instant end,
+                                                             QuerySpec<AppointmentColumn> querySpec) throws DAOException {
+        final List<String> conditions = end == null
+                ? Arrays.asList(USER_APPOINTMENT_PAGE_CONDITION, START_AFTER_PAGE_CONDITION)
+                : Arrays.asList(USER_APPOINTMENT_PAGE_CONDITION, START_AFTER_PAGE_CONDITION, START_BEFORE_PAGE_CONDITION);
+        final String sql = appointmentPageQuery.toSql(ALL_APPOINTMENTS_SQL, conditions, querySpec);
+        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, userId);
+            statement.setTimestamp(2, Timestamp.from(start));
+            if (end != null) {
+                statement.setTimestamp(3, Timestamp.from(end));
+            }
+            appointmentPageQuery.bind(statement, conditions.size() + 1, querySpec);
+            final List<Appointment> appointments = new ArrayList<>(querySpec.getPageSize() + 1);
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                appointments.add(toAppointment(resultSet));
+            }
+            return appointments;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving appointments", e);
+        }
+    }
+
+    /**
+     * Retrieves a page of appointments ordered by contact and then id, starting
+     * directly after the given contact and id. Seeking past the last row of the previous
+     * page rather than using an offset keeps the cost of each page constant.
+     */
+    @Override
+    public List<Appointment> getAppointmentsByContactAfter(String contact, int appointmentId, int limit)
+            throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENTS_BY_CONTACT_PAGE_SQL)) {
+            statement.setString(1, contact);
+            statement.setString(2, contact);
+            statement.setInt(3, appointmentId);
+            statement.setInt(4, limit);
+            final List<Appointment> appointments = new ArrayList<>(limit);
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                appointments.add(toAppointment(resultSet));
+            }
+            return appointments;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving appointments", e);
+        }
+    }
+
+    @Override
     public void saveAppointment(Appointment appointment) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(SAVE_APPOINTMENTS_SQL, Statement.RETURN_GENERATED_KEYS)) {
             statement.setInt(1, appointment.getCustomer().getId());
@@ -203,6 +356,7 @@ public class AppointmentDAO {
         }
     }
 
+    @Override
     public void updateAppointment(Appointment appointment) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(UPDATE_APPOINTMENTS_SQL)) {
             statement.setInt(1, appointment.getCustomer().getId());
@@ -224,6 +378,7 @@ public class AppointmentDAO {
         }
     }
 
+    @Override
     public void deleteAppointmentById(int id) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(DELETE_APPOINTMENT_BY_ID_SQL)) {
             statement.setInt(1, id);
@@ -233,6 +388,46 @@ public class AppointmentDAO {
         }
     }
 
+    @Override
+    public ChangeWatermark getAppointmentWatermark() throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENT_WATERMARK_SQL)) {
+            final ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            return MetadataDAO.toChangeWatermark(resultSet);
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving the appointment watermark", e);
+        }
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsUpdatedSince(Instant since) throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENTS_UPDATED_SINCE_SQL)) {
+            statement.setTimestamp(1, Timestamp.from(since));
+            final List<Appointment> appointments = new ArrayList<>();
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                appointments.add(toAppointment(resultSet));
+            }
+            return appointments;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving appointments", e);
+        }
+    }
+
+    @Override
+    public List<Integer> getAppointmentIds() throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(APPOINTMENT_IDS_SQL)) {
+            final List<Integer> ids = new ArrayList<>();
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                ids.add(resultSet.getInt("appointmentId"));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving appointment ids", e);
+        }
+    }
+
     public static Appointment toAppointment(ResultSet resultSet) throws DAOException {
         try {
             final Appointment appointment = new Appointment();
@@ -7,7 +7,7 @@ import java.util.Optional;
 
 public class CityDAO {
 
-    private static final String CITY_BY_NAME_SQL = "" +
+    static final String CITY_BY_NAME_SQL = "" +
             "SELECT * " +
             "FROM city ci " +
             "JOIN country co " +
@@ -7,7 +7,7 @@ import java.util.Optional;
 
 public class CountryDAO {
 
-    private static final String COUNTRY_BY_NAME_SQL = "" +
+    static final String COUNTRY_BY_NAME_SQL = "" +
             "SELECT * " +
             "FROM country " +
             "WHERE country = ?";
@@ -1,13 +1,16 @@
 package com.c195.dao;
 
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.CustomerRepository;
 import com.c195.model.Customer;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.*;
 
-public class CustomerDAO {
+public class CustomerDAO implements CustomerRepository {
 
     private static final String CUSTOMER_BY_ID_SQL = "" +
             "SELECT * " +
@@ -30,6 +33,25 @@ public class CustomerDAO {
             "JOIN country co " +
             "ON ci.countryId = co.countryId";
 
+    static final String CUSTOMERS_UPDATED_SINCE_SQL = "" +
+            "SELECT * " +
+            "FROM customer cu " +
+            "JOIN address a " +
+            "ON cu.addressId = a.addressId " +
+            "JOIN city ci " +
+            "ON a.cityId = ci.cityId " +
+            "JOIN country co " +
+            "ON ci.countryId = co.countryId " +
+            "WHERE cu.lastUpdate >= ?";
+
+    private static final String CUSTOMER_WATERMARK_SQL = "" +
+            "SELECT MAX(lastUpdate) AS lastUpdate, COUNT(*) AS total " +
+            "FROM customer";
+
+    private static final String CUSTOMER_IDS_SQL = "" +
+            "SELECT customerId " +
+            "FROM customer";
+
     private static final String SAVE_CUSTOMER_SQL = "" +
             "INSERT INTO customer " +
             "(customerName, addressId, active, createDate, createdBy, lastUpdateBy) " +
@@ -51,6 +73,17 @@ public class CustomerDAO {
             "ON cu.addressId = a.addressId " +
             "WHERE customerId = ?";
 
+    private static final PageQuery<CustomerColumn> customerPageQuery = new PageQuery<>(
+            new EnumMap<CustomerColumn, String>(CustomerColumn.class) {
+                {
+                    put(CustomerColumn.ID, "cu.customerId");
+                    put(CustomerColumn.NAME, "cu.customerName");
+                    put(CustomerColumn.ADDRESS, "a.address");
+                    put(CustomerColumn.PHONE, "a.phone");
+                    put(CustomerColumn.STATUS, "cu.active");
+                }
+            }, "cu.customerId");
+
     private static CustomerDAO daoInstance;
     private final Connection connection;
 
@@ -65,6 +98,7 @@ public class CustomerDAO {
         return daoInstance;
     }
 
+    @Override
     public Optional<Customer> getCustomerById(int id) throws DAOException {
         try (PreparedStatement statement = connection.prepareStatement(CUSTOMER_BY_ID_SQL)) {
             statement.setInt(1, id);
@@ -78,6 +112,7 @@ public class CustomerDAO {
         }
     }
 
+    @Override
     public List<Customer> getAllCustomers() throws DAOException {
         try (final Statement statement = connection.createStatement()) {
             final List<Customer> customers = new ArrayList<>();
@@ -91,6 +126,27 @@ public class CustomerDAO {
         }
     }
 
+    /**
+     * Retrieves a single page of customers. One row more than the page size is returned
+     * when another page exists.
+     */
+    @Override
+    public List<Customer> getCustomerPage(QuerySpec<CustomerColumn> querySpec) throws DAOException {
+        final String sql = customerPageQuery.toSql(ALL_CUSTOMERS_SQL, Collections.emptyList(), querySpec);
+        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+            customerPageQuery.bind(statement, 1, querySpec);
+            final List<Customer> customers = new ArrayList<>(querySpec.getPageSize() + 1);
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                customers.add(toCustomer(resultSet));
+            }
+            return customers;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving customers", e);
+        }
+    }
+
+    @Override
     public void saveCustomer(Customer customer) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(SAVE_CUSTOMER_SQL, Statement.RETURN_GENERATED_KEYS)) {
             statement.setString(1, customer.getName().toLowerCase());
@@ -109,6 +165,7 @@ public class CustomerDAO {
         }
     }
 
+    @Override
     public void updateCustomer(Customer customer) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(UPDATE_CUSTOMER_SQL)) {
             statement.setString(1, customer.getName().toLowerCase());
@@ -123,6 +180,7 @@ public class CustomerDAO {
         }
     }
 
+    @Override
     public void deleteCustomerById(int id) throws DAOException {
         try (final PreparedStatement statement = connection.prepareStatement(DELETE_CUSTOMER_BY_ID_SQL)) {
             statement.setInt(1, id);
@@ -132,6 +190,46 @@ public class CustomerDAO {
         }
     }
 
+    @Override
+    public ChangeWatermark getCustomerWatermark() throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(CUSTOMER_WATERMARK_SQL)) {
+            final ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            return MetadataDAO.toChangeWatermark(resultSet);
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving the customer watermark", e);
+        }
+    }
+
+    @Override
+    public List<Customer> getCustomersUpdatedSince(Instant since) throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(CUSTOMERS_UPDATED_SINCE_SQL)) {
+            statement.setTimestamp(1, Timestamp.from(since));
+            final List<Customer> customers = new ArrayList<>();
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                customers.add(toCustomer(resultSet));
+            }
+            return customers;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving customers", e);
+        }
+    }
+
+    @Override
+    public List<Integer> getCustomerIds() throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement(CUSTOMER_IDS_SQL)) {
+            final List<Integer> ids = new ArrayList<>();
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                ids.add(resultSet.getInt("customerId"));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving customer ids", e);
+        }
+    }
+
     public static Customer toCustomer(ResultSet resultSet) throws DAOException {
         try {
             final Customer customer = new Customer();
@@ -2,6 +2,10 @@ package com.c195.dao;
 
 public class DAOException extends Exception {
 
+    public DAOException(String message) {
+        super(message);
+    }
+
     public DAOException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -0,0 +1,274 @@
+package com.c195.dao;
+
+import com.c195.model.*;
+import com.c195.util.generate.DatasetSink;
+import com.c195.util.generate.DatasetTable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts a generated dataset into the db in batches, on a connection of its own opened through
+ * {@link com.c195.dao.config.MysqlConnection#openBatchConnection}.
+ * <p>
+ * Unlike the other DAOs the ids are inserted along with the rows, so rows can reference each other
+ * without waiting for the generated keys of the rows before them. The inserts are committed whenever
+ * the sink is flushed.
+ */
+public class DatasetDAO implements DatasetSink {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_COUNTRY_SQL = "" +
+            "INSERT INTO country " +
+            "(countryId, country, createDate, createdBy, lastUpdate, lastUpdateBy) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CITY_SQL = "" +
+            "INSERT INTO city " +
+            "(cityId, city, countryId, createDate, createdBy, lastUpdate, lastUpdateBy) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ADDRESS_SQL = "" +
+            "INSERT INTO address " +
+            "(addressId, address, address2, cityId, postalCode, phone, createDate, createdBy, lastUpdate, lastUpdateBy) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CUSTOMER_SQL = "" +
+            "INSERT INTO customer " +
+            "(customerId, customerName, addressId, active, createDate, createdBy, lastUpdate, lastUpdateBy) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USER_SQL = "" +
+            "INSERT INTO user " +
+            "(userId, userName, password, active, createDate, createdBy, lastUpdate, lastUpdateBy) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_APPOINTMENT_SQL = "" +
+            "INSERT INTO appointment " +
+            "(appointmentId, customerId, userId, title, description, location, contact, type, url, start, end, " +
+            "createDate, createdBy, lastUpdate, lastUpdateBy) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FIRST_ID_SQL = "" +
+            "SELECT COALESCE(MAX(%s), 0) + 1 AS firstId " +
+            "FROM %s";
+
+    private final Connection connection;
+    private final List<Batch> batches = new ArrayList<>();
+    private final Batch countryBatch;
+    private final Batch cityBatch;
+    private final Batch addressBatch;
+    private final Batch customerBatch;
+    private final Batch userBatch;
+    private final Batch appointmentBatch;
+
+    public DatasetDAO(Connection connection) throws DAOException {
+        this.connection = connection;
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue starting a dataset transaction", e);
+        }
+        this.countryBatch = prepare(INSERT_COUNTRY_SQL);
+        this.cityBatch = prepare(INSERT_CITY_SQL);
+        this.addressBatch = prepare(INSERT_ADDRESS_SQL);
+        this.customerBatch = prepare(INSERT_CUSTOMER_SQL);
+        this.userBatch = prepare(INSERT_USER_SQL);
+        this.appointmentBatch = prepare(INSERT_APPOINTMENT_SQL);
+    }
+
+    @Override
+    public int getFirstId(DatasetTable table) throws DAOException {
+        final String sql = String.format(FIRST_ID_SQL, table.getIdColumn(), table.getName());
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            final ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            return resultSet.getInt("firstId");
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving the first id of " + table.getName(), e);
+        }
+    }
+
+    @Override
+    public void writeCountry(Country country) throws DAOException {
+        try {
+            final PreparedStatement statement = countryBatch.statement;
+            statement.setInt(1, country.getId());
+            statement.setString(2, country.getCountry());
+            setMetadata(statement, 3, country.getMetadata());
+            countryBatch.add();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue inserting a country", e);
+        }
+    }
+
+    @Override
+    public void writeCity(City city) throws DAOException {
+        try {
+            final PreparedStatement statement = cityBatch.statement;
+            statement.setInt(1, city.getId());
+            statement.setString(2, city.getCity());
+            statement.setInt(3, city.getCountry().getId());
+            setMetadata(statement, 4, city.getMetadata());
+            cityBatch.add();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue inserting a city", e);
+        }
+    }
+
+    @Override
+    public void writeAddress(Address address) throws DAOException {
+        try {
+            final PreparedStatement statement = addressBatch.statement;
+            statement.setInt(1, address.getId());
+            statement.setString(2, address.getAddress());
+            statement.setString(3, address.getAddress2());
+            statement.setInt(4, address.getCity().getId());
+            statement.setString(5, address.getPostalCode());
+            statement.setString(6, address.getPhone());
+            setMetadata(statement, 7, address.getMetadata());
+            addressBatch.add();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue inserting an address", e);
+        }
+    }
+
+    @Override
+    public void writeCustomer(Customer customer) throws DAOException {
+        try {
+            final PreparedStatement statement = customerBatch.statement;
+            statement.setInt(1, customer.getId());
+            statement.setString(2, customer.getName());
+            statement.setInt(3, customer.getAddress().getId());
+            statement.setBoolean(4, customer.isActive());
+            setMetadata(statement, 5, customer.getMetadata());
+            customerBatch.add();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue inserting a customer", e);
+        }
+    }
+
+    @Override
+    public void writeUser(User user) throws DAOException {
+        try {
+            final PreparedStatement statement = userBatch.statement;
+            statement.setInt(1, user.getId());
+            statement.setString(2, user.getUsername());
+            statement.setString(3, user.getPassword());
+            statement.setBoolean(4, user.isActive());
+            setMetadata(statement, 5, user.getMetadata());
+            userBatch.add();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue inserting a user", e);
+        }
+    }
+
+    @Override
+    public void writeAppointment(Appointment appointment) throws DAOException {
+        try {
+            final PreparedStatement statement = appointmentBatch.statement;
+            statement.setInt(1, appointment.getId());
+            statement.setInt(2, appointment.getCustomer().getId());
+            statement.setInt(3, appointment.getUser().getId());
+            statement.setString(4, appointment.getTitle());
+            statement.setString(5, appointment.getDescription());
+            statement.setString(6, appointment.getLocation());
+            statement.setString(7, appointment.getContact());
+            statement.setString(8, appointment.getType());
+            statement.setString(9, appointment.getUrl());
+            statement.setTimestamp(10, Timestamp.from(appointment.getStart()));
+            statement.setTimestamp(11, Timestamp.from(appointment.getEnd()));
+            setMetadata(statement, 12, appointment.getMetadata());
+            appointmentBatch.add();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue inserting an appointment", e);
+        }
+    }
+
+    @Override
+    public void flush() throws DAOException {
+        try {
+            for (Batch batch : batches) {
+                batch.execute();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new DAOException("There was an issue inserting the dataset", e);
+        }
+    }
+
+    /**
+     * Closes the statements and the connection. Rows written since the last flush are rolled back.
+     */
+    @Override
+    public void close() throws DAOException {
+        rollback();
+        try {
+            for (Batch batch : batches) {
+                batch.statement.close();
+            }
+            connection.close();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue closing the dataset connection", e);
+        }
+    }
+
+    private Batch prepare(String sql) throws DAOException {
+        try {
+            final Batch batch = new Batch(connection.prepareStatement(sql));
+            batches.add(batch);
+            return batch;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue preparing a dataset insert", e);
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // the connection is already unusable, which is reported by whatever failed on it
+        }
+    }
+
+    private static void setMetadata(PreparedStatement statement, int index, Metadata metadata) throws SQLException {
+        statement.setTimestamp(index, Timestamp.from(metadata.getCreatedDate()));
+        statement.setString(index + 1, metadata.getCreatedBy().toLowerCase());
+        statement.setTimestamp(index + 2, Timestamp.from(metadata.getUpdatedDate()));
+        statement.setString(index + 3, metadata.getUpdatedBy().toLowerCase());
+    }
+
+    /**
+     * An insert statement along with how many rows have been added to its batch since it was last executed.
+     */
+    private static final class Batch {
+
+        private final PreparedStatement statement;
+        private int pendingRows;
+
+        private Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private void add() throws SQLException {
+            statement.addBatch();
+            if (++pendingRows == BATCH_SIZE) {
+                execute();
+            }
+        }
+
+        private void execute() throws SQLException {
+            if (pendingRows > 0) {
+                statement.executeBatch();
+                pendingRows = 0;
+            }
+        }
+    }
+}
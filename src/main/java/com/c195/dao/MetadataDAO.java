@@ -1,9 +1,11 @@
 package com.c195.dao;
 
+import com.c195.dao.repository.ChangeWatermark;
 import com.c195.model.Metadata;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
 
 public final class MetadataDAO {
@@ -21,6 +23,18 @@ public final class MetadataDAO {
         }
     }
 
+    /**
+     * Reads a watermark selected as the latest lastUpdate and a total count of rows.
+     */
+    public static ChangeWatermark toChangeWatermark(ResultSet resultSet) throws DAOException {
+        try {
+            final Timestamp lastUpdate = resultSet.getTimestamp("lastUpdate");
+            return new ChangeWatermark(lastUpdate == null ? null : lastUpdate.toInstant(), resultSet.getInt("total"));
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue creating a change watermark", e);
+        }
+    }
+
     public static Metadata getSaveMetadata(String currentUser, Instant createdDate) {
         return new Metadata.Builder()
                 .withCreatedDate(createdDate)
@@ -0,0 +1,60 @@
+package com.c195.dao;
+
+import com.c195.dao.repository.AddressRepository;
+import com.c195.model.Address;
+import com.c195.model.City;
+import com.c195.model.Country;
+
+import java.util.Optional;
+
+/**
+ * The address, city and country tables make up a single aggregate, so their DAOs are
+ * exposed together as one repository.
+ */
+public class MysqlAddressRepository implements AddressRepository {
+
+    private final AddressDAO addressDAO;
+    private final CityDAO cityDAO;
+    private final CountryDAO countryDAO;
+
+    public MysqlAddressRepository(AddressDAO addressDAO, CityDAO cityDAO, CountryDAO countryDAO) {
+        this.addressDAO = addressDAO;
+        this.cityDAO = cityDAO;
+        this.countryDAO = countryDAO;
+    }
+
+    @Override
+    public Optional<Address> getAddress(String address) throws DAOException {
+        return addressDAO.getAddress(address);
+    }
+
+    @Override
+    public void saveAddress(Address address) throws DAOException {
+        addressDAO.saveAddress(address);
+    }
+
+    @Override
+    public void updateAddress(Address address) throws DAOException {
+        addressDAO.updateAddress(address);
+    }
+
+    @Override
+    public Optional<City> getCityByName(String cityName) throws DAOException {
+        return cityDAO.getCityByName(cityName);
+    }
+
+    @Override
+    public void saveCity(City city) throws DAOException {
+        cityDAO.saveCity(city);
+    }
+
+    @Override
+    public Optional<Country> getCountryByName(String countryName) throws DAOException {
+        return countryDAO.getCountryByName(countryName);
+    }
+
+    @Override
+    public void saveCountry(Country country) throws DAOException {
+        countryDAO.saveCountry(country);
+    }
+}
@@ -0,0 +1,46 @@
+package com.c195.dao;
+
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.config.MysqlConnection;
+import com.c195.dao.repository.*;
+
+import java.sql.Connection;
+
+/**
+ * Repositories backed by the MySQL DAOs.
+ */
+public class MysqlRepositoryFactory implements RepositoryFactory {
+
+    private final Connection connection;
+
+    public MysqlRepositoryFactory(Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public AppointmentRepository getAppointmentRepository() {
+        return AppointmentDAO.getInstance(connection);
+    }
+
+    @Override
+    public CustomerRepository getCustomerRepository() {
+        return CustomerDAO.getInstance(connection);
+    }
+
+    @Override
+    public AddressRepository getAddressRepository() {
+        return new MysqlAddressRepository(AddressDAO.getInstance(connection),
+                CityDAO.getInstance(connection),
+                CountryDAO.getInstance(connection));
+    }
+
+    @Override
+    public UserRepository getUserRepository() {
+        return UserDAO.getInstance(connection);
+    }
+
+    @Override
+    public void close() throws DAOConfigException {
+        MysqlConnection.close();
+    }
+}
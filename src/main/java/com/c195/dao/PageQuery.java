@@ -0,0 +1,96 @@
+package com.c195.dao;
+
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates a {@link QuerySpec} into the WHERE, ORDER BY and LIMIT portions of a query.
+ * <p>
+ * Only the columns given to the constructor can be filtered or sorted on, so nothing from the
+ * spec is ever concatenated into the SQL besides these known expressions. Filters are prefix matches
+ * ({@code LIKE 'value%'}) and the ordering always ends with the id, which keeps both usable with an index
+ * and gives keyset pages a stable position.
+ */
+final class PageQuery<C extends Enum<C>> {
+
+    private final Map<C, String> columnExpressions;
+    private final String idExpression;
+
+    PageQuery(Map<C, String> columnExpressions, String idExpression) {
+        this.columnExpressions = columnExpressions;
+        this.idExpression = idExpression;
+    }
+
+    String toSql(String selectSql, List<String> conditions, QuerySpec<C> spec) {
+        final List<String> where = new ArrayList<>(conditions);
+        spec.getFilters().keySet().forEach(column -> where.add(toExpression(column) + " LIKE ? ESCAPE '!'"));
+        final String sortExpression = toExpression(spec.getSortColumn());
+        final boolean ascending = spec.getSortDirection() == SortDirection.ASCENDING;
+        if (spec.hasKeyset()) {
+            final String comparison = ascending ? " > " : " < ";
+            where.add("(" + sortExpression + comparison + "? " +
+                    "OR (" + sortExpression + " = ? AND " + idExpression + comparison + "?))");
+        }
+        final StringBuilder sql = new StringBuilder(selectSql);
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        final String direction = spec.getSortDirection().getKeyword();
+        sql.append(" ORDER BY ").append(sortExpression).append(' ').append(direction)
+                .append(", ").append(idExpression).append(' ').append(direction)
+                .append(" LIMIT ? OFFSET ?");
+        return sql.toString();
+    }
+
+    /**
+     * Binds the parameters added by {@link #toSql(String, List, QuerySpec)}.
+     *
+     * @param statement  to bind the parameters to.
+     * @param startIndex the index of the first parameter after the caller's own conditions.
+     * @param spec       the spec used to create the SQL.
+     * @throws SQLException if there are issues binding the parameters.
+     */
+    void bind(PreparedStatement statement, int startIndex, QuerySpec<C> spec) throws SQLException {
+        int index = startIndex;
+        for (String prefix : spec.getFilters().values()) {
+            statement.setString(index++, escapeLike(prefix) + "%");
+        }
+        if (spec.hasKeyset()) {
+            final Object sortValue = toParameter(spec.getAfterSortValue());
+            statement.setObject(index++, sortValue);
+            statement.setObject(index++, sortValue);
+            statement.setInt(index++, spec.getAfterId().orElse(0));
+        }
+        statement.setInt(index++, spec.getPageSize() + 1);
+        statement.setInt(index, spec.hasKeyset() ? 0 : spec.getOffset());
+    }
+
+    private String toExpression(C column) {
+        final String expression = columnExpressions.get(column);
+        if (expression == null) {
+            throw new IllegalArgumentException("Column cannot be queried: " + column);
+        }
+        return expression;
+    }
+
+    private static Object toParameter(Object value) {
+        if (value instanceof Instant) {
+            return Timestamp.from((Instant) value);
+        }
+        return value;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+    }
+}
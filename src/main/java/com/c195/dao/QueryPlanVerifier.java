@@ -0,0 +1,113 @@
+package com.c195.dao;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs EXPLAIN against the hot DAO queries and reports any that filter
+ * their main table without using an index.
+ */
+public class QueryPlanVerifier {
+
+    private static final List<QueryPlan> queryPlans = Arrays.asList(
+            new QueryPlan("AppointmentDAO.getAppointmentsByUserBetween",
+                    AppointmentDAO.APPOINTMENTS_BY_USER_BETWEEN_SQL, "ap", statement -> {
+                statement.setInt(1, 1);
+                statement.setTimestamp(2, Timestamp.from(Instant.EPOCH));
+                statement.setTimestamp(3, Timestamp.from(Instant.EPOCH));
+            }),
+            new QueryPlan("AppointmentDAO.getAppointmentsByUserAfter",
+                    AppointmentDAO.APPOINTMENTS_BY_USER_AFTER_SQL, "ap", statement -> {
+                statement.setInt(1, 1);
+                statement.setTimestamp(2, Timestamp.from(Instant.EPOCH));
+            }),
+            new QueryPlan("AppointmentDAO.getOverlappingAppointmentsByUser",
+                    AppointmentDAO.APPOINTMENTS_OVERLAP_BY_USER_SQL, "ap", statement -> {
+                statement.setInt(1, 1);
+                statement.setTimestamp(2, Timestamp.from(Instant.EPOCH));
+                statement.setTimestamp(3, Timestamp.from(Instant.EPOCH));
+            }),
+            new QueryPlan("AppointmentDAO.getAppointmentsByContactAfter",
+                    AppointmentDAO.APPOINTMENTS_BY_CONTACT_PAGE_SQL, "ap", statement -> {
+                statement.setString(1, "");
+                statement.setString(2, "");
+                statement.setInt(3, 0);
+                statement.setInt(4, 1);
+            }),
+            new QueryPlan("AppointmentDAO.getAppointmentsUpdatedSince",
+                    AppointmentDAO.APPOINTMENTS_UPDATED_SINCE_SQL, "ap",
+                    statement -> statement.setTimestamp(1, Timestamp.from(Instant.now()))),
+            new QueryPlan("CustomerDAO.getCustomersUpdatedSince",
+                    CustomerDAO.CUSTOMERS_UPDATED_SINCE_SQL, "cu",
+                    statement -> statement.setTimestamp(1, Timestamp.from(Instant.now()))),
+            new QueryPlan("CityDAO.getCityByName", CityDAO.CITY_BY_NAME_SQL, "ci",
+                    statement -> statement.setString(1, "")),
+            new QueryPlan("CountryDAO.getCountryByName", CountryDAO.COUNTRY_BY_NAME_SQL, "country",
+                    statement -> statement.setString(1, "")),
+            new QueryPlan("AddressDAO.getAddress", AddressDAO.ADDRESS_SQL, "a",
+                    statement -> statement.setString(1, "")),
+            new QueryPlan("UserDAO.getUserByUsername", UserDAO.USER_BY_USERNAME_SQL, "user",
+                    statement -> statement.setString(1, ""))
+    );
+
+    private final Connection connection;
+
+    public QueryPlanVerifier(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Explains each of the hot queries.
+     *
+     * @return a description of each query whose main table is not read through an index.
+     * @throws DAOException if there are issues explaining a query.
+     */
+    public List<String> getUnindexedQueries() throws DAOException {
+        final List<String> unindexedQueries = new ArrayList<>();
+        for (QueryPlan queryPlan : queryPlans) {
+            final String key = explain(queryPlan);
+            if (key == null) {
+                unindexedQueries.add(String.format("%s does not use an index on %s", queryPlan.name, queryPlan.table));
+            }
+        }
+        return unindexedQueries;
+    }
+
+    private String explain(QueryPlan queryPlan) throws DAOException {
+        try (final PreparedStatement statement = connection.prepareStatement("EXPLAIN " + queryPlan.sql)) {
+            queryPlan.binder.bind(statement);
+            final ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                if (queryPlan.table.equals(resultSet.getString("table"))) {
+                    return resultSet.getString("key");
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue explaining " + queryPlan.name, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ParameterBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private static final class QueryPlan {
+
+        private final String name;
+        private final String sql;
+        private final String table;
+        private final ParameterBinder binder;
+
+        private QueryPlan(String name, String sql, String table, ParameterBinder binder) {
+            this.name = name;
+            this.sql = sql;
+            this.table = table;
+            this.binder = binder;
+        }
+    }
+}
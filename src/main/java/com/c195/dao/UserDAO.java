@@ -1,20 +1,28 @@
 package com.c195.dao;
 
+import com.c195.dao.repository.UserRepository;
 import com.c195.model.User;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.Optional;
 
-public class UserDAO {
+public class UserDAO implements UserRepository {
 
-    private static final String USER_BY_USERNAME_AND_PASSWORD_SQL = "" +
+    static final String USER_BY_USERNAME_SQL = "" +
             "SELECT * " +
             "FROM user " +
-            "WHERE userName = ? " +
-            "AND password = ?";
+            "WHERE userName = ?";
+
+    private static final String UPDATE_PASSWORD_SQL = "" +
+            "UPDATE user " +
+            "SET password = ?, " +
+            "lastUpdate = ?, " +
+            "lastUpdateBy = ? " +
+            "WHERE userId = ?";
 
     private static UserDAO daoInstance;
     private final Connection connection;
@@ -30,10 +38,14 @@ public class UserDAO {
         return daoInstance;
     }
 
-    public Optional<User> getUserByUsernameAndPassword(String username, String password) throws DAOException {
-        try (PreparedStatement statement = connection.prepareStatement(USER_BY_USERNAME_AND_PASSWORD_SQL)) {
+    /**
+     * Retrieves a user, including their stored password, so the password can be checked in the app
+     * rather than being sent to the db as part of the query.
+     */
+    @Override
+    public Optional<User> getUserByUsername(String username) throws DAOException {
+        try (PreparedStatement statement = connection.prepareStatement(USER_BY_USERNAME_SQL)) {
             statement.setString(1, username);
-            statement.setString(2, password);
             final ResultSet resultSet = statement.executeQuery();
             if (resultSet.next()) {
                 return Optional.of(toUser(resultSet));
@@ -44,6 +56,19 @@ public class UserDAO {
         }
     }
 
+    @Override
+    public void updatePassword(User user) throws DAOException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_PASSWORD_SQL)) {
+            statement.setString(1, user.getPassword());
+            statement.setTimestamp(2, Timestamp.from(user.getMetadata().getUpdatedDate()));
+            statement.setString(3, user.getMetadata().getUpdatedBy().toLowerCase());
+            statement.setInt(4, user.getId());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue updating a user", e);
+        }
+    }
+
     public static User toUser(ResultSet resultSet) throws DAOException {
         try {
             final User user = new User();
@@ -0,0 +1,59 @@
+package com.c195.dao.coalescing;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AddressRepository;
+import com.c195.model.Address;
+import com.c195.model.City;
+import com.c195.model.Country;
+
+import java.util.Optional;
+
+/**
+ * Addresses are only read while saving customers, so their queries are not shared. Their writes still
+ * go through the {@link SingleFlight}, as customers and appointments are returned along with the address.
+ */
+class CoalescingAddressRepository implements AddressRepository {
+
+    private final AddressRepository addressRepository;
+    private final SingleFlight singleFlight;
+
+    CoalescingAddressRepository(AddressRepository addressRepository, SingleFlight singleFlight) {
+        this.addressRepository = addressRepository;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public Optional<Address> getAddress(String address) throws DAOException {
+        return addressRepository.getAddress(address);
+    }
+
+    @Override
+    public void saveAddress(Address address) throws DAOException {
+        singleFlight.write(() -> addressRepository.saveAddress(address));
+    }
+
+    @Override
+    public void updateAddress(Address address) throws DAOException {
+        singleFlight.write(() -> addressRepository.updateAddress(address));
+    }
+
+    @Override
+    public Optional<City> getCityByName(String cityName) throws DAOException {
+        return addressRepository.getCityByName(cityName);
+    }
+
+    @Override
+    public void saveCity(City city) throws DAOException {
+        singleFlight.write(() -> addressRepository.saveCity(city));
+    }
+
+    @Override
+    public Optional<Country> getCountryByName(String countryName) throws DAOException {
+        return addressRepository.getCountryByName(countryName);
+    }
+
+    @Override
+    public void saveCountry(Country country) throws DAOException {
+        singleFlight.write(() -> addressRepository.saveCountry(country));
+    }
+}
@@ -0,0 +1,102 @@
+package com.c195.dao.coalescing;
+
+import com.c195.common.appointment.AppointmentColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.model.Appointment;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shares the appointment queries that are already in flight, see {@link SingleFlight}.
+ */
+class CoalescingAppointmentRepository implements AppointmentRepository {
+
+    private final AppointmentRepository appointmentRepository;
+    private final SingleFlight singleFlight;
+
+    CoalescingAppointmentRepository(AppointmentRepository appointmentRepository, SingleFlight singleFlight) {
+        this.appointmentRepository = appointmentRepository;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public List<Appointment> getAllAppointments() throws DAOException {
+        return singleFlight.query("getAllAppointments", appointmentRepository::getAllAppointments);
+    }
+
+    @Override
+    public Optional<Appointment> getAppointmentById(int id) throws DAOException {
+        return singleFlight.query("getAppointmentById", () -> appointmentRepository.getAppointmentById(id), id);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByUserBetween(int userId, Instant start, Instant end) throws DAOException {
+        return singleFlight.query("getAppointmentsByUserBetween",
+                () -> appointmentRepository.getAppointmentsByUserBetween(userId, start, end), userId, start, end);
+    }
+
+    @Override
+    public List<Appointment> getOverlappingAppointmentsByUser(int userId, Instant start, Instant end) throws DAOException {
+        return singleFlight.query("getOverlappingAppointmentsByUser",
+                () -> appointmentRepository.getOverlappingAppointmentsByUser(userId, start, end), userId, start, end);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByUserAfter(int userId, Instant start) throws DAOException {
+        return singleFlight.query("getAppointmentsByUserAfter",
+                () -> appointmentRepository.getAppointmentsByUserAfter(userId, start), userId, start);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentPageByUserBetween(int userId,
+                                                             Instant start,
+                                                             Instant end,
+                                                             QuerySpec<AppointmentColumn> querySpec) throws DAOException {
+        return singleFlight.query("getAppointmentPageByUserBetween",
+                () -> appointmentRepository.getAppointmentPageByUserBetween(userId, start, end, querySpec),
+                userId, start, end, querySpec);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByContactAfter(String contact, int appointmentId, int limit)
+            throws DAOException {
+        return singleFlight.query("getAppointmentsByContactAfter",
+                () -> appointmentRepository.getAppointmentsByContactAfter(contact, appointmentId, limit),
+                contact, appointmentId, limit);
+    }
+
+    @Override
+    public void saveAppointment(Appointment appointment) throws DAOException {
+        singleFlight.write(() -> appointmentRepository.saveAppointment(appointment));
+    }
+
+    @Override
+    public void updateAppointment(Appointment appointment) throws DAOException {
+        singleFlight.write(() -> appointmentRepository.updateAppointment(appointment));
+    }
+
+    @Override
+    public void deleteAppointmentById(int id) throws DAOException {
+        singleFlight.write(() -> appointmentRepository.deleteAppointmentById(id));
+    }
+
+    @Override
+    public ChangeWatermark getAppointmentWatermark() throws DAOException {
+        return appointmentRepository.getAppointmentWatermark();
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsUpdatedSince(Instant since) throws DAOException {
+        return appointmentRepository.getAppointmentsUpdatedSince(since);
+    }
+
+    @Override
+    public List<Integer> getAppointmentIds() throws DAOException {
+        return appointmentRepository.getAppointmentIds();
+    }
+}
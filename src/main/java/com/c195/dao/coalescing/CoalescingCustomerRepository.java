@@ -0,0 +1,71 @@
+package com.c195.dao.coalescing;
+
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.model.Customer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shares the customer queries that are already in flight, see {@link SingleFlight}.
+ */
+class CoalescingCustomerRepository implements CustomerRepository {
+
+    private final CustomerRepository customerRepository;
+    private final SingleFlight singleFlight;
+
+    CoalescingCustomerRepository(CustomerRepository customerRepository, SingleFlight singleFlight) {
+        this.customerRepository = customerRepository;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public Optional<Customer> getCustomerById(int id) throws DAOException {
+        return singleFlight.query("getCustomerById", () -> customerRepository.getCustomerById(id), id);
+    }
+
+    @Override
+    public List<Customer> getAllCustomers() throws DAOException {
+        return singleFlight.query("getAllCustomers", customerRepository::getAllCustomers);
+    }
+
+    @Override
+    public List<Customer> getCustomerPage(QuerySpec<CustomerColumn> querySpec) throws DAOException {
+        return singleFlight.query("getCustomerPage", () -> customerRepository.getCustomerPage(querySpec), querySpec);
+    }
+
+    @Override
+    public void saveCustomer(Customer customer) throws DAOException {
+        singleFlight.write(() -> customerRepository.saveCustomer(customer));
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) throws DAOException {
+        singleFlight.write(() -> customerRepository.updateCustomer(customer));
+    }
+
+    @Override
+    public void deleteCustomerById(int id) throws DAOException {
+        singleFlight.write(() -> customerRepository.deleteCustomerById(id));
+    }
+
+    @Override
+    public ChangeWatermark getCustomerWatermark() throws DAOException {
+        return customerRepository.getCustomerWatermark();
+    }
+
+    @Override
+    public List<Customer> getCustomersUpdatedSince(Instant since) throws DAOException {
+        return customerRepository.getCustomersUpdatedSince(since);
+    }
+
+    @Override
+    public List<Integer> getCustomerIds() throws DAOException {
+        return customerRepository.getCustomerIds();
+    }
+}
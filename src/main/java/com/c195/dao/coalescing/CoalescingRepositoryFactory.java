@@ -0,0 +1,57 @@
+package com.c195.dao.coalescing;
+
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.repository.*;
+import com.c195.util.metrics.MetricRegistry;
+
+/**
+ * Wraps the repositories of another backend so identical appointment and customer queries that run at the
+ * same time, such as the reports all reading every appointment, only reach the backend once.
+ * <p>
+ * Queries and writes share one {@link SingleFlight}, as appointments are returned along with their
+ * customer and address and so change when either is written. The number of queries that waited for another one
+ * instead of running is counted as "repository.coalesced".
+ */
+public class CoalescingRepositoryFactory implements RepositoryFactory {
+
+    private final RepositoryFactory repositoryFactory;
+    private final AppointmentRepository appointmentRepository;
+    private final CustomerRepository customerRepository;
+    private final AddressRepository addressRepository;
+
+    public CoalescingRepositoryFactory(RepositoryFactory repositoryFactory, MetricRegistry metricRegistry) {
+        final SingleFlight singleFlight = new SingleFlight(metricRegistry.counter("repository.coalesced"));
+        this.repositoryFactory = repositoryFactory;
+        this.appointmentRepository =
+                new CoalescingAppointmentRepository(repositoryFactory.getAppointmentRepository(), singleFlight);
+        this.customerRepository =
+                new CoalescingCustomerRepository(repositoryFactory.getCustomerRepository(), singleFlight);
+        this.addressRepository =
+                new CoalescingAddressRepository(repositoryFactory.getAddressRepository(), singleFlight);
+    }
+
+    @Override
+    public AppointmentRepository getAppointmentRepository() {
+        return appointmentRepository;
+    }
+
+    @Override
+    public CustomerRepository getCustomerRepository() {
+        return customerRepository;
+    }
+
+    @Override
+    public AddressRepository getAddressRepository() {
+        return addressRepository;
+    }
+
+    @Override
+    public UserRepository getUserRepository() {
+        return repositoryFactory.getUserRepository();
+    }
+
+    @Override
+    public void close() throws DAOConfigException {
+        repositoryFactory.close();
+    }
+}
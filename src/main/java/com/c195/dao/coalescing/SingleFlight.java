@@ -0,0 +1,151 @@
+package com.c195.dao.coalescing;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.jdbc.CancellationInterceptor;
+import com.c195.util.concurrent.CancellationToken;
+import com.c195.util.metrics.Counter;
+
+import java.sql.SQLNonTransientException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs identical queries only once while one of them is in flight.
+ * <p>
+ * The first caller of a query runs it on its own thread, and whoever asks for the same query before it
+ * returns waits for it and gets the same result, or the same exception. Queries are told apart by a key
+ * made of the query's name and arguments, so the arguments need to implement equals and hashCode.
+ * <p>
+ * A query stopped by the {@link CancellationToken} of whoever ran it was only unwanted by them, so a
+ * waiter that is still wanted runs the query again rather than failing along with it. A waiter stops
+ * waiting as soon as its own token is cancelled.
+ * <p>
+ * Every write moves the repository to a new generation, and only queries of the same generation are
+ * shared, so a query asked for after a write never gets the result of a query started before it.
+ */
+final class SingleFlight {
+
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter coalesced;
+
+    SingleFlight(Counter coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    @FunctionalInterface
+    interface Query<T> {
+        T run() throws DAOException;
+    }
+
+    @FunctionalInterface
+    interface Write {
+        void run() throws DAOException;
+    }
+
+    /**
+     * Runs the query, or waits for the same query if it is already running.
+     *
+     * @param name      the name of the query, usually the repository method.
+     * @param arguments the arguments of the query.
+     */
+    <T> T query(String name, Query<T> query, Object... arguments) throws DAOException {
+        final List<Object> key = new ArrayList<>(arguments.length + 2);
+        key.add(name);
+        key.add(generation.get());
+        key.addAll(Arrays.asList(arguments));
+        final Optional<CancellationToken> token = CancellationToken.current();
+        while (true) {
+            final CompletableFuture<Object> future = new CompletableFuture<>();
+            final CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+            if (running == null) {
+                return run(key, future, query);
+            }
+            coalesced.increment();
+            try {
+                return await(running, token);
+            } catch (DAOException e) {
+                if (!CancellationInterceptor.isCancellation(e) || token.map(CancellationToken::isCancelled).orElse(false)) {
+                    throw e;
+                }
+                // stopped for whoever ran it rather than for this caller, so it is run again
+            }
+        }
+    }
+
+    /**
+     * Runs the write, after which queries are no longer shared with the ones already running.
+     */
+    void write(Write write) throws DAOException {
+        try {
+            write.run();
+        } finally {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Runs the query for whoever waits on it. The query is no longer in flight by the time they are woken,
+     * so a waiter running it again starts a query of its own.
+     */
+    private <T> T run(List<Object> key, CompletableFuture<Object> future, Query<T> query) throws DAOException {
+        final T result;
+        try {
+            result = query.run();
+        } catch (DAOException | RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, future);
+        future.complete(result);
+        return result;
+    }
+
+    /**
+     * Waits for the running query, or until the caller's token is cancelled.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<Object> running, Optional<CancellationToken> token)
+            throws DAOException {
+        final CompletableFuture<Object> waiting = new CompletableFuture<>();
+        running.whenComplete((result, failure) -> {
+            if (failure != null) {
+                waiting.completeExceptionally(failure);
+            } else {
+                waiting.complete(result);
+            }
+        });
+        final CancellationToken.Registration registration = token
+                .map(cancellationToken -> cancellationToken.onCancel(() -> waiting.completeExceptionally(cancelled())))
+                .orElse(() -> {
+                });
+        try {
+            return (T) waiting.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Interrupted while waiting for the same query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DAOException) {
+                throw (DAOException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } finally {
+            registration.close();
+        }
+    }
+
+    private static DAOException cancelled() {
+        final String message = "The query was cancelled while waiting for the same query";
+        return new DAOException(message, new SQLNonTransientException(message, CancellationInterceptor.CANCELLED_SQL_STATE));
+    }
+}
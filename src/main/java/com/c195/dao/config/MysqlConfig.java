@@ -2,10 +2,20 @@ package com.c195.dao.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 public final class MysqlConfig {
 
+    private static final String QUERY_TIMEOUT_PREFIX = "mysql.query.timeout.";
+    private static final String QUERY_TIMEOUT_PROPERTY = QUERY_TIMEOUT_PREFIX + "seconds";
+
     private static MysqlConfig configInstance;
     private final Properties mysqlProperties;
 
@@ -54,4 +64,124 @@ public final class MysqlConfig {
     public String getDriver() {
         return mysqlProperties.getProperty("mysql.driver");
     }
+
+    /**
+     * @return how long a statement may take before it is written to the slow query log, empty if the
+     * log is turned off by setting it to 0.
+     */
+    public Optional<Duration> getSlowQueryThreshold() {
+        final long millis = Long.parseLong(mysqlProperties.getProperty("mysql.slow.query.millis", "250"));
+        return millis > 0 ? Optional.of(Duration.ofMillis(millis)) : Optional.empty();
+    }
+
+    /**
+     * @return whether the plan of each slow statement is explained in the slow query log the first time
+     * the statement is slow.
+     */
+    public boolean isSlowQueryExplainEnabled() {
+        return Boolean.parseBoolean(mysqlProperties.getProperty("mysql.slow.query.explain", "false"));
+    }
+
+    /**
+     * @return the JDBC URLs, host and port included, of the replicas read-only service methods may read from,
+     * empty to read everything from the primary.
+     */
+    public List<String> getReplicaURLs() {
+        return Arrays.stream(mysqlProperties.getProperty("mysql.replica.urls", "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return how far behind the primary a replica may fall before reads go back to the primary.
+     */
+    public Duration getReplicaMaxLag() {
+        return Duration.ofSeconds(Long.parseLong(mysqlProperties.getProperty("mysql.replica.max.lag.seconds", "5")));
+    }
+
+    /**
+     * @return how long to wait between checks of how far behind the primary each replica is.
+     */
+    public Duration getReplicaLagCheckInterval() {
+        return Duration.ofSeconds(Long.parseLong(mysqlProperties.getProperty("mysql.replica.lag.check.seconds", "2")));
+    }
+
+    /**
+     * @return whether a replica that is not replicating from anything may be read from as if it were caught
+     * up, such as a second local db used for testing. Off unless set, as such a server never sees the writes
+     * made through the primary.
+     */
+    public boolean isStandaloneReplicaAllowed() {
+        return Boolean.parseBoolean(mysqlProperties.getProperty("mysql.replica.allow.standalone", "false"));
+    }
+
+    /**
+     * @return how long connecting to the db may take before it fails.
+     */
+    public Duration getConnectTimeout() {
+        return Duration.ofMillis(Long.parseLong(mysqlProperties.getProperty("mysql.connect.timeout.millis", "5000")));
+    }
+
+    /**
+     * @return how long the connection may wait on the db for a reply, including the rows of a query, before
+     * the connection is given up on. Longer than any statement timeout, so statements time out first.
+     */
+    public Duration getSocketTimeout() {
+        return Duration.ofMillis(Long.parseLong(mysqlProperties.getProperty("mysql.socket.timeout.millis", "60000")));
+    }
+
+    /**
+     * @return how long a statement may take unless given a timeout of its own.
+     */
+    public Duration getQueryTimeout() {
+        return Duration.ofSeconds(Long.parseLong(mysqlProperties.getProperty(QUERY_TIMEOUT_PROPERTY, "10")));
+    }
+
+    /**
+     * @return the timeouts of particular statements, set as "mysql.query.timeout.&lt;statement name&gt;" in
+     * seconds, such as "mysql.query.timeout.AppointmentDAO.ALL_APPOINTMENTS_SQL=30".
+     */
+    public Map<String, Duration> getQueryTimeouts() {
+        final Map<String, Duration> timeouts = new HashMap<>();
+        for (String property : mysqlProperties.stringPropertyNames()) {
+            if (property.startsWith(QUERY_TIMEOUT_PREFIX) && !property.equals(QUERY_TIMEOUT_PROPERTY)) {
+                timeouts.put(property.substring(QUERY_TIMEOUT_PREFIX.length()),
+                        Duration.ofSeconds(Long.parseLong(mysqlProperties.getProperty(property))));
+            }
+        }
+        return timeouts;
+    }
+
+    /**
+     * @return how many lost connections or timeouts in a row make statements fail right away.
+     */
+    public int getCircuitFailureThreshold() {
+        return Integer.parseInt(mysqlProperties.getProperty("mysql.circuit.failures", "3"));
+    }
+
+    /**
+     * @return how long statements fail right away before one is tried again.
+     */
+    public Duration getCircuitOpenDuration() {
+        return Duration.ofSeconds(Long.parseLong(mysqlProperties.getProperty("mysql.circuit.open.seconds", "15")));
+    }
+
+    /**
+     * @return how many times a query that lost its connection is run again.
+     */
+    public int getReadRetries() {
+        return Integer.parseInt(mysqlProperties.getProperty("mysql.read.retries", "2"));
+    }
+
+    /**
+     * @return the most to wait before the first retry of a query, doubling for each retry after it.
+     */
+    public Duration getReadRetryBackoff() {
+        return Duration.ofMillis(Long.parseLong(mysqlProperties.getProperty("mysql.read.retry.backoff.millis", "100")));
+    }
+
+    public boolean isQueryPlanVerificationEnabled() {
+        return Boolean.parseBoolean(mysqlProperties.getProperty("mysql.verify.plans", "false"));
+    }
 }
@@ -16,8 +16,8 @@ public final class MysqlConnection {
     }
 
     private static void connect(MysqlConfig mysqlConfig) throws DAOConfigException {
-        final String jdbcURL =
-                String.format("%s:%s/%s?autoReconnect=true", mysqlConfig.getURL(), mysqlConfig.getPort(), mysqlConfig.getName());
+        final String jdbcURL = String.format("%s:%s/%s?autoReconnect=true&%s",
+                mysqlConfig.getURL(), mysqlConfig.getPort(), mysqlConfig.getName(), timeouts(mysqlConfig));
         try {
             Class.forName(mysqlConfig.getDriver());
             connection = DriverManager.getConnection(jdbcURL, mysqlConfig.getUser(), mysqlConfig.getPass());
@@ -26,6 +26,50 @@ public final class MysqlConnection {
         }
     }
 
+    /**
+     * Opens a connection of its own for inserting rows in bulk, which has the driver rewrite each
+     * batch of inserts into a single multi-row insert. The caller is responsible for closing it.
+     */
+    public static Connection openBatchConnection(MysqlConfig mysqlConfig) throws DAOConfigException {
+        final String jdbcURL = String.format("%s:%s/%s?autoReconnect=true&rewriteBatchedStatements=true&%s",
+                mysqlConfig.getURL(), mysqlConfig.getPort(), mysqlConfig.getName(), timeouts(mysqlConfig));
+        try {
+            Class.forName(mysqlConfig.getDriver());
+            return DriverManager.getConnection(jdbcURL, mysqlConfig.getUser(), mysqlConfig.getPass());
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new DAOConfigException("There was an issue connecting to the db", e);
+        }
+    }
+
+    /**
+     * Opens a read-only connection of its own to a replica, which shares the name and credentials
+     * of the primary db. The caller is responsible for closing it.
+     *
+     * @param replicaURL the JDBC URL of the replica, including its host and port.
+     */
+    public static Connection openReplicaConnection(MysqlConfig mysqlConfig, String replicaURL) throws DAOConfigException {
+        final String jdbcURL = String.format("%s/%s?autoReconnect=true&%s",
+                replicaURL, mysqlConfig.getName(), timeouts(mysqlConfig));
+        try {
+            Class.forName(mysqlConfig.getDriver());
+            final Connection replicaConnection =
+                    DriverManager.getConnection(jdbcURL, mysqlConfig.getUser(), mysqlConfig.getPass());
+            replicaConnection.setReadOnly(true);
+            return replicaConnection;
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new DAOConfigException("There was an issue connecting to the replica " + replicaURL, e);
+        }
+    }
+
+    /**
+     * Bounds how long connecting and waiting on the db may take, so a db that stops answering fails the
+     * statement rather than holding up the caller for good.
+     */
+    private static String timeouts(MysqlConfig mysqlConfig) {
+        return String.format("connectTimeout=%d&socketTimeout=%d",
+                mysqlConfig.getConnectTimeout().toMillis(), mysqlConfig.getSocketTimeout().toMillis());
+    }
+
     public static void close() throws DAOConfigException {
         if (connection != null) {
             try {
@@ -0,0 +1,18 @@
+package com.c195.dao.config;
+
+public enum PersistenceBackend {
+
+    MYSQL("mysql"),
+    EMBEDDED("embedded"),
+    REPLICA("replica");
+
+    private final String name;
+
+    PersistenceBackend(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
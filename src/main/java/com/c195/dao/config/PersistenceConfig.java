@@ -0,0 +1,119 @@
+package com.c195.dao.config;
+
+import com.c195.common.report.ReportType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Selects where the app stores its data. MySQL is used unless the embedded backend is configured,
+ * in which case the data is kept in a journal file on the local disk, or the replica backend, which
+ * keeps a local copy of the MySQL data that is synced with it in the background.
+ */
+public final class PersistenceConfig {
+
+    private static PersistenceConfig configInstance;
+    private final Properties persistenceProperties;
+
+    private PersistenceConfig() throws DAOConfigException {
+        this.persistenceProperties = new Properties();
+        loadProperties();
+    }
+
+    public static PersistenceConfig getInstance() throws DAOConfigException {
+        if (configInstance == null) {
+            configInstance = new PersistenceConfig();
+        }
+        return configInstance;
+    }
+
+    private void loadProperties() throws DAOConfigException {
+        try (InputStream inputStream = this.getClass()
+                .getClassLoader()
+                .getResourceAsStream("persistence.properties")) {
+            if (inputStream != null) {
+                persistenceProperties.load(inputStream);
+            }
+        } catch (IOException e) {
+            throw new DAOConfigException("There was an issue loading persistence properties", e);
+        }
+    }
+
+    public PersistenceBackend getBackend() throws DAOConfigException {
+        final String name = persistenceProperties.getProperty("persistence.backend", PersistenceBackend.MYSQL.getName());
+        return Arrays.stream(PersistenceBackend.values())
+                .filter(backend -> backend.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new DAOConfigException("Persistence backend not found for " + name, null));
+    }
+
+    public Path getEmbeddedPath() {
+        return Paths.get(persistenceProperties.getProperty("persistence.embedded.path", "data/scheduling.journal"));
+    }
+
+    /**
+     * @return whether every write to the embedded journal is forced to disk before it returns.
+     */
+    public boolean isEmbeddedSync() {
+        return Boolean.parseBoolean(persistenceProperties.getProperty("persistence.embedded.sync", "false"));
+    }
+
+    /**
+     * @return the user created when the embedded db is empty, so that there is someone to log in as.
+     */
+    public String getEmbeddedUser() {
+        return persistenceProperties.getProperty("persistence.embedded.user", "test");
+    }
+
+    public String getEmbeddedPassword() {
+        return persistenceProperties.getProperty("persistence.embedded.password", "test");
+    }
+
+    public Path getReplicaPath() {
+        return Paths.get(persistenceProperties.getProperty("persistence.replica.path", "data/replica.journal"));
+    }
+
+    /**
+     * @return how long the replica waits between sending its local changes to the remote db.
+     */
+    public Duration getReplicaPushInterval() {
+        return Duration.ofSeconds(Long.parseLong(persistenceProperties.getProperty("persistence.replica.push.seconds", "5")));
+    }
+
+    /**
+     * @return how long the replica waits between pulling in the changes made to the remote db.
+     */
+    public Duration getReplicaPullInterval() {
+        return Duration.ofSeconds(Long.parseLong(persistenceProperties.getProperty("persistence.replica.pull.seconds", "60")));
+    }
+
+    /**
+     * @return the most local changes sent to the remote db in a single round.
+     */
+    public int getReplicaBatchSize() {
+        return Integer.parseInt(persistenceProperties.getProperty("persistence.replica.batch.size", "100"));
+    }
+
+    /**
+     * @return the file the count reports are kept in between runs, empty to only keep them in memory.
+     */
+    public Optional<Path> getReportCachePath() {
+        return Optional.of(persistenceProperties.getProperty("persistence.report.cache.path", ""))
+                .filter(path -> !path.isEmpty())
+                .map(Paths::get);
+    }
+
+    /**
+     * @return how long the report is kept before it is built from every appointment again.
+     */
+    public Duration getReportTimeToLive(ReportType reportType) {
+        final String key = "persistence.report.cache." + reportType.name().toLowerCase() + ".seconds";
+        return Duration.ofSeconds(Long.parseLong(persistenceProperties.getProperty(key, "600")));
+    }
+}
@@ -0,0 +1,124 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AddressRepository;
+import com.c195.model.Address;
+import com.c195.model.City;
+import com.c195.model.Country;
+
+import java.util.Optional;
+
+public class EmbeddedAddressRepository implements AddressRepository {
+
+    private final EmbeddedDatabase database;
+
+    EmbeddedAddressRepository(EmbeddedDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public Optional<Address> getAddress(String address) throws DAOException {
+        return database.read(() -> database.addresses.getRows()
+                .stream()
+                .filter(row -> row.getAddress().equalsIgnoreCase(address))
+                .findFirst()
+                .flatMap(row -> database.joinAddress(row.getId())));
+    }
+
+    @Override
+    public void saveAddress(Address address) throws DAOException {
+        final int id = database.write(() -> {
+            final Address row = toRow(address);
+            row.setId(database.addresses.nextId());
+            row.setAddress(address.getAddress().toLowerCase());
+            row.setAddress2(address.getAddress2().toLowerCase());
+            row.setPostalCode(address.getPostalCode().toUpperCase());
+            row.setPhone(address.getPhone().toLowerCase());
+            row.setMetadata(EmbeddedDatabase.toSaveMetadata(address.getMetadata()));
+            database.put(database.addresses, row.getId(), row);
+            return row.getId();
+        });
+        address.setId(id);
+    }
+
+    @Override
+    public void updateAddress(Address address) throws DAOException {
+        database.write(() -> {
+            final Optional<Address> existing = database.addresses.get(address.getId());
+            if (existing.isPresent()) {
+                final Address row = toRow(address);
+                row.setId(address.getId());
+                row.setAddress(address.getAddress());
+                row.setAddress2(address.getAddress2());
+                row.setPostalCode(address.getPostalCode());
+                row.setPhone(address.getPhone());
+                row.setMetadata(EmbeddedDatabase.toUpdateMetadata(existing.get().getMetadata(), address.getMetadata()));
+                database.put(database.addresses, row.getId(), row);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<City> getCityByName(String cityName) throws DAOException {
+        return database.read(() -> database.cities.getRows()
+                .stream()
+                .filter(row -> row.getCity().equalsIgnoreCase(cityName))
+                .findFirst()
+                .flatMap(row -> database.joinCity(row.getId())));
+    }
+
+    @Override
+    public void saveCity(City city) throws DAOException {
+        final int id = database.write(() -> {
+            final int countryId = city.getCountry().getId();
+            if (!database.countries.get(countryId).isPresent()) {
+                throw new DAOException("The city's country does not exist");
+            }
+            final City row = new City();
+            row.setId(database.cities.nextId());
+            row.setCity(city.getCity().toLowerCase());
+            final Country country = new Country();
+            country.setId(countryId);
+            row.setCountry(country);
+            row.setMetadata(EmbeddedDatabase.toSaveMetadata(city.getMetadata()));
+            database.put(database.cities, row.getId(), row);
+            return row.getId();
+        });
+        city.setId(id);
+    }
+
+    @Override
+    public Optional<Country> getCountryByName(String countryName) throws DAOException {
+        return database.read(() -> database.countries.getRows()
+                .stream()
+                .filter(row -> row.getCountry().equalsIgnoreCase(countryName))
+                .findFirst()
+                .flatMap(row -> database.joinCountry(row.getId())));
+    }
+
+    @Override
+    public void saveCountry(Country country) throws DAOException {
+        final int id = database.write(() -> {
+            final Country row = new Country();
+            row.setId(database.countries.nextId());
+            row.setCountry(country.getCountry().toLowerCase());
+            row.setMetadata(EmbeddedDatabase.toSaveMetadata(country.getMetadata()));
+            database.put(database.countries, row.getId(), row);
+            return row.getId();
+        });
+        country.setId(id);
+    }
+
+    private Address toRow(Address address) throws DAOException {
+        final int cityId = address.getCity().getId();
+        if (!database.cities.get(cityId).isPresent()) {
+            throw new DAOException("The address's city does not exist");
+        }
+        final Address row = new Address();
+        final City city = new City();
+        city.setId(cityId);
+        row.setCity(city);
+        return row;
+    }
+}
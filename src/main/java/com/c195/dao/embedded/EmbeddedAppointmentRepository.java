@@ -0,0 +1,199 @@
+package com.c195.dao.embedded;
+
+import com.c195.common.appointment.AppointmentColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.model.Appointment;
+import com.c195.model.Customer;
+import com.c195.model.User;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EmbeddedAppointmentRepository implements AppointmentRepository {
+
+    private static final Comparator<Appointment> CONTACT_ORDER = Comparator
+            .comparing(Appointment::getContact, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(Appointment::getId);
+
+    private static final EmbeddedPageQuery<Appointment, AppointmentColumn> appointmentPageQuery = new EmbeddedPageQuery<>(
+            new EnumMap<AppointmentColumn, Function<Appointment, Object>>(AppointmentColumn.class) {
+                {
+                    put(AppointmentColumn.TITLE, Appointment::getTitle);
+                    put(AppointmentColumn.LOCATION, Appointment::getLocation);
+                    put(AppointmentColumn.CUSTOMER, appointment -> appointment.getCustomer().getName());
+                    put(AppointmentColumn.TYPE, Appointment::getType);
+                    put(AppointmentColumn.START, Appointment::getStart);
+                    put(AppointmentColumn.END, Appointment::getEnd);
+                }
+            }, Appointment::getId);
+
+    private final EmbeddedDatabase database;
+
+    EmbeddedAppointmentRepository(EmbeddedDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<Appointment> getAllAppointments() throws DAOException {
+        return database.read(() -> join(database.appointments.getRows().stream())
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public Optional<Appointment> getAppointmentById(int id) throws DAOException {
+        return database.read(() -> database.appointments.get(id).flatMap(database::joinAppointment));
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByUserBetween(int userId, Instant start, Instant end) throws DAOException {
+        return getAppointmentsByUser(userId, row -> !row.getStart().isBefore(start) && !row.getStart().isAfter(end));
+    }
+
+    @Override
+    public List<Appointment> getOverlappingAppointmentsByUser(int userId, Instant start, Instant end) throws DAOException {
+        return getAppointmentsByUser(userId, row -> row.getStart().isBefore(end) && row.getEnd().isAfter(start));
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByUserAfter(int userId, Instant start) throws DAOException {
+        return getAppointmentsByUser(userId, row -> !row.getStart().isBefore(start));
+    }
+
+    @Override
+    public List<Appointment> getAppointmentPageByUserBetween(int userId,
+                                                             Instant start,
+                                                             Instant end,
+                                                             QuerySpec<AppointmentColumn> querySpec) throws DAOException {
+        return database.read(() -> {
+            final Stream<Appointment> rows = database.appointments.getRows()
+                    .stream()
+                    .filter(row -> row.getUser().getId() == userId)
+                    .filter(row -> !row.getStart().isBefore(start))
+                    .filter(row -> end == null || !row.getStart().isAfter(end));
+            return appointmentPageQuery.apply(join(rows), querySpec);
+        });
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByContactAfter(String contact, int appointmentId, int limit)
+            throws DAOException {
+        final Appointment after = new Appointment();
+        after.setContact(contact);
+        after.setId(appointmentId);
+        return database.read(() -> {
+            final Stream<Appointment> rows = database.appointments.getRows()
+                    .stream()
+                    .filter(row -> CONTACT_ORDER.compare(row, after) > 0)
+                    .sorted(CONTACT_ORDER);
+            return join(rows)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public ChangeWatermark getAppointmentWatermark() throws DAOException {
+        return database.read(() -> EmbeddedDatabase.toWatermark(database.appointments.getRows(), Appointment::getMetadata));
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsUpdatedSince(Instant since) throws DAOException {
+        return database.read(() -> {
+            final Stream<Appointment> rows = database.appointments.getRows()
+                    .stream()
+                    .filter(row -> !row.getMetadata().getUpdatedDate().isBefore(since));
+            return join(rows).collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public List<Integer> getAppointmentIds() throws DAOException {
+        return database.read(() -> database.appointments.getRows()
+                .stream()
+                .map(Appointment::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void saveAppointment(Appointment appointment) throws DAOException {
+        final int id = database.write(() -> {
+            final Appointment row = toRow(appointment);
+            row.setId(database.appointments.nextId());
+            row.setMetadata(EmbeddedDatabase.toSaveMetadata(appointment.getMetadata()));
+            database.put(database.appointments, row.getId(), row);
+            return row.getId();
+        });
+        appointment.setId(id);
+    }
+
+    @Override
+    public void updateAppointment(Appointment appointment) throws DAOException {
+        database.write(() -> {
+            final Optional<Appointment> existing = database.appointments.get(appointment.getId());
+            if (existing.isPresent()) {
+                final Appointment row = toRow(appointment);
+                row.setId(appointment.getId());
+                row.setMetadata(EmbeddedDatabase.toUpdateMetadata(existing.get().getMetadata(), appointment.getMetadata()));
+                database.put(database.appointments, row.getId(), row);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAppointmentById(int id) throws DAOException {
+        database.write(() -> {
+            if (database.appointments.get(id).isPresent()) {
+                database.delete(database.appointments, id);
+            }
+            return null;
+        });
+    }
+
+    private List<Appointment> getAppointmentsByUser(int userId, Predicate<Appointment> condition) throws DAOException {
+        return database.read(() -> {
+            final Stream<Appointment> rows = database.appointments.getRows()
+                    .stream()
+                    .filter(row -> row.getUser().getId() == userId)
+                    .filter(condition);
+            return join(rows).collect(Collectors.toList());
+        });
+    }
+
+    private Stream<Appointment> join(Stream<Appointment> rows) {
+        return rows.map(database::joinAppointment)
+                .filter(Optional::isPresent)
+                .map(Optional::get);
+    }
+
+    private Appointment toRow(Appointment appointment) throws DAOException {
+        final int customerId = appointment.getCustomer().getId();
+        final int userId = appointment.getUser().getId();
+        if (!database.customers.get(customerId).isPresent() || !database.users.get(userId).isPresent()) {
+            throw new DAOException("The appointment's customer or user does not exist");
+        }
+        final Appointment row = new Appointment();
+        final Customer customer = new Customer();
+        customer.setId(customerId);
+        row.setCustomer(customer);
+        final User user = new User();
+        user.setId(userId);
+        row.setUser(user);
+        row.setTitle(appointment.getTitle());
+        row.setDescription(appointment.getDescription());
+        row.setLocation(appointment.getLocation());
+        row.setContact(appointment.getContact());
+        row.setType(appointment.getType());
+        row.setUrl(appointment.getUrl());
+        row.setStart(appointment.getStart());
+        row.setEnd(appointment.getEnd());
+        return row;
+    }
+}
@@ -0,0 +1,17 @@
+package com.c195.dao.embedded;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts the rows of an embedded table to and from their journal format.
+ *
+ * @param <T> the type of the rows.
+ */
+interface EmbeddedCodec<T> {
+
+    void write(DataOutput output, T row) throws IOException;
+
+    T read(DataInput input) throws IOException;
+}
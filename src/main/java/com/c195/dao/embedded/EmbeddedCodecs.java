@@ -0,0 +1,233 @@
+package com.c195.dao.embedded;
+
+import com.c195.model.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Journal formats of the embedded tables.
+ * <p>
+ * Rows are stored the same way they are in the MySQL tables, so a row only holds the ids of the
+ * rows it references. A city's country, for example, is a {@link Country} with nothing but its id set.
+ */
+final class EmbeddedCodecs {
+
+    static final EmbeddedCodec<Country> COUNTRY = new EmbeddedCodec<Country>() {
+        @Override
+        public void write(DataOutput output, Country country) throws IOException {
+            output.writeInt(country.getId());
+            writeString(output, country.getCountry());
+            writeMetadata(output, country.getMetadata());
+        }
+
+        @Override
+        public Country read(DataInput input) throws IOException {
+            final Country country = new Country();
+            country.setId(input.readInt());
+            country.setCountry(readString(input));
+            country.setMetadata(readMetadata(input));
+            return country;
+        }
+    };
+
+    static final EmbeddedCodec<City> CITY = new EmbeddedCodec<City>() {
+        @Override
+        public void write(DataOutput output, City city) throws IOException {
+            output.writeInt(city.getId());
+            writeString(output, city.getCity());
+            output.writeInt(city.getCountry().getId());
+            writeMetadata(output, city.getMetadata());
+        }
+
+        @Override
+        public City read(DataInput input) throws IOException {
+            final City city = new City();
+            city.setId(input.readInt());
+            city.setCity(readString(input));
+            final Country country = new Country();
+            country.setId(input.readInt());
+            city.setCountry(country);
+            city.setMetadata(readMetadata(input));
+            return city;
+        }
+    };
+
+    static final EmbeddedCodec<Address> ADDRESS = new EmbeddedCodec<Address>() {
+        @Override
+        public void write(DataOutput output, Address address) throws IOException {
+            output.writeInt(address.getId());
+            writeString(output, address.getAddress());
+            writeString(output, address.getAddress2());
+            output.writeInt(address.getCity().getId());
+            writeString(output, address.getPostalCode());
+            writeString(output, address.getPhone());
+            writeMetadata(output, address.getMetadata());
+        }
+
+        @Override
+        public Address read(DataInput input) throws IOException {
+            final Address address = new Address();
+            address.setId(input.readInt());
+            address.setAddress(readString(input));
+            address.setAddress2(readString(input));
+            final City city = new City();
+            city.setId(input.readInt());
+            address.setCity(city);
+            address.setPostalCode(readString(input));
+            address.setPhone(readString(input));
+            address.setMetadata(readMetadata(input));
+            return address;
+        }
+    };
+
+    static final EmbeddedCodec<Customer> CUSTOMER = new EmbeddedCodec<Customer>() {
+        @Override
+        public void write(DataOutput output, Customer customer) throws IOException {
+            output.writeInt(customer.getId());
+            writeString(output, customer.getName());
+            output.writeInt(customer.getAddress().getId());
+            output.writeBoolean(customer.isActive());
+            writeMetadata(output, customer.getMetadata());
+        }
+
+        @Override
+        public Customer read(DataInput input) throws IOException {
+            final Customer customer = new Customer();
+            customer.setId(input.readInt());
+            customer.setName(readString(input));
+            final Address address = new Address();
+            address.setId(input.readInt());
+            customer.setAddress(address);
+            customer.setActive(input.readBoolean());
+            customer.setMetadata(readMetadata(input));
+            return customer;
+        }
+    };
+
+    static final EmbeddedCodec<Appointment> APPOINTMENT = new EmbeddedCodec<Appointment>() {
+        @Override
+        public void write(DataOutput output, Appointment appointment) throws IOException {
+            output.writeInt(appointment.getId());
+            output.writeInt(appointment.getCustomer().getId());
+            output.writeInt(appointment.getUser().getId());
+            writeString(output, appointment.getTitle());
+            writeString(output, appointment.getDescription());
+            writeString(output, appointment.getLocation());
+            writeString(output, appointment.getContact());
+            writeString(output, appointment.getType());
+            writeString(output, appointment.getUrl());
+            writeInstant(output, appointment.getStart());
+            writeInstant(output, appointment.getEnd());
+            writeMetadata(output, appointment.getMetadata());
+        }
+
+        @Override
+        public Appointment read(DataInput input) throws IOException {
+            final Appointment appointment = new Appointment();
+            appointment.setId(input.readInt());
+            final Customer customer = new Customer();
+            customer.setId(input.readInt());
+            appointment.setCustomer(customer);
+            final User user = new User();
+            user.setId(input.readInt());
+            appointment.setUser(user);
+            appointment.setTitle(readString(input));
+            appointment.setDescription(readString(input));
+            appointment.setLocation(readString(input));
+            appointment.setContact(readString(input));
+            appointment.setType(readString(input));
+            appointment.setUrl(readString(input));
+            appointment.setStart(readInstant(input));
+            appointment.setEnd(readInstant(input));
+            appointment.setMetadata(readMetadata(input));
+            return appointment;
+        }
+    };
+
+    static final EmbeddedCodec<User> USER = new EmbeddedCodec<User>() {
+        @Override
+        public void write(DataOutput output, User user) throws IOException {
+            output.writeInt(user.getId());
+            writeString(output, user.getUsername());
+            writeString(output, user.getPassword());
+            output.writeBoolean(user.isActive());
+            writeMetadata(output, user.getMetadata());
+        }
+
+        @Override
+        public User read(DataInput input) throws IOException {
+            final User user = new User();
+            user.setId(input.readInt());
+            user.setUsername(readString(input));
+            user.setPassword(readString(input));
+            user.setActive(input.readBoolean());
+            user.setMetadata(readMetadata(input));
+            return user;
+        }
+    };
+
+    static final EmbeddedCodec<OutboundOperation> OUTBOUND = new EmbeddedCodec<OutboundOperation>() {
+        @Override
+        public void write(DataOutput output, OutboundOperation operation) throws IOException {
+            output.writeInt(operation.getId());
+            output.writeByte(operation.getType().ordinal());
+            output.writeInt(operation.getRowId());
+            writeInstant(output, operation.getBaseUpdatedDate());
+            output.writeInt(operation.getAttempts());
+        }
+
+        @Override
+        public OutboundOperation read(DataInput input) throws IOException {
+            return new OutboundOperation(input.readInt(),
+                    OutboundOperation.Type.values()[input.readByte()],
+                    input.readInt(),
+                    readInstant(input),
+                    input.readInt());
+        }
+    };
+
+    private EmbeddedCodecs() {
+    }
+
+    private static void writeMetadata(DataOutput output, Metadata metadata) throws IOException {
+        writeInstant(output, metadata.getCreatedDate());
+        writeString(output, metadata.getCreatedBy());
+        writeInstant(output, metadata.getUpdatedDate());
+        writeString(output, metadata.getUpdatedBy());
+    }
+
+    private static Metadata readMetadata(DataInput input) throws IOException {
+        return new Metadata.Builder()
+                .withCreatedDate(readInstant(input))
+                .withCreatedBy(readString(input))
+                .withUpdatedDate(readInstant(input))
+                .withUpdatedBy(readString(input))
+                .build();
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeInstant(DataOutput output, Instant value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeLong(value.getEpochSecond());
+            output.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInput input) throws IOException {
+        return input.readBoolean() ? Instant.ofEpochSecond(input.readLong(), input.readInt()) : null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.c195.dao.embedded;
+
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.model.Address;
+import com.c195.model.Customer;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EmbeddedCustomerRepository implements CustomerRepository {
+
+    private static final EmbeddedPageQuery<Customer, CustomerColumn> customerPageQuery = new EmbeddedPageQuery<>(
+            new EnumMap<CustomerColumn, Function<Customer, Object>>(CustomerColumn.class) {
+                {
+                    put(CustomerColumn.ID, Customer::getId);
+                    put(CustomerColumn.NAME, Customer::getName);
+                    put(CustomerColumn.ADDRESS, customer -> customer.getAddress().getAddress());
+                    put(CustomerColumn.PHONE, customer -> customer.getAddress().getPhone());
+                    put(CustomerColumn.STATUS, Customer::isActive);
+                }
+            }, Customer::getId);
+
+    private final EmbeddedDatabase database;
+
+    EmbeddedCustomerRepository(EmbeddedDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public Optional<Customer> getCustomerById(int id) throws DAOException {
+        return database.read(() -> database.joinCustomer(id));
+    }
+
+    @Override
+    public List<Customer> getAllCustomers() throws DAOException {
+        return database.read(() -> join(database.customers.getRows().stream())
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<Customer> getCustomerPage(QuerySpec<CustomerColumn> querySpec) throws DAOException {
+        return database.read(() -> customerPageQuery.apply(join(database.customers.getRows().stream()), querySpec));
+    }
+
+    @Override
+    public ChangeWatermark getCustomerWatermark() throws DAOException {
+        return database.read(() -> EmbeddedDatabase.toWatermark(database.customers.getRows(), Customer::getMetadata));
+    }
+
+    @Override
+    public List<Customer> getCustomersUpdatedSince(Instant since) throws DAOException {
+        return database.read(() -> {
+            final Stream<Customer> rows = database.customers.getRows()
+                    .stream()
+                    .filter(row -> !row.getMetadata().getUpdatedDate().isBefore(since));
+            return join(rows).collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public List<Integer> getCustomerIds() throws DAOException {
+        return database.read(() -> database.customers.getRows()
+                .stream()
+                .map(Customer::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void saveCustomer(Customer customer) throws DAOException {
+        final int id = database.write(() -> {
+            final Customer row = toRow(customer);
+            row.setId(database.customers.nextId());
+            row.setMetadata(EmbeddedDatabase.toSaveMetadata(customer.getMetadata()));
+            database.put(database.customers, row.getId(), row);
+            return row.getId();
+        });
+        customer.setId(id);
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) throws DAOException {
+        database.write(() -> {
+            final Optional<Customer> existing = database.customers.get(customer.getId());
+            if (existing.isPresent()) {
+                final Customer row = toRow(customer);
+                row.setId(customer.getId());
+                row.setMetadata(EmbeddedDatabase.toUpdateMetadata(existing.get().getMetadata(), customer.getMetadata()));
+                database.put(database.customers, row.getId(), row);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Like the appointment table's foreign key, a customer with appointments cannot be deleted.
+     */
+    @Override
+    public void deleteCustomerById(int id) throws DAOException {
+        database.write(() -> {
+            final Optional<Customer> existing = database.customers.get(id);
+            if (existing.isPresent()) {
+                final boolean hasAppointments = database.appointments.getRows()
+                        .stream()
+                        .anyMatch(appointment -> appointment.getCustomer().getId() == id);
+                if (hasAppointments) {
+                    throw new DAOException("The customer still has appointments");
+                }
+                database.delete(database.customers, id);
+                database.delete(database.addresses, existing.get().getAddress().getId());
+            }
+            return null;
+        });
+    }
+
+    private Stream<Customer> join(Stream<Customer> rows) {
+        return rows.map(row -> database.joinCustomer(row.getId()))
+                .filter(Optional::isPresent)
+                .map(Optional::get);
+    }
+
+    private Customer toRow(Customer customer) throws DAOException {
+        final Integer addressId = customer.getAddress().getId();
+        if (addressId == null || !database.addresses.get(addressId).isPresent()) {
+            throw new DAOException("The customer's address does not exist");
+        }
+        final Customer row = new Customer();
+        row.setName(customer.getName().toLowerCase());
+        final Address address = new Address();
+        address.setId(addressId);
+        row.setAddress(address);
+        row.setActive(customer.isActive());
+        return row;
+    }
+}
@@ -0,0 +1,346 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.model.*;
+import com.c195.util.journal.Journal;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-process store holding every table in memory, backed by a {@link Journal} on disk.
+ * <p>
+ * Every change is appended to the journal as the new version of the row, or as a delete, before it is
+ * applied in memory. Opening the database replays the journal, and once the journal holds many more
+ * records than there are live rows it is rewritten with only the live rows.
+ * <p>
+ * Reads run concurrently while writes are exclusive. The changes made within a single
+ * {@link #write(Transaction)} are appended to the journal together and only become visible once they
+ * have been written, so a failed transaction leaves nothing behind. A write started within another write
+ * joins it and is committed along with it.
+ */
+final class EmbeddedDatabase implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int COMPACT_MIN_RECORDS = 10_000;
+
+    final EmbeddedTable<Country> countries = new EmbeddedTable<>(EmbeddedCodecs.COUNTRY);
+    final EmbeddedTable<City> cities = new EmbeddedTable<>(EmbeddedCodecs.CITY);
+    final EmbeddedTable<Address> addresses = new EmbeddedTable<>(EmbeddedCodecs.ADDRESS);
+    final EmbeddedTable<Customer> customers = new EmbeddedTable<>(EmbeddedCodecs.CUSTOMER);
+    final EmbeddedTable<Appointment> appointments = new EmbeddedTable<>(EmbeddedCodecs.APPOINTMENT);
+    final EmbeddedTable<User> users = new EmbeddedTable<>(EmbeddedCodecs.USER);
+    final EmbeddedTable<OutboundOperation> outbound = new EmbeddedTable<>(EmbeddedCodecs.OUTBOUND);
+
+    private final List<EmbeddedTable<?>> tables =
+            Arrays.asList(countries, cities, addresses, customers, appointments, users, outbound);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Change<?>> pendingChanges = new ArrayList<>();
+    private final Journal journal;
+    private int writeDepth;
+
+    private EmbeddedDatabase(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Opens the database, creating the journal if it does not exist yet.
+     *
+     * @param path           the journal file.
+     * @param sync           whether every write is forced to disk before it returns.
+     * @param provisionalIds whether new countries, cities, addresses, customers and appointments get
+     *                       negative ids, to be replaced once they are saved to the remote db.
+     * @return the database with every table loaded.
+     * @throws DAOConfigException if the journal cannot be opened or read.
+     */
+    static EmbeddedDatabase open(Path path, boolean sync, boolean provisionalIds) throws DAOConfigException {
+        try {
+            final EmbeddedDatabase database = new EmbeddedDatabase(new Journal(path, sync));
+            Arrays.asList(database.countries, database.cities, database.addresses, database.customers, database.appointments)
+                    .forEach(table -> table.setProvisionalIds(provisionalIds));
+            database.load();
+            return database;
+        } catch (IOException | UncheckedIOException e) {
+            throw new DAOConfigException("There was an issue opening the embedded db", e);
+        }
+    }
+
+    @FunctionalInterface
+    interface Transaction<T> {
+        T apply() throws DAOException;
+    }
+
+    <T> T read(Transaction<T> transaction) throws DAOException {
+        lock.readLock().lock();
+        try {
+            return transaction.apply();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    <T> T write(Transaction<T> transaction) throws DAOException {
+        lock.writeLock().lock();
+        writeDepth++;
+        try {
+            final T result = transaction.apply();
+            if (writeDepth == 1) {
+                commit();
+            }
+            return result;
+        } finally {
+            if (--writeDepth == 0) {
+                pendingChanges.clear();
+            }
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a new version of a row once the current write transaction commits.
+     */
+    <T> void put(EmbeddedTable<T> table, int id, T row) {
+        pendingChanges.add(new Change<>(table, id, row));
+    }
+
+    /**
+     * Deletes a row once the current write transaction commits.
+     */
+    <T> void delete(EmbeddedTable<T> table, int id) {
+        pendingChanges.add(new Change<>(table, id, null));
+    }
+
+    /*
+     * The stored rows only hold the ids of the rows they reference. The join methods below return copies of
+     * the rows with their references filled in, or nothing if a referenced row is missing, the same
+     * as an inner join. Rows never leave the database uncopied, so callers are free to modify them.
+     */
+
+    Optional<Country> joinCountry(int countryId) {
+        return countries.get(countryId).map(row -> {
+            final Country country = new Country();
+            country.setId(row.getId());
+            country.setCountry(row.getCountry());
+            country.setMetadata(row.getMetadata());
+            return country;
+        });
+    }
+
+    Optional<City> joinCity(int cityId) {
+        return cities.get(cityId).flatMap(row -> joinCountry(row.getCountry().getId()).map(country -> {
+            final City city = new City();
+            city.setId(row.getId());
+            city.setCity(row.getCity());
+            city.setCountry(country);
+            city.setMetadata(row.getMetadata());
+            return city;
+        }));
+    }
+
+    Optional<Address> joinAddress(int addressId) {
+        return addresses.get(addressId).flatMap(row -> joinCity(row.getCity().getId()).map(city -> {
+            final Address address = new Address();
+            address.setId(row.getId());
+            address.setAddress(row.getAddress());
+            address.setAddress2(row.getAddress2());
+            address.setCity(city);
+            address.setPostalCode(row.getPostalCode());
+            address.setPhone(row.getPhone());
+            address.setMetadata(row.getMetadata());
+            return address;
+        }));
+    }
+
+    Optional<Customer> joinCustomer(int customerId) {
+        return customers.get(customerId).flatMap(row -> joinAddress(row.getAddress().getId()).map(address -> {
+            final Customer customer = new Customer();
+            customer.setId(row.getId());
+            customer.setName(row.getName());
+            customer.setAddress(address);
+            customer.setActive(row.isActive());
+            customer.setMetadata(row.getMetadata());
+            return customer;
+        }));
+    }
+
+    Optional<User> joinUser(int userId) {
+        return users.get(userId).map(row -> {
+            final User user = new User();
+            user.setId(row.getId());
+            user.setUsername(row.getUsername());
+            user.setPassword(row.getPassword());
+            user.setActive(row.isActive());
+            user.setMetadata(row.getMetadata());
+            return user;
+        });
+    }
+
+    Optional<Appointment> joinAppointment(Appointment row) {
+        final Optional<Customer> customer = joinCustomer(row.getCustomer().getId());
+        final Optional<User> user = joinUser(row.getUser().getId());
+        if (!customer.isPresent() || !user.isPresent()) {
+            return Optional.empty();
+        }
+        final Appointment appointment = new Appointment();
+        appointment.setId(row.getId());
+        appointment.setCustomer(customer.get());
+        appointment.setUser(user.get());
+        appointment.setTitle(row.getTitle());
+        appointment.setDescription(row.getDescription());
+        appointment.setLocation(row.getLocation());
+        appointment.setContact(row.getContact());
+        appointment.setType(row.getType());
+        appointment.setUrl(row.getUrl());
+        appointment.setStart(row.getStart());
+        appointment.setEnd(row.getEnd());
+        appointment.setMetadata(row.getMetadata());
+        return Optional.of(appointment);
+    }
+
+    /**
+     * @return the metadata stored for a new row, which like the MySQL tables
+     * records the creation as the last update and lower cases the user names.
+     */
+    static Metadata toSaveMetadata(Metadata metadata) {
+        return new Metadata.Builder()
+                .withCreatedDate(metadata.getCreatedDate())
+                .withCreatedBy(metadata.getCreatedBy().toLowerCase())
+                .withUpdatedDate(metadata.getCreatedDate())
+                .withUpdatedBy(metadata.getUpdatedBy().toLowerCase())
+                .build();
+    }
+
+    /**
+     * @return the metadata stored for an updated row, keeping the creation details of the existing row.
+     */
+    static Metadata toUpdateMetadata(Metadata existing, Metadata metadata) {
+        return new Metadata.Builder()
+                .withCreatedDate(existing.getCreatedDate())
+                .withCreatedBy(existing.getCreatedBy())
+                .withUpdatedDate(metadata.getUpdatedDate())
+                .withUpdatedBy(metadata.getUpdatedBy().toLowerCase())
+                .build();
+    }
+
+    /**
+     * @return the latest last update of the rows and how many there are, the same as the MySQL DAOs select.
+     */
+    static <T> ChangeWatermark toWatermark(Collection<T> rows, Function<T, Metadata> metadata) {
+        final Instant lastUpdate = rows.stream()
+                .map(row -> metadata.apply(row).getUpdatedDate())
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        return new ChangeWatermark(lastUpdate, rows.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            journal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void commit() throws DAOException {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        try {
+            final List<byte[]> records = new ArrayList<>(pendingChanges.size());
+            for (Change<?> change : pendingChanges) {
+                records.add(change.toRecord());
+            }
+            journal.appendAll(records);
+        } catch (IOException e) {
+            throw new DAOException("There was an issue writing to the embedded db", e);
+        }
+        pendingChanges.forEach(Change::apply);
+    }
+
+    private void load() throws IOException {
+        journal.replay(record -> {
+            try {
+                applyRecord(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        final long liveRows = tables.stream().mapToLong(EmbeddedTable::size).sum();
+        if (journal.getRecordCount() > COMPACT_MIN_RECORDS && journal.getRecordCount() > 2 * liveRows) {
+            compact();
+        }
+    }
+
+    private void applyRecord(byte[] record) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        final byte operation = input.readByte();
+        final EmbeddedTable<?> table = tables.get(input.readByte());
+        final int id = input.readInt();
+        if (operation == PUT) {
+            readRow(table, id, input);
+        } else {
+            table.apply(id, null);
+        }
+    }
+
+    private static <T> void readRow(EmbeddedTable<T> table, int id, DataInput input) throws IOException {
+        table.apply(id, table.getCodec().read(input));
+    }
+
+    private void compact() throws IOException {
+        final List<byte[]> records = new ArrayList<>();
+        for (EmbeddedTable<?> table : tables) {
+            addRows(table, records);
+        }
+        journal.rewrite(records);
+    }
+
+    private <T> void addRows(EmbeddedTable<T> table, List<byte[]> records) throws IOException {
+        for (Map.Entry<Integer, T> row : table.getEntries()) {
+            records.add(toRecord(table, row.getKey(), row.getValue()));
+        }
+    }
+
+    private <T> byte[] toRecord(EmbeddedTable<T> table, int id, T row) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(row == null ? DELETE : PUT);
+        output.writeByte(tables.indexOf(table));
+        output.writeInt(id);
+        if (row != null) {
+            table.getCodec().write(output, row);
+        }
+        return bytes.toByteArray();
+    }
+
+    private final class Change<T> {
+
+        private final EmbeddedTable<T> table;
+        private final int id;
+        private final T row;
+
+        private Change(EmbeddedTable<T> table, int id, T row) {
+            this.table = table;
+            this.id = id;
+            this.row = row;
+        }
+
+        private byte[] toRecord() throws IOException {
+            return EmbeddedDatabase.this.toRecord(table, id, row);
+        }
+
+        private void apply() {
+            table.apply(id, row);
+        }
+    }
+}
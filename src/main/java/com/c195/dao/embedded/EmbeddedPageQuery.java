@@ -0,0 +1,101 @@
+package com.c195.dao.embedded;
+
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Applies a {@link QuerySpec} to rows held in memory, matching what the MySQL DAOs do with it:
+ * prefix filters, ordering by the sort column and then the id, keyset or offset positioning
+ * and one row more than the page size.
+ * <p>
+ * Text is compared without regard to case, the same as the default MySQL collation.
+ */
+final class EmbeddedPageQuery<T, C extends Enum<C>> {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private static final Comparator<Object> VALUE_ORDER = Comparator.nullsFirst(EmbeddedPageQuery::compareValues);
+
+    private final Map<C, Function<T, Object>> columnValues;
+    private final Function<T, Integer> idValue;
+
+    EmbeddedPageQuery(Map<C, Function<T, Object>> columnValues, Function<T, Integer> idValue) {
+        this.columnValues = columnValues;
+        this.idValue = idValue;
+    }
+
+    List<T> apply(Stream<T> rows, QuerySpec<C> spec) {
+        Stream<T> page = rows;
+        for (Map.Entry<C, String> filter : spec.getFilters().entrySet()) {
+            final Function<T, Object> value = toValue(filter.getKey());
+            final String prefix = filter.getValue().toLowerCase();
+            page = page.filter(row -> toText(value.apply(row)).toLowerCase().startsWith(prefix));
+        }
+        final Function<T, Object> sortValue = toValue(spec.getSortColumn());
+        final boolean ascending = spec.getSortDirection() == SortDirection.ASCENDING;
+        final Comparator<T> order = (first, second) -> {
+            final int comparison = VALUE_ORDER.compare(sortValue.apply(first), sortValue.apply(second));
+            final int result = comparison != 0
+                    ? comparison
+                    : Integer.compare(idValue.apply(first), idValue.apply(second));
+            return ascending ? result : -result;
+        };
+        if (spec.hasKeyset()) {
+            final Object afterSortValue = spec.getAfterSortValue();
+            final int afterId = spec.getAfterId().orElse(0);
+            page = page.filter(row -> {
+                final int comparison = VALUE_ORDER.compare(sortValue.apply(row), afterSortValue);
+                final int result = comparison != 0
+                        ? comparison
+                        : Integer.compare(idValue.apply(row), afterId);
+                return ascending ? result > 0 : result < 0;
+            });
+        }
+        page = page.sorted(order);
+        if (!spec.hasKeyset()) {
+            page = page.skip(spec.getOffset());
+        }
+        return page.limit(spec.getPageSize() + 1)
+                .collect(Collectors.toList());
+    }
+
+    private Function<T, Object> toValue(C column) {
+        final Function<T, Object> value = columnValues.get(column);
+        if (value == null) {
+            throw new IllegalArgumentException("Column cannot be queried: " + column);
+        }
+        return value;
+    }
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        if (value instanceof Instant) {
+            return TIMESTAMP_FORMAT.format((Instant) value);
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object first, Object second) {
+        if (first instanceof String && second instanceof String) {
+            return String.CASE_INSENSITIVE_ORDER.compare((String) first, (String) second);
+        }
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+}
@@ -0,0 +1,97 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.config.PersistenceConfig;
+import com.c195.dao.repository.*;
+import com.c195.model.Metadata;
+import com.c195.model.User;
+
+import java.io.IOException;
+import java.time.Clock;
+
+/**
+ * Repositories backed by the embedded, journal based store.
+ */
+public class EmbeddedRepositoryFactory implements RepositoryFactory {
+
+    private final EmbeddedDatabase database;
+    private final AppointmentRepository appointmentRepository;
+    private final CustomerRepository customerRepository;
+    private final AddressRepository addressRepository;
+    private final UserRepository userRepository;
+
+    private EmbeddedRepositoryFactory(EmbeddedDatabase database) {
+        this.database = database;
+        this.appointmentRepository = new EmbeddedAppointmentRepository(database);
+        this.customerRepository = new EmbeddedCustomerRepository(database);
+        this.addressRepository = new EmbeddedAddressRepository(database);
+        this.userRepository = new EmbeddedUserRepository(database);
+    }
+
+    /**
+     * Opens the embedded store, adding the configured user if the store has no users yet.
+     * The password is stored as is and hashed the first time the user logs in.
+     *
+     * @param persistenceConfig the location of the store and its initial user.
+     * @param clock             used to date the initial user.
+     * @return the repositories of the store.
+     * @throws DAOConfigException if there are issues opening the store.
+     */
+    public static EmbeddedRepositoryFactory open(PersistenceConfig persistenceConfig, Clock clock)
+            throws DAOConfigException {
+        final EmbeddedDatabase database = EmbeddedDatabase.open(
+                persistenceConfig.getEmbeddedPath(), persistenceConfig.isEmbeddedSync(), false);
+        try {
+            database.write(() -> {
+                if (database.users.size() == 0) {
+                    final User user = new User();
+                    user.setId(database.users.nextId());
+                    user.setUsername(persistenceConfig.getEmbeddedUser());
+                    user.setPassword(persistenceConfig.getEmbeddedPassword());
+                    user.setActive(true);
+                    user.setMetadata(new Metadata.Builder()
+                            .withCreatedDate(clock.instant())
+                            .withCreatedBy(user.getUsername())
+                            .withUpdatedDate(clock.instant())
+                            .withUpdatedBy(user.getUsername())
+                            .build());
+                    database.put(database.users, user.getId(), user);
+                }
+                return null;
+            });
+        } catch (DAOException e) {
+            throw new DAOConfigException("There was an issue creating the embedded db user", e);
+        }
+        return new EmbeddedRepositoryFactory(database);
+    }
+
+    @Override
+    public AppointmentRepository getAppointmentRepository() {
+        return appointmentRepository;
+    }
+
+    @Override
+    public CustomerRepository getCustomerRepository() {
+        return customerRepository;
+    }
+
+    @Override
+    public AddressRepository getAddressRepository() {
+        return addressRepository;
+    }
+
+    @Override
+    public UserRepository getUserRepository() {
+        return userRepository;
+    }
+
+    @Override
+    public void close() throws DAOConfigException {
+        try {
+            database.close();
+        } catch (IOException e) {
+            throw new DAOConfigException("There was an issue closing the embedded db", e);
+        }
+    }
+}
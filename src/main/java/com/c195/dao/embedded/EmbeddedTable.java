@@ -0,0 +1,107 @@
+package com.c195.dao.embedded;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * The rows of a single embedded table, ordered by id. Only accessed while holding
+ * the {@link EmbeddedDatabase} lock.
+ *
+ * @param <T> the type of the rows.
+ */
+final class EmbeddedTable<T> {
+
+    private final EmbeddedCodec<T> codec;
+    private final NavigableMap<Integer, T> rows = new TreeMap<>();
+    private int lastId;
+    private int firstId;
+    private boolean provisionalIds;
+
+    EmbeddedTable(EmbeddedCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    EmbeddedCodec<T> getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return a copy of the row as it would be stored, where any rows it references only hold their ids.
+     */
+    T copy(T row) {
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(encode(row))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return whether the table already holds the row under the id exactly as it would be stored.
+     */
+    boolean holds(int id, T row) {
+        final T existing = rows.get(id);
+        return existing != null && Arrays.equals(encode(existing), encode(row));
+    }
+
+    Optional<T> get(int id) {
+        return Optional.ofNullable(rows.get(id));
+    }
+
+    Collection<T> getRows() {
+        return Collections.unmodifiableCollection(rows.values());
+    }
+
+    Collection<Map.Entry<Integer, T>> getEntries() {
+        return Collections.unmodifiableMap(rows).entrySet();
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * Makes {@link #nextId()} hand out negative ids, for rows that are created locally and only
+     * get their real id once they have been saved to another db.
+     */
+    void setProvisionalIds(boolean provisionalIds) {
+        this.provisionalIds = provisionalIds;
+    }
+
+    /**
+     * @return a new id, higher than any id the table has ever held,
+     * or lower than any id the table has ever held if ids are provisional.
+     */
+    int nextId() {
+        return provisionalIds ? --firstId : ++lastId;
+    }
+
+    /**
+     * Stores the row under the id, or removes the id when the row is null.
+     */
+    void apply(int id, T row) {
+        if (row == null) {
+            rows.remove(id);
+        } else {
+            rows.put(id, row);
+            lastId = Math.max(lastId, id);
+            firstId = Math.min(firstId, id);
+        }
+    }
+
+    private byte[] encode(T row) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            codec.write(new DataOutputStream(bytes), row);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
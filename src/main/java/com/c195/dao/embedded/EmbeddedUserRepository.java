@@ -0,0 +1,39 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.UserRepository;
+import com.c195.model.User;
+
+import java.util.Optional;
+
+public class EmbeddedUserRepository implements UserRepository {
+
+    private final EmbeddedDatabase database;
+
+    EmbeddedUserRepository(EmbeddedDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public Optional<User> getUserByUsername(String username) throws DAOException {
+        return database.read(() -> database.users.getRows()
+                .stream()
+                .filter(row -> row.getUsername().equalsIgnoreCase(username))
+                .findFirst()
+                .flatMap(row -> database.joinUser(row.getId())));
+    }
+
+    @Override
+    public void updatePassword(User user) throws DAOException {
+        database.write(() -> {
+            final Optional<User> existing = database.users.get(user.getId());
+            if (existing.isPresent()) {
+                final User row = database.joinUser(user.getId()).get();
+                row.setPassword(user.getPassword());
+                row.setMetadata(EmbeddedDatabase.toUpdateMetadata(existing.get().getMetadata(), user.getMetadata()));
+                database.put(database.users, row.getId(), row);
+            }
+            return null;
+        });
+    }
+}
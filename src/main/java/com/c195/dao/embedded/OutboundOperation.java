@@ -0,0 +1,72 @@
+package com.c195.dao.embedded;
+
+import java.time.Instant;
+
+/**
+ * A local change waiting to be sent to the remote db.
+ * <p>
+ * Only the kind of change and the id of the changed row are queued. The row itself is read from the
+ * local store when the change is sent, so a row that changed several times is sent as it is now.
+ */
+final class OutboundOperation {
+
+    enum Type {
+        SAVE_COUNTRY,
+        SAVE_CITY,
+        SAVE_ADDRESS,
+        UPDATE_ADDRESS,
+        SAVE_CUSTOMER,
+        UPDATE_CUSTOMER,
+        DELETE_CUSTOMER,
+        SAVE_APPOINTMENT,
+        UPDATE_APPOINTMENT,
+        DELETE_APPOINTMENT,
+        UPDATE_PASSWORD
+    }
+
+    private final int id;
+    private final Type type;
+    private final int rowId;
+    private final Instant baseUpdatedDate;
+    private final int attempts;
+
+    /**
+     * @param id              the position of the change in the queue.
+     * @param type            the kind of change.
+     * @param rowId           the local id of the changed row.
+     * @param baseUpdatedDate when the row was last updated before this change, used to detect whether
+     *                        someone else changed the remote row in the meantime. Null for new rows.
+     * @param attempts        how many times sending the change has failed.
+     */
+    OutboundOperation(int id, Type type, int rowId, Instant baseUpdatedDate, int attempts) {
+        this.id = id;
+        this.type = type;
+        this.rowId = rowId;
+        this.baseUpdatedDate = baseUpdatedDate;
+        this.attempts = attempts;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    int getRowId() {
+        return rowId;
+    }
+
+    Instant getBaseUpdatedDate() {
+        return baseUpdatedDate;
+    }
+
+    int getAttempts() {
+        return attempts;
+    }
+
+    OutboundOperation withFailedAttempt() {
+        return new OutboundOperation(id, type, rowId, baseUpdatedDate, attempts + 1);
+    }
+}
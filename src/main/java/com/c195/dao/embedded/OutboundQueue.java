@@ -0,0 +1,101 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The local changes waiting to be sent to the remote db, oldest first.
+ * <p>
+ * The queue is a table of the local store, so a change and its queue entry are
+ * committed together when both are made within the same write.
+ */
+final class OutboundQueue {
+
+    private final EmbeddedDatabase database;
+
+    OutboundQueue(EmbeddedDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Queues a change, unless the same change to the same row is already queued. That change sends the row
+     * as it is when it is sent and keeps the earlier base date, which is the one the remote row should match.
+     */
+    void enqueue(OutboundOperation.Type type, int rowId, Instant baseUpdatedDate) throws DAOException {
+        database.write(() -> {
+            if (find(type, rowId).isPresent()) {
+                return null;
+            }
+            final int id = database.outbound.nextId();
+            database.put(database.outbound, id, new OutboundOperation(id, type, rowId, baseUpdatedDate, 0));
+            return null;
+        });
+    }
+
+    /**
+     * Removes the queued change of the given type to the given row.
+     *
+     * @return the removed change, if there was one.
+     */
+    Optional<OutboundOperation> cancel(OutboundOperation.Type type, int rowId) throws DAOException {
+        return database.write(() -> {
+            final Optional<OutboundOperation> operation = find(type, rowId);
+            if (operation.isPresent()) {
+                database.delete(database.outbound, operation.get().getId());
+            }
+            return operation;
+        });
+    }
+
+    boolean contains(OutboundOperation.Type type, int rowId) throws DAOException {
+        return database.read(() -> find(type, rowId).isPresent());
+    }
+
+    /**
+     * Removes a change once it has been sent, or given up on.
+     */
+    void remove(OutboundOperation operation) throws DAOException {
+        database.write(() -> {
+            database.delete(database.outbound, operation.getId());
+            return null;
+        });
+    }
+
+    /**
+     * Records that sending the change failed, so it is retried with the next batch.
+     */
+    void retry(OutboundOperation operation) throws DAOException {
+        database.write(() -> {
+            if (database.outbound.get(operation.getId()).isPresent()) {
+                database.put(database.outbound, operation.getId(), operation.withFailedAttempt());
+            }
+            return null;
+        });
+    }
+
+    List<OutboundOperation> peek(int limit) throws DAOException {
+        return database.read(() -> database.outbound.getRows()
+                .stream()
+                .limit(limit)
+                .collect(Collectors.toList()));
+    }
+
+    boolean isEmpty() throws DAOException {
+        return database.read(() -> database.outbound.size() == 0);
+    }
+
+    int size() throws DAOException {
+        return database.read(database.outbound::size);
+    }
+
+    private Optional<OutboundOperation> find(OutboundOperation.Type type, int rowId) {
+        return database.outbound.getRows()
+                .stream()
+                .filter(operation -> operation.getType() == type && operation.getRowId() == rowId)
+                .findFirst();
+    }
+}
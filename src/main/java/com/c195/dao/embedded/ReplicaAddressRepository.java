@@ -0,0 +1,79 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AddressRepository;
+import com.c195.model.Address;
+import com.c195.model.City;
+import com.c195.model.Country;
+
+import java.util.Optional;
+
+/**
+ * Reads addresses from the local replica and queues every change to be sent to the remote db.
+ */
+public class ReplicaAddressRepository implements AddressRepository {
+
+    private final EmbeddedDatabase database;
+    private final EmbeddedAddressRepository localRepository;
+    private final OutboundQueue outboundQueue;
+
+    ReplicaAddressRepository(EmbeddedDatabase database, OutboundQueue outboundQueue) {
+        this.database = database;
+        this.localRepository = new EmbeddedAddressRepository(database);
+        this.outboundQueue = outboundQueue;
+    }
+
+    @Override
+    public Optional<Address> getAddress(String address) throws DAOException {
+        return localRepository.getAddress(address);
+    }
+
+    @Override
+    public void saveAddress(Address address) throws DAOException {
+        database.write(() -> {
+            localRepository.saveAddress(address);
+            outboundQueue.enqueue(OutboundOperation.Type.SAVE_ADDRESS, address.getId(), null);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateAddress(Address address) throws DAOException {
+        database.write(() -> {
+            final boolean exists = database.addresses.get(address.getId()).isPresent();
+            localRepository.updateAddress(address);
+            if (exists && address.getId() > 0) {
+                outboundQueue.enqueue(OutboundOperation.Type.UPDATE_ADDRESS, address.getId(), null);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<City> getCityByName(String cityName) throws DAOException {
+        return localRepository.getCityByName(cityName);
+    }
+
+    @Override
+    public void saveCity(City city) throws DAOException {
+        database.write(() -> {
+            localRepository.saveCity(city);
+            outboundQueue.enqueue(OutboundOperation.Type.SAVE_CITY, city.getId(), null);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Country> getCountryByName(String countryName) throws DAOException {
+        return localRepository.getCountryByName(countryName);
+    }
+
+    @Override
+    public void saveCountry(Country country) throws DAOException {
+        database.write(() -> {
+            localRepository.saveCountry(country);
+            outboundQueue.enqueue(OutboundOperation.Type.SAVE_COUNTRY, country.getId(), null);
+            return null;
+        });
+    }
+}
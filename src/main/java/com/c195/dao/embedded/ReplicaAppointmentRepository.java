@@ -0,0 +1,129 @@
+package com.c195.dao.embedded;
+
+import com.c195.common.appointment.AppointmentColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.model.Appointment;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads appointments from the local replica and queues every change to be sent to the remote db.
+ */
+public class ReplicaAppointmentRepository implements AppointmentRepository {
+
+    private final EmbeddedDatabase database;
+    private final EmbeddedAppointmentRepository localRepository;
+    private final OutboundQueue outboundQueue;
+
+    ReplicaAppointmentRepository(EmbeddedDatabase database, OutboundQueue outboundQueue) {
+        this.database = database;
+        this.localRepository = new EmbeddedAppointmentRepository(database);
+        this.outboundQueue = outboundQueue;
+    }
+
+    @Override
+    public List<Appointment> getAllAppointments() throws DAOException {
+        return localRepository.getAllAppointments();
+    }
+
+    @Override
+    public Optional<Appointment> getAppointmentById(int id) throws DAOException {
+        return localRepository.getAppointmentById(id);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByUserBetween(int userId, Instant start, Instant end) throws DAOException {
+        return localRepository.getAppointmentsByUserBetween(userId, start, end);
+    }
+
+    @Override
+    public List<Appointment> getOverlappingAppointmentsByUser(int userId, Instant start, Instant end) throws DAOException {
+        return localRepository.getOverlappingAppointmentsByUser(userId, start, end);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByUserAfter(int userId, Instant start) throws DAOException {
+        return localRepository.getAppointmentsByUserAfter(userId, start);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentPageByUserBetween(int userId,
+                                                             Instant start,
+                                                             Instant end,
+                                                             QuerySpec<AppointmentColumn> querySpec) throws DAOException {
+        return localRepository.getAppointmentPageByUserBetween(userId, start, end, querySpec);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByContactAfter(String contact, int appointmentId, int limit)
+            throws DAOException {
+        return localRepository.getAppointmentsByContactAfter(contact, appointmentId, limit);
+    }
+
+    @Override
+    public ChangeWatermark getAppointmentWatermark() throws DAOException {
+        return localRepository.getAppointmentWatermark();
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsUpdatedSince(Instant since) throws DAOException {
+        return localRepository.getAppointmentsUpdatedSince(since);
+    }
+
+    @Override
+    public List<Integer> getAppointmentIds() throws DAOException {
+        return localRepository.getAppointmentIds();
+    }
+
+    @Override
+    public void saveAppointment(Appointment appointment) throws DAOException {
+        database.write(() -> {
+            localRepository.saveAppointment(appointment);
+            outboundQueue.enqueue(OutboundOperation.Type.SAVE_APPOINTMENT, appointment.getId(), null);
+            return null;
+        });
+    }
+
+    /**
+     * An appointment that has not been sent yet is sent as it is now, so its update is not queued separately.
+     */
+    @Override
+    public void updateAppointment(Appointment appointment) throws DAOException {
+        database.write(() -> {
+            final Optional<Instant> baseUpdatedDate = database.appointments.get(appointment.getId())
+                    .map(row -> row.getMetadata().getUpdatedDate());
+            localRepository.updateAppointment(appointment);
+            if (baseUpdatedDate.isPresent() && appointment.getId() > 0) {
+                outboundQueue.enqueue(OutboundOperation.Type.UPDATE_APPOINTMENT, appointment.getId(), baseUpdatedDate.get());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deleting an appointment that has not been sent yet just drops it from the queue. Otherwise the delete
+     * replaces any queued update and is checked against the row as it was before that update.
+     */
+    @Override
+    public void deleteAppointmentById(int id) throws DAOException {
+        database.write(() -> {
+            final Optional<Instant> baseUpdatedDate = database.appointments.get(id)
+                    .map(row -> row.getMetadata().getUpdatedDate());
+            localRepository.deleteAppointmentById(id);
+            if (id < 0) {
+                outboundQueue.cancel(OutboundOperation.Type.SAVE_APPOINTMENT, id);
+            } else if (baseUpdatedDate.isPresent()) {
+                final Instant pendingBaseUpdatedDate = outboundQueue.cancel(OutboundOperation.Type.UPDATE_APPOINTMENT, id)
+                        .map(OutboundOperation::getBaseUpdatedDate)
+                        .orElse(baseUpdatedDate.get());
+                outboundQueue.enqueue(OutboundOperation.Type.DELETE_APPOINTMENT, id, pendingBaseUpdatedDate);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.c195.dao.embedded;
+
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.model.Customer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads customers from the local replica and queues every change to be sent to the remote db.
+ */
+public class ReplicaCustomerRepository implements CustomerRepository {
+
+    private final EmbeddedDatabase database;
+    private final EmbeddedCustomerRepository localRepository;
+    private final OutboundQueue outboundQueue;
+
+    ReplicaCustomerRepository(EmbeddedDatabase database, OutboundQueue outboundQueue) {
+        this.database = database;
+        this.localRepository = new EmbeddedCustomerRepository(database);
+        this.outboundQueue = outboundQueue;
+    }
+
+    @Override
+    public Optional<Customer> getCustomerById(int id) throws DAOException {
+        return localRepository.getCustomerById(id);
+    }
+
+    @Override
+    public List<Customer> getAllCustomers() throws DAOException {
+        return localRepository.getAllCustomers();
+    }
+
+    @Override
+    public List<Customer> getCustomerPage(QuerySpec<CustomerColumn> querySpec) throws DAOException {
+        return localRepository.getCustomerPage(querySpec);
+    }
+
+    @Override
+    public ChangeWatermark getCustomerWatermark() throws DAOException {
+        return localRepository.getCustomerWatermark();
+    }
+
+    @Override
+    public List<Customer> getCustomersUpdatedSince(Instant since) throws DAOException {
+        return localRepository.getCustomersUpdatedSince(since);
+    }
+
+    @Override
+    public List<Integer> getCustomerIds() throws DAOException {
+        return localRepository.getCustomerIds();
+    }
+
+    @Override
+    public void saveCustomer(Customer customer) throws DAOException {
+        database.write(() -> {
+            localRepository.saveCustomer(customer);
+            outboundQueue.enqueue(OutboundOperation.Type.SAVE_CUSTOMER, customer.getId(), null);
+            return null;
+        });
+    }
+
+    /**
+     * A customer that has not been sent yet is sent as it is now, so its update is not queued separately.
+     */
+    @Override
+    public void updateCustomer(Customer customer) throws DAOException {
+        database.write(() -> {
+            final Optional<Instant> baseUpdatedDate = database.customers.get(customer.getId())
+                    .map(row -> row.getMetadata().getUpdatedDate());
+            localRepository.updateCustomer(customer);
+            if (baseUpdatedDate.isPresent() && customer.getId() > 0) {
+                outboundQueue.enqueue(OutboundOperation.Type.UPDATE_CUSTOMER, customer.getId(), baseUpdatedDate.get());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The remote delete removes the address as well, so only the customer's delete is queued.
+     * Deleting a customer that has not been sent yet just drops it and its address from the queue.
+     */
+    @Override
+    public void deleteCustomerById(int id) throws DAOException {
+        database.write(() -> {
+            final Optional<Customer> existing = database.customers.get(id);
+            localRepository.deleteCustomerById(id);
+            if (existing.isPresent()) {
+                final int addressId = existing.get().getAddress().getId();
+                outboundQueue.cancel(OutboundOperation.Type.UPDATE_ADDRESS, addressId);
+                if (id < 0) {
+                    outboundQueue.cancel(OutboundOperation.Type.SAVE_CUSTOMER, id);
+                    outboundQueue.cancel(OutboundOperation.Type.SAVE_ADDRESS, addressId);
+                } else {
+                    final Instant baseUpdatedDate = outboundQueue.cancel(OutboundOperation.Type.UPDATE_CUSTOMER, id)
+                            .map(OutboundOperation::getBaseUpdatedDate)
+                            .orElse(existing.get().getMetadata().getUpdatedDate());
+                    outboundQueue.enqueue(OutboundOperation.Type.DELETE_CUSTOMER, id, baseUpdatedDate);
+                }
+            }
+            return null;
+        });
+    }
+}
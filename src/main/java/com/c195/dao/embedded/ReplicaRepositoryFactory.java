@@ -0,0 +1,111 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.config.PersistenceConfig;
+import com.c195.dao.repository.*;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Repositories that read from and write to a local replica of the remote db, so the app keeps
+ * working while the remote db is unreachable. Local changes are sent to the remote db and remote
+ * changes pulled in the background by a {@link ReplicaSynchronizer}.
+ */
+public class ReplicaRepositoryFactory implements RepositoryFactory {
+
+    private final EmbeddedDatabase database;
+    private final ReplicaSynchronizer synchronizer;
+    private final AppointmentRepository appointmentRepository;
+    private final CustomerRepository customerRepository;
+    private final AddressRepository addressRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Opens the repositories of the remote db. Only called by the replica's background
+     * thread, or on open when the replica is still empty.
+     */
+    @FunctionalInterface
+    public interface RemoteConnector {
+        RepositoryFactory connect() throws DAOConfigException, DAOException;
+    }
+
+    private ReplicaRepositoryFactory(EmbeddedDatabase database, ReplicaSynchronizer synchronizer) {
+        final OutboundQueue outboundQueue = new OutboundQueue(database);
+        this.database = database;
+        this.synchronizer = synchronizer;
+        this.appointmentRepository = new ReplicaAppointmentRepository(database, outboundQueue);
+        this.customerRepository = new ReplicaCustomerRepository(database, outboundQueue);
+        this.addressRepository = new ReplicaAddressRepository(database, outboundQueue);
+        this.userRepository = new ReplicaUserRepository(database, outboundQueue, synchronizer);
+    }
+
+    /**
+     * Opens the local replica and starts syncing it with the remote db. A replica that has never been
+     * synced is filled from the remote db before this returns, so there are users to log in as.
+     *
+     * @param persistenceConfig the location of the replica and how often it is synced.
+     * @param remoteConnector   opens the remote db.
+     * @return the repositories of the replica.
+     * @throws DAOConfigException if there are issues opening the replica.
+     */
+    public static ReplicaRepositoryFactory open(PersistenceConfig persistenceConfig, RemoteConnector remoteConnector)
+            throws DAOConfigException {
+        final EmbeddedDatabase database = EmbeddedDatabase.open(
+                persistenceConfig.getReplicaPath(), persistenceConfig.isEmbeddedSync(), true);
+        final ReplicaSynchronizer synchronizer = new ReplicaSynchronizer(database,
+                new OutboundQueue(database),
+                remoteConnector,
+                persistenceConfig.getReplicaBatchSize(),
+                MetricRegistry.getInstance());
+        try {
+            if (database.read(() -> database.users.size() == 0)) {
+                synchronizer.pull();
+            }
+        } catch (DAOException e) {
+            throw new DAOConfigException("There was an issue reading the replica", e);
+        }
+        synchronizer.start(persistenceConfig.getReplicaPushInterval(), persistenceConfig.getReplicaPullInterval());
+        return new ReplicaRepositoryFactory(database, synchronizer);
+    }
+
+    @Override
+    public AppointmentRepository getAppointmentRepository() {
+        return appointmentRepository;
+    }
+
+    @Override
+    public CustomerRepository getCustomerRepository() {
+        return customerRepository;
+    }
+
+    @Override
+    public AddressRepository getAddressRepository() {
+        return addressRepository;
+    }
+
+    @Override
+    public UserRepository getUserRepository() {
+        return userRepository;
+    }
+
+    /**
+     * Stops syncing and closes the replica and the remote db. Changes that have not been
+     * sent yet stay queued in the replica and are sent the next time it is opened.
+     */
+    @Override
+    public void close() throws DAOConfigException {
+        synchronizer.stop();
+        try {
+            database.close();
+        } catch (IOException e) {
+            throw new DAOConfigException("There was an issue closing the replica", e);
+        }
+        final Optional<RepositoryFactory> remote = synchronizer.getRemote();
+        if (remote.isPresent()) {
+            remote.get().close();
+        }
+    }
+}
@@ -0,0 +1,721 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.RepositoryFactory;
+import com.c195.model.*;
+import com.c195.util.logging.Logger;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.Timer;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the local replica and the remote db in step.
+ * <p>
+ * Pushing sends the queued local changes to the remote db in the order they were made. New rows are saved
+ * under negative ids locally and moved to the id the remote db gives them once saved, together with every
+ * row that references them. Updates and deletes of customers and appointments are checked against the
+ * remote row first: if someone else changed or removed it since it was last pulled, the remote row wins
+ * and replaces the local one. Changes that keep failing for reasons other than the connection are given
+ * up on after a few attempts, so one bad change cannot hold up the rest of the queue for good.
+ * <p>
+ * Pulling reads the customers and appointments updated since the last pull, all of them the first time,
+ * and stores them locally. Rows deleted remotely, or created with an earlier last update, are only looked
+ * for when the remote row count no longer adds up. Pulling does not wait for the local changes to be
+ * pushed: rows with queued changes keep them, and the remote row wins later if the push finds a conflict.
+ */
+final class ReplicaSynchronizer {
+
+    private static final Logger logger = Logger.getLogger(ReplicaSynchronizer.class);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Set<OutboundOperation.Type> PENDING_CUSTOMER_CHANGES = Collections.unmodifiableSet(
+            EnumSet.of(OutboundOperation.Type.UPDATE_CUSTOMER, OutboundOperation.Type.DELETE_CUSTOMER));
+    private static final Set<OutboundOperation.Type> PENDING_APPOINTMENT_CHANGES = Collections.unmodifiableSet(
+            EnumSet.of(OutboundOperation.Type.UPDATE_APPOINTMENT, OutboundOperation.Type.DELETE_APPOINTMENT));
+    private static final Set<OutboundOperation.Type> PENDING_ADDRESS_CHANGES =
+            Collections.singleton(OutboundOperation.Type.UPDATE_ADDRESS);
+
+    private final EmbeddedDatabase database;
+    private final OutboundQueue outboundQueue;
+    private final ReplicaRepositoryFactory.RemoteConnector remoteConnector;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+    private final Counter pushedCounter;
+    private final Counter conflictCounter;
+    private final Counter droppedCounter;
+    private final Timer pushTimer;
+    private final Timer pullTimer;
+    private volatile RepositoryFactory remote;
+    private volatile boolean connected;
+    private boolean reportedUnreachable;
+    private Instant customersPulledUpTo;
+    private Instant appointmentsPulledUpTo;
+
+    ReplicaSynchronizer(EmbeddedDatabase database,
+                        OutboundQueue outboundQueue,
+                        ReplicaRepositoryFactory.RemoteConnector remoteConnector,
+                        int batchSize,
+                        MetricRegistry metricRegistry) {
+        this.database = database;
+        this.outboundQueue = outboundQueue;
+        this.remoteConnector = remoteConnector;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "replica-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pushedCounter = metricRegistry.counter("replica.pushed");
+        this.conflictCounter = metricRegistry.counter("replica.conflicts");
+        this.droppedCounter = metricRegistry.counter("replica.dropped");
+        this.pushTimer = metricRegistry.timer("replica.push.latency");
+        this.pullTimer = metricRegistry.timer("replica.pull.latency");
+    }
+
+    /**
+     * Pushes and pulls in the background from now on, both on the same thread so they never overlap.
+     */
+    void start(Duration pushInterval, Duration pullInterval) {
+        executor.scheduleWithFixedDelay(() -> runSafely(this::push),
+                0, pushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(() -> runSafely(this::pull),
+                0, pullInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the remote db if it was reachable the last time it was used.
+     */
+    Optional<RepositoryFactory> getConnectedRemote() {
+        return connected ? Optional.ofNullable(remote) : Optional.empty();
+    }
+
+    Optional<RepositoryFactory> getRemote() {
+        return Optional.ofNullable(remote);
+    }
+
+    /**
+     * Marks the remote db as unreachable when a read made through it failed on the connection.
+     */
+    void failed(DAOException e) {
+        if (isConnectionFailure(e)) {
+            disconnected(e);
+        }
+    }
+
+    void push() {
+        if (!connect()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            for (OutboundOperation operation : outboundQueue.peek(batchSize)) {
+                try {
+                    send(operation);
+                    reachable();
+                    pushedCounter.increment();
+                } catch (DAOException e) {
+                    if (isConnectionFailure(e)) {
+                        disconnected(e);
+                    } else if (operation.getAttempts() + 1 >= MAX_ATTEMPTS) {
+                        outboundQueue.remove(operation);
+                        droppedCounter.increment();
+                        logger.log(String.format("dropped %s of row %d after %d attempts: %s",
+                                operation.getType(), operation.getRowId(), MAX_ATTEMPTS, e.getMessage()));
+                    } else {
+                        outboundQueue.retry(operation);
+                    }
+                    // later changes can depend on this one, so they wait for the next round
+                    return;
+                }
+            }
+        } catch (DAOException e) {
+            logger.log("there was an issue reading the outbound queue: " + e.getMessage());
+        } finally {
+            pushTimer.recordSince(start);
+        }
+    }
+
+    void pull() {
+        if (!connect()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            final ChangeWatermark customerWatermark = remote.getCustomerRepository().getCustomerWatermark();
+            final ChangeWatermark appointmentWatermark = remote.getAppointmentRepository().getAppointmentWatermark();
+            final List<Customer> customers = customersPulledUpTo == null
+                    ? remote.getCustomerRepository().getAllCustomers()
+                    : remote.getCustomerRepository().getCustomersUpdatedSince(customersPulledUpTo);
+            final List<Appointment> appointments = appointmentsPulledUpTo == null
+                    ? remote.getAppointmentRepository().getAllAppointments()
+                    : remote.getAppointmentRepository().getAppointmentsUpdatedSince(appointmentsPulledUpTo);
+            reachable();
+            database.write(() -> {
+                merge(customers, appointments);
+                return null;
+            });
+            if (!isCounted(database.customers, customerWatermark)
+                    || !isCounted(database.appointments, appointmentWatermark)) {
+                pullCreatedAndDeleted();
+            }
+            customersPulledUpTo = customerWatermark.getLastUpdate().orElse(customersPulledUpTo);
+            appointmentsPulledUpTo = appointmentWatermark.getLastUpdate().orElse(appointmentsPulledUpTo);
+        } catch (DAOException e) {
+            if (isConnectionFailure(e)) {
+                disconnected(e);
+            } else {
+                logger.log("there was an issue pulling from the remote db: " + e.getMessage());
+            }
+        } finally {
+            pullTimer.recordSince(start);
+        }
+    }
+
+    /**
+     * Reads the ids of every remote customer and appointment, removing the local rows that are no longer
+     * there and reading the ones that are not here yet, such as rows pushed by someone who was offline,
+     * whose last update can be earlier than the watermark.
+     */
+    private void pullCreatedAndDeleted() throws DAOException {
+        final Set<Integer> customerIds = new HashSet<>(remote.getCustomerRepository().getCustomerIds());
+        final Set<Integer> appointmentIds = new HashSet<>(remote.getAppointmentRepository().getAppointmentIds());
+        final List<Customer> createdCustomers = new ArrayList<>();
+        for (int id : database.read(() -> unknownIds(database.customers, customerIds, PENDING_CUSTOMER_CHANGES))) {
+            remote.getCustomerRepository().getCustomerById(id).ifPresent(createdCustomers::add);
+        }
+        final List<Appointment> createdAppointments = new ArrayList<>();
+        for (int id : database.read(() -> unknownIds(database.appointments, appointmentIds, PENDING_APPOINTMENT_CHANGES))) {
+            remote.getAppointmentRepository().getAppointmentById(id).ifPresent(createdAppointments::add);
+        }
+        database.write(() -> {
+            merge(createdCustomers, createdAppointments);
+            deleteMissing(database.appointments, appointmentIds, pendingRowIds(PENDING_APPOINTMENT_CHANGES));
+            deleteMissing(database.customers, customerIds, pendingRowIds(PENDING_CUSTOMER_CHANGES));
+            final Set<Integer> addressIds = database.customers.getRows()
+                    .stream()
+                    .map(customer -> customer.getAddress().getId())
+                    .collect(Collectors.toSet());
+            deleteMissing(database.addresses, addressIds, pendingRowIds(PENDING_ADDRESS_CHANGES));
+            return null;
+        });
+    }
+
+    /**
+     * Remembers a remote row that was read outside of a pull, e.g. a user logging in.
+     */
+    void store(User user) throws DAOException {
+        database.write(() -> {
+            upsert(database.users, user.getId(), user);
+            return null;
+        });
+    }
+
+    private boolean connect() {
+        if (remote == null) {
+            try {
+                remote = remoteConnector.connect();
+            } catch (DAOConfigException | DAOException e) {
+                disconnected(e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reachable() {
+        if (!connected) {
+            connected = true;
+            logger.log("the remote db is reachable, syncing local changes");
+        }
+    }
+
+    private void disconnected(Exception e) {
+        if (connected || !reportedUnreachable) {
+            logger.log("the remote db is unreachable, keeping changes locally: " + e.getMessage());
+            reportedUnreachable = true;
+        }
+        connected = false;
+    }
+
+    private void send(OutboundOperation operation) throws DAOException {
+        switch (operation.getType()) {
+            case SAVE_COUNTRY:
+                saveCountry(operation);
+                break;
+            case SAVE_CITY:
+                saveCity(operation);
+                break;
+            case SAVE_ADDRESS:
+                saveAddress(operation);
+                break;
+            case UPDATE_ADDRESS:
+                updateAddress(operation);
+                break;
+            case SAVE_CUSTOMER:
+                saveCustomer(operation);
+                break;
+            case UPDATE_CUSTOMER:
+                updateCustomer(operation);
+                break;
+            case DELETE_CUSTOMER:
+                deleteCustomer(operation);
+                break;
+            case SAVE_APPOINTMENT:
+                saveAppointment(operation);
+                break;
+            case UPDATE_APPOINTMENT:
+                updateAppointment(operation);
+                break;
+            case DELETE_APPOINTMENT:
+                deleteAppointment(operation);
+                break;
+            case UPDATE_PASSWORD:
+                updatePassword(operation);
+                break;
+        }
+    }
+
+    /*
+     * Countries and cities are unique by name in the remote db, so one that someone else has
+     * saved in the meantime is used as is instead of being saved again.
+     */
+
+    private void saveCountry(OutboundOperation operation) throws DAOException {
+        final Optional<Country> country = database.read(() -> database.joinCountry(operation.getRowId()));
+        if (!country.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        final Optional<Country> existing = remote.getAddressRepository().getCountryByName(country.get().getCountry());
+        if (existing.isPresent()) {
+            country.get().setId(existing.get().getId());
+        } else {
+            remote.getAddressRepository().saveCountry(country.get());
+        }
+        database.write(() -> {
+            rekey(database.countries, operation.getRowId(), country.get().getId(), row -> row.setId(country.get().getId()));
+            for (City city : database.cities.getRows()) {
+                if (city.getCountry().getId() == operation.getRowId()) {
+                    final City row = database.cities.copy(city);
+                    row.getCountry().setId(country.get().getId());
+                    database.put(database.cities, row.getId(), row);
+                }
+            }
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    private void saveCity(OutboundOperation operation) throws DAOException {
+        final Optional<City> city = database.read(() -> database.joinCity(operation.getRowId()));
+        if (!city.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        final Optional<City> existing = remote.getAddressRepository().getCityByName(city.get().getCity());
+        if (existing.isPresent()) {
+            city.get().setId(existing.get().getId());
+        } else {
+            remote.getAddressRepository().saveCity(city.get());
+        }
+        database.write(() -> {
+            rekey(database.cities, operation.getRowId(), city.get().getId(), row -> row.setId(city.get().getId()));
+            for (Address address : database.addresses.getRows()) {
+                if (address.getCity().getId() == operation.getRowId()) {
+                    final Address row = database.addresses.copy(address);
+                    row.getCity().setId(city.get().getId());
+                    database.put(database.addresses, row.getId(), row);
+                }
+            }
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    private void saveAddress(OutboundOperation operation) throws DAOException {
+        final Optional<Address> address = database.read(() -> database.joinAddress(operation.getRowId()));
+        if (!address.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        final Instant sentUpdatedDate = address.get().getMetadata().getUpdatedDate();
+        remote.getAddressRepository().saveAddress(address.get());
+        final int id = address.get().getId();
+        database.write(() -> {
+            rekey(database.addresses, operation.getRowId(), id, row -> row.setId(id));
+            resendIfChanged(database.addresses, operation.getRowId(), id, sentUpdatedDate, Address::getMetadata,
+                    OutboundOperation.Type.UPDATE_ADDRESS);
+            for (Customer customer : database.customers.getRows()) {
+                if (customer.getAddress().getId() == operation.getRowId()) {
+                    final Customer row = database.customers.copy(customer);
+                    row.getAddress().setId(id);
+                    database.put(database.customers, row.getId(), row);
+                }
+            }
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    /**
+     * Addresses are only ever changed along with their customer, whose own update is checked for
+     * conflicts, so the address is simply overwritten.
+     */
+    private void updateAddress(OutboundOperation operation) throws DAOException {
+        final Optional<Address> address = database.read(() -> database.joinAddress(operation.getRowId()));
+        if (address.isPresent()) {
+            remote.getAddressRepository().updateAddress(address.get());
+        }
+        outboundQueue.remove(operation);
+    }
+
+    private void saveCustomer(OutboundOperation operation) throws DAOException {
+        final Optional<Customer> customer = database.read(() -> database.joinCustomer(operation.getRowId()));
+        if (!customer.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        final Instant sentUpdatedDate = customer.get().getMetadata().getUpdatedDate();
+        remote.getCustomerRepository().saveCustomer(customer.get());
+        final int id = customer.get().getId();
+        database.write(() -> {
+            if (!database.customers.get(operation.getRowId()).isPresent()) {
+                // deleted locally while it was being saved
+                outboundQueue.enqueue(OutboundOperation.Type.DELETE_CUSTOMER, id, null);
+            }
+            rekey(database.customers, operation.getRowId(), id, row -> row.setId(id));
+            resendIfChanged(database.customers, operation.getRowId(), id, sentUpdatedDate, Customer::getMetadata,
+                    OutboundOperation.Type.UPDATE_CUSTOMER);
+            for (Appointment appointment : database.appointments.getRows()) {
+                if (appointment.getCustomer().getId() == operation.getRowId()) {
+                    final Appointment row = database.appointments.copy(appointment);
+                    row.getCustomer().setId(id);
+                    database.put(database.appointments, row.getId(), row);
+                }
+            }
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    private void updateCustomer(OutboundOperation operation) throws DAOException {
+        final Optional<Customer> remoteCustomer = remote.getCustomerRepository().getCustomerById(operation.getRowId());
+        if (isConflict(operation, remoteCustomer.map(Customer::getMetadata))) {
+            resolveCustomerConflict(operation, remoteCustomer);
+            return;
+        }
+        final Optional<Customer> customer = database.read(() -> database.joinCustomer(operation.getRowId()));
+        if (customer.isPresent()) {
+            remote.getCustomerRepository().updateCustomer(customer.get());
+        }
+        outboundQueue.remove(operation);
+    }
+
+    private void deleteCustomer(OutboundOperation operation) throws DAOException {
+        final Optional<Customer> remoteCustomer = remote.getCustomerRepository().getCustomerById(operation.getRowId());
+        if (!remoteCustomer.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        if (isConflict(operation, remoteCustomer.map(Customer::getMetadata))) {
+            resolveCustomerConflict(operation, remoteCustomer);
+            return;
+        }
+        remote.getCustomerRepository().deleteCustomerById(operation.getRowId());
+        outboundQueue.remove(operation);
+    }
+
+    private void saveAppointment(OutboundOperation operation) throws DAOException {
+        final Optional<Appointment> appointment = database.read(() -> database.appointments.get(operation.getRowId())
+                .flatMap(database::joinAppointment));
+        if (!appointment.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        final Instant sentUpdatedDate = appointment.get().getMetadata().getUpdatedDate();
+        remote.getAppointmentRepository().saveAppointment(appointment.get());
+        final int id = appointment.get().getId();
+        database.write(() -> {
+            if (!database.appointments.get(operation.getRowId()).isPresent()) {
+                // deleted locally while it was being saved
+                outboundQueue.enqueue(OutboundOperation.Type.DELETE_APPOINTMENT, id, null);
+            }
+            rekey(database.appointments, operation.getRowId(), id, row -> row.setId(id));
+            resendIfChanged(database.appointments, operation.getRowId(), id, sentUpdatedDate, Appointment::getMetadata,
+                    OutboundOperation.Type.UPDATE_APPOINTMENT);
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    private void updateAppointment(OutboundOperation operation) throws DAOException {
+        final Optional<Appointment> remoteAppointment =
+                remote.getAppointmentRepository().getAppointmentById(operation.getRowId());
+        if (isConflict(operation, remoteAppointment.map(Appointment::getMetadata))) {
+            resolveAppointmentConflict(operation, remoteAppointment);
+            return;
+        }
+        final Optional<Appointment> appointment = database.read(() -> database.appointments.get(operation.getRowId())
+                .flatMap(database::joinAppointment));
+        if (appointment.isPresent()) {
+            remote.getAppointmentRepository().updateAppointment(appointment.get());
+        }
+        outboundQueue.remove(operation);
+    }
+
+    private void deleteAppointment(OutboundOperation operation) throws DAOException {
+        final Optional<Appointment> remoteAppointment =
+                remote.getAppointmentRepository().getAppointmentById(operation.getRowId());
+        if (!remoteAppointment.isPresent()) {
+            outboundQueue.remove(operation);
+            return;
+        }
+        if (isConflict(operation, remoteAppointment.map(Appointment::getMetadata))) {
+            resolveAppointmentConflict(operation, remoteAppointment);
+            return;
+        }
+        remote.getAppointmentRepository().deleteAppointmentById(operation.getRowId());
+        outboundQueue.remove(operation);
+    }
+
+    private void updatePassword(OutboundOperation operation) throws DAOException {
+        final Optional<User> user = database.read(() -> database.joinUser(operation.getRowId()));
+        if (user.isPresent()) {
+            remote.getUserRepository().updatePassword(user.get());
+        }
+        outboundQueue.remove(operation);
+    }
+
+    /**
+     * The remote db only keeps whole seconds, so the remote row counts as changed by someone else when it
+     * was last updated after the second the local change was based on. A change without a base date, such
+     * as one made to a row while it was being saved, is never considered a conflict.
+     */
+    private static boolean isConflict(OutboundOperation operation, Optional<Metadata> remoteMetadata) {
+        if (operation.getBaseUpdatedDate() == null) {
+            return false;
+        }
+        if (!remoteMetadata.isPresent()) {
+            return true;
+        }
+        final Instant latestBaseUpdatedDate = operation.getBaseUpdatedDate()
+                .truncatedTo(ChronoUnit.SECONDS)
+                .plusSeconds(1);
+        return remoteMetadata.get().getUpdatedDate().isAfter(latestBaseUpdatedDate);
+    }
+
+    private void resolveCustomerConflict(OutboundOperation operation, Optional<Customer> remoteCustomer)
+            throws DAOException {
+        conflictCounter.increment();
+        logger.log(String.format("%s of customer %d conflicts with a remote change, keeping the remote customer",
+                operation.getType(), operation.getRowId()));
+        database.write(() -> {
+            if (remoteCustomer.isPresent()) {
+                upsertCustomer(remoteCustomer.get());
+            } else {
+                final Set<Integer> appointmentIds = database.appointments.getRows()
+                        .stream()
+                        .filter(row -> row.getCustomer().getId() == operation.getRowId())
+                        .map(Appointment::getId)
+                        .collect(Collectors.toSet());
+                for (int appointmentId : appointmentIds) {
+                    database.delete(database.appointments, appointmentId);
+                    outboundQueue.cancel(OutboundOperation.Type.UPDATE_APPOINTMENT, appointmentId);
+                    outboundQueue.cancel(OutboundOperation.Type.DELETE_APPOINTMENT, appointmentId);
+                }
+                final Optional<Customer> customer = database.customers.get(operation.getRowId());
+                if (customer.isPresent()) {
+                    database.delete(database.addresses, customer.get().getAddress().getId());
+                    database.delete(database.customers, operation.getRowId());
+                }
+            }
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    private void resolveAppointmentConflict(OutboundOperation operation, Optional<Appointment> remoteAppointment)
+            throws DAOException {
+        conflictCounter.increment();
+        logger.log(String.format("%s of appointment %d conflicts with a remote change, keeping the remote appointment",
+                operation.getType(), operation.getRowId()));
+        database.write(() -> {
+            if (remoteAppointment.isPresent()) {
+                upsertAppointment(remoteAppointment.get());
+            } else if (database.appointments.get(operation.getRowId()).isPresent()) {
+                database.delete(database.appointments, operation.getRowId());
+            }
+            outboundQueue.remove(operation);
+            return null;
+        });
+    }
+
+    /**
+     * Moves a row from its provisional id to the id the remote db gave it.
+     */
+    private <T> void rekey(EmbeddedTable<T> table, int id, int newId, Consumer<T> setId) {
+        final Optional<T> existing = table.get(id);
+        if (existing.isPresent() && id != newId) {
+            final T row = table.copy(existing.get());
+            setId.accept(row);
+            database.delete(table, id);
+            database.put(table, newId, row);
+        }
+    }
+
+    /**
+     * Queues an update of a row that was changed locally while it was being saved, as the remote
+     * db only has the row as it was when it was read to be sent.
+     */
+    private <T> void resendIfChanged(EmbeddedTable<T> table,
+                                     int id,
+                                     int newId,
+                                     Instant sentUpdatedDate,
+                                     Function<T, Metadata> metadata,
+                                     OutboundOperation.Type type) throws DAOException {
+        final Optional<T> existing = table.get(id);
+        if (existing.isPresent() && !sentUpdatedDate.equals(metadata.apply(existing.get()).getUpdatedDate())) {
+            outboundQueue.enqueue(type, newId, null);
+        }
+    }
+
+    /**
+     * Stores the remote rows, except for the ones with local changes still waiting to be pushed. Those keep
+     * the local change, which is checked against the remote row once it is pushed. Addresses are only ever
+     * changed along with their customer, so they are left alone along with it.
+     */
+    private void merge(List<Customer> customers, List<Appointment> appointments) {
+        final Set<Integer> pendingCustomerIds = pendingRowIds(PENDING_CUSTOMER_CHANGES);
+        final Set<Integer> pendingAppointmentIds = pendingRowIds(PENDING_APPOINTMENT_CHANGES);
+        final Map<Integer, Customer> remoteCustomers = new LinkedHashMap<>();
+        customers.forEach(customer -> remoteCustomers.put(customer.getId(), customer));
+        appointments.forEach(appointment -> remoteCustomers.putIfAbsent(appointment.getCustomer().getId(),
+                appointment.getCustomer()));
+        final Map<Integer, User> remoteUsers = new LinkedHashMap<>();
+        appointments.forEach(appointment -> remoteUsers.putIfAbsent(appointment.getUser().getId(), appointment.getUser()));
+
+        remoteCustomers.values()
+                .stream()
+                .filter(customer -> !pendingCustomerIds.contains(customer.getId()))
+                .forEach(this::upsertCustomer);
+        remoteUsers.values().forEach(user -> upsert(database.users, user.getId(), user));
+        // an appointment whose customer was deleted locally goes along with it once the delete is pushed
+        appointments.stream()
+                .filter(appointment -> !pendingAppointmentIds.contains(appointment.getId())
+                        && database.customers.get(appointment.getCustomer().getId()).isPresent())
+                .forEach(appointment -> upsert(database.appointments, appointment.getId(), appointment));
+    }
+
+    /**
+     * @return the ids of the rows the queued local changes are about.
+     */
+    private Set<Integer> pendingRowIds(Set<OutboundOperation.Type> types) {
+        return database.outbound.getRows()
+                .stream()
+                .filter(operation -> types.contains(operation.getType()))
+                .map(OutboundOperation::getRowId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return whether the table holds as many rows from the remote db as the watermark counts.
+     */
+    private boolean isCounted(EmbeddedTable<?> table, ChangeWatermark watermark) throws DAOException {
+        return database.read(() -> table.getEntries()
+                .stream()
+                .filter(entry -> entry.getKey() > 0)
+                .count()) == watermark.getRowCount();
+    }
+
+    /**
+     * @return the remote ids the table does not hold, leaving out the rows deleted locally.
+     */
+    private List<Integer> unknownIds(EmbeddedTable<?> table, Set<Integer> remoteIds, Set<OutboundOperation.Type> pending) {
+        final Set<Integer> pendingIds = pendingRowIds(pending);
+        return remoteIds.stream()
+                .filter(id -> !table.get(id).isPresent() && !pendingIds.contains(id))
+                .collect(Collectors.toList());
+    }
+
+    private void upsertCustomer(Customer customer) {
+        final Address address = customer.getAddress();
+        upsert(database.countries, address.getCity().getCountry().getId(), address.getCity().getCountry());
+        upsert(database.cities, address.getCity().getId(), address.getCity());
+        upsert(database.addresses, address.getId(), address);
+        upsert(database.customers, customer.getId(), customer);
+    }
+
+    private void upsertAppointment(Appointment appointment) {
+        upsertCustomer(appointment.getCustomer());
+        upsert(database.users, appointment.getUser().getId(), appointment.getUser());
+        upsert(database.appointments, appointment.getId(), appointment);
+    }
+
+    /**
+     * Stores a remote row unless the table already holds it as is, so that pulling
+     * an unchanged remote db does not grow the journal.
+     */
+    private <T> void upsert(EmbeddedTable<T> table, int id, T row) {
+        if (!table.holds(id, row)) {
+            database.put(table, id, table.copy(row));
+        }
+    }
+
+    /**
+     * Removes the rows that came from the remote db but are no longer there. Rows with provisional
+     * ids have not been saved to the remote db yet, and rows with queued changes wait for them to be
+     * pushed, so both are left alone.
+     */
+    private <T> void deleteMissing(EmbeddedTable<T> table, Set<Integer> remoteIds, Set<Integer> pendingIds) {
+        final List<Integer> missingIds = table.getEntries()
+                .stream()
+                .map(Map.Entry::getKey)
+                .filter(id -> id > 0 && !remoteIds.contains(id) && !pendingIds.contains(id))
+                .collect(Collectors.toList());
+        missingIds.forEach(id -> database.delete(table, id));
+    }
+
+    private static boolean isConnectionFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLRecoverableException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runSafely(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            // an exception would cancel every later run of the task
+            logger.log("replica sync failed: " + e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.c195.dao.embedded;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.RepositoryFactory;
+import com.c195.dao.repository.UserRepository;
+import com.c195.model.User;
+
+import java.util.Optional;
+
+/**
+ * Looks users up in the remote db while it is reachable, so that new users and password changes made
+ * elsewhere apply straight away, and in the local replica otherwise. Users found remotely are kept
+ * locally so they can still log in once the remote db becomes unreachable.
+ */
+public class ReplicaUserRepository implements UserRepository {
+
+    private final EmbeddedDatabase database;
+    private final EmbeddedUserRepository localRepository;
+    private final OutboundQueue outboundQueue;
+    private final ReplicaSynchronizer synchronizer;
+
+    ReplicaUserRepository(EmbeddedDatabase database, OutboundQueue outboundQueue, ReplicaSynchronizer synchronizer) {
+        this.database = database;
+        this.localRepository = new EmbeddedUserRepository(database);
+        this.outboundQueue = outboundQueue;
+        this.synchronizer = synchronizer;
+    }
+
+    /**
+     * A user whose password was changed locally is read locally until the change has been sent.
+     */
+    @Override
+    public Optional<User> getUserByUsername(String username) throws DAOException {
+        final Optional<RepositoryFactory> remote = synchronizer.getConnectedRemote();
+        if (remote.isPresent()) {
+            try {
+                final Optional<User> user = remote.get().getUserRepository().getUserByUsername(username);
+                if (user.isPresent() && !outboundQueue.contains(OutboundOperation.Type.UPDATE_PASSWORD, user.get().getId())) {
+                    synchronizer.store(user.get());
+                    return user;
+                }
+            } catch (DAOException e) {
+                synchronizer.failed(e);
+            }
+        }
+        return localRepository.getUserByUsername(username);
+    }
+
+    @Override
+    public void updatePassword(User user) throws DAOException {
+        database.write(() -> {
+            localRepository.updatePassword(user);
+            outboundQueue.enqueue(OutboundOperation.Type.UPDATE_PASSWORD, user.getId(), null);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.concurrent.CancellationToken;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Stops the queries of work whose {@link CancellationToken} is cancelled: a query that has not started yet
+ * is refused, and one executing is cancelled on the db.
+ * <p>
+ * Only queries are stopped. Updates always run to the end, so a save made of several statements is never
+ * left half done.
+ * <p>
+ * The driver cancels a query by killing whatever its connection runs on the db at the time, and the DAOs
+ * share their connection, so a query is only cancelled on the db while it is the only statement executing
+ * on its connection. No statement starts on the connection while the query is being cancelled. Otherwise
+ * the query runs to the end, or until its timeout, and the work's later queries are refused.
+ */
+public final class CancellationInterceptor implements StatementInterceptor {
+
+    /**
+     * The SQL state MySQL reports for a statement that was interrupted.
+     */
+    public static final String CANCELLED_SQL_STATE = "70100";
+
+    /**
+     * The driver cancels a query over a connection of its own, which takes as long as connecting does,
+     * so it is done off the thread cancelling the token, which is usually the FX thread.
+     */
+    private static final Executor cancelExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "statement-cancel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Connection, ConnectionGuard> guards = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        final Optional<CancellationToken> token = CancellationToken.current();
+        final boolean cancellable = token.isPresent() && execution.getMethod().equals("executeQuery");
+        if (cancellable && token.get().isCancelled()) {
+            throw new SQLNonTransientException("The query was cancelled before it started", CANCELLED_SQL_STATE);
+        }
+        // every statement is counted, as any of them could be running on the db when a kill lands
+        final ConnectionGuard guard =
+                guards.computeIfAbsent(execution.getStatement().getConnection(), connection -> new ConnectionGuard());
+        guard.started(execution);
+        try {
+            if (!cancellable) {
+                return chain.proceed();
+            }
+            try (CancellationToken.Registration ignored =
+                         token.get().onCancel(() -> cancelExecutor.execute(() -> guard.cancel(execution)))) {
+                return chain.proceed();
+            }
+        } finally {
+            guard.finished(execution);
+        }
+    }
+
+    /**
+     * @return whether the failure, or what caused it, is a query stopped by its token.
+     */
+    public static boolean isCancellation(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && CANCELLED_SQL_STATE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The statements executing on a single connection. A statement waits to start while a query of the
+     * connection is being cancelled, so the kill cannot land on it.
+     */
+    private static final class ConnectionGuard {
+
+        private final Set<StatementExecution> executing = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        synchronized void started(StatementExecution execution) {
+            executing.add(execution);
+        }
+
+        synchronized void finished(StatementExecution execution) {
+            executing.remove(execution);
+        }
+
+        synchronized void cancel(StatementExecution execution) {
+            if (executing.size() != 1 || !executing.contains(execution)) {
+                return;
+            }
+            try {
+                execution.getStatement().cancel();
+            } catch (SQLException e) {
+                // the query has most likely finished already
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.logging.Logger;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+/**
+ * Fails statements right away once the db has failed several in a row, rather than having each one wait
+ * on a db that is down or overloaded until it times out.
+ * <p>
+ * Only failures that point at the db itself count, which are timeouts and lost connections. A statement
+ * that succeeds resets the count. Once {@code failureThreshold} failures in a row are counted the circuit
+ * opens and every statement fails with a {@link CircuitOpenException} for the open duration. After that
+ * a single statement is let through as a trial: the circuit closes if it succeeds, and opens again if not.
+ * <p>
+ * The state is kept as a "db.circuit.state" gauge, 0 for closed, 1 for open and 2 while a trial runs,
+ * and the statements failed without being run are counted as "db.circuit.rejected".
+ */
+public final class CircuitBreakerInterceptor implements StatementInterceptor {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreakerInterceptor.class);
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Counter rejectedCounter;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+
+    /**
+     * @param failureThreshold how many failures in a row open the circuit.
+     * @param openDuration     how long the circuit stays open before a statement is let through again.
+     */
+    public CircuitBreakerInterceptor(int failureThreshold, Duration openDuration, MetricRegistry metricRegistry) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.rejectedCounter = metricRegistry.counter("db.circuit.rejected");
+        metricRegistry.gauge("db.circuit.state", () -> getState().ordinal());
+    }
+
+    /**
+     * Thrown in place of running a statement while the circuit is open.
+     */
+    public static final class CircuitOpenException extends SQLTransientConnectionException {
+
+        private CircuitOpenException() {
+            super("The db is failing, so statements are not run until it has had time to recover", "08000");
+        }
+    }
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        final boolean trial = acquire();
+        final Object result;
+        try {
+            result = chain.proceed();
+        } catch (SQLException e) {
+            if (isDatabaseFailure(e)) {
+                onFailure(trial);
+            } else if (isCancellation(e)) {
+                // says nothing about the db either way
+                release(trial);
+            } else {
+                onSuccess();
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            release(trial);
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    /**
+     * @return whether the statement is the trial of a circuit that has been open.
+     * @throws CircuitOpenException if the statement may not run.
+     */
+    private synchronized boolean acquire() throws CircuitOpenException {
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    break;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            case HALF_OPEN:
+                break;
+            default:
+                return false;
+        }
+        rejectedCounter.increment();
+        throw new CircuitOpenException();
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.log("db recovered, running statements again");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure(boolean trial) {
+        consecutiveFailures++;
+        if (trial || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            if (state == State.CLOSED) {
+                logger.log(String.format("db failed %d statements in a row, failing statements for %d ms",
+                        consecutiveFailures, Duration.ofNanos(openNanos).toMillis()));
+            }
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Lets the next statement be the trial instead when the trial did not show whether the db recovered.
+     */
+    private synchronized void release(boolean trial) {
+        if (trial && state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime() - openNanos;
+        }
+    }
+
+    private synchronized State getState() {
+        return state;
+    }
+
+    private static boolean isCancellation(SQLException e) {
+        return CancellationInterceptor.CANCELLED_SQL_STATE.equals(e.getSQLState());
+    }
+
+    /**
+     * Timeouts and lost connections, as opposed to failures of the statement itself such as a broken
+     * constraint, or a query that was cancelled because it was no longer wanted.
+     */
+    static boolean isDatabaseFailure(SQLException e) {
+        if (e instanceof CircuitOpenException) {
+            return false;
+        }
+        final String sqlState = e.getSQLState();
+        return e instanceof SQLTimeoutException
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLRecoverableException
+                || (sqlState != null && sqlState.startsWith("08"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.recording.DaoStatementEvent;
+
+import java.sql.SQLException;
+
+/**
+ * Emits a {@link DaoStatementEvent} for every statement while a flight recording is running, so time spent
+ * in the db can be lined up with UI stalls and GC pauses in the recording.
+ */
+public final class FlightRecorderInterceptor implements StatementInterceptor {
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        final DaoStatementEvent event = new DaoStatementEvent();
+        if (!event.isEnabled()) {
+            return chain.proceed();
+        }
+        event.begin();
+        try {
+            return chain.proceed();
+        } finally {
+            event.end();
+            // committed once the rows have been read, so the event can tell how many there were
+            execution.setAttribute(FlightRecorderInterceptor.class, event);
+        }
+    }
+
+    @Override
+    public void onComplete(StatementExecution execution) {
+        execution.getAttribute(FlightRecorderInterceptor.class)
+                .map(DaoStatementEvent.class::cast)
+                .filter(DaoStatementEvent::shouldCommit)
+                .ifPresent(event -> {
+                    event.sqlId = execution.getSqlId();
+                    event.rows = execution.getRowCount();
+                    event.failed = execution.getFailure().isPresent();
+                    event.commit();
+                });
+    }
+}
@@ -0,0 +1,230 @@
+package com.c195.dao.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wraps a connection so every statement executed through it runs through a chain of
+ * {@link StatementInterceptor}s. The DAOs use the wrapped connection as they would the connection itself.
+ * <p>
+ * An execution is complete once its update returned, or for queries once their result set or statement
+ * is closed, or the statement is executed again.
+ */
+public final class InterceptingConnection implements InvocationHandler {
+
+    private static final Set<String> EXECUTE_METHODS = new HashSet<>(Arrays.asList(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"));
+
+    private final Connection connection;
+    private final List<StatementInterceptor> interceptors;
+    private Connection connectionProxy;
+
+    private InterceptingConnection(Connection connection, List<StatementInterceptor> interceptors) {
+        this.connection = connection;
+        this.interceptors = new ArrayList<>(interceptors);
+    }
+
+    /**
+     * @return the connection with its statements run through the interceptors, or the connection itself
+     * if there are none.
+     */
+    public static Connection wrap(Connection connection, List<StatementInterceptor> interceptors) {
+        if (interceptors.isEmpty()) {
+            return connection;
+        }
+        final InterceptingConnection handler = new InterceptingConnection(connection, interceptors);
+        handler.connectionProxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        return handler.connectionProxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "prepareStatement":
+                return wrapStatement((Statement) invokeTarget(connection, method, args), (String) args[0],
+                        PreparedStatement.class);
+            case "prepareCall":
+                return wrapStatement((Statement) invokeTarget(connection, method, args), (String) args[0],
+                        CallableStatement.class);
+            case "createStatement":
+                return wrapStatement((Statement) invokeTarget(connection, method, args), null, Statement.class);
+            default:
+                return invokeTarget(connection, method, args);
+        }
+    }
+
+    private Object wrapStatement(Statement statement, String sql, Class<? extends Statement> statementInterface) {
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{statementInterface},
+                new InterceptedStatement(statement, sql));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException(cause);
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * Keeps track of the parameters bound to a statement and runs its executions through the interceptors.
+     * A statement is only used by one thread at a time, so it needs no locking.
+     */
+    private final class InterceptedStatement implements InvocationHandler {
+
+        private final Statement statement;
+        private final String sql;
+        private final List<Object> parameters = new ArrayList<>();
+        private StatementExecution currentExecution;
+
+        private InterceptedStatement(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(proxy, method, args);
+            }
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return connectionProxy;
+                case "clearParameters":
+                    parameters.clear();
+                    break;
+                case "getResultSet":
+                    final ResultSet resultSet = (ResultSet) invokeTarget(statement, method, args);
+                    return resultSet == null || currentExecution == null
+                            ? resultSet
+                            : wrapResultSet(proxy, resultSet, currentExecution);
+                case "close":
+                    try {
+                        return invokeTarget(statement, method, args);
+                    } finally {
+                        complete(currentExecution);
+                    }
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        bind((Integer) args[0], args[1]);
+                    }
+            }
+            return invokeTarget(statement, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws SQLException {
+            complete(currentExecution);
+            final String executedSql = sql != null ? sql : (args != null && args.length > 0 ? (String) args[0] : "");
+            final StatementExecution execution = new StatementExecution(SqlIds.of(executedSql), executedSql,
+                    method.getName(), new ArrayList<>(parameters), statement, connection);
+            currentExecution = execution;
+            final Object result;
+            try {
+                result = proceed(0, execution, method, args);
+            } catch (SQLException e) {
+                execution.setFailure(e);
+                complete(execution);
+                throw e;
+            }
+            if (result instanceof ResultSet) {
+                return wrapResultSet(proxy, (ResultSet) result, execution);
+            }
+            if (result instanceof Number) {
+                execution.addRows(((Number) result).longValue());
+            } else if (result instanceof int[]) {
+                Arrays.stream((int[]) result).filter(rows -> rows > 0).forEach(execution::addRows);
+            } else if (result instanceof long[]) {
+                Arrays.stream((long[]) result).filter(rows -> rows > 0).forEach(execution::addRows);
+            } else if (Boolean.TRUE.equals(result)) {
+                // the rows are read through getResultSet
+                return result;
+            } else if (Boolean.FALSE.equals(result)) {
+                execution.addRows(Math.max(0, statement.getUpdateCount()));
+            }
+            complete(execution);
+            return result;
+        }
+
+        private Object proceed(int index, StatementExecution execution, Method method, Object[] args)
+                throws SQLException {
+            if (index == interceptors.size()) {
+                final long startNanos = System.nanoTime();
+                try {
+                    return invokeTarget(statement, method, args);
+                } finally {
+                    execution.setElapsedNanos(System.nanoTime() - startNanos);
+                }
+            }
+            return interceptors.get(index).intercept(execution, () -> proceed(index + 1, execution, method, args));
+        }
+
+        private void bind(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        private ResultSet wrapResultSet(Object statementProxy, ResultSet resultSet, StatementExecution execution) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "getStatement":
+                                return statementProxy;
+                            case "next":
+                                final Object hasNext = invokeTarget(resultSet, method, args);
+                                if (Boolean.TRUE.equals(hasNext)) {
+                                    execution.addRows(1);
+                                }
+                                return hasNext;
+                            case "close":
+                                try {
+                                    return invokeTarget(resultSet, method, args);
+                                } finally {
+                                    complete(execution);
+                                }
+                            default:
+                                return invokeTarget(resultSet, method, args);
+                        }
+                    });
+        }
+
+        private void complete(StatementExecution execution) {
+            if (execution != null && execution.markComplete()) {
+                interceptors.forEach(interceptor -> interceptor.onComplete(execution));
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.metrics.MetricRegistry;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how long the db took to execute each statement as a "dao.*" timer named after the statement,
+ * and keeps a "dao.statements.active" gauge of how many statements are executing on the connection at once.
+ */
+public final class MetricsInterceptor implements StatementInterceptor {
+
+    private final MetricRegistry metricRegistry;
+    private final AtomicInteger activeStatements = new AtomicInteger();
+
+    public MetricsInterceptor(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+        metricRegistry.gauge("dao.statements.active", activeStatements::get);
+    }
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        activeStatements.incrementAndGet();
+        try {
+            return chain.proceed();
+        } finally {
+            activeStatements.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void onComplete(StatementExecution execution) {
+        metricRegistry.timer("dao." + execution.getSqlId()).record(execution.getElapsedNanos());
+    }
+}
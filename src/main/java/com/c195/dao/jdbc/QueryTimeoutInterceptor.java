@@ -0,0 +1,50 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives every statement a timeout, after which the driver cancels it on the db and fails it with a
+ * {@link SQLTimeoutException}, so a db that stops answering cannot hold up the caller for good.
+ * <p>
+ * Statements get the default timeout unless one is given for their statement name, such as
+ * "AppointmentDAO.ALL_APPOINTMENTS_SQL" for the query behind the reports. Timeouts are rounded up to whole
+ * seconds, which is what the driver works in. The statements that time out are counted as "dao.timeouts".
+ */
+public final class QueryTimeoutInterceptor implements StatementInterceptor {
+
+    private final int defaultTimeoutSeconds;
+    private final Map<String, Integer> timeoutSeconds = new HashMap<>();
+    private final Counter timeoutCounter;
+
+    /**
+     * @param defaultTimeout how long a statement may take unless given a timeout of its own.
+     * @param timeouts       the timeouts of particular statements, by statement name.
+     */
+    public QueryTimeoutInterceptor(Duration defaultTimeout, Map<String, Duration> timeouts, MetricRegistry metricRegistry) {
+        this.defaultTimeoutSeconds = toSeconds(defaultTimeout);
+        timeouts.forEach((sqlId, timeout) -> timeoutSeconds.put(sqlId, toSeconds(timeout)));
+        this.timeoutCounter = metricRegistry.counter("dao.timeouts");
+    }
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        execution.getStatement().setQueryTimeout(timeoutSeconds.getOrDefault(execution.getSqlId(), defaultTimeoutSeconds));
+        try {
+            return chain.proceed();
+        } catch (SQLTimeoutException e) {
+            timeoutCounter.increment();
+            throw e;
+        }
+    }
+
+    private static int toSeconds(Duration timeout) {
+        return (int) Math.max(1, (timeout.toMillis() + 999) / 1000);
+    }
+}
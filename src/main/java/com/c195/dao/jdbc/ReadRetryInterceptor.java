@@ -0,0 +1,82 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.concurrent.CancellationToken;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a query again when it failed because the connection was lost, which the driver reconnects on the
+ * next statement. Only queries outside of a transaction are run again, as they change nothing and do not
+ * depend on what ran before them.
+ * <p>
+ * Before each retry it waits a random time of up to the backoff, which doubles with each retry up to the
+ * maximum backoff, so the statements that failed together do not all hit the db again at the same moment.
+ * Timeouts are not retried, as running a query again that the db could not finish in time only keeps the
+ * caller waiting longer, and neither are queries failed by an open circuit or a cancelled token.
+ * The retries are counted as "dao.retries".
+ */
+public final class ReadRetryInterceptor implements StatementInterceptor {
+
+    private final int maxRetries;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Counter retryCounter;
+
+    /**
+     * @param maxRetries     how many times a query is run again, 0 to never run it again.
+     * @param initialBackoff the most to wait before the first retry.
+     * @param maxBackoff     the most to wait before any retry.
+     */
+    public ReadRetryInterceptor(int maxRetries, Duration initialBackoff, Duration maxBackoff,
+                                MetricRegistry metricRegistry) {
+        this.maxRetries = maxRetries;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.retryCounter = metricRegistry.counter("dao.retries");
+    }
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        if (!isIdempotent(execution)) {
+            return chain.proceed();
+        }
+        long backoffNanos = initialBackoffNanos;
+        for (int retry = 0; ; retry++) {
+            try {
+                return chain.proceed();
+            } catch (SQLException e) {
+                if (retry == maxRetries || !isRetryable(e)) {
+                    throw e;
+                }
+                sleep(ThreadLocalRandom.current().nextLong(backoffNanos + 1), e);
+                backoffNanos = Math.min(maxBackoffNanos, backoffNanos * 2);
+                retryCounter.increment();
+            }
+        }
+    }
+
+    private static boolean isIdempotent(StatementExecution execution) throws SQLException {
+        return execution.getMethod().equals("executeQuery") && execution.getConnection().getAutoCommit();
+    }
+
+    private static boolean isRetryable(SQLException e) {
+        return CircuitBreakerInterceptor.isDatabaseFailure(e)
+                && !(e instanceof SQLTimeoutException)
+                && !CancellationToken.current().map(CancellationToken::isCancelled).orElse(false);
+    }
+
+    private static void sleep(long nanos, SQLException failure) throws SQLException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+}
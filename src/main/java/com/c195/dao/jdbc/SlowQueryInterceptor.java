@@ -0,0 +1,147 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.logging.Logger;
+import com.c195.util.logging.LoggingException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes every statement the db took longer than the threshold to execute to the slow query log,
+ * along with the values it was run with and how many rows it read or changed.
+ * <p>
+ * Values bound to sensitive columns such as passwords are left out. Optionally the plan of a statement is
+ * explained the first time it is slow, with the same values, so the log shows which index it used.
+ * Explaining runs on the connection the statement executed on after the statement is done with it, which
+ * for a read sent to a replica is the replica, so the plan is the one the statement was run with.
+ */
+public final class SlowQueryInterceptor implements StatementInterceptor {
+
+    private static final Set<String> SENSITIVE_COLUMNS = Collections.singleton("password");
+    private static final int MAX_VALUE_LENGTH = 100;
+    private static final Pattern INSERT_PATTERN = Pattern.compile(
+            "insert\\s+into\\s+\\w+\\s*\\(([^)]*)\\)\\s*values\\s*\\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMPARED_COLUMN_PATTERN = Pattern.compile(
+            "(\\w+)\\s*(?:=|<>|!=|<=|>=|<|>|like)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Logger logger = Logger.getLogger(SlowQueryInterceptor.class, "slow-query");
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final Set<String> explainedSql = ConcurrentHashMap.newKeySet();
+    private final Map<String, List<String>> boundColumns = new ConcurrentHashMap<>();
+
+    /**
+     * @param threshold how long the db may take to execute a statement before it is logged.
+     * @param explain   whether to explain the plan of each statement the first time it is slow.
+     */
+    public SlowQueryInterceptor(Duration threshold, boolean explain) {
+        this.thresholdNanos = threshold.toNanos();
+        this.explain = explain;
+    }
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        return chain.proceed();
+    }
+
+    @Override
+    public void onComplete(StatementExecution execution) {
+        if (execution.getElapsedNanos() < thresholdNanos) {
+            return;
+        }
+        try {
+            logger.log(String.format("%s took %dms and %s %d rows with %s%s: %s",
+                    execution.getSqlId(),
+                    TimeUnit.NANOSECONDS.toMillis(execution.getElapsedNanos()),
+                    execution.getMethod().equals("executeQuery") ? "read" : "changed",
+                    execution.getRowCount(),
+                    describeParameters(execution),
+                    execution.getFailure().map(e -> " and failed with " + e.getMessage()).orElse(""),
+                    execution.getSql()));
+            if (explain && explainedSql.add(execution.getSql())) {
+                logger.log(String.format("plan of %s: %s", execution.getSqlId(), explain(execution)));
+            }
+        } catch (LoggingException ignored) {
+            // the statement itself went through, which matters more than the log
+        }
+    }
+
+    private String describeParameters(StatementExecution execution) {
+        final List<String> columns = boundColumns.computeIfAbsent(execution.getSql(), SlowQueryInterceptor::findBoundColumns);
+        final List<Object> parameters = execution.getParameters();
+        final List<String> values = new ArrayList<>(parameters.size());
+        for (int i = 0; i < parameters.size(); i++) {
+            final String column = i < columns.size() ? columns.get(i) : null;
+            values.add(column != null && SENSITIVE_COLUMNS.contains(column.toLowerCase(Locale.ROOT))
+                    ? "<redacted>"
+                    : describeValue(parameters.get(i)));
+        }
+        return values.toString();
+    }
+
+    private static String describeValue(Object value) {
+        if (!(value instanceof String)) {
+            return String.valueOf(value);
+        }
+        final String text = (String) value;
+        return "'" + (text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "..." : text) + "'";
+    }
+
+    /**
+     * @return the column each parameter of the SQL is bound to, in the order of the parameters, or null
+     * for parameters whose column could not be told, such as a limit.
+     */
+    private static List<String> findBoundColumns(String sql) {
+        final List<String> columns = new ArrayList<>();
+        final Matcher insertMatcher = INSERT_PATTERN.matcher(sql);
+        if (insertMatcher.find()) {
+            final String[] names = insertMatcher.group(1).split(",");
+            final String[] values = insertMatcher.group(2).split(",");
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].trim().equals("?")) {
+                    columns.add(i < names.length ? names[i].trim() : null);
+                }
+            }
+            return columns;
+        }
+        for (int i = sql.indexOf('?'); i >= 0; i = sql.indexOf('?', i + 1)) {
+            final Matcher columnMatcher = COMPARED_COLUMN_PATTERN.matcher(sql.substring(0, i));
+            columns.add(columnMatcher.find() ? columnMatcher.group(1) : null);
+        }
+        return columns;
+    }
+
+    private static String explain(StatementExecution execution) {
+        try (PreparedStatement statement =
+                     execution.getStatement().getConnection().prepareStatement("EXPLAIN " + execution.getSql())) {
+            final List<Object> parameters = execution.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            final ResultSet resultSet = statement.executeQuery();
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            final List<String> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                final List<String> columns = new ArrayList<>();
+                for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                    final Object value = resultSet.getObject(column);
+                    if (value != null) {
+                        columns.add(metaData.getColumnLabel(column) + "=" + value);
+                    }
+                }
+                rows.add(String.join(" ", columns));
+            }
+            return String.join(" | ", rows);
+        } catch (SQLException e) {
+            return "could not be explained: " + e.getMessage();
+        }
+    }
+}
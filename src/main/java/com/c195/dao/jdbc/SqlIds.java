@@ -0,0 +1,72 @@
+package com.c195.dao.jdbc;
+
+import com.c195.dao.*;
+import com.c195.dao.migration.MigrationRunner;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names statements after the constant the DAOs keep their SQL in, such as "CustomerDAO.CUSTOMER_BY_ID_SQL",
+ * so executions of the same statement can be told apart from others without reading the SQL.
+ * SQL that is put together at runtime, such as the page queries, is named after what it does to
+ * which table instead, such as "select customer".
+ */
+final class SqlIds {
+
+    private static final List<Pattern> STATEMENT_PATTERNS = Arrays.asList(
+            Pattern.compile("^\\s*(update)\\s+`?(\\w+)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^\\s*(select|insert|delete|create|alter|explain)\\b.*?\\b(?:from|into|table|on)\\s+`?(\\w+)",
+                    Pattern.CASE_INSENSITIVE | Pattern.DOTALL));
+    private static final Pattern VERB_PATTERN = Pattern.compile("^\\s*(\\w+)");
+    private static final Map<String, String> namedIds = findNamedIds(
+            AppointmentDAO.class, CustomerDAO.class, AddressDAO.class, CityDAO.class, CountryDAO.class,
+            UserDAO.class, MigrationRunner.class);
+    private static final Map<String, String> derivedIds = new ConcurrentHashMap<>();
+
+    private SqlIds() {
+    }
+
+    static String of(String sql) {
+        final String namedId = namedIds.get(sql);
+        return namedId != null ? namedId : derivedIds.computeIfAbsent(sql, SqlIds::derive);
+    }
+
+    private static String derive(String sql) {
+        for (Pattern statementPattern : STATEMENT_PATTERNS) {
+            final Matcher statementMatcher = statementPattern.matcher(sql);
+            if (statementMatcher.find()) {
+                return statementMatcher.group(1).toLowerCase(Locale.ROOT) + " " + statementMatcher.group(2);
+            }
+        }
+        final Matcher verbMatcher = VERB_PATTERN.matcher(sql);
+        return verbMatcher.find() ? verbMatcher.group(1).toLowerCase(Locale.ROOT) : "statement";
+    }
+
+    private static Map<String, String> findNamedIds(Class<?>... classes) {
+        final Map<String, String> ids = new HashMap<>();
+        Arrays.stream(classes).forEach(clazz -> {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())
+                        && field.getType() == String.class
+                        && field.getName().endsWith("_SQL")) {
+                    try {
+                        field.setAccessible(true);
+                        ids.putIfAbsent((String) field.get(null), clazz.getSimpleName() + "." + field.getName());
+                    } catch (IllegalAccessException | RuntimeException ignored) {
+                        // left to be named after what it does
+                    }
+                }
+            }
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,131 @@
+package com.c195.dao.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * A single execution of a statement, as seen by the {@link StatementInterceptor}s.
+ */
+public final class StatementExecution {
+
+    private final String sqlId;
+    private final String sql;
+    private final String method;
+    private final List<Object> parameters;
+    private final Statement statement;
+    private final Connection connection;
+    private final Map<Object, Object> attributes = new HashMap<>();
+    private long elapsedNanos;
+    private long rowCount;
+    private SQLException failure;
+    private boolean complete;
+
+    StatementExecution(String sqlId,
+                       String sql,
+                       String method,
+                       List<Object> parameters,
+                       Statement statement,
+                       Connection connection) {
+        this.sqlId = sqlId;
+        this.sql = sql;
+        this.method = method;
+        this.parameters = parameters;
+        this.statement = statement;
+        this.connection = connection;
+    }
+
+    /**
+     * @return a short name for the statement that is the same for every execution of it, such as
+     * "CustomerDAO.CUSTOMER_BY_ID_SQL".
+     */
+    public String getSqlId() {
+        return sqlId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the JDBC method the statement was executed with, such as "executeQuery".
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the values bound to the statement's parameters, in the order of the parameters.
+     */
+    public List<Object> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * @return the statement of the driver, for changing how it is executed, such as its timeout.
+     */
+    public Statement getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return the connection of the driver the statement was executed on, for running statements of the
+     * interceptor's own that are not intercepted themselves.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return how long the driver took to execute the statement, not counting reading its rows.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the rows read so far for queries, or the rows changed for updates.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public Optional<SQLException> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * Keeps something an interceptor needs again once the execution is complete.
+     */
+    public void setAttribute(Object key, Object value) {
+        attributes.put(key, value);
+    }
+
+    public Optional<Object> getAttribute(Object key) {
+        return Optional.ofNullable(attributes.get(key));
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    void addRows(long rows) {
+        this.rowCount += rows;
+    }
+
+    void setFailure(SQLException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * @return whether the execution was completed by this call, rather than already before.
+     */
+    boolean markComplete() {
+        if (complete) {
+            return false;
+        }
+        complete = true;
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.c195.dao.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Runs around every statement executed through a connection wrapped by {@link InterceptingConnection},
+ * for observing statements or changing how they are run without the DAOs knowing about it.
+ * <p>
+ * Interceptors are chained in the order they are given, the first one running outermost.
+ */
+public interface StatementInterceptor {
+
+    /**
+     * Runs the statement by proceeding down the chain, doing whatever the interceptor does around it.
+     *
+     * @return the result of the statement, as returned by the chain.
+     * @throws SQLException if the statement failed, or the interceptor decided it should not run.
+     */
+    Object intercept(StatementExecution execution, StatementChain chain) throws SQLException;
+
+    /**
+     * Called once the execution is over, which for queries is once their rows have been read,
+     * so the row count is known.
+     */
+    default void onComplete(StatementExecution execution) {
+    }
+
+    @FunctionalInterface
+    interface StatementChain {
+        Object proceed() throws SQLException;
+    }
+}
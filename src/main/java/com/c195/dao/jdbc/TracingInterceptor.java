@@ -0,0 +1,43 @@
+package com.c195.dao.jdbc;
+
+import com.c195.util.tracing.Span;
+import com.c195.util.tracing.Tracer;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a span for every statement executed within a trace, under the span of the service call that
+ * executed it. The span lasts until the statement is complete, so for queries it includes reading the rows,
+ * while how long the db took to execute it is kept as an attribute.
+ * <p>
+ * Statements executed outside a trace, such as the polling done in the background, are not traced.
+ */
+public final class TracingInterceptor implements StatementInterceptor {
+
+    private final Tracer tracer;
+
+    public TracingInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object intercept(StatementExecution execution, StatementChain chain) throws SQLException {
+        tracer.startChildSpan(execution.getSqlId())
+                .ifPresent(span -> execution.setAttribute(TracingInterceptor.class, span));
+        return chain.proceed();
+    }
+
+    @Override
+    public void onComplete(StatementExecution execution) {
+        execution.getAttribute(TracingInterceptor.class)
+                .map(Span.class::cast)
+                .ifPresent(span -> {
+                    span.setAttribute("rows", execution.getRowCount())
+                            .setAttribute("executeMicros", TimeUnit.NANOSECONDS.toMicros(execution.getElapsedNanos()))
+                            .setAttribute("sql", execution.getSql());
+                    execution.getFailure().ifPresent(span::setFailure);
+                    tracer.endSpan(span);
+                });
+    }
+}
@@ -0,0 +1,33 @@
+package com.c195.dao.migration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A numbered set of schema changes. Migrations are applied in version order
+ * and each version is only ever applied once.
+ */
+public class Migration {
+
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+
+    public Migration(int version, String description, String... statements) {
+        this.version = version;
+        this.description = description;
+        this.statements = Arrays.asList(statements);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+}
@@ -0,0 +1,113 @@
+package com.c195.dao.migration;
+
+import com.c195.dao.DAOException;
+
+import java.sql.*;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Brings the schema up to date by applying every migration newer than the version
+ * recorded in the schema_version table.
+ * <p>
+ * MySQL commits DDL statements implicitly so a migration cannot be rolled back as a whole.
+ * To keep a partially applied migration from failing forever, statements that fail because the
+ * index they create already exists are treated as already applied. A unique index that cannot be
+ * created over the rows already there fails with what to do about them, rather than the db's error alone.
+ */
+public class MigrationRunner {
+
+    private static final int DUPLICATE_KEY_NAME_ERROR = 1061;
+    private static final int DUPLICATE_ENTRY_ERROR = 1062;
+
+    private static final String CREATE_SCHEMA_VERSION_SQL = "" +
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INT NOT NULL PRIMARY KEY, " +
+            "description VARCHAR(255) NOT NULL, " +
+            "appliedDate TIMESTAMP NOT NULL)";
+
+    private static final String CURRENT_VERSION_SQL = "" +
+            "SELECT COALESCE(MAX(version), 0) AS version " +
+            "FROM schema_version";
+
+    private static final String SAVE_VERSION_SQL = "" +
+            "INSERT INTO schema_version " +
+            "(version, description, appliedDate) " +
+            "VALUES (?, ?, ?)";
+
+    private static MigrationRunner runnerInstance;
+    private final Connection connection;
+    private final Clock clock;
+
+    private MigrationRunner(Connection connection, Clock clock) {
+        this.connection = connection;
+        this.clock = clock;
+    }
+
+    public static MigrationRunner getInstance(Connection connection, Clock clock) {
+        if (runnerInstance == null) {
+            runnerInstance = new MigrationRunner(connection, clock);
+        }
+        return runnerInstance;
+    }
+
+    /**
+     * Applies any pending migrations.
+     *
+     * @return the schema version after migrating.
+     * @throws DAOException if there are issues applying a migration.
+     */
+    public synchronized int migrate() throws DAOException {
+        createSchemaVersionTable();
+        int currentVersion = getCurrentVersion();
+        final List<Migration> migrations = Migrations.getMigrations();
+        for (Migration migration : migrations) {
+            if (migration.getVersion() > currentVersion) {
+                apply(migration);
+                currentVersion = migration.getVersion();
+            }
+        }
+        return currentVersion;
+    }
+
+    public int getCurrentVersion() throws DAOException {
+        try (final Statement statement = connection.createStatement()) {
+            final ResultSet resultSet = statement.executeQuery(CURRENT_VERSION_SQL);
+            return resultSet.next() ? resultSet.getInt("version") : 0;
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue retrieving the schema version", e);
+        }
+    }
+
+    private void createSchemaVersionTable() throws DAOException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_SCHEMA_VERSION_SQL);
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue creating the schema version table", e);
+        }
+    }
+
+    private void apply(Migration migration) throws DAOException {
+        for (String sql : migration.getStatements()) {
+            try (final Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (SQLException e) {
+                if (e.getErrorCode() == DUPLICATE_ENTRY_ERROR) {
+                    throw new DAOException(String.format("Schema migration %d (%s) cannot be applied as rows "
+                                    + "have the same value: %s. Change or remove those rows and start the app again.",
+                            migration.getVersion(), migration.getDescription(), e.getMessage()), e);
+                } else if (e.getErrorCode() != DUPLICATE_KEY_NAME_ERROR) {
+                    throw new DAOException("There was an issue applying schema migration " + migration.getVersion(), e);
+                }
+            }
+        }
+        try (final PreparedStatement statement = connection.prepareStatement(SAVE_VERSION_SQL)) {
+            statement.setInt(1, migration.getVersion());
+            statement.setString(2, migration.getDescription());
+            statement.setTimestamp(3, Timestamp.from(clock.instant()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DAOException("There was an issue recording schema migration " + migration.getVersion(), e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.c195.dao.migration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every schema change made on top of the base schema, in the order they are applied.
+ * New migrations are only ever appended with the next version number; applied migrations
+ * must never be edited since they will not be run again.
+ */
+public final class Migrations {
+
+    private static final List<Migration> migrations = Arrays.asList(
+            new Migration(1, "Index appointment lookups by user and time",
+                    "CREATE INDEX idx_appointment_user_start_end ON appointment (userId, start, end)"),
+            new Migration(2, "Index appointments by contact for the schedule report",
+                    "CREATE INDEX idx_appointment_contact ON appointment (contact, appointmentId)"),
+            // duplicates saved before the names were unique are merged into the oldest row first, as the
+            // indexes cannot be created over them; only dbs that could not apply it yet run the merges
+            new Migration(3, "Unique country and city names",
+                    "UPDATE city " +
+                            "JOIN country duplicate ON city.countryId = duplicate.countryId " +
+                            "JOIN (SELECT country, MIN(countryId) AS countryId FROM country GROUP BY country) original " +
+                            "ON original.country = duplicate.country " +
+                            "SET city.countryId = original.countryId " +
+                            "WHERE duplicate.countryId <> original.countryId",
+                    "DELETE duplicate FROM country duplicate " +
+                            "JOIN country original " +
+                            "ON original.country = duplicate.country AND original.countryId < duplicate.countryId",
+                    "CREATE UNIQUE INDEX idx_country_country ON country (country)",
+                    "UPDATE address " +
+                            "JOIN city duplicate ON address.cityId = duplicate.cityId " +
+                            "JOIN (SELECT city, countryId, MIN(cityId) AS cityId FROM city GROUP BY city, countryId) original " +
+                            "ON original.city = duplicate.city AND original.countryId = duplicate.countryId " +
+                            "SET address.cityId = original.cityId " +
+                            "WHERE duplicate.cityId <> original.cityId",
+                    "DELETE duplicate FROM city duplicate " +
+                            "JOIN city original " +
+                            "ON original.city = duplicate.city AND original.countryId = duplicate.countryId " +
+                            "AND original.cityId < duplicate.cityId",
+                    "CREATE UNIQUE INDEX idx_city_city_country ON city (city, countryId)"),
+            new Migration(4, "Index address lookups",
+                    "CREATE INDEX idx_address_address ON address (address)"),
+            // duplicate usernames cannot be merged as they may be different people, so every one but the
+            // oldest is renamed to end in its user id, which the user then logs in with
+            new Migration(5, "Unique usernames",
+                    "UPDATE user duplicate " +
+                            "JOIN (SELECT userName, MIN(userId) AS userId FROM user GROUP BY userName) original " +
+                            "ON original.userName = duplicate.userName " +
+                            "SET duplicate.userName = CONCAT(" +
+                            "LEFT(duplicate.userName, 49 - LENGTH(duplicate.userId)), '#', duplicate.userId) " +
+                            "WHERE duplicate.userId <> original.userId",
+                    "CREATE UNIQUE INDEX idx_user_username ON user (userName)"),
+            new Migration(6, "Index customer names for sorting and filtering",
+                    "CREATE INDEX idx_customer_name ON customer (customerName)"),
+            new Migration(7, "Widen passwords to hold salted hashes",
+                    "ALTER TABLE user MODIFY password VARCHAR(255) NOT NULL"),
+            new Migration(8, "Index last updates for change detection",
+                    "CREATE INDEX idx_appointment_last_update ON appointment (lastUpdate)",
+                    "CREATE INDEX idx_customer_last_update ON customer (lastUpdate)")
+    );
+
+    private Migrations() {
+    }
+
+    public static List<Migration> getMigrations() {
+        return Collections.unmodifiableList(migrations);
+    }
+}
@@ -0,0 +1,37 @@
+package com.c195.dao.repository;
+
+import com.c195.dao.DAOException;
+import com.c195.model.Address;
+import com.c195.model.City;
+import com.c195.model.Country;
+
+import java.util.Optional;
+
+/**
+ * Storage for addresses and the cities and countries they belong to.
+ */
+public interface AddressRepository {
+
+    Optional<Address> getAddress(String address) throws DAOException;
+
+    /**
+     * Saves a new address and sets its generated id. The address's city must already be saved.
+     */
+    void saveAddress(Address address) throws DAOException;
+
+    void updateAddress(Address address) throws DAOException;
+
+    Optional<City> getCityByName(String cityName) throws DAOException;
+
+    /**
+     * Saves a new city and sets its generated id. The city's country must already be saved.
+     */
+    void saveCity(City city) throws DAOException;
+
+    Optional<Country> getCountryByName(String countryName) throws DAOException;
+
+    /**
+     * Saves a new country and sets its generated id.
+     */
+    void saveCountry(Country country) throws DAOException;
+}
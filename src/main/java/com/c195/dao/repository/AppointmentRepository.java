@@ -0,0 +1,69 @@
+package com.c195.dao.repository;
+
+import com.c195.common.appointment.AppointmentColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.model.Appointment;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage for appointments. Appointments are returned together with their customer,
+ * the customer's address and the user they belong to.
+ */
+public interface AppointmentRepository {
+
+    List<Appointment> getAllAppointments() throws DAOException;
+
+    Optional<Appointment> getAppointmentById(int id) throws DAOException;
+
+    /**
+     * Retrieves the user's appointments that start within the interval, inclusive of both ends.
+     */
+    List<Appointment> getAppointmentsByUserBetween(int userId, Instant start, Instant end) throws DAOException;
+
+    /**
+     * Retrieves the user's appointments that overlap the half-open interval [start, end).
+     */
+    List<Appointment> getOverlappingAppointmentsByUser(int userId, Instant start, Instant end) throws DAOException;
+
+    List<Appointment> getAppointmentsByUserAfter(int userId, Instant start) throws DAOException;
+
+    /**
+     * Retrieves a single page of a user's appointments that start within the interval, where a null end
+     * leaves the interval open. One row more than the page size is returned when another page exists.
+     */
+    List<Appointment> getAppointmentPageByUserBetween(int userId,
+                                                      Instant start,
+                                                      Instant end,
+                                                      QuerySpec<AppointmentColumn> querySpec) throws DAOException;
+
+    /**
+     * Retrieves a page of appointments ordered by contact and then id, starting
+     * directly after the given contact and id.
+     */
+    List<Appointment> getAppointmentsByContactAfter(String contact, int appointmentId, int limit) throws DAOException;
+
+    /**
+     * Saves a new appointment and sets its generated id.
+     */
+    void saveAppointment(Appointment appointment) throws DAOException;
+
+    void updateAppointment(Appointment appointment) throws DAOException;
+
+    void deleteAppointmentById(int id) throws DAOException;
+
+    /**
+     * Retrieves the latest last update of the appointments and how many there are, cheap enough to poll.
+     */
+    ChangeWatermark getAppointmentWatermark() throws DAOException;
+
+    /**
+     * Retrieves the appointments last updated at or after the given time.
+     */
+    List<Appointment> getAppointmentsUpdatedSince(Instant since) throws DAOException;
+
+    List<Integer> getAppointmentIds() throws DAOException;
+}
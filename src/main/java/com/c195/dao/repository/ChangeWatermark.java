@@ -0,0 +1,49 @@
+package com.c195.dao.repository;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * How far a table has changed: the latest last update of its rows and how many rows it holds.
+ * A later last update means rows were created or updated, a row count that does not add up
+ * means rows were deleted.
+ */
+public final class ChangeWatermark {
+
+    private final Instant lastUpdate;
+    private final int rowCount;
+
+    public ChangeWatermark(Instant lastUpdate, int rowCount) {
+        this.lastUpdate = lastUpdate;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return the latest last update, empty if the table has no rows.
+     */
+    public Optional<Instant> getLastUpdate() {
+        return Optional.ofNullable(lastUpdate);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ChangeWatermark that = (ChangeWatermark) o;
+        return rowCount == that.rowCount && Objects.equals(lastUpdate, that.lastUpdate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastUpdate, rowCount);
+    }
+}
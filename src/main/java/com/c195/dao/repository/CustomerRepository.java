@@ -0,0 +1,50 @@
+package com.c195.dao.repository;
+
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.dao.DAOException;
+import com.c195.model.Customer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage for customers. Customers are returned together with their address.
+ */
+public interface CustomerRepository {
+
+    Optional<Customer> getCustomerById(int id) throws DAOException;
+
+    List<Customer> getAllCustomers() throws DAOException;
+
+    /**
+     * Retrieves a single page of customers. One row more than the page size is returned
+     * when another page exists.
+     */
+    List<Customer> getCustomerPage(QuerySpec<CustomerColumn> querySpec) throws DAOException;
+
+    /**
+     * Saves a new customer and sets its generated id. The customer's address must already be saved.
+     */
+    void saveCustomer(Customer customer) throws DAOException;
+
+    void updateCustomer(Customer customer) throws DAOException;
+
+    /**
+     * Deletes the customer along with its address.
+     */
+    void deleteCustomerById(int id) throws DAOException;
+
+    /**
+     * Retrieves the latest last update of the customers and how many there are, cheap enough to poll.
+     */
+    ChangeWatermark getCustomerWatermark() throws DAOException;
+
+    /**
+     * Retrieves the customers last updated at or after the given time.
+     */
+    List<Customer> getCustomersUpdatedSince(Instant since) throws DAOException;
+
+    List<Integer> getCustomerIds() throws DAOException;
+}
@@ -0,0 +1,24 @@
+package com.c195.dao.repository;
+
+import com.c195.dao.config.DAOConfigException;
+
+/**
+ * Provides the repositories of a single persistence backend.
+ */
+public interface RepositoryFactory {
+
+    AppointmentRepository getAppointmentRepository();
+
+    CustomerRepository getCustomerRepository();
+
+    AddressRepository getAddressRepository();
+
+    UserRepository getUserRepository();
+
+    /**
+     * Releases the backend's connection or files.
+     *
+     * @throws DAOConfigException if there are issues closing the backend.
+     */
+    void close() throws DAOConfigException;
+}
@@ -0,0 +1,19 @@
+package com.c195.dao.repository;
+
+import com.c195.dao.DAOException;
+import com.c195.model.User;
+
+import java.util.Optional;
+
+/**
+ * Storage for users.
+ */
+public interface UserRepository {
+
+    /**
+     * Retrieves a user, including their stored password.
+     */
+    Optional<User> getUserByUsername(String username) throws DAOException;
+
+    void updatePassword(User user) throws DAOException;
+}
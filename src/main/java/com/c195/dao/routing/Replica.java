@@ -0,0 +1,122 @@
+package com.c195.dao.routing;
+
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A replica of the primary db and what was found the last time its lag was checked.
+ */
+final class Replica {
+
+    private static final String[] STATUS_STATEMENTS = {"SHOW REPLICA STATUS", "SHOW SLAVE STATUS"};
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final Connection connection;
+    private final boolean standaloneAllowed;
+    private final Counter readCounter;
+    private volatile long lagSeconds = -1;
+    private volatile long checkedAtNanos;
+
+    /**
+     * @param standaloneAllowed whether a server that is not replicating from anything counts as caught up.
+     */
+    Replica(int index, String url, Connection connection, boolean standaloneAllowed, MetricRegistry metricRegistry) {
+        this.url = url;
+        this.connection = connection;
+        this.standaloneAllowed = standaloneAllowed;
+        this.readCounter = metricRegistry.counter("routing.replica." + index + ".reads");
+        metricRegistry.gauge("routing.replica." + index + ".lag.seconds", () -> lagSeconds);
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    Counter getReadCounter() {
+        return readCounter;
+    }
+
+    /**
+     * @return how far behind the primary the replica was when last checked, or -1 if it could not be used.
+     */
+    long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    /**
+     * Whether the replica has every write made before the given time. Its lag is only known as of the
+     * last check and to the second, so it counts as having a write once a check made after the write
+     * found it more than its lag and a second behind.
+     */
+    boolean hasWritesBefore(long writeNanos) {
+        final long lag = lagSeconds;
+        return lag >= 0 && writeNanos < checkedAtNanos - (lag + 1) * 1_000_000_000L;
+    }
+
+    void markUnavailable() {
+        lagSeconds = -1;
+    }
+
+    /**
+     * Looks up how far behind the primary the replica is. A server that is not replicating from anything
+     * never sees the primary's writes, so it is not used unless standalone replicas are allowed, such as a
+     * second local db used for testing, in which case it counts as caught up. One whose replication has
+     * stopped cannot be trusted either and is not used until it is running again.
+     */
+    void checkLag() {
+        final long startNanos = System.nanoTime();
+        try {
+            if (!connection.isValid(VALID_TIMEOUT_SECONDS)) {
+                markUnavailable();
+                return;
+            }
+            lagSeconds = queryLagSeconds();
+            checkedAtNanos = startNanos;
+        } catch (SQLException e) {
+            markUnavailable();
+        }
+    }
+
+    private long queryLagSeconds() throws SQLException {
+        SQLException failure = null;
+        for (String statusStatement : STATUS_STATEMENTS) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(statusStatement)) {
+                if (!resultSet.next()) {
+                    return standaloneAllowed ? 0 : -1;
+                }
+                for (String lagColumn : LAG_COLUMNS) {
+                    if (hasColumn(resultSet, lagColumn)) {
+                        final long lag = resultSet.getLong(lagColumn);
+                        return resultSet.wasNull() ? -1 : lag;
+                    }
+                }
+                return -1;
+            } catch (SQLException e) {
+                // servers before 8.0.22 only know the older statement
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    private static boolean hasColumn(ResultSet resultSet, String column) throws SQLException {
+        for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+            if (resultSet.getMetaData().getColumnLabel(i).equalsIgnoreCase(column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
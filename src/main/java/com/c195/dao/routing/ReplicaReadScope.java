@@ -0,0 +1,34 @@
+package com.c195.dao.routing;
+
+/**
+ * Marks the reads made by the thread while it is open as ones that may be served by a replica, for service
+ * methods that only read and can show data that is a moment old, such as the list views and the reports.
+ * Reads made outside of one go to the primary, along with every write.
+ * <p>
+ * Scopes may be nested. Closing one restores whatever was in effect when it was opened.
+ */
+public final class ReplicaReadScope implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> replicaReads = ThreadLocal.withInitial(() -> false);
+
+    private final boolean previous;
+
+    private ReplicaReadScope(boolean previous) {
+        this.previous = previous;
+    }
+
+    public static ReplicaReadScope open() {
+        final ReplicaReadScope scope = new ReplicaReadScope(replicaReads.get());
+        replicaReads.set(true);
+        return scope;
+    }
+
+    static boolean isOpen() {
+        return replicaReads.get();
+    }
+
+    @Override
+    public void close() {
+        replicaReads.set(previous);
+    }
+}
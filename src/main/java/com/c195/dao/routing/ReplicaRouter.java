@@ -0,0 +1,222 @@
+package com.c195.dao.routing;
+
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.config.MysqlConfig;
+import com.c195.dao.config.MysqlConnection;
+import com.c195.util.logging.Logger;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the statements the DAOs prepare between the primary db and its replicas. The DAOs are given
+ * {@link #getConnection()} in place of the primary connection and prepare their statements on it as before.
+ * <p>
+ * A query goes to a replica only when it is prepared within a {@link ReplicaReadScope} and not within a
+ * transaction. Everything else goes to the primary, and so does every query that may not see the writes
+ * made through the primary: a replica is only read from once it is known to have the last write, its lag
+ * is within the configured maximum, and it was reachable and replicating when last checked. The replicas
+ * that qualify take turns.
+ * <p>
+ * Each replica's lag is checked in the background. How each statement was routed is counted in the
+ * {@link MetricRegistry} as "routing.primary.reads", "routing.primary.writes" and
+ * "routing.replica.*.reads", with the lag of each replica kept as a "routing.replica.*.lag.seconds" gauge.
+ * Reads that could have gone to a replica but did not are counted as "routing.fallback.recent-write"
+ * or "routing.fallback.unavailable".
+ */
+public final class ReplicaRouter implements InvocationHandler {
+
+    private static final Logger logger = Logger.getLogger(ReplicaRouter.class);
+
+    private final Connection primary;
+    private final List<Replica> replicas;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService lagChecker;
+    private final Counter primaryReadCounter;
+    private final Counter primaryWriteCounter;
+    private final Counter recentWriteFallbackCounter;
+    private final Counter unavailableFallbackCounter;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Connection connectionProxy;
+    private volatile long lastWriteNanos = Long.MIN_VALUE;
+
+    private ReplicaRouter(Connection primary, List<Replica> replicas, long maxLagSeconds, MetricRegistry metricRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.primaryReadCounter = metricRegistry.counter("routing.primary.reads");
+        this.primaryWriteCounter = metricRegistry.counter("routing.primary.writes");
+        this.recentWriteFallbackCounter = metricRegistry.counter("routing.fallback.recent-write");
+        this.unavailableFallbackCounter = metricRegistry.counter("routing.fallback.unavailable");
+        this.connectionProxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, this);
+    }
+
+    /**
+     * Connects to the configured replicas and starts checking their lag. A replica that cannot be reached
+     * is left out, so the app still starts while one is down.
+     *
+     * @param primary the connection to the primary db.
+     */
+    public static ReplicaRouter open(Connection primary, MysqlConfig mysqlConfig, MetricRegistry metricRegistry) {
+        final List<Replica> replicas = new ArrayList<>();
+        for (String replicaURL : mysqlConfig.getReplicaURLs()) {
+            try {
+                replicas.add(new Replica(replicas.size(), replicaURL,
+                        MysqlConnection.openReplicaConnection(mysqlConfig, replicaURL),
+                        mysqlConfig.isStandaloneReplicaAllowed(), metricRegistry));
+            } catch (DAOConfigException e) {
+                logger.log(String.format("leaving out replica %s: %s", replicaURL, e.getCause().getMessage()));
+            }
+        }
+        final ReplicaRouter router =
+                new ReplicaRouter(primary, replicas, mysqlConfig.getReplicaMaxLag().getSeconds(), metricRegistry);
+        // checked once up front so the first reads already know which replicas to use
+        router.checkLag();
+        final long intervalMillis = mysqlConfig.getReplicaLagCheckInterval().toMillis();
+        router.lagChecker.scheduleWithFixedDelay(router::checkLag, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return router;
+    }
+
+    /**
+     * @return the connection to hand to the DAOs, which prepares each statement where it is routed.
+     */
+    public Connection getConnection() {
+        return connectionProxy;
+    }
+
+    /**
+     * Stops checking the replicas and closes their connections. The primary connection is left open.
+     *
+     * @throws DAOConfigException if there are issues closing a replica connection.
+     */
+    public void close() throws DAOConfigException {
+        lagChecker.shutdownNow();
+        DAOConfigException failure = null;
+        for (Replica replica : replicas) {
+            try {
+                replica.getConnection().close();
+            } catch (SQLException e) {
+                failure = new DAOConfigException("There was an issue closing the replica " + replica.getUrl(), e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "prepareStatement":
+            case "prepareCall":
+                final String sql = (String) args[0];
+                if (!isQuery(sql)) {
+                    lastWriteNanos = System.nanoTime();
+                    primaryWriteCounter.increment();
+                    return invokeTarget(primary, method, args);
+                }
+                final Replica replica = chooseReplica();
+                if (replica != null) {
+                    try {
+                        final Object statement = invokeTarget(replica.getConnection(), method, args);
+                        replica.getReadCounter().increment();
+                        return statement;
+                    } catch (SQLException e) {
+                        replica.markUnavailable();
+                        unavailableFallbackCounter.increment();
+                        logger.log(String.format("replica %s failed, reading from the primary until it is checked again: %s",
+                                replica.getUrl(), e.getMessage()));
+                    }
+                }
+                return invokeTarget(primary, method, args);
+            default:
+                return invokeTarget(primary, method, args);
+        }
+    }
+
+    /**
+     * @return the replica to read from, or null to read from the primary.
+     */
+    private Replica chooseReplica() throws SQLException {
+        if (!ReplicaReadScope.isOpen() || !primary.getAutoCommit()) {
+            primaryReadCounter.increment();
+            return null;
+        }
+        final long writeNanos = lastWriteNanos;
+        final int start = nextReplica.getAndIncrement();
+        boolean behindWrite = false;
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            final long lagSeconds = replica.getLagSeconds();
+            if (lagSeconds < 0 || lagSeconds > maxLagSeconds) {
+                continue;
+            }
+            if (!replica.hasWritesBefore(writeNanos)) {
+                behindWrite = true;
+                continue;
+            }
+            return replica;
+        }
+        (behindWrite ? recentWriteFallbackCounter : unavailableFallbackCounter).increment();
+        return null;
+    }
+
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            replica.checkLag();
+        }
+    }
+
+    /**
+     * Only plain selects, and explains and shows which read nothing but the schema and the server's state,
+     * can be served by a replica, as locking reads have to see the latest rows.
+     */
+    private static boolean isQuery(String sql) {
+        final String statement = sql.trim().toLowerCase(Locale.ROOT);
+        return (statement.startsWith("select") || statement.startsWith("explain") || statement.startsWith("show"))
+                && !statement.contains(" for update")
+                && !statement.contains(" for share")
+                && !statement.contains(" lock in share mode");
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException(cause);
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.c195.service;
 
+import com.c195.common.customer.AddressChangeEvent;
 import com.c195.common.customer.AddressDTO;
-import com.c195.dao.*;
+import com.c195.dao.DAOException;
+import com.c195.dao.MetadataDAO;
+import com.c195.dao.repository.AddressRepository;
 import com.c195.model.Address;
 import com.c195.model.City;
 import com.c195.model.Country;
+import com.c195.util.event.ChangeType;
+import com.c195.util.event.EventBus;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 
 import java.time.Clock;
 import java.util.Optional;
@@ -12,27 +19,20 @@ import java.util.Optional;
 public class AddressService {
 
     private static AddressService serviceInstance;
-    private final AddressDAO addressDAO;
-    private final CityDAO cityDAO;
-    private final CountryDAO countryDAO;
+    private final AddressRepository addressRepository;
+    private final EventBus eventBus;
     private final Clock clock;
+    private final Tracer tracer = Tracer.getInstance();
 
-    private AddressService(AddressDAO addressDAO,
-                           CityDAO cityDAO,
-                           CountryDAO countryDAO,
-                           Clock clock) {
-        this.addressDAO = addressDAO;
-        this.cityDAO = cityDAO;
-        this.countryDAO = countryDAO;
+    private AddressService(AddressRepository addressRepository, EventBus eventBus, Clock clock) {
+        this.addressRepository = addressRepository;
+        this.eventBus = eventBus;
         this.clock = clock;
     }
 
-    public static AddressService getInstance(AddressDAO addressDAO,
-                                             CityDAO cityDAO,
-                                             CountryDAO countryDAO,
-                                             Clock clock) {
+    public static AddressService getInstance(AddressRepository addressRepository, EventBus eventBus, Clock clock) {
         if (serviceInstance == null) {
-            serviceInstance = new AddressService(addressDAO, cityDAO, countryDAO, clock);
+            serviceInstance = new AddressService(addressRepository, eventBus, clock);
         }
         return serviceInstance;
     }
@@ -45,8 +45,10 @@ public class AddressService {
      * @throws DAOException if there are issues retrieving the address from the db.
      */
     public Optional<AddressDTO> getAddress(String address) throws DAOException {
-        return addressDAO.getAddress(address)
-                .map(AddressService::toAddressDTO);
+        try (SpanScope ignored = tracer.startSpan("AddressService.getAddress")) {
+            return addressRepository.getAddress(address)
+                    .map(AddressService::toAddressDTO);
+        }
     }
 
     /**
@@ -67,6 +69,8 @@ public class AddressService {
      * thing for country. If the country doesn't already exist, the country will be saved, followed by the city.
      * <p>
      * This avoids having duplicate values in the table, despite the rows having unique keys.
+     * <p>
+     * Publishes an {@link AddressChangeEvent} once the address has been saved.
      *
      * @param addressDTO  address information in which to be saved.
      * @param currentUser the user initiating the save.
@@ -74,11 +78,14 @@ public class AddressService {
      * @throws DAOException if there are issues saving the address to the db.
      */
     public Integer saveAddress(AddressDTO addressDTO, String currentUser) throws DAOException {
-        final Address address = toAddress(addressDTO);
-        address.setMetadata(MetadataDAO.getSaveMetadata(currentUser, clock.instant()));
-        setCity(address, currentUser);
-        addressDAO.saveAddress(address);
-        return address.getId();
+        try (SpanScope ignored = tracer.startSpan("AddressService.saveAddress")) {
+            final Address address = toAddress(addressDTO);
+            address.setMetadata(MetadataDAO.getSaveMetadata(currentUser, clock.instant()));
+            setCity(address, currentUser);
+            addressRepository.saveAddress(address);
+            eventBus.publish(new AddressChangeEvent(ChangeType.CREATED, address.getId(), toAddressDTO(address)));
+            return address.getId();
+        }
     }
 
     /**
@@ -86,7 +93,7 @@ public class AddressService {
      * <p>
      * Faces the same duplication issue as {@link #saveAddress(AddressDTO, String)}
      * in cases where the user may want to update the city or country of
-     * an existing address.
+     * an existing address. Publishes an {@link AddressChangeEvent} once the address has been updated.
      *
      * @param addressDTO  address information in which to be updated.
      * @param currentUser the user initiating the update.
@@ -94,33 +101,38 @@ public class AddressService {
      * @throws DAOException if there are issues updating the address in the db.
      */
     public Integer updateAddress(AddressDTO addressDTO, String currentUser) throws DAOException {
-        final Address address = toAddress(addressDTO);
-        address.setMetadata(MetadataDAO.getUpdateMetadata(currentUser, clock.instant()));
-        setCity(address, currentUser);
-        addressDAO.updateAddress(address);
-        return address.getId();
+        try (SpanScope ignored = tracer.startSpan("AddressService.updateAddress")) {
+            final Address address = toAddress(addressDTO);
+            address.setMetadata(MetadataDAO.getUpdateMetadata(currentUser, clock.instant()));
+            setCity(address, currentUser);
+            addressRepository.updateAddress(address);
+            eventBus.publish(new AddressChangeEvent(ChangeType.UPDATED, address.getId(), toAddressDTO(address)));
+            return address.getId();
+        }
     }
 
     private void setCity(Address address, String currentUser) throws DAOException {
-        final City city = address.getCity();
-        final Optional<City> existingCity = cityDAO.getCityByName(city.getCity());
-        if (existingCity.isPresent()) {
-            address.setCity(existingCity.get());
-        } else {
-            setCountry(city, currentUser);
-            city.setMetadata(MetadataDAO.getSaveMetadata(currentUser, clock.instant()));
-            cityDAO.saveCity(city);
+        try (SpanScope ignored = tracer.startSpan("AddressService.setCity")) {
+            final City city = address.getCity();
+            final Optional<City> existingCity = addressRepository.getCityByName(city.getCity());
+            if (existingCity.isPresent()) {
+                address.setCity(existingCity.get());
+            } else {
+                setCountry(city, currentUser);
+                city.setMetadata(MetadataDAO.getSaveMetadata(currentUser, clock.instant()));
+                addressRepository.saveCity(city);
+            }
         }
     }
 
     private void setCountry(City city, String currentUser) throws DAOException {
-        final Optional<Country> existingCountry = countryDAO.getCountryByName(city.getCountry().getCountry());
+        final Optional<Country> existingCountry = addressRepository.getCountryByName(city.getCountry().getCountry());
         if (existingCountry.isPresent()) {
             city.setCountry(existingCountry.get());
         } else {
             final Country country = city.getCountry();
             country.setMetadata(MetadataDAO.getSaveMetadata(currentUser, clock.instant()));
-            countryDAO.saveCountry(city.getCountry());
+            addressRepository.saveCountry(city.getCountry());
         }
     }
 
@@ -3,14 +3,25 @@ package com.c195.service;
 import com.c195.common.UserDTO;
 import com.c195.common.appointment.*;
 import com.c195.common.customer.CustomerDTO;
-import com.c195.dao.AppointmentDAO;
+import com.c195.common.query.Page;
+import com.c195.common.query.QuerySpec;
 import com.c195.dao.DAOException;
 import com.c195.dao.MetadataDAO;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.routing.ReplicaReadScope;
 import com.c195.model.Appointment;
+import com.c195.util.event.ChangeType;
+import com.c195.util.event.EventBus;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.Timer;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class AppointmentService {
@@ -18,17 +29,25 @@ public class AppointmentService {
     private static final ZoneId zoneId = ZoneId.of("UTC");
 
     private static AppointmentService serviceInstance;
-    private final AppointmentDAO appointmentDAO;
+    private final AppointmentRepository appointmentRepository;
+    private final EventBus eventBus;
     private final Clock clock;
+    private final Tracer tracer = Tracer.getInstance();
+    private final Timer reminderTimer;
+    private final Counter reminderDueCounter;
 
-    private AppointmentService(AppointmentDAO appointmentDAO, Clock clock) {
-        this.appointmentDAO = appointmentDAO;
+    private AppointmentService(AppointmentRepository appointmentRepository, EventBus eventBus, Clock clock) {
+        this.appointmentRepository = appointmentRepository;
+        this.eventBus = eventBus;
         this.clock = clock;
+        final MetricRegistry metricRegistry = MetricRegistry.getInstance();
+        this.reminderTimer = metricRegistry.timer("reminder.lookup.latency");
+        this.reminderDueCounter = metricRegistry.counter("reminder.due");
     }
 
-    public static AppointmentService getInstance(AppointmentDAO appointmentDAO, Clock clock) {
+    public static AppointmentService getInstance(AppointmentRepository appointmentRepository, EventBus eventBus, Clock clock) {
         if (serviceInstance == null) {
-            serviceInstance = new AppointmentService(appointmentDAO, clock);
+            serviceInstance = new AppointmentService(appointmentRepository, eventBus, clock);
         }
         return serviceInstance;
     }
@@ -44,8 +63,7 @@ public class AppointmentService {
      */
     public List<AppointmentDTO> getUpcomingAppointmentsByUserWeek(int userId) throws DAOException, AppointmentException {
         final Instant start = clock.instant().truncatedTo(ChronoUnit.DAYS);
-        final int dayOfTheWeek = start.atZone(zoneId).getDayOfWeek().getValue();
-        return getAppointmentsByUserBetween(userId, start, start.plus((7 - dayOfTheWeek) + 1, ChronoUnit.DAYS));
+        return getAppointmentsByUserBetween(userId, start, toEndOfWeek(start));
     }
 
     /**
@@ -59,10 +77,7 @@ public class AppointmentService {
      */
     public List<AppointmentDTO> getUpcomingAppointmentsByUserMonth(int userId) throws DAOException, AppointmentException {
         final Instant start = clock.instant().truncatedTo(ChronoUnit.DAYS);
-        final ZonedDateTime zonedStart = start.atZone(zoneId);
-        final int dayOfTheMonth = zonedStart.getDayOfMonth();
-        final int lengthOfMonth = Month.from(zonedStart).length(zonedStart.toLocalDate().isLeapYear());
-        return getAppointmentsByUserBetween(userId, start, start.plus((lengthOfMonth - dayOfTheMonth) + 1, ChronoUnit.DAYS));
+        return getAppointmentsByUserBetween(userId, start, toEndOfMonth(start));
     }
 
     /**
@@ -74,24 +89,69 @@ public class AppointmentService {
      * @throws AppointmentException if there are issues with the appointment time.
      */
     public List<AppointmentDTO> getUpcomingAppointmentsByUser(int userId) throws DAOException, AppointmentException {
-        return appointmentDAO.getAppointmentsByUserAfter(userId, clock.instant())
-                .stream()
-                .map(AppointmentService::toAppointmentDTO)
-                .collect(Collectors.toList());
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            return appointmentRepository.getAppointmentsByUserAfter(userId, clock.instant())
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Gets a single page of upcoming appointments for a given user, filtered and sorted by the database.
+     * The view limits the appointments the same way as the week, month and all upcoming lookups.
+     *
+     * @param userId    in which to retrieve upcoming appointments for.
+     * @param view      the portion of the calendar to retrieve appointments within.
+     * @param querySpec the filters, sort and position of the page.
+     * @return the page of appointments along with the query for the following page.
+     * @throws DAOException         if there are issues retrieving appointments from the db.
+     * @throws AppointmentException if there are issues with the appointment time.
+     */
+    public Page<AppointmentDTO, AppointmentColumn> getUpcomingAppointmentPageByUser(int userId,
+                                                                                    AppointmentView view,
+                                                                                    QuerySpec<AppointmentColumn> querySpec)
+            throws DAOException, AppointmentException {
+        final Instant today = clock.instant().truncatedTo(ChronoUnit.DAYS);
+        final List<AppointmentDTO> appointments;
+        switch (view) {
+            case WEEK:
+                appointments = getAppointmentPageByUserBetween(userId, today, toEndOfWeek(today), querySpec);
+                break;
+            case MONTH:
+                appointments = getAppointmentPageByUserBetween(userId, today, toEndOfMonth(today), querySpec);
+                break;
+            default:
+                appointments = getAppointmentPageByUserBetween(userId, clock.instant(), null, querySpec);
+        }
+        return Page.of(appointments, querySpec, AppointmentService::toSortValue, AppointmentDTO::getId);
     }
 
     /**
      * Gets a list of appointments that will occur within the next 15 minutes for
      * a given user.
      *
+     * The lookups are timed as "reminder.lookup.latency", and those that found an appointment
+     * are counted as "reminder.due".
+     *
      * @param userId in which to retrieve upcoming appointments for.
      * @return list of appointments that are quickly approaching...
      * @throws DAOException         if there are issues retrieving appointments from the db.
      * @throws AppointmentException if there are issues with the appointment time.
      */
     public List<AppointmentDTO> getReminderAppointmentsByUser(int userId) throws DAOException, AppointmentException {
-        final Instant start = clock.instant();
-        return getAppointmentsByUserBetween(userId, start, start.plus(15L, ChronoUnit.MINUTES));
+        final long startNanos = System.nanoTime();
+        try {
+            final Instant start = clock.instant();
+            final List<AppointmentDTO> appointments =
+                    getAppointmentsByUserBetween(userId, start, start.plus(15L, ChronoUnit.MINUTES));
+            if (!appointments.isEmpty()) {
+                reminderDueCounter.increment();
+            }
+            return appointments;
+        } finally {
+            reminderTimer.recordSince(startNanos);
+        }
     }
 
     /**
@@ -106,14 +166,17 @@ public class AppointmentService {
      */
     public List<AppointmentDTO> getAppointmentsByUserBetween(int userId, Instant start, Instant end)
             throws DAOException, AppointmentException {
-        return appointmentDAO.getAppointmentsByUserBetween(userId, start, end)
-                .stream()
-                .map(AppointmentService::toAppointmentDTO)
-                .collect(Collectors.toList());
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            return appointmentRepository.getAppointmentsByUserBetween(userId, start, end)
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+        }
     }
 
     /**
      * Gets a list of appointments that overlap with the given interval.
+     * The interval is treated as half-open, so back to back appointments do not overlap.
      *
      * @param userId in which to retrieve appointments for.
      * @param start  the start of the interval.
@@ -124,10 +187,12 @@ public class AppointmentService {
      */
     public List<AppointmentDTO> getOverlappingAppointmentsByUser(int userId, Instant start, Instant end)
             throws DAOException, AppointmentException {
-        return appointmentDAO.getOverlappingAppointmentsByUser(userId, start, end)
-                .stream()
-                .map(AppointmentService::toAppointmentDTO)
-                .collect(Collectors.toList());
+        try (SpanScope ignored = tracer.startSpan("AppointmentService.getOverlappingAppointmentsByUser")) {
+            return appointmentRepository.getOverlappingAppointmentsByUser(userId, start, end)
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+        }
     }
 
     /**
@@ -137,14 +202,37 @@ public class AppointmentService {
      * @throws DAOException if there are issues retrieving appointments from the db.
      */
     public List<AppointmentDTO> getAllAppointments() throws DAOException {
-        return appointmentDAO.getAllAppointments()
-                .stream()
-                .map(AppointmentService::toAppointmentDTO)
-                .collect(Collectors.toList());
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            return appointmentRepository.getAllAppointments()
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Gets a page of appointments ordered by contact, starting directly after the given
+     * contact and appointment id. Pass an empty contact and an id of 0 for the first page.
+     *
+     * @param contact       of the last appointment in the previous page.
+     * @param appointmentId of the last appointment in the previous page.
+     * @param pageSize      the maximum number of appointments to return.
+     * @return a list of at most pageSize appointments.
+     * @throws DAOException         if there are issues retrieving appointments from the db.
+     * @throws AppointmentException if there are issues with the appointment time.
+     */
+    public List<AppointmentDTO> getAppointmentsByContactAfter(String contact, int appointmentId, int pageSize)
+            throws DAOException, AppointmentException {
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            return appointmentRepository.getAppointmentsByContactAfter(contact, appointmentId, pageSize)
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+        }
     }
 
     /**
-     * Saves the appointment.
+     * Saves the appointment and publishes an {@link AppointmentChangeEvent} once it has been saved.
      *
      * @param appointmentDTO appointment information in which to save.
      * @param currentUser    the user initiating the save.
@@ -152,15 +240,18 @@ public class AppointmentService {
      * @throws DAOException if there are issues saving the appointment to the db.
      */
     public Integer saveAppointment(AppointmentDTO appointmentDTO, UserDTO currentUser) throws DAOException {
-        final Appointment appointment = toAppointment(appointmentDTO);
-        appointment.setUser(UserService.toUser(currentUser));
-        appointment.setMetadata(MetadataDAO.getSaveMetadata(currentUser.getUsername(), clock.instant()));
-        appointmentDAO.saveAppointment(appointment);
-        return appointment.getId();
+        try (SpanScope ignored = tracer.startSpan("AppointmentService.saveAppointment")) {
+            final Appointment appointment = toAppointment(appointmentDTO);
+            appointment.setUser(UserService.toUser(currentUser));
+            appointment.setMetadata(MetadataDAO.getSaveMetadata(currentUser.getUsername(), clock.instant()));
+            appointmentRepository.saveAppointment(appointment);
+            publishChange(ChangeType.CREATED, appointment.getId());
+            return appointment.getId();
+        }
     }
 
     /**
-     * Updates the appointment.
+     * Updates the appointment and publishes an {@link AppointmentChangeEvent} once it has been updated.
      *
      * @param appointmentDTO appointment information in which to update.
      * @param currentUser    the user initiating the update.
@@ -168,21 +259,81 @@ public class AppointmentService {
      * @throws DAOException if there are issues updating the appointment in the db.
      */
     public Integer updateAppointment(AppointmentDTO appointmentDTO, UserDTO currentUser) throws DAOException {
-        final Appointment appointment = toAppointment(appointmentDTO);
-        appointment.setUser(UserService.toUser(currentUser));
-        appointment.setMetadata(MetadataDAO.getUpdateMetadata(currentUser.getUsername(), clock.instant()));
-        appointmentDAO.updateAppointment(appointment);
-        return appointment.getId();
+        try (SpanScope ignored = tracer.startSpan("AppointmentService.updateAppointment")) {
+            final Appointment appointment = toAppointment(appointmentDTO);
+            appointment.setUser(UserService.toUser(currentUser));
+            appointment.setMetadata(MetadataDAO.getUpdateMetadata(currentUser.getUsername(), clock.instant()));
+            appointmentRepository.updateAppointment(appointment);
+            publishChange(ChangeType.UPDATED, appointment.getId());
+            return appointment.getId();
+        }
     }
 
     /**
-     * Deletes the appointment.
+     * Deletes the appointment and publishes an {@link AppointmentChangeEvent} once it has been deleted.
      *
      * @param appointmentId corresponding to the appointment to be deleted.
      * @throws DAOException if there are issues deleting the appointment from the db.
      */
     public void deleteAppointment(int appointmentId) throws DAOException {
-        appointmentDAO.deleteAppointmentById(appointmentId);
+        appointmentRepository.deleteAppointmentById(appointmentId);
+        eventBus.publish(new AppointmentChangeEvent(ChangeType.DELETED, appointmentId, null));
+    }
+
+    /**
+     * Reads the appointment back so that subscribers get it as it was committed, along with its customer.
+     * An appointment that has since been deleted by someone else is published as a delete.
+     */
+    private void publishChange(ChangeType type, int appointmentId) throws DAOException {
+        try (SpanScope ignored = tracer.startSpan("AppointmentService.publishChange")) {
+            final Optional<Appointment> appointment = appointmentRepository.getAppointmentById(appointmentId);
+            eventBus.publish(new AppointmentChangeEvent(appointment.isPresent() ? type : ChangeType.DELETED,
+                    appointmentId,
+                    appointment.map(AppointmentService::toAppointmentDTO).orElse(null),
+                    appointment.map(committed -> committed.getMetadata().getUpdatedDate()).orElse(null)));
+        }
+    }
+
+    private List<AppointmentDTO> getAppointmentPageByUserBetween(int userId,
+                                                                 Instant start,
+                                                                 Instant end,
+                                                                 QuerySpec<AppointmentColumn> querySpec)
+            throws DAOException, AppointmentException {
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            return appointmentRepository.getAppointmentPageByUserBetween(userId, start, end, querySpec)
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Instant toEndOfWeek(Instant start) {
+        final int dayOfTheWeek = start.atZone(zoneId).getDayOfWeek().getValue();
+        return start.plus((7 - dayOfTheWeek) + 1, ChronoUnit.DAYS);
+    }
+
+    private static Instant toEndOfMonth(Instant start) {
+        final ZonedDateTime zonedStart = start.atZone(zoneId);
+        final int dayOfTheMonth = zonedStart.getDayOfMonth();
+        final int lengthOfMonth = Month.from(zonedStart).length(zonedStart.toLocalDate().isLeapYear());
+        return start.plus((lengthOfMonth - dayOfTheMonth) + 1, ChronoUnit.DAYS);
+    }
+
+    private static Object toSortValue(AppointmentDTO appointmentDTO, AppointmentColumn column) {
+        switch (column) {
+            case TITLE:
+                return appointmentDTO.getTitle();
+            case LOCATION:
+                return appointmentDTO.getLocation().getName();
+            case CUSTOMER:
+                return appointmentDTO.getCustomerDTO().getName();
+            case TYPE:
+                return appointmentDTO.getType().getName();
+            case END:
+                return appointmentDTO.getTime().getUtcEnd();
+            default:
+                return appointmentDTO.getTime().getUtcStart();
+        }
     }
 
     public static Appointment toAppointment(AppointmentDTO appointmentDTO) {
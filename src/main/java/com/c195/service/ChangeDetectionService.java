@@ -0,0 +1,324 @@
+package com.c195.service;
+
+import com.c195.common.appointment.AppointmentChangeEvent;
+import com.c195.common.customer.CustomerChangeEvent;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.repository.ChangeWatermark;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.model.Appointment;
+import com.c195.model.Customer;
+import com.c195.model.Metadata;
+import com.c195.util.event.ChangeEvent;
+import com.c195.util.event.ChangeType;
+import com.c195.util.event.EventBus;
+import com.c195.util.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices the changes other instances of the app make to the shared db and publishes them as change events,
+ * the same as the changes made by this instance, so the search indexes and open tables only touch the rows
+ * that changed.
+ * <p>
+ * Each table is watched through its {@link ChangeWatermark}, a single indexed query. Only when the latest
+ * last update moves are the rows updated since then read, and only when the row count does not add up are
+ * the ids read to find the deleted rows. The db is polled often right after a change and less and less
+ * often while nothing changes, backing off from {@link #MIN_INTERVAL} to {@link #MAX_INTERVAL}.
+ * <p>
+ * Last updates are stamped with the clock of the instance making the change, so a change stamped earlier
+ * than a change already seen is only picked up once the row is changed again. The changes this instance
+ * made itself are already published, and are told apart by the last update their events were published with.
+ */
+public class ChangeDetectionService {
+
+    private static final Logger logger = Logger.getLogger(ChangeDetectionService.class);
+    private static final Duration MIN_INTERVAL = Duration.ofSeconds(2);
+    private static final Duration MAX_INTERVAL = Duration.ofSeconds(30);
+
+    private static ChangeDetectionService serviceInstance;
+    private final List<TableWatch<?>> tableWatches;
+    private final ScheduledExecutorService executor;
+    private Duration interval = MIN_INTERVAL;
+    private boolean started;
+
+    private ChangeDetectionService(CustomerRepository customerRepository,
+                                   AppointmentRepository appointmentRepository,
+                                   EventBus eventBus) {
+        final TableWatch<Customer> customerWatch = new TableWatch<Customer>(eventBus) {
+            @Override
+            ChangeWatermark getWatermark() throws DAOException {
+                return customerRepository.getCustomerWatermark();
+            }
+
+            @Override
+            List<Customer> getUpdatedSince(Instant since) throws DAOException {
+                return customerRepository.getCustomersUpdatedSince(since);
+            }
+
+            @Override
+            Optional<Customer> getById(int id) throws DAOException {
+                return customerRepository.getCustomerById(id);
+            }
+
+            @Override
+            List<Integer> getIds() throws DAOException {
+                return customerRepository.getCustomerIds();
+            }
+
+            @Override
+            int getId(Customer customer) {
+                return customer.getId();
+            }
+
+            @Override
+            Metadata getMetadata(Customer customer) {
+                return customer.getMetadata();
+            }
+
+            @Override
+            ChangeEvent<?> toEvent(ChangeType type, int id, Customer customer) {
+                return new CustomerChangeEvent(type, id, customer == null ? null : CustomerService.toCustomerDTO(customer));
+            }
+        };
+        final TableWatch<Appointment> appointmentWatch = new TableWatch<Appointment>(eventBus) {
+            @Override
+            ChangeWatermark getWatermark() throws DAOException {
+                return appointmentRepository.getAppointmentWatermark();
+            }
+
+            @Override
+            List<Appointment> getUpdatedSince(Instant since) throws DAOException {
+                return appointmentRepository.getAppointmentsUpdatedSince(since);
+            }
+
+            @Override
+            Optional<Appointment> getById(int id) throws DAOException {
+                return appointmentRepository.getAppointmentById(id);
+            }
+
+            @Override
+            List<Integer> getIds() throws DAOException {
+                return appointmentRepository.getAppointmentIds();
+            }
+
+            @Override
+            int getId(Appointment appointment) {
+                return appointment.getId();
+            }
+
+            @Override
+            Metadata getMetadata(Appointment appointment) {
+                return appointment.getMetadata();
+            }
+
+            @Override
+            ChangeEvent<?> toEvent(ChangeType type, int id, Appointment appointment) {
+                return new AppointmentChangeEvent(type, id, appointment == null ? null : AppointmentService.toAppointmentDTO(appointment));
+            }
+        };
+        this.tableWatches = Arrays.asList(customerWatch, appointmentWatch);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "change-detection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the creates and deletes of this instance keep the row count adding up, and its saves are skipped
+        // when the poll reads them back with the last update they were published with
+        eventBus.subscribe(CustomerChangeEvent.class, customerWatch::onLocalChange);
+        eventBus.subscribe(AppointmentChangeEvent.class, appointmentWatch::onLocalChange);
+    }
+
+    public static ChangeDetectionService getInstance(CustomerRepository customerRepository,
+                                                     AppointmentRepository appointmentRepository,
+                                                     EventBus eventBus) {
+        if (serviceInstance == null) {
+            serviceInstance = new ChangeDetectionService(customerRepository, appointmentRepository, eventBus);
+        }
+        return serviceInstance;
+    }
+
+    /**
+     * Starts watching the db on a background thread, unless it is already being watched.
+     * The first poll only records where each table is at.
+     */
+    public synchronized void start() {
+        if (!started) {
+            started = true;
+            executor.execute(this::poll);
+        }
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void poll() {
+        boolean changed = false;
+        try {
+            for (TableWatch<?> tableWatch : tableWatches) {
+                changed |= tableWatch.poll();
+            }
+        } catch (DAOException | RuntimeException e) {
+            logger.log("there was an issue detecting changes: " + e.getMessage());
+            interval = MAX_INTERVAL;
+        }
+        if (changed) {
+            interval = MIN_INTERVAL;
+        } else if (interval.compareTo(MAX_INTERVAL) < 0) {
+            interval = interval.multipliedBy(2).compareTo(MAX_INTERVAL) < 0 ? interval.multipliedBy(2) : MAX_INTERVAL;
+        }
+        if (!executor.isShutdown()) {
+            executor.schedule(this::poll, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Where a single table is at, as of the last poll.
+     *
+     * @param <T> the model of the table's rows.
+     */
+    private abstract static class TableWatch<T> {
+
+        private final EventBus eventBus;
+        private final Set<Integer> knownIds = new HashSet<>();
+        private final Set<Integer> idsAtLastUpdate = new HashSet<>();
+        private final Map<Integer, Instant> localUpdates = new HashMap<>();
+        private Instant lastUpdate;
+        private boolean initialized;
+
+        private TableWatch(EventBus eventBus) {
+            this.eventBus = eventBus;
+        }
+
+        abstract ChangeWatermark getWatermark() throws DAOException;
+
+        abstract List<T> getUpdatedSince(Instant since) throws DAOException;
+
+        abstract Optional<T> getById(int id) throws DAOException;
+
+        abstract List<Integer> getIds() throws DAOException;
+
+        abstract int getId(T row);
+
+        abstract Metadata getMetadata(T row);
+
+        abstract ChangeEvent<?> toEvent(ChangeType type, int id, T row);
+
+        /**
+         * @return whether the table changed since the last poll.
+         */
+        boolean poll() throws DAOException {
+            final ChangeWatermark watermark = getWatermark();
+            if (!initialized) {
+                lastUpdate = watermark.getLastUpdate().orElse(null);
+                synchronized (this) {
+                    knownIds.addAll(getIds());
+                }
+                initialized = true;
+                return false;
+            }
+            boolean changed = false;
+            final Optional<Instant> latestUpdate = watermark.getLastUpdate();
+            if (latestUpdate.isPresent() && (lastUpdate == null || latestUpdate.get().isAfter(lastUpdate))) {
+                publishUpdatedSince(lastUpdate == null ? Instant.EPOCH : lastUpdate, latestUpdate.get());
+                changed = true;
+            }
+            // rows saved while offline keep a negative id until they are moved to the id the remote db gave them
+            if (watermark.getRowCount() != getKnownIdCount() || hasProvisionalIds()) {
+                publishCreatedAndDeleted();
+                changed = true;
+            }
+            return changed;
+        }
+
+        /**
+         * Rows last updated within the same second as the previous watermark are read again, as MySQL only
+         * keeps whole seconds, but are skipped if they were already published then.
+         */
+        private void publishUpdatedSince(Instant since, Instant latestUpdate) throws DAOException {
+            final Set<Integer> publishedIds = new HashSet<>(idsAtLastUpdate);
+            idsAtLastUpdate.clear();
+            for (T row : getUpdatedSince(since)) {
+                final int id = getId(row);
+                final Instant rowUpdate = getMetadata(row).getUpdatedDate();
+                if (!rowUpdate.isBefore(latestUpdate)) {
+                    idsAtLastUpdate.add(id);
+                }
+                if (rowUpdate.equals(since) && publishedIds.contains(id) || isLocalUpdate(id, rowUpdate)) {
+                    continue;
+                }
+                final boolean created;
+                synchronized (this) {
+                    created = knownIds.add(id);
+                }
+                eventBus.publish(toEvent(created ? ChangeType.CREATED : ChangeType.UPDATED, id, row));
+            }
+            lastUpdate = latestUpdate;
+        }
+
+        private void publishCreatedAndDeleted() throws DAOException {
+            final Set<Integer> ids = new HashSet<>(getIds());
+            final Set<Integer> deletedIds;
+            final Set<Integer> createdIds;
+            synchronized (this) {
+                deletedIds = new HashSet<>(knownIds);
+                deletedIds.removeAll(ids);
+                createdIds = new HashSet<>(ids);
+                createdIds.removeAll(knownIds);
+                knownIds.clear();
+                knownIds.addAll(ids);
+            }
+            for (int id : deletedIds) {
+                eventBus.publish(toEvent(ChangeType.DELETED, id, null));
+            }
+            // rows created with an earlier last update than the watermark, or moved to a new id
+            for (int id : createdIds) {
+                final Optional<T> row = getById(id);
+                if (row.isPresent()) {
+                    eventBus.publish(toEvent(ChangeType.CREATED, id, row.get()));
+                }
+            }
+        }
+
+        /**
+         * Keeps track of the rows this instance created, saved and deleted itself. Called on whichever thread
+         * published the change.
+         */
+        synchronized void onLocalChange(ChangeEvent<?> event) {
+            if (event.getType() == ChangeType.DELETED) {
+                knownIds.remove(event.getId());
+                localUpdates.remove(event.getId());
+            } else {
+                knownIds.add(event.getId());
+                event.getLastUpdate().ifPresent(lastUpdate -> localUpdates.put(event.getId(), lastUpdate));
+            }
+        }
+
+        /**
+         * @return whether the row as read is the save this instance published. The save is forgotten once
+         * the row is read with it or a later update, so a later change by another instance is published.
+         */
+        private synchronized boolean isLocalUpdate(int id, Instant rowUpdate) {
+            final Instant localUpdate = localUpdates.get(id);
+            if (localUpdate == null || rowUpdate.isBefore(localUpdate)) {
+                return false;
+            }
+            localUpdates.remove(id);
+            return rowUpdate.equals(localUpdate);
+        }
+
+        private synchronized int getKnownIdCount() {
+            return knownIds.size();
+        }
+
+        private synchronized boolean hasProvisionalIds() {
+            return knownIds.stream().anyMatch(id -> id < 0);
+        }
+    }
+}
@@ -2,13 +2,22 @@ package com.c195.service;
 
 import com.c195.common.UserDTO;
 import com.c195.common.customer.AddressDTO;
+import com.c195.common.customer.CustomerChangeEvent;
+import com.c195.common.customer.CustomerColumn;
 import com.c195.common.customer.CustomerDTO;
 import com.c195.common.customer.CustomerException;
-import com.c195.dao.CustomerDAO;
+import com.c195.common.query.Page;
+import com.c195.common.query.QuerySpec;
 import com.c195.dao.DAOException;
 import com.c195.dao.MetadataDAO;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.dao.routing.ReplicaReadScope;
 import com.c195.model.Address;
 import com.c195.model.Customer;
+import com.c195.util.event.ChangeType;
+import com.c195.util.event.EventBus;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 
 import java.time.Clock;
 import java.util.List;
@@ -18,23 +27,28 @@ import java.util.stream.Collectors;
 public class CustomerService {
 
     private static CustomerService serviceInstance;
-    private final CustomerDAO customerDAO;
+    private final CustomerRepository customerRepository;
     private final AddressService addressService;
+    private final EventBus eventBus;
     private final Clock clock;
+    private final Tracer tracer = Tracer.getInstance();
 
-    private CustomerService(CustomerDAO customerDAO,
+    private CustomerService(CustomerRepository customerRepository,
                             AddressService addressService,
+                            EventBus eventBus,
                             Clock clock) {
-        this.customerDAO = customerDAO;
+        this.customerRepository = customerRepository;
         this.addressService = addressService;
+        this.eventBus = eventBus;
         this.clock = clock;
     }
 
-    public static CustomerService getInstance(CustomerDAO customerDAO,
+    public static CustomerService getInstance(CustomerRepository customerRepository,
                                               AddressService addressService,
+                                              EventBus eventBus,
                                               Clock clock) {
         if (serviceInstance == null) {
-            serviceInstance = new CustomerService(customerDAO, addressService, clock);
+            serviceInstance = new CustomerService(customerRepository, addressService, eventBus, clock);
         }
         return serviceInstance;
     }
@@ -48,9 +62,11 @@ public class CustomerService {
      * @throws CustomerException if the customer cannot be found
      */
     public CustomerDTO getCustomerById(int id) throws DAOException, CustomerException {
-        return customerDAO.getCustomerById(id)
-                .map(CustomerService::toCustomerDTO)
-                .orElseThrow(() -> new CustomerException("Customer does not exist"));
+        try (SpanScope ignored = tracer.startSpan("CustomerService.getCustomerById")) {
+            return customerRepository.getCustomerById(id)
+                    .map(CustomerService::toCustomerDTO)
+                    .orElseThrow(() -> new CustomerException("Customer does not exist"));
+        }
     }
 
     /**
@@ -60,14 +76,33 @@ public class CustomerService {
      * @throws DAOException if there are issues retrieving customers from the db.
      */
     public List<CustomerDTO> getAllCustomers() throws DAOException {
-        return customerDAO.getAllCustomers()
-                .stream()
-                .map(CustomerService::toCustomerDTO)
-                .collect(Collectors.toList());
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            return customerRepository.getAllCustomers()
+                    .stream()
+                    .map(CustomerService::toCustomerDTO)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Retrieves a single page of customers, filtered and sorted by the database.
+     *
+     * @param querySpec the filters, sort and position of the page.
+     * @return the page of customers along with the query for the following page.
+     * @throws DAOException if there are issues retrieving customers from the db.
+     */
+    public Page<CustomerDTO, CustomerColumn> getCustomerPage(QuerySpec<CustomerColumn> querySpec) throws DAOException {
+        try (ReplicaReadScope ignored = ReplicaReadScope.open()) {
+            final List<CustomerDTO> customers = customerRepository.getCustomerPage(querySpec)
+                    .stream()
+                    .map(CustomerService::toCustomerDTO)
+                    .collect(Collectors.toList());
+            return Page.of(customers, querySpec, CustomerService::toSortValue, CustomerDTO::getId);
+        }
     }
 
     /**
-     * Saves the customer and its associated address data.
+     * Saves the customer and its associated address data, then publishes a {@link CustomerChangeEvent}.
      *
      * @param customerDTO customer information in which to save.
      * @param currentUser the user initiating the save.
@@ -75,16 +110,19 @@ public class CustomerService {
      * @throws DAOException if there are issues saving the customer to the db.
      */
     public Integer saveCustomer(CustomerDTO customerDTO, UserDTO currentUser) throws DAOException {
-        final Customer customer = toCustomer(customerDTO);
-        final String currentUsername = currentUser.getUsername();
-        setAddress(customer, customerDTO.getAddressDTO(), currentUsername);
-        customer.setMetadata(MetadataDAO.getSaveMetadata(currentUsername, clock.instant()));
-        customerDAO.saveCustomer(customer);
-        return customer.getId();
+        try (SpanScope ignored = tracer.startSpan("CustomerService.saveCustomer")) {
+            final Customer customer = toCustomer(customerDTO);
+            final String currentUsername = currentUser.getUsername();
+            setAddress(customer, customerDTO.getAddressDTO(), currentUsername);
+            customer.setMetadata(MetadataDAO.getSaveMetadata(currentUsername, clock.instant()));
+            customerRepository.saveCustomer(customer);
+            publishChange(ChangeType.CREATED, customer.getId());
+            return customer.getId();
+        }
     }
 
     /**
-     * Updates the customer and its associated address data.
+     * Updates the customer and its associated address data, then publishes a {@link CustomerChangeEvent}.
      *
      * @param customerDTO customer information in which to update.
      * @param currentUser the user initiating the update.
@@ -92,16 +130,19 @@ public class CustomerService {
      * @throws DAOException if there are issues updating the customer in the db.
      */
     public Integer updateCustomer(CustomerDTO customerDTO, UserDTO currentUser) throws DAOException {
-        final String currentUsername = currentUser.getUsername();
-        addressService.updateAddress(customerDTO.getAddressDTO(), currentUsername);
-        final Customer customer = toCustomer(customerDTO);
-        customer.setMetadata(MetadataDAO.getUpdateMetadata(currentUsername, clock.instant()));
-        customerDAO.updateCustomer(customer);
-        return customer.getId();
+        try (SpanScope ignored = tracer.startSpan("CustomerService.updateCustomer")) {
+            final String currentUsername = currentUser.getUsername();
+            addressService.updateAddress(customerDTO.getAddressDTO(), currentUsername);
+            final Customer customer = toCustomer(customerDTO);
+            customer.setMetadata(MetadataDAO.getUpdateMetadata(currentUsername, clock.instant()));
+            customerRepository.updateCustomer(customer);
+            publishChange(ChangeType.UPDATED, customer.getId());
+            return customer.getId();
+        }
     }
 
     /**
-     * Deletes the customer.
+     * Deletes the customer, then publishes a {@link CustomerChangeEvent}.
      * <p>
      * Performs a cascading delete within the query itself so there's
      * no need to perform address deletion beforehand.
@@ -110,7 +151,22 @@ public class CustomerService {
      * @throws DAOException if there are issues deleting the customer from the db.
      */
     public void deleteCustomer(int customerId) throws DAOException {
-        customerDAO.deleteCustomerById(customerId);
+        customerRepository.deleteCustomerById(customerId);
+        eventBus.publish(new CustomerChangeEvent(ChangeType.DELETED, customerId, null));
+    }
+
+    /**
+     * Reads the customer back so that subscribers get it as it was committed, along with its address.
+     * A customer that has since been deleted by someone else is published as a delete.
+     */
+    private void publishChange(ChangeType type, int customerId) throws DAOException {
+        try (SpanScope ignored = tracer.startSpan("CustomerService.publishChange")) {
+            final Optional<Customer> customer = customerRepository.getCustomerById(customerId);
+            eventBus.publish(new CustomerChangeEvent(customer.isPresent() ? type : ChangeType.DELETED,
+                    customerId,
+                    customer.map(CustomerService::toCustomerDTO).orElse(null),
+                    customer.map(committed -> committed.getMetadata().getUpdatedDate()).orElse(null)));
+        }
     }
 
     /**
@@ -124,13 +180,30 @@ public class CustomerService {
      * @throws DAOException if there are issues saving address in the db.
      */
     private void setAddress(Customer customer, AddressDTO addressDTO, String currentUser) throws DAOException {
-        final Optional<Address> existingAddress = addressService.getAddress(addressDTO.getAddress())
-                .map(AddressService::toAddress);
-        if (existingAddress.isPresent()) {
-            customer.setAddress(existingAddress.get());
-        } else {
-            final int addressId = addressService.saveAddress(addressDTO, currentUser);
-            customer.getAddress().setId(addressId);
+        try (SpanScope ignored = tracer.startSpan("CustomerService.setAddress")) {
+            final Optional<Address> existingAddress = addressService.getAddress(addressDTO.getAddress())
+                    .map(AddressService::toAddress);
+            if (existingAddress.isPresent()) {
+                customer.setAddress(existingAddress.get());
+            } else {
+                final int addressId = addressService.saveAddress(addressDTO, currentUser);
+                customer.getAddress().setId(addressId);
+            }
+        }
+    }
+
+    private static Object toSortValue(CustomerDTO customerDTO, CustomerColumn column) {
+        switch (column) {
+            case NAME:
+                return customerDTO.getName();
+            case ADDRESS:
+                return customerDTO.getAddressDTO().getAddress();
+            case PHONE:
+                return customerDTO.getAddressDTO().getPhone();
+            case STATUS:
+                return customerDTO.isActive();
+            default:
+                return customerDTO.getId();
         }
     }
 
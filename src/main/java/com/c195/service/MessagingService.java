@@ -21,7 +21,7 @@ public class MessagingService {
         this.messaging = getEncodedMessageBundle(resourceBundle);
     }
 
-    public static MessagingService getInstance() {
+    public static synchronized MessagingService getInstance() {
         if (serviceInstance == null) {
             serviceInstance = new MessagingService();
         }
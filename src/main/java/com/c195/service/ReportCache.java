@@ -0,0 +1,507 @@
+package com.c195.service;
+
+import com.c195.common.CheckedSupplier;
+import com.c195.common.appointment.AppointmentChangeEvent;
+import com.c195.common.appointment.AppointmentDTO;
+import com.c195.common.customer.CustomerChangeEvent;
+import com.c195.common.report.ReportAggregationDTO;
+import com.c195.common.report.ReportType;
+import com.c195.dao.DAOException;
+import com.c195.util.event.ChangeEvent;
+import com.c195.util.event.ChangeType;
+import com.c195.util.event.EventBus;
+import com.c195.util.logging.Logger;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Keeps the reports once they have been built, so they are only built from every appointment again once
+ * their time to live runs out.
+ * <p>
+ * Each report remembers which group every appointment was counted in, so an appointment change only
+ * updates the groups the appointment moved out of and into, such as its old and new month. A change to a
+ * customer moves that customer's appointments to the customer's new name, and a deleted customer takes
+ * its appointments with it. A report that cannot tell which groups a change affects is built again the
+ * next time it is asked for.
+ * <p>
+ * The count reports are also written to a file whenever they change, so the first report after a restart
+ * does not have to wait for every appointment. Reports read back from the file do not know which
+ * appointment is in which group, so any appointment change has them built again. The schedule report
+ * holds every appointment and is only kept in memory.
+ * <p>
+ * Reports are built from the appointments without holding the cache, so changes and other reports are
+ * not held up while the db is read, and the report built is swapped in along with the changes made while
+ * it was built. Changes are applied and the file written on a thread of the cache's own, so whoever
+ * publishes a change, such as the FX thread saving a customer, never waits on the cache.
+ */
+public class ReportCache {
+
+    private static final Logger logger = Logger.getLogger(ReportCache.class);
+    private static final int FILE_VERSION = 1;
+
+    private static ReportCache cacheInstance;
+    private final Map<ReportType, CachedReport<?>> reports = new EnumMap<>(ReportType.class);
+    private final CountReport monthReport;
+    private final CountReport customerReport;
+    private final ScheduleReport scheduleReport;
+    private final Path path;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+    private final Set<List<ChangeEvent<?>>> changesDuringBuilds = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Executor changeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "report-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ReportCache(EventBus eventBus,
+                        Map<ReportType, Duration> timesToLive,
+                        Path path,
+                        Clock clock,
+                        MetricRegistry metricRegistry) {
+        this.monthReport = new CountReport(timesToLive.get(ReportType.APPOINTMENT_TYPES_BY_MONTH),
+                appointment -> appointment.getTime().getLocationStart().getMonth().name(), false);
+        this.customerReport = new CountReport(timesToLive.get(ReportType.APPOINTMENT_TYPES_BY_CUSTOMER),
+                appointment -> appointment.getCustomerDTO().getName(), true);
+        this.scheduleReport = new ScheduleReport(timesToLive.get(ReportType.SCHEDULE_BY_CONSULTANT));
+        this.reports.put(ReportType.APPOINTMENT_TYPES_BY_MONTH, monthReport);
+        this.reports.put(ReportType.APPOINTMENT_TYPES_BY_CUSTOMER, customerReport);
+        this.reports.put(ReportType.SCHEDULE_BY_CONSULTANT, scheduleReport);
+        this.path = path;
+        this.clock = clock;
+        this.hits = metricRegistry.counter("report.cache.hits");
+        this.misses = metricRegistry.counter("report.cache.misses");
+        readFile();
+        eventBus.subscribe(AppointmentChangeEvent.class, this::onChange);
+        eventBus.subscribe(CustomerChangeEvent.class, this::onChange);
+    }
+
+    /**
+     * @param timesToLive how long each report is kept before it is built again.
+     * @param path        the file the count reports are written to, or null to only keep them in memory.
+     */
+    public static ReportCache getInstance(EventBus eventBus, Map<ReportType, Duration> timesToLive, Path path, Clock clock) {
+        if (cacheInstance == null) {
+            cacheInstance = new ReportCache(eventBus, timesToLive, path, clock, MetricRegistry.getInstance());
+        }
+        return cacheInstance;
+    }
+
+    public ReportAggregationDTO<Map<String, Long>> getAppointmentTypeCountByMonth(
+            CheckedSupplier<List<AppointmentDTO>> appointmentSupplier) throws DAOException {
+        return monthReport.get(appointmentSupplier);
+    }
+
+    public ReportAggregationDTO<Map<String, Long>> getAppointmentTypeCountByCustomer(
+            CheckedSupplier<List<AppointmentDTO>> appointmentSupplier) throws DAOException {
+        return customerReport.get(appointmentSupplier);
+    }
+
+    public ReportAggregationDTO<List<AppointmentDTO>> getAppointmentsByContact(
+            CheckedSupplier<List<AppointmentDTO>> appointmentSupplier) throws DAOException {
+        return scheduleReport.get(appointmentSupplier);
+    }
+
+    private void onChange(ChangeEvent<?> event) {
+        changeExecutor.execute(() -> {
+            synchronized (this) {
+                reports.values().forEach(report -> report.apply(event));
+                changesDuringBuilds.forEach(changes -> changes.add(event));
+            }
+            writeFile();
+        });
+    }
+
+    /**
+     * Writes the count reports as they are now, holding the cache only while they are copied.
+     */
+    private void writeFile() {
+        if (path == null) {
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            synchronized (this) {
+                final DataOutputStream output = new DataOutputStream(bytes);
+                output.writeInt(FILE_VERSION);
+                for (ReportType reportType : Arrays.asList(ReportType.APPOINTMENT_TYPES_BY_MONTH, ReportType.APPOINTMENT_TYPES_BY_CUSTOMER)) {
+                    ((CountReport) reports.get(reportType)).write(reportType, output);
+                }
+                output.flush();
+            }
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(tempPath, bytes.toByteArray());
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log("there was an issue writing the report cache: " + e.getMessage());
+        }
+    }
+
+    private void readFile() {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != FILE_VERSION) {
+                return;
+            }
+            for (int i = 0; i < 2; i++) {
+                final ReportType reportType = ReportType.valueOf(input.readUTF());
+                ((CountReport) reports.get(reportType)).read(input);
+            }
+        } catch (IOException | IllegalArgumentException | ClassCastException e) {
+            logger.log("there was an issue reading the report cache: " + e.getMessage());
+            reports.values().forEach(CachedReport::invalidate);
+        }
+    }
+
+    /**
+     * The group and appointment type an appointment was counted in.
+     */
+    private static final class Membership {
+
+        private final String group;
+        private final String type;
+        private final int customerId;
+
+        private Membership(String group, String type, int customerId) {
+            this.group = group;
+            this.type = type;
+            this.customerId = customerId;
+        }
+    }
+
+    /**
+     * @param <T> the type of each group of the report.
+     */
+    private abstract class CachedReport<T> {
+
+        private final Duration timeToLive;
+        protected Map<String, T> data;
+        protected Map<Integer, Membership> memberships;
+        protected Instant builtAt;
+
+        private CachedReport(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        abstract String getGroup(AppointmentDTO appointment);
+
+        abstract void add(String group, AppointmentDTO appointment);
+
+        abstract void remove(int appointmentId, Membership membership);
+
+        /**
+         * Moves the customer's appointments to the customer's new name, where the report shows it.
+         */
+        abstract void onCustomerUpdated(int customerId, String customerName);
+
+        /**
+         * @return a copy of the groups, so they are not changed while the caller reads them.
+         */
+        abstract Map<String, T> copyData();
+
+        /**
+         * @return an empty report of the same kind, to build without holding the cache.
+         */
+        abstract CachedReport<T> newReport();
+
+        /**
+         * Builds the report again once its time to live runs out. It is built into a report of its own while
+         * the cache is not held, and the changes made in the meantime are applied to it before it is swapped
+         * in. A change the appointments read already include is applied again to the same effect.
+         */
+        ReportAggregationDTO<T> get(CheckedSupplier<List<AppointmentDTO>> appointmentSupplier) throws DAOException {
+            final List<ChangeEvent<?>> changes = new ArrayList<>();
+            synchronized (ReportCache.this) {
+                if (data != null && clock.instant().isBefore(builtAt.plus(timeToLive))) {
+                    hits.increment();
+                    return toAggregation(copyData());
+                }
+                misses.increment();
+                changesDuringBuilds.add(changes);
+            }
+            final CachedReport<T> built = newReport();
+            final Map<String, T> builtData;
+            try {
+                built.build(appointmentSupplier.getWithIO());
+            } finally {
+                synchronized (ReportCache.this) {
+                    changesDuringBuilds.remove(changes);
+                }
+            }
+            synchronized (ReportCache.this) {
+                changes.forEach(built::apply);
+                data = built.data;
+                memberships = built.memberships;
+                builtAt = built.builtAt;
+                builtData = copyData();
+            }
+            if (path != null) {
+                changeExecutor.execute(ReportCache.this::writeFile);
+            }
+            return toAggregation(builtData);
+        }
+
+        void invalidate() {
+            data = null;
+            memberships = null;
+        }
+
+        void apply(ChangeEvent<?> event) {
+            if (event instanceof AppointmentChangeEvent) {
+                onAppointmentChange((AppointmentChangeEvent) event);
+            } else if (event.getType() == ChangeType.DELETED) {
+                onCustomerDeleted(event.getId());
+            } else if (event.getType() == ChangeType.UPDATED) {
+                ((CustomerChangeEvent) event).getValue().ifPresent(customer -> onCustomerUpdated(event.getId(), customer.getName()));
+            }
+        }
+
+        void onAppointmentChange(AppointmentChangeEvent event) {
+            if (data == null) {
+                return;
+            }
+            if (memberships == null) {
+                invalidate();
+                return;
+            }
+            final Membership membership = memberships.remove(event.getId());
+            if (membership != null) {
+                remove(event.getId(), membership);
+            }
+            if (event.getType() != ChangeType.DELETED) {
+                if (event.getValue().isPresent()) {
+                    put(event.getValue().get());
+                } else {
+                    invalidate();
+                }
+            }
+        }
+
+        /**
+         * The customer's appointments are deleted along with it, without their own change events.
+         */
+        void onCustomerDeleted(int customerId) {
+            if (data == null) {
+                return;
+            }
+            if (memberships == null) {
+                invalidate();
+                return;
+            }
+            final Iterator<Map.Entry<Integer, Membership>> entries = memberships.entrySet().iterator();
+            while (entries.hasNext()) {
+                final Map.Entry<Integer, Membership> entry = entries.next();
+                if (entry.getValue().customerId == customerId) {
+                    remove(entry.getKey(), entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+
+        private void build(List<AppointmentDTO> appointments) {
+            data = new HashMap<>();
+            memberships = new HashMap<>();
+            appointments.forEach(this::put);
+            builtAt = clock.instant();
+        }
+
+        private ReportAggregationDTO<T> toAggregation(Map<String, T> reportData) {
+            return new ReportAggregationDTO.Builder<T>()
+                    .withData(reportData)
+                    .build();
+        }
+
+        private void put(AppointmentDTO appointment) {
+            final String group = getGroup(appointment);
+            add(group, appointment);
+            memberships.put(appointment.getId(),
+                    new Membership(group, appointment.getType().getName(), appointment.getCustomerDTO().getId()));
+        }
+    }
+
+    /**
+     * Counts the appointments of each type within each group.
+     */
+    private final class CountReport extends CachedReport<Map<String, Long>> {
+
+        private final Function<AppointmentDTO, String> grouping;
+        private final boolean groupedByCustomer;
+
+        private CountReport(Duration timeToLive, Function<AppointmentDTO, String> grouping, boolean groupedByCustomer) {
+            super(timeToLive);
+            this.grouping = grouping;
+            this.groupedByCustomer = groupedByCustomer;
+        }
+
+        @Override
+        String getGroup(AppointmentDTO appointment) {
+            return grouping.apply(appointment);
+        }
+
+        @Override
+        void add(String group, AppointmentDTO appointment) {
+            increment(group, appointment.getType().getName());
+        }
+
+        @Override
+        void remove(int appointmentId, Membership membership) {
+            final Map<String, Long> counts = data.get(membership.group);
+            if (counts != null) {
+                counts.computeIfPresent(membership.type, (type, count) -> count > 1 ? count - 1 : null);
+                if (counts.isEmpty()) {
+                    data.remove(membership.group);
+                }
+            }
+        }
+
+        @Override
+        void onCustomerUpdated(int customerId, String customerName) {
+            if (!groupedByCustomer || data == null) {
+                return;
+            }
+            if (memberships == null) {
+                invalidate();
+                return;
+            }
+            for (Map.Entry<Integer, Membership> entry : memberships.entrySet()) {
+                final Membership membership = entry.getValue();
+                if (membership.customerId == customerId && !membership.group.equals(customerName)) {
+                    remove(entry.getKey(), membership);
+                    increment(customerName, membership.type);
+                    entry.setValue(new Membership(customerName, membership.type, customerId));
+                }
+            }
+        }
+
+        @Override
+        CachedReport<Map<String, Long>> newReport() {
+            return new CountReport(getTimeToLive(), grouping, groupedByCustomer);
+        }
+
+        @Override
+        Map<String, Map<String, Long>> copyData() {
+            final Map<String, Map<String, Long>> copy = new HashMap<>();
+            data.forEach((group, counts) -> copy.put(group, new HashMap<>(counts)));
+            return copy;
+        }
+
+        private void increment(String group, String type) {
+            data.computeIfAbsent(group, key -> new HashMap<>()).merge(type, 1L, Long::sum);
+        }
+
+        private void write(ReportType reportType, DataOutput output) throws IOException {
+            output.writeUTF(reportType.name());
+            output.writeBoolean(data != null);
+            if (data != null) {
+                output.writeLong(builtAt.toEpochMilli());
+                output.writeInt(data.size());
+                for (Map.Entry<String, Map<String, Long>> group : data.entrySet()) {
+                    output.writeUTF(group.getKey());
+                    output.writeInt(group.getValue().size());
+                    for (Map.Entry<String, Long> count : group.getValue().entrySet()) {
+                        output.writeUTF(count.getKey());
+                        output.writeLong(count.getValue());
+                    }
+                }
+            }
+        }
+
+        private void read(DataInput input) throws IOException {
+            if (!input.readBoolean()) {
+                return;
+            }
+            final Instant readBuiltAt = Instant.ofEpochMilli(input.readLong());
+            final Map<String, Map<String, Long>> readData = new HashMap<>();
+            final int groups = input.readInt();
+            for (int i = 0; i < groups; i++) {
+                final String group = input.readUTF();
+                final Map<String, Long> counts = new HashMap<>();
+                final int types = input.readInt();
+                for (int j = 0; j < types; j++) {
+                    counts.put(input.readUTF(), input.readLong());
+                }
+                readData.put(group, counts);
+            }
+            data = readData;
+            builtAt = readBuiltAt;
+            memberships = null;
+        }
+    }
+
+    /**
+     * The appointments of each contact.
+     */
+    private final class ScheduleReport extends CachedReport<List<AppointmentDTO>> {
+
+        private ScheduleReport(Duration timeToLive) {
+            super(timeToLive);
+        }
+
+        @Override
+        String getGroup(AppointmentDTO appointment) {
+            return appointment.getContact();
+        }
+
+        @Override
+        void add(String group, AppointmentDTO appointment) {
+            data.computeIfAbsent(group, key -> new ArrayList<>()).add(appointment);
+        }
+
+        @Override
+        void remove(int appointmentId, Membership membership) {
+            final List<AppointmentDTO> appointments = data.get(membership.group);
+            if (appointments != null) {
+                appointments.removeIf(appointment -> appointment.getId() == appointmentId);
+                if (appointments.isEmpty()) {
+                    data.remove(membership.group);
+                }
+            }
+        }
+
+        /**
+         * The appointments hold the customer as it was, so they are read again.
+         */
+        @Override
+        void onCustomerUpdated(int customerId, String customerName) {
+            if (data != null && (memberships == null || memberships.values()
+                    .stream()
+                    .anyMatch(membership -> membership.customerId == customerId))) {
+                invalidate();
+            }
+        }
+
+        @Override
+        CachedReport<List<AppointmentDTO>> newReport() {
+            return new ScheduleReport(getTimeToLive());
+        }
+
+        @Override
+        Map<String, List<AppointmentDTO>> copyData() {
+            final Map<String, List<AppointmentDTO>> copy = new HashMap<>();
+            data.forEach((group, appointments) -> copy.put(group, new ArrayList<>(appointments)));
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.c195.service;
+
+import com.c195.common.appointment.AppointmentDTO;
+import com.c195.common.appointment.AppointmentException;
+import com.c195.common.report.ExportFormat;
+import com.c195.common.report.ReportAggregationDTO;
+import com.c195.common.report.ReportException;
+import com.c195.common.report.ReportType;
+import com.c195.dao.DAOException;
+import com.c195.util.export.CsvReportWriter;
+import com.c195.util.export.JsonReportWriter;
+import com.c195.util.export.ReportWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports reports to files.
+ * <p>
+ * The count reports are small enough to be written straight from their aggregations. The schedule
+ * report is written page by page from the appointment table so that memory use stays flat no matter
+ * how many appointments there are, rather than grouping every appointment in memory
+ * the way {@link ReportService#getAppointmentsByContact()} does.
+ */
+public class ReportExportService {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final List<String> MONTH_COLUMNS = Arrays.asList("month", "type", "count");
+    private static final List<String> CUSTOMER_COLUMNS = Arrays.asList("customer", "type", "count");
+    private static final List<String> SCHEDULE_COLUMNS = Arrays.asList(
+            "contact", "id", "title", "type", "location", "customer", "start", "end");
+
+    private static ReportExportService serviceInstance;
+    private final ReportService reportService;
+    private final AppointmentService appointmentService;
+
+    private ReportExportService(ReportService reportService, AppointmentService appointmentService) {
+        this.reportService = reportService;
+        this.appointmentService = appointmentService;
+    }
+
+    public static ReportExportService getInstance(ReportService reportService, AppointmentService appointmentService) {
+        if (serviceInstance == null) {
+            serviceInstance = new ReportExportService(reportService, appointmentService);
+        }
+        return serviceInstance;
+    }
+
+    /**
+     * Exports the given report to a file.
+     *
+     * @param reportType   the report to export.
+     * @param exportFormat the format of the file.
+     * @param path         the file to write, replacing it if it already exists.
+     * @return the number of rows written.
+     * @throws DAOException         if there are issues retrieving report data from the db.
+     * @throws AppointmentException if there are issues with an appointment time.
+     * @throws ReportException      if there are issues writing the file.
+     */
+    public long exportReport(ReportType reportType, ExportFormat exportFormat, Path path)
+            throws DAOException, AppointmentException, ReportException {
+        switch (reportType) {
+            case APPOINTMENT_TYPES_BY_MONTH:
+                return exportCounts(reportService.getAppointmentTypeCountByMonth(), MONTH_COLUMNS, exportFormat, path);
+            case APPOINTMENT_TYPES_BY_CUSTOMER:
+                return exportCounts(reportService.getAppointmentTypeCountByCustomer(), CUSTOMER_COLUMNS, exportFormat, path);
+            default:
+                return exportSchedule(exportFormat, path);
+        }
+    }
+
+    private long exportCounts(ReportAggregationDTO<Map<String, Long>> reportAggregation,
+                              List<String> columns,
+                              ExportFormat exportFormat,
+                              Path path) throws ReportException {
+        long rows = 0;
+        try (final ReportWriter writer = openWriter(exportFormat, path, columns)) {
+            for (Map.Entry<String, Map<String, Long>> group : reportAggregation.getData().entrySet()) {
+                for (Map.Entry<String, Long> count : group.getValue().entrySet()) {
+                    writer.writeRow(group.getKey(), count.getKey(), String.valueOf(count.getValue()));
+                    rows++;
+                }
+            }
+        } catch (IOException e) {
+            throw new ReportException("There was an issue exporting the report", e);
+        }
+        return rows;
+    }
+
+    private long exportSchedule(ExportFormat exportFormat, Path path)
+            throws DAOException, AppointmentException, ReportException {
+        long rows = 0;
+        try (final ReportWriter writer = openWriter(exportFormat, path, SCHEDULE_COLUMNS)) {
+            String lastContact = "";
+            int lastId = 0;
+            List<AppointmentDTO> page;
+            do {
+                page = appointmentService.getAppointmentsByContactAfter(lastContact, lastId, PAGE_SIZE);
+                for (AppointmentDTO appointment : page) {
+                    writer.writeRow(toScheduleRow(appointment));
+                    lastContact = appointment.getContact();
+                    lastId = appointment.getId();
+                    rows++;
+                }
+            } while (page.size() == PAGE_SIZE);
+        } catch (IOException e) {
+            throw new ReportException("There was an issue exporting the report", e);
+        }
+        return rows;
+    }
+
+    private static ReportWriter openWriter(ExportFormat exportFormat, Path path, List<String> columns)
+            throws IOException {
+        if (exportFormat == ExportFormat.JSON) {
+            return new JsonReportWriter(path, columns);
+        }
+        return new CsvReportWriter(path, columns);
+    }
+
+    private static String[] toScheduleRow(AppointmentDTO appointment) {
+        return new String[]{
+                appointment.getContact(),
+                String.valueOf(appointment.getId()),
+                appointment.getTitle(),
+                appointment.getType().getName(),
+                appointment.getLocation().getName(),
+                appointment.getCustomerDTO().getName(),
+                appointment.getTime().getLocationStartISO(),
+                appointment.getTime().getLocationEndISO()
+        };
+    }
+}
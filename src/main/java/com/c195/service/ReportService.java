@@ -1,29 +1,33 @@
 package com.c195.service;
 
 import com.c195.common.appointment.AppointmentDTO;
-import com.c195.common.appointment.AppointmentTime;
 import com.c195.common.report.ReportAggregationDTO;
 import com.c195.dao.DAOException;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Performing these aggregations in memory since the dataset will likely be small.
+ * The aggregations are kept in the {@link ReportCache} once built.
  */
 public class ReportService {
 
     private static ReportService serviceInstance;
     private final AppointmentService appointmentService;
+    private final ReportCache reportCache;
+    private final Tracer tracer = Tracer.getInstance();
 
-    private ReportService(AppointmentService appointmentService) {
+    private ReportService(AppointmentService appointmentService, ReportCache reportCache) {
         this.appointmentService = appointmentService;
+        this.reportCache = reportCache;
     }
 
-    public static ReportService getInstance(AppointmentService appointmentService) {
+    public static ReportService getInstance(AppointmentService appointmentService, ReportCache reportCache) {
         if (serviceInstance == null) {
-            serviceInstance = new ReportService(appointmentService);
+            serviceInstance = new ReportService(appointmentService, reportCache);
         }
         return serviceInstance;
     }
@@ -36,13 +40,9 @@ public class ReportService {
      * @throws DAOException if there are issues retrieving appointments from the db.
      */
     public ReportAggregationDTO<Map<String, Long>> getAppointmentTypeCountByMonth() throws DAOException {
-        final Map<String, Map<String, Long>> data = appointmentService.getAllAppointments()
-                .stream()
-                .collect(Collectors.groupingBy(appointment -> toMonth(appointment.getTime()),
-                        Collectors.groupingBy(appointment -> appointment.getType().getName(), Collectors.counting())));
-        return new ReportAggregationDTO.Builder<Map<String, Long>>()
-                .withData(data)
-                .build();
+        try (SpanScope ignored = tracer.startSpan("ReportService.getAppointmentTypeCountByMonth")) {
+            return reportCache.getAppointmentTypeCountByMonth(appointmentService::getAllAppointments);
+        }
     }
 
     /**
@@ -53,13 +53,9 @@ public class ReportService {
      * @throws DAOException if there are issues retrieving appointments from the db.
      */
     public ReportAggregationDTO<Map<String, Long>> getAppointmentTypeCountByCustomer() throws DAOException {
-        final Map<String, Map<String, Long>> data = appointmentService.getAllAppointments()
-                .stream()
-                .collect(Collectors.groupingBy(appointment -> appointment.getCustomerDTO().getName(),
-                        Collectors.groupingBy(appointment -> appointment.getType().getName(), Collectors.counting())));
-        return new ReportAggregationDTO.Builder<Map<String, Long>>()
-                .withData(data)
-                .build();
+        try (SpanScope ignored = tracer.startSpan("ReportService.getAppointmentTypeCountByCustomer")) {
+            return reportCache.getAppointmentTypeCountByCustomer(appointmentService::getAllAppointments);
+        }
     }
 
     /**
@@ -69,16 +65,8 @@ public class ReportService {
      * @throws DAOException if there are issues retrieving appointments from the db.
      */
     public ReportAggregationDTO<List<AppointmentDTO>> getAppointmentsByContact() throws DAOException {
-        return new ReportAggregationDTO.Builder<List<AppointmentDTO>>()
-                .withData(appointmentService.getAllAppointments()
-                        .stream()
-                        .collect(Collectors.groupingBy(AppointmentDTO::getContact)))
-                .build();
-    }
-
-    private static String toMonth(AppointmentTime appointmentTime) {
-        return appointmentTime.getLocationStart()
-                .getMonth()
-                .name();
+        try (SpanScope ignored = tracer.startSpan("ReportService.getAppointmentsByContact")) {
+            return reportCache.getAppointmentsByContact(appointmentService::getAllAppointments);
+        }
     }
 }
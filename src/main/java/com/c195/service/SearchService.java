@@ -0,0 +1,185 @@
+package com.c195.service;
+
+import com.c195.common.appointment.AppointmentChangeEvent;
+import com.c195.common.appointment.AppointmentDTO;
+import com.c195.common.customer.AddressDTO;
+import com.c195.common.customer.CustomerChangeEvent;
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.customer.CustomerDTO;
+import com.c195.common.query.Page;
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
+import com.c195.dao.DAOException;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.util.event.EventBus;
+import com.c195.util.search.SearchIndex;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Type-ahead search over customers and appointments.
+ * <p>
+ * The indexes are built once from the db, page by page, and then kept up to date by the
+ * customer and appointment change events the services publish as they save, update and delete
+ * rows, so searches never have to touch the db.
+ */
+public class SearchService {
+
+    private static final int BUILD_PAGE_SIZE = 1000;
+
+    private static SearchService serviceInstance;
+    private final CustomerRepository customerRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final SearchIndex<CustomerDTO> customerIndex;
+    private final SearchIndex<AppointmentDTO> appointmentIndex;
+
+    private CompletableFuture<Void> indexBuild;
+
+    private SearchService(CustomerRepository customerRepository, AppointmentRepository appointmentRepository) {
+        this.customerRepository = customerRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.customerIndex = new SearchIndex<>(CustomerDTO::getId, SearchService::toCustomerFields);
+        this.appointmentIndex = new SearchIndex<>(AppointmentDTO::getId, SearchService::toAppointmentFields);
+    }
+
+    /**
+     * @param eventBus the bus the customer and appointment changes are published on, which
+     *                 the service subscribes to when it is first created.
+     */
+    public static SearchService getInstance(CustomerRepository customerRepository,
+                                            AppointmentRepository appointmentRepository,
+                                            EventBus eventBus) {
+        if (serviceInstance == null) {
+            serviceInstance = new SearchService(customerRepository, appointmentRepository);
+            eventBus.subscribe(CustomerChangeEvent.class, serviceInstance::onCustomerChange);
+            eventBus.subscribe(AppointmentChangeEvent.class, serviceInstance::onAppointmentChange);
+        }
+        return serviceInstance;
+    }
+
+    /**
+     * Builds the indexes on a background thread, unless they have already been built or are being built.
+     *
+     * @param executor runs the build.
+     * @return a future that completes once the indexes are built.
+     */
+    public synchronized CompletableFuture<Void> buildIndexAsync(Executor executor) {
+        if (indexBuild == null || indexBuild.isCompletedExceptionally()) {
+            indexBuild = CompletableFuture.runAsync(() -> {
+                try {
+                    buildIndex();
+                } catch (DAOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor);
+        }
+        return indexBuild;
+    }
+
+    /**
+     * Builds the indexes from the customers and appointments currently in the db.
+     *
+     * @throws DAOException if there are issues retrieving customers or appointments from the db.
+     */
+    public void buildIndex() throws DAOException {
+        QuerySpec<CustomerColumn> customerSpec = new QuerySpec.Builder<CustomerColumn>()
+                .withSort(CustomerColumn.ID, SortDirection.ASCENDING)
+                .withPageSize(BUILD_PAGE_SIZE)
+                .build();
+        while (customerSpec != null) {
+            final List<CustomerDTO> customers = customerRepository.getCustomerPage(customerSpec)
+                    .stream()
+                    .map(CustomerService::toCustomerDTO)
+                    .collect(Collectors.toList());
+            final Page<CustomerDTO, CustomerColumn> page =
+                    Page.of(customers, customerSpec, (customer, column) -> customer.getId(), CustomerDTO::getId);
+            customerIndex.putAll(page.getItems());
+            customerSpec = page.getNextSpec().orElse(null);
+        }
+        String lastContact = "";
+        int lastId = 0;
+        List<AppointmentDTO> appointments;
+        do {
+            appointments = appointmentRepository.getAppointmentsByContactAfter(lastContact, lastId, BUILD_PAGE_SIZE)
+                    .stream()
+                    .map(AppointmentService::toAppointmentDTO)
+                    .collect(Collectors.toList());
+            appointmentIndex.putAll(appointments);
+            if (!appointments.isEmpty()) {
+                final AppointmentDTO last = appointments.get(appointments.size() - 1);
+                lastContact = last.getContact();
+                lastId = last.getId();
+            }
+        } while (appointments.size() == BUILD_PAGE_SIZE);
+    }
+
+    /**
+     * Finds customers with a name, phone number or address starting with the words of the query.
+     *
+     * @param query the text typed so far.
+     * @param limit the maximum number of customers to return.
+     * @return matching customers.
+     */
+    public List<CustomerDTO> searchCustomers(String query, int limit) {
+        return customerIndex.search(query, limit);
+    }
+
+    /**
+     * Finds appointments with a title, contact or customer starting with the words of the query.
+     *
+     * @param query the text typed so far.
+     * @param limit the maximum number of appointments to return.
+     * @return matching appointments.
+     */
+    public List<AppointmentDTO> searchAppointments(String query, int limit) {
+        return appointmentIndex.search(query, limit);
+    }
+
+    /**
+     * Re-indexes a customer after it has been saved or updated, or drops it once deleted.
+     */
+    private void onCustomerChange(CustomerChangeEvent event) {
+        final Optional<CustomerDTO> customer = event.getValue();
+        if (customer.isPresent()) {
+            customerIndex.put(customer.get());
+        } else {
+            customerIndex.remove(event.getId());
+        }
+    }
+
+    /**
+     * Re-indexes an appointment after it has been saved or updated, or drops it once deleted.
+     */
+    private void onAppointmentChange(AppointmentChangeEvent event) {
+        final Optional<AppointmentDTO> appointment = event.getValue();
+        if (appointment.isPresent()) {
+            appointmentIndex.put(appointment.get());
+        } else {
+            appointmentIndex.remove(event.getId());
+        }
+    }
+
+    private static Stream<String> toCustomerFields(CustomerDTO customer) {
+        final AddressDTO address = customer.getAddressDTO();
+        return Stream.of(customer.getName(),
+                address.getPhone(),
+                address.getAddress(),
+                address.getCity(),
+                address.getCountry(),
+                address.getPostalCode());
+    }
+
+    private static Stream<String> toAppointmentFields(AppointmentDTO appointment) {
+        return Stream.of(appointment.getTitle(),
+                appointment.getContact(),
+                appointment.getCustomerDTO().getName(),
+                appointment.getType().getName(),
+                appointment.getLocation().getName());
+    }
+}
@@ -1,17 +1,32 @@
 package com.c195.service;
 
-import com.c195.dao.*;
+import com.c195.common.report.ReportType;
+import com.c195.dao.config.PersistenceConfig;
+import com.c195.dao.repository.RepositoryFactory;
+import com.c195.util.event.EventBus;
+import com.c195.util.security.PasswordHasher;
+import com.c195.util.security.SecurityConfig;
 
-import java.sql.Connection;
 import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class ServiceResolver {
 
-    private final Connection connection;
+    private final RepositoryFactory repositoryFactory;
+    private final SecurityConfig securityConfig;
+    private final PersistenceConfig persistenceConfig;
     private final Clock clock;
 
-    public ServiceResolver(Connection connection, Clock clock) {
-        this.connection = connection;
+    public ServiceResolver(RepositoryFactory repositoryFactory,
+                           SecurityConfig securityConfig,
+                           PersistenceConfig persistenceConfig,
+                           Clock clock) {
+        this.repositoryFactory = repositoryFactory;
+        this.securityConfig = securityConfig;
+        this.persistenceConfig = persistenceConfig;
         this.clock = clock;
     }
 
@@ -20,25 +35,55 @@ public class ServiceResolver {
     }
 
     public UserService getUserService() {
-        return UserService.getInstance(UserDAO.getInstance(connection));
+        final PasswordHasher passwordHasher = new PasswordHasher(securityConfig.getHashIterations());
+        return UserService.getInstance(repositoryFactory.getUserRepository(),
+                passwordHasher,
+                securityConfig.getFailedLoginDuration(),
+                clock);
     }
 
     public ReportService getReportService() {
-        return ReportService.getInstance(getAppointmentService());
+        return ReportService.getInstance(getAppointmentService(), getReportCache());
+    }
+
+    public ReportCache getReportCache() {
+        final Map<ReportType, Duration> timesToLive = new EnumMap<>(ReportType.class);
+        Arrays.stream(ReportType.values())
+                .forEach(reportType -> timesToLive.put(reportType, persistenceConfig.getReportTimeToLive(reportType)));
+        return ReportCache.getInstance(EventBus.getInstance(),
+                timesToLive,
+                persistenceConfig.getReportCachePath().orElse(null),
+                clock);
+    }
+
+    public ReportExportService getReportExportService() {
+        return ReportExportService.getInstance(getReportService(), getAppointmentService());
     }
 
     public AppointmentService getAppointmentService() {
-        return AppointmentService.getInstance(AppointmentDAO.getInstance(connection), clock);
+        return AppointmentService.getInstance(repositoryFactory.getAppointmentRepository(), EventBus.getInstance(), clock);
     }
 
     public CustomerService getCustomerService() {
-        return CustomerService.getInstance(CustomerDAO.getInstance(connection), getAddressService(), clock);
+        return CustomerService.getInstance(repositoryFactory.getCustomerRepository(),
+                getAddressService(),
+                EventBus.getInstance(),
+                clock);
+    }
+
+    public SearchService getSearchService() {
+        return SearchService.getInstance(repositoryFactory.getCustomerRepository(),
+                repositoryFactory.getAppointmentRepository(),
+                EventBus.getInstance());
+    }
+
+    public ChangeDetectionService getChangeDetectionService() {
+        return ChangeDetectionService.getInstance(repositoryFactory.getCustomerRepository(),
+                repositoryFactory.getAppointmentRepository(),
+                EventBus.getInstance());
     }
 
     public AddressService getAddressService() {
-        final AddressDAO addressDAO = AddressDAO.getInstance(connection);
-        final CityDAO cityDAO = CityDAO.getInstance(connection);
-        final CountryDAO countryDAO = CountryDAO.getInstance(connection);
-        return AddressService.getInstance(addressDAO, cityDAO, countryDAO, clock);
+        return AddressService.getInstance(repositoryFactory.getAddressRepository(), EventBus.getInstance(), clock);
     }
 }
@@ -2,25 +2,67 @@ package com.c195.service;
 
 import com.c195.common.UserDTO;
 import com.c195.dao.DAOException;
-import com.c195.dao.UserDAO;
+import com.c195.dao.MetadataDAO;
+import com.c195.dao.repository.UserRepository;
 import com.c195.model.User;
+import com.c195.util.metrics.Counter;
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.Timer;
+import com.c195.util.security.PasswordHasher;
+import com.c195.util.tracing.SpanScope;
+import com.c195.util.tracing.Tracer;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Users and login.
+ * <p>
+ * Passwords are checked against salted hashes in the app, so they are never sent to the db.
+ * Rows that still hold a plain text password, or a hash with a lower work factor than the current one,
+ * are rehashed the next time their user logs in. A failed login is remembered for a short time and
+ * further attempts for the same username are rejected straight away, which keeps repeated guesses
+ * from costing a db round trip and a hash each.
+ */
 public class UserService {
 
+    private static final int MAX_FAILED_LOGINS = 1000;
+
     private static UserService serviceInstance;
-    private final UserDAO userDAO;
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final Duration failedLoginDuration;
+    private final Clock clock;
+    private final Map<String, Instant> failedLogins = new ConcurrentHashMap<>();
+    private final Timer loginTimer;
+    private final Counter failedLoginCounter;
+    private final Counter rejectedLoginCounter;
+    private final Tracer tracer = Tracer.getInstance();
 
-    private User currentUser;
+    private volatile User currentUser;
+    private volatile String unknownUserHash;
 
-    private UserService(UserDAO userDAO) {
-        this.userDAO = userDAO;
+    private UserService(UserRepository userRepository, PasswordHasher passwordHasher, Duration failedLoginDuration, Clock clock) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.failedLoginDuration = failedLoginDuration;
+        this.clock = clock;
+        final MetricRegistry metricRegistry = MetricRegistry.getInstance();
+        this.loginTimer = metricRegistry.timer("login.latency");
+        this.failedLoginCounter = metricRegistry.counter("login.failed");
+        this.rejectedLoginCounter = metricRegistry.counter("login.rejected");
     }
 
-    public static UserService getInstance(UserDAO userDAO) {
+    public static UserService getInstance(UserRepository userRepository,
+                                          PasswordHasher passwordHasher,
+                                          Duration failedLoginDuration,
+                                          Clock clock) {
         if (serviceInstance == null) {
-            serviceInstance = new UserService(userDAO);
+            serviceInstance = new UserService(userRepository, passwordHasher, failedLoginDuration, clock);
         }
         return serviceInstance;
     }
@@ -37,7 +79,7 @@ public class UserService {
 
     /**
      * Validates the existence of a given username and password
-     * for login purposes.
+     * for login purposes. Hashing is deliberately slow, so this should not be called on the FX thread.
      *
      * @param username in which to validate for the login attempt.
      * @param password in which to validate for the login attempt.
@@ -45,8 +87,31 @@ public class UserService {
      * @throws DAOException if there are issues retrieving users from the db.
      */
     public boolean login(String username, String password) throws DAOException {
-        userDAO.getUserByUsernameAndPassword(username, password).ifPresent(user -> this.currentUser = user);
-        return getCurrentUser().isPresent();
+        try (SpanScope ignored = tracer.startSpan("UserService.login")) {
+            final long start = System.nanoTime();
+            try {
+                final String failedLoginKey = username.toLowerCase();
+                if (isRecentlyFailed(failedLoginKey)) {
+                    rejectedLoginCounter.increment();
+                    return false;
+                }
+                final Optional<User> user = userRepository.getUserByUsername(username);
+                // an unknown username is still checked against a hash so it takes as long as a wrong password
+                final String storedPassword = user.map(User::getPassword).orElseGet(this::getUnknownUserHash);
+                if (!passwordHasher.verify(password, storedPassword) || !user.isPresent()) {
+                    failedLoginCounter.increment();
+                    recordFailedLogin(failedLoginKey);
+                    return false;
+                }
+                if (passwordHasher.needsRehash(storedPassword)) {
+                    rehash(user.get(), password);
+                }
+                this.currentUser = user.get();
+                return true;
+            } finally {
+                loginTimer.recordSince(start);
+            }
+        }
     }
 
     /**
@@ -56,6 +121,41 @@ public class UserService {
         getCurrentUser().ifPresent(currentUser -> this.currentUser = null);
     }
 
+    private void rehash(User user, String password) throws DAOException {
+        user.setPassword(passwordHasher.hash(password));
+        user.setMetadata(MetadataDAO.getUpdateMetadata(user.getUsername(), clock.instant()));
+        userRepository.updatePassword(user);
+    }
+
+    private boolean isRecentlyFailed(String failedLoginKey) {
+        final Instant expiry = failedLogins.get(failedLoginKey);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry.isAfter(clock.instant())) {
+            return true;
+        }
+        failedLogins.remove(failedLoginKey, expiry);
+        return false;
+    }
+
+    private void recordFailedLogin(String failedLoginKey) {
+        final Instant now = clock.instant();
+        if (failedLogins.size() >= MAX_FAILED_LOGINS) {
+            failedLogins.values().removeIf(expiry -> !expiry.isAfter(now));
+        }
+        if (failedLogins.size() < MAX_FAILED_LOGINS) {
+            failedLogins.put(failedLoginKey, now.plus(failedLoginDuration));
+        }
+    }
+
+    private String getUnknownUserHash() {
+        if (unknownUserHash == null) {
+            unknownUserHash = passwordHasher.hash("");
+        }
+        return unknownUserHash;
+    }
+
     public static User toUser(UserDTO userDTO) {
         final User user = new User();
         user.setId(userDTO.getId());
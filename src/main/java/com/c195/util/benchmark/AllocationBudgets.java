@@ -0,0 +1,253 @@
+package com.c195.util.benchmark;
+
+import com.c195.common.appointment.AppointmentDTO;
+import com.c195.common.report.ReportType;
+import com.c195.dao.AppointmentDAO;
+import com.c195.model.*;
+import com.c195.service.AppointmentService;
+import com.c195.service.CustomerService;
+import com.c195.service.MessagingService;
+import com.c195.service.ReportCache;
+import com.c195.util.event.EventBus;
+import com.c195.util.logging.Logger;
+import com.c195.util.logging.LoggingConfig;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Measures how many bytes the hot mapping paths allocate per call and checks them against a budget
+ * declared for each, so the garbage they leave behind does not creep up unnoticed.
+ * <p>
+ * Each operation is warmed up first so it is measured as compiled, and then the bytes the thread
+ * allocated over many calls are averaged. Budgets are set with some headroom over what the operations
+ * allocate today; raise one only along with the change that needs it. The exit status is 1 if any
+ * operation went over its budget.
+ * <p>
+ * Needs a JVM that reports allocated bytes per thread, which HotSpot does. Measuring the logger appends
+ * its calls to the day's log.
+ */
+public final class AllocationBudgets {
+
+    private static final int WARMUP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 20_000;
+    private static final int REPORT_APPOINTMENTS = 200;
+
+    private final List<Budget> budgets = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    private AllocationBudgets() throws Exception {
+        final Appointment appointment = newAppointment(1, "Sales", "New York", "Jane Doe");
+        final ResultSet resultSet = newResultSet(toRow(appointment));
+        final List<AppointmentDTO> reportAppointments = newReportAppointments();
+        final Map<ReportType, Duration> noCaching = new EnumMap<>(ReportType.class);
+        for (ReportType reportType : ReportType.values()) {
+            noCaching.put(reportType, Duration.ZERO);
+        }
+        // kept from caching so every call builds the report again, which is what is measured
+        final ReportCache reportCache = ReportCache.getInstance(EventBus.getInstance(), noCaching, null, Clock.systemUTC());
+        final MessagingService messagingService = MessagingService.getInstance();
+        final Logger logger = Logger.getLogger(AllocationBudgets.class);
+        Files.createDirectories(Paths.get(LoggingConfig.getInstance().getDirectory()));
+
+        // the result set stand-in allocates an argument array per column read, which is counted as well
+        budget("AppointmentDAO.toAppointment", 1_250, () -> AppointmentDAO.toAppointment(resultSet));
+        budget("AppointmentService.toAppointmentDTO", 1_800, () -> AppointmentService.toAppointmentDTO(appointment));
+        budget("CustomerService.toCustomerDTO", 200, () -> CustomerService.toCustomerDTO(appointment.getCustomer()));
+        // most of it is opening the log file again for every line
+        budget("Logger.log", 36_000, () -> {
+            logger.log("allocation budget");
+            return null;
+        });
+        budget("MessagingService.lookup", 0, messagingService::getInvalidLogin);
+        // building a report over the same appointments each time
+        budget("ReportCache.appointmentTypeCountByMonth", 25_000,
+                () -> reportCache.getAppointmentTypeCountByMonth(() -> reportAppointments));
+        budget("ReportCache.appointmentTypeCountByCustomer", 30_000,
+                () -> reportCache.getAppointmentTypeCountByCustomer(() -> reportAppointments));
+        budget("ReportCache.appointmentsByContact", 27_000,
+                () -> reportCache.getAppointmentsByContact(() -> reportAppointments));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final AllocationBudgets allocationBudgets = new AllocationBudgets();
+        final List<String> exceeded = new ArrayList<>();
+        for (Budget budget : allocationBudgets.budgets) {
+            final long bytesPerCall = allocationBudgets.measure(budget.operation);
+            System.out.printf("%-45s %8d bytes/call (budget %d)%n", budget.name, bytesPerCall, budget.maxBytesPerCall);
+            if (bytesPerCall > budget.maxBytesPerCall) {
+                exceeded.add(String.format("%s allocates %d bytes per call, over its budget of %d",
+                        budget.name, bytesPerCall, budget.maxBytesPerCall));
+            }
+        }
+        exceeded.forEach(message -> System.out.println("OVER BUDGET " + message));
+        if (!exceeded.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private void budget(String name, long maxBytesPerCall, Operation operation) {
+        budgets.add(new Budget(name, maxBytesPerCall, operation));
+    }
+
+    private long measure(Operation operation) throws Exception {
+        final long threadId = Thread.currentThread().getId();
+        Object sink = null;
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink = operation.run();
+        }
+        // what reading the allocated bytes allocates itself is taken off the result
+        final long overheadStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        final long overhead = threadMXBean.getThreadAllocatedBytes(threadId) - overheadStart;
+        final long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            sink = operation.run();
+        }
+        final long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes - overhead;
+        Objects.hashCode(sink);
+        return Math.max(0, allocatedBytes / MEASURED_CALLS);
+    }
+
+    private static List<AppointmentDTO> newReportAppointments() throws Exception {
+        final String[] types = {"Sales", "Support"};
+        final String[] locations = {"New York", "Phoenix", "London"};
+        final List<AppointmentDTO> appointments = new ArrayList<>(REPORT_APPOINTMENTS);
+        for (int i = 0; i < REPORT_APPOINTMENTS; i++) {
+            appointments.add(AppointmentService.toAppointmentDTO(
+                    newAppointment(i + 1, types[i % types.length], locations[i % locations.length], "Contact " + i % 10)));
+        }
+        return appointments;
+    }
+
+    private static Appointment newAppointment(int id, String type, String location, String contact) {
+        final Instant start = Instant.parse("2020-03-02T15:00:00Z").plus(Duration.ofDays(id % 300));
+        final Metadata metadata = new Metadata.Builder()
+                .withCreatedDate(start.minus(Duration.ofDays(7)))
+                .withCreatedBy("test")
+                .withUpdatedDate(start.minus(Duration.ofDays(7)))
+                .withUpdatedBy("test")
+                .build();
+        final Country country = new Country();
+        country.setId(1);
+        country.setCountry("united states");
+        country.setMetadata(metadata);
+        final City city = new City();
+        city.setId(1);
+        city.setCity("new york");
+        city.setCountry(country);
+        city.setMetadata(metadata);
+        final Address address = new Address();
+        address.setId(id);
+        address.setAddress("123 Main St");
+        address.setAddress2("");
+        address.setCity(city);
+        address.setPostalCode("10001");
+        address.setPhone("555-123-4567");
+        address.setMetadata(metadata);
+        final Customer customer = new Customer();
+        customer.setId(id % 20 + 1);
+        customer.setName("Customer " + (id % 20 + 1));
+        customer.setAddress(address);
+        customer.setActive(true);
+        customer.setMetadata(metadata);
+        final User user = new User();
+        user.setId(1);
+        user.setUsername("test");
+        user.setPassword("");
+        user.setActive(true);
+        user.setMetadata(metadata);
+        final Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setCustomer(customer);
+        appointment.setUser(user);
+        appointment.setTitle(type + " meeting");
+        appointment.setDescription("Quarterly review");
+        appointment.setLocation(location);
+        appointment.setContact(contact);
+        appointment.setType(type);
+        appointment.setUrl("https://example.com");
+        appointment.setStart(start);
+        appointment.setEnd(start.plus(Duration.ofMinutes(30)));
+        appointment.setMetadata(metadata);
+        return appointment;
+    }
+
+    /**
+     * @return the columns of the appointment query's joined row for the appointment.
+     */
+    private static Map<String, Object> toRow(Appointment appointment) {
+        final Customer customer = appointment.getCustomer();
+        final Address address = customer.getAddress();
+        final Metadata metadata = appointment.getMetadata();
+        final Map<String, Object> row = new HashMap<>();
+        row.put("appointmentId", appointment.getId());
+        row.put("title", appointment.getTitle());
+        row.put("description", appointment.getDescription());
+        row.put("location", appointment.getLocation());
+        row.put("contact", appointment.getContact());
+        row.put("type", appointment.getType());
+        row.put("url", appointment.getUrl());
+        row.put("start", Timestamp.from(appointment.getStart()));
+        row.put("end", Timestamp.from(appointment.getEnd()));
+        row.put("customerId", customer.getId());
+        row.put("customerName", customer.getName());
+        row.put("active", customer.isActive());
+        row.put("addressId", address.getId());
+        row.put("address", address.getAddress());
+        row.put("address2", address.getAddress2());
+        row.put("postalCode", address.getPostalCode());
+        row.put("phone", address.getPhone());
+        row.put("cityId", address.getCity().getId());
+        row.put("city", address.getCity().getCity());
+        row.put("countryId", address.getCity().getCountry().getId());
+        row.put("country", address.getCity().getCountry().getCountry());
+        row.put("userId", appointment.getUser().getId());
+        row.put("userName", appointment.getUser().getUsername());
+        row.put("password", appointment.getUser().getPassword());
+        row.put("createDate", Timestamp.from(metadata.getCreatedDate()));
+        row.put("createdBy", metadata.getCreatedBy());
+        row.put("lastUpdate", Timestamp.from(metadata.getUpdatedDate()));
+        row.put("lastUpdateBy", metadata.getUpdatedBy());
+        return row;
+    }
+
+    /**
+     * @return a result set positioned on the row, which only supports reading its columns by name.
+     */
+    private static ResultSet newResultSet(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("get") && args != null && args.length == 1 && args[0] instanceof String) {
+                        return row.get(args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static final class Budget {
+
+        private final String name;
+        private final long maxBytesPerCall;
+        private final Operation operation;
+
+        private Budget(String name, long maxBytesPerCall, Operation operation) {
+            this.name = name;
+            this.maxBytesPerCall = maxBytesPerCall;
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.c195.util.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Results of an earlier benchmark run stored in a properties file, for telling whether a later run
+ * regressed. Each result is stored as its ops/s and p99 under the result's key.
+ * <p>
+ * Results on different hardware are not comparable, so a baseline is only meaningful for runs on the
+ * machine it was recorded on.
+ */
+public final class BenchmarkBaseline {
+
+    private final Properties baseline;
+
+    private BenchmarkBaseline(Properties baseline) {
+        this.baseline = baseline;
+    }
+
+    public static BenchmarkBaseline load(Path path) throws IOException {
+        final Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            baseline.load(reader);
+        }
+        return new BenchmarkBaseline(baseline);
+    }
+
+    public static void save(Path path, List<BenchmarkResult> results) throws IOException {
+        final Properties baseline = new Properties();
+        for (BenchmarkResult result : results) {
+            baseline.setProperty(result.getKey() + ".opsPerSecond", String.format("%.1f", result.getOpsPerSecond()));
+            baseline.setProperty(result.getKey() + ".p99Nanos", String.valueOf(result.getP99Nanos()));
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            baseline.store(writer, "DAO benchmark baseline");
+        }
+    }
+
+    /**
+     * Compares the results against the baseline. Results missing from the baseline are not compared.
+     *
+     * @param tolerance how much worse than the baseline a result may be, such as 0.2 for 20%.
+     * @return a description of each result whose ops/s fell or whose p99 rose by more than the tolerance.
+     */
+    public List<String> findRegressions(List<BenchmarkResult> results, double tolerance) {
+        final List<String> regressions = new ArrayList<>();
+        for (BenchmarkResult result : results) {
+            final String opsPerSecond = baseline.getProperty(result.getKey() + ".opsPerSecond");
+            if (opsPerSecond != null && result.getOpsPerSecond() < Double.parseDouble(opsPerSecond) * (1 - tolerance)) {
+                regressions.add(String.format("%s fell to %.1f ops/s from %s ops/s",
+                        result.getKey(), result.getOpsPerSecond(), opsPerSecond));
+            }
+            final String p99Nanos = baseline.getProperty(result.getKey() + ".p99Nanos");
+            if (p99Nanos != null && result.getP99Nanos() > Long.parseLong(p99Nanos) * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 rose to %.3fms from %.3fms",
+                        result.getKey(), result.getP99Nanos() / 1e6, Long.parseLong(p99Nanos) / 1e6));
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,67 @@
+package com.c195.util.benchmark;
+
+/**
+ * The throughput and latencies of one operation at one dataset scale and thread count.
+ */
+public final class BenchmarkResult {
+
+    private final int scale;
+    private final String operation;
+    private final int threads;
+    private final double opsPerSecond;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+    BenchmarkResult(int scale, String operation, int threads, double opsPerSecond,
+                    long p50Nanos, long p99Nanos, long p999Nanos) {
+        this.scale = scale;
+        this.operation = operation;
+        this.threads = threads;
+        this.opsPerSecond = opsPerSecond;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+    /**
+     * @return the name results are stored in a baseline under, such as "10000.appointment.byId.4".
+     */
+    public String getKey() {
+        return scale + "." + operation + "." + threads;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public double getOpsPerSecond() {
+        return opsPerSecond;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-9d %-32s %3d threads %12.1f ops/s  p50 %9.3fms  p99 %9.3fms  p999 %9.3fms",
+                scale, operation, threads, opsPerSecond, p50Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6);
+    }
+}
@@ -0,0 +1,287 @@
+package com.c195.util.benchmark;
+
+import com.c195.common.appointment.AppointmentColumn;
+import com.c195.common.customer.CustomerColumn;
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
+import com.c195.dao.DAOException;
+import com.c195.dao.DatasetDAO;
+import com.c195.dao.MysqlRepositoryFactory;
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.config.MysqlConfig;
+import com.c195.dao.config.MysqlConnection;
+import com.c195.dao.migration.MigrationRunner;
+import com.c195.dao.repository.AddressRepository;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.dao.repository.CustomerRepository;
+import com.c195.model.Appointment;
+import com.c195.model.Customer;
+import com.c195.model.Metadata;
+import com.c195.util.generate.DatasetGenerator;
+import com.c195.util.generate.DatasetSpec;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures the throughput and latencies of the SQL in the appointment, customer and address DAOs against
+ * the db configured in mysql.properties, which is expected to be a throwaway one such as the one started
+ * by bin/dao-benchmark.sh as it is filled with generated data.
+ * <p>
+ * The db is filled up to each scale in turn, counted in appointments, and every operation is run for a
+ * while at each thread count. The threads share the one connection the DAOs are given, the same as in
+ * the app, so more threads show how the queries contend for it rather than how the db scales.
+ * <p>
+ * Arguments are given as --name=value: scales and threads (comma separated), warmup and seconds (how long
+ * each run warms up and is measured for), baseline (a properties file to compare the results against),
+ * tolerance (how much worse than the baseline a result may be, 0.2 by default) and save-baseline (a file
+ * to store the results in). The exit status is 1 if any result regressed.
+ */
+public final class DaoBenchmark {
+
+    private static final int SAMPLE_SIZE = 1000;
+    private static final int PAGE_SIZE = 25;
+
+    private final AppointmentRepository appointmentRepository;
+    private final CustomerRepository customerRepository;
+    private final AddressRepository addressRepository;
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final List<Appointment> sampleAppointments = new ArrayList<>();
+    private final List<Customer> sampleCustomers = new ArrayList<>();
+    private List<Integer> appointmentIds;
+    private List<Integer> customerIds;
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(ThreadLocalRandom random) throws DAOException;
+    }
+
+    private DaoBenchmark(MysqlRepositoryFactory repositoryFactory) {
+        this.appointmentRepository = repositoryFactory.getAppointmentRepository();
+        this.customerRepository = repositoryFactory.getCustomerRepository();
+        this.addressRepository = repositoryFactory.getAddressRepository();
+        addOperations();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> arguments = parseArguments(args);
+        final int[] scales = parseInts(arguments.getOrDefault("scales", "10000,100000,1000000"));
+        final int[] threadCounts = parseInts(arguments.getOrDefault("threads", "1,2,4,8"));
+        final long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.getOrDefault("warmup", "3")));
+        final long measureNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.getOrDefault("seconds", "10")));
+        final double tolerance = Double.parseDouble(arguments.getOrDefault("tolerance", "0.2"));
+
+        final MysqlConfig mysqlConfig = MysqlConfig.getInstance();
+        final Connection connection = MysqlConnection.getInstance(mysqlConfig);
+        MigrationRunner.getInstance(connection, Clock.systemUTC()).migrate();
+        final DaoBenchmark benchmark = new DaoBenchmark(new MysqlRepositoryFactory(connection));
+        final List<BenchmarkResult> results = new ArrayList<>();
+        try {
+            for (int scale : scales) {
+                benchmark.seed(mysqlConfig, scale);
+                benchmark.sample();
+                for (int threads : threadCounts) {
+                    for (Map.Entry<String, Operation> operation : benchmark.operations.entrySet()) {
+                        final BenchmarkResult result = benchmark.run(scale, operation.getKey(), operation.getValue(),
+                                threads, warmupNanos, measureNanos);
+                        System.out.println(result);
+                        results.add(result);
+                    }
+                }
+            }
+        } finally {
+            MysqlConnection.close();
+        }
+
+        if (arguments.containsKey("save-baseline")) {
+            BenchmarkBaseline.save(Paths.get(arguments.get("save-baseline")), results);
+        }
+        if (arguments.containsKey("baseline")) {
+            final List<String> regressions = BenchmarkBaseline.load(Paths.get(arguments.get("baseline")))
+                    .findRegressions(results, tolerance);
+            regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private void addOperations() {
+        operations.put("appointment.byId", random ->
+                appointmentRepository.getAppointmentById(pick(appointmentIds, random)));
+        operations.put("appointment.byUserBetween", random -> {
+            final Appointment appointment = pick(sampleAppointments, random);
+            appointmentRepository.getAppointmentsByUserBetween(appointment.getUser().getId(),
+                    appointment.getStart().minus(3, ChronoUnit.DAYS),
+                    appointment.getStart().plus(4, ChronoUnit.DAYS));
+        });
+        operations.put("appointment.overlapping", random -> {
+            final Appointment appointment = pick(sampleAppointments, random);
+            appointmentRepository.getOverlappingAppointmentsByUser(appointment.getUser().getId(),
+                    appointment.getStart(), appointment.getEnd());
+        });
+        operations.put("appointment.page", random -> {
+            final Appointment appointment = pick(sampleAppointments, random);
+            appointmentRepository.getAppointmentPageByUserBetween(appointment.getUser().getId(),
+                    appointment.getStart(), null,
+                    new QuerySpec.Builder<AppointmentColumn>()
+                            .withSort(AppointmentColumn.START, SortDirection.ASCENDING)
+                            .withPageSize(PAGE_SIZE)
+                            .build());
+        });
+        operations.put("appointment.byContactAfter", random ->
+                appointmentRepository.getAppointmentsByContactAfter(
+                        pick(sampleAppointments, random).getContact(), 0, PAGE_SIZE));
+        operations.put("appointment.watermark", random -> appointmentRepository.getAppointmentWatermark());
+        operations.put("appointment.saveAndDelete", random -> {
+            final Appointment appointment = copy(pick(sampleAppointments, random));
+            appointmentRepository.saveAppointment(appointment);
+            appointmentRepository.deleteAppointmentById(appointment.getId());
+        });
+        operations.put("customer.byId", random ->
+                customerRepository.getCustomerById(pick(customerIds, random)));
+        operations.put("customer.page", random -> {
+            final String name = pick(sampleCustomers, random).getName();
+            customerRepository.getCustomerPage(new QuerySpec.Builder<CustomerColumn>()
+                    .withFilter(CustomerColumn.NAME, name.substring(0, Math.min(2, name.length())))
+                    .withSort(CustomerColumn.NAME, SortDirection.ASCENDING)
+                    .withPageSize(PAGE_SIZE)
+                    .build());
+        });
+        operations.put("customer.watermark", random -> customerRepository.getCustomerWatermark());
+        operations.put("address.byAddress", random ->
+                addressRepository.getAddress(pick(sampleCustomers, random).getAddress().getAddress()));
+        operations.put("address.cityByName", random ->
+                addressRepository.getCityByName(pick(sampleCustomers, random).getAddress().getCity().getCity()));
+        operations.put("address.countryByName", random ->
+                addressRepository.getCountryByName(
+                        pick(sampleCustomers, random).getAddress().getCity().getCountry().getCountry()));
+    }
+
+    /**
+     * Generates as many appointments as the db is short of the scale, along with a customer for every
+     * ten of them. Each scale is generated from its own seed so the data is the same on every run.
+     */
+    private void seed(MysqlConfig mysqlConfig, int scale) throws DAOException, DAOConfigException {
+        final int missing = scale - appointmentRepository.getAppointmentWatermark().getRowCount();
+        if (missing <= 0) {
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        final DatasetSpec spec = new DatasetSpec.Builder()
+                .withSeed(scale)
+                .withCustomers(Math.max(1, missing / 10))
+                .withAppointments(missing)
+                .build();
+        try (DatasetDAO datasetDAO = new DatasetDAO(MysqlConnection.openBatchConnection(mysqlConfig))) {
+            // the users are only there to own appointments, nobody logs in as them
+            new DatasetGenerator(spec, "").generate(datasetDAO);
+        }
+        System.out.printf("seeded %d appointments in %dms%n",
+                missing, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Picks the rows the operations look up, so lookups hit rows that exist across the whole dataset.
+     */
+    private void sample() throws DAOException {
+        appointmentIds = appointmentRepository.getAppointmentIds();
+        customerIds = customerRepository.getCustomerIds();
+        final Random random = new Random(appointmentIds.size());
+        sampleAppointments.clear();
+        sampleCustomers.clear();
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            appointmentRepository.getAppointmentById(appointmentIds.get(random.nextInt(appointmentIds.size())))
+                    .ifPresent(sampleAppointments::add);
+            customerRepository.getCustomerById(customerIds.get(random.nextInt(customerIds.size())))
+                    .ifPresent(sampleCustomers::add);
+        }
+    }
+
+    private BenchmarkResult run(int scale, String name, Operation operation, int threads,
+                                long warmupNanos, long measureNanos) throws DAOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final long measureStart = System.nanoTime() + warmupNanos;
+        final long measureEnd = measureStart + measureNanos;
+        final List<Future<LatencySamples>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                final LatencySamples samples = new LatencySamples();
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                long startNanos;
+                while ((startNanos = System.nanoTime()) < measureEnd) {
+                    operation.run(random);
+                    if (startNanos >= measureStart) {
+                        samples.record(System.nanoTime() - startNanos);
+                    }
+                }
+                return samples;
+            }));
+        }
+        final LatencySamples samples = new LatencySamples();
+        try {
+            for (Future<LatencySamples> future : futures) {
+                samples.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Interrupted while running " + name, e);
+        } catch (ExecutionException e) {
+            throw new DAOException("There was an issue running " + name, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new BenchmarkResult(scale, name, threads,
+                samples.size() / (measureNanos / 1e9),
+                samples.percentile(0.5),
+                samples.percentile(0.99),
+                samples.percentile(0.999));
+    }
+
+    private static Appointment copy(Appointment appointment) {
+        final Instant now = Instant.now();
+        final Appointment copy = new Appointment();
+        copy.setCustomer(appointment.getCustomer());
+        copy.setUser(appointment.getUser());
+        copy.setTitle(appointment.getTitle());
+        copy.setDescription(appointment.getDescription());
+        copy.setLocation(appointment.getLocation());
+        copy.setContact(appointment.getContact());
+        copy.setType(appointment.getType());
+        copy.setUrl(appointment.getUrl());
+        copy.setStart(appointment.getStart());
+        copy.setEnd(appointment.getEnd());
+        copy.setMetadata(new Metadata.Builder()
+                .withCreatedDate(now)
+                .withCreatedBy("benchmark")
+                .withUpdatedDate(now)
+                .withUpdatedBy("benchmark")
+                .build());
+        return copy;
+    }
+
+    private static <T> T pick(List<T> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    static Map<String, String> parseArguments(String[] args) {
+        final Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            final String[] nameAndValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (nameAndValue.length != 2) {
+                throw new IllegalArgumentException("Expected an argument of the form --name=value but received " + arg);
+            }
+            arguments.put(nameAndValue[0], nameAndValue[1]);
+        }
+        return arguments;
+    }
+
+    private static int[] parseInts(String values) {
+        return Arrays.stream(values.split(",")).mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+    }
+}
@@ -0,0 +1,46 @@
+package com.c195.util.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Every latency recorded by a single thread during a benchmark run, kept in full so percentiles are
+ * exact rather than estimated. Not thread safe, each thread records into its own samples which are
+ * merged once the run is over.
+ */
+final class LatencySamples {
+
+    private long[] nanos = new long[1024];
+    private int size;
+
+    void record(long elapsedNanos) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = elapsedNanos;
+    }
+
+    void addAll(LatencySamples samples) {
+        if (size + samples.size > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(size + samples.size, size * 2));
+        }
+        System.arraycopy(samples.nanos, 0, nanos, size, samples.size);
+        size += samples.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param percentile between 0 and 1.
+     * @return the latency in nanoseconds that the given share of the samples did not exceed.
+     */
+    long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        Arrays.sort(nanos, 0, size);
+        final int index = (int) Math.ceil(percentile * size) - 1;
+        return nanos[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,230 @@
+package com.c195.util.benchmark;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.DatasetDAO;
+import com.c195.dao.MysqlRepositoryFactory;
+import com.c195.dao.config.MysqlConfig;
+import com.c195.dao.config.MysqlConnection;
+import com.c195.dao.migration.MigrationRunner;
+import com.c195.dao.repository.AppointmentRepository;
+import com.c195.model.Appointment;
+import com.c195.util.generate.DatasetGenerator;
+import com.c195.util.generate.DatasetSpec;
+import com.c195.util.generate.DatasetTable;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the SQL behind {@link AppointmentRepository#getOverlappingAppointmentsByUser} against a plain
+ * filter over the user's whole history, and times it once that history is large. Runs against the db
+ * configured in mysql.properties, which is expected to be a throwaway one such as the one started by
+ * bin/dao-benchmark.sh, as every run generates a new user along with its appointments.
+ * <p>
+ * The user's schedule is generated fuller than fits, so some of the appointments overlap each other. The
+ * intervals queried are drawn around the appointments: random ones, ones touching an appointment's start
+ * or end, ones containing an appointment, ones within one and ones equal to one. Each has to return the
+ * same appointments as the filter, which keeps an appointment when it starts before the interval ends and
+ * ends after the interval starts. The timing then queries random hour long intervals of the history.
+ * <p>
+ * Arguments are given as --name=value: history (how many appointments the user has, 100000 by default),
+ * queries (how many intervals are checked), seed, warmup and seconds (how long the timing warms up and is
+ * measured for), baseline, tolerance and save-baseline, which work as they do for {@link DaoBenchmark}.
+ * The exit status is 1 if any interval returned other appointments than the filter or the timing regressed.
+ */
+public final class OverlapCheck {
+
+    private static final int MAX_MISMATCHES_SHOWN = 20;
+    private static final int INTERVAL_KINDS = 6;
+    // about as many appointments a week as a user has the hours for, so some cannot find a free slot
+    private static final int APPOINTMENTS_PER_WEEK = 60;
+    private static final LocalDate START_DATE = LocalDate.of(2020, 1, 6);
+
+    private final AppointmentRepository appointmentRepository;
+    private final int userId;
+    private final List<Appointment> history;
+
+    private OverlapCheck(AppointmentRepository appointmentRepository, int userId, List<Appointment> history) {
+        this.appointmentRepository = appointmentRepository;
+        this.userId = userId;
+        this.history = history;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> arguments = DaoBenchmark.parseArguments(args);
+        final int historySize = Integer.parseInt(arguments.getOrDefault("history", "100000"));
+        final int queries = Integer.parseInt(arguments.getOrDefault("queries", "5000"));
+        final long seed = Long.parseLong(arguments.getOrDefault("seed", "1"));
+        final long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.getOrDefault("warmup", "3")));
+        final long measureNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.getOrDefault("seconds", "10")));
+        final double tolerance = Double.parseDouble(arguments.getOrDefault("tolerance", "0.2"));
+
+        final MysqlConfig mysqlConfig = MysqlConfig.getInstance();
+        final Connection connection = MysqlConnection.getInstance(mysqlConfig);
+        MigrationRunner.getInstance(connection, Clock.systemUTC()).migrate();
+        final List<String> failures = new ArrayList<>();
+        final BenchmarkResult result;
+        try {
+            final OverlapCheck check = seed(new MysqlRepositoryFactory(connection).getAppointmentRepository(),
+                    mysqlConfig, historySize, seed);
+            failures.addAll(check.compare(new Random(seed), queries));
+            result = check.time(warmupNanos, measureNanos);
+            System.out.println(result);
+        } finally {
+            MysqlConnection.close();
+        }
+
+        failures.stream().limit(MAX_MISMATCHES_SHOWN).forEach(failure -> System.out.println("MISMATCH " + failure));
+        if (failures.size() > MAX_MISMATCHES_SHOWN) {
+            System.out.printf("... and %d more mismatches%n", failures.size() - MAX_MISMATCHES_SHOWN);
+        }
+        final List<BenchmarkResult> results = Collections.singletonList(result);
+        if (arguments.containsKey("save-baseline")) {
+            BenchmarkBaseline.save(Paths.get(arguments.get("save-baseline")), results);
+        }
+        if (arguments.containsKey("baseline")) {
+            final List<String> regressions = BenchmarkBaseline.load(Paths.get(arguments.get("baseline")))
+                    .findRegressions(results, tolerance);
+            regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+            failures.addAll(regressions);
+        }
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates a single user with the given number of appointments and reads them all back.
+     */
+    private static OverlapCheck seed(AppointmentRepository appointmentRepository, MysqlConfig mysqlConfig,
+                                     int historySize, long seed) throws Exception {
+        final int weeks = Math.max(1, historySize / APPOINTMENTS_PER_WEEK);
+        final DatasetSpec spec = new DatasetSpec.Builder()
+                .withSeed(seed)
+                .withUsers(1)
+                .withCustomers(Math.max(1, historySize / 100))
+                .withAppointments(historySize)
+                .withStartDate(START_DATE)
+                .withWeeks(weeks)
+                .build();
+        final long startNanos = System.nanoTime();
+        final int userId;
+        final DatasetGenerator generator = new DatasetGenerator(spec, "");
+        try (DatasetDAO datasetDAO = new DatasetDAO(MysqlConnection.openBatchConnection(mysqlConfig))) {
+            userId = datasetDAO.getFirstId(DatasetTable.USER);
+            generator.generate(datasetDAO);
+        }
+        System.out.printf("seeded %d appointments for user %d in %dms, %d of them overlapping another%n",
+                historySize, userId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                generator.getOverlappingAppointments());
+        // a day either side covers the appointments moved into the time zone of their location
+        final List<Appointment> history = appointmentRepository.getAppointmentsByUserBetween(userId,
+                START_DATE.minusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                START_DATE.plusWeeks(weeks).plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        if (history.size() != historySize) {
+            throw new IllegalStateException(String.format(
+                    "expected %d appointments for user %d but read back %d", historySize, userId, history.size()));
+        }
+        return new OverlapCheck(appointmentRepository, userId, history);
+    }
+
+    /**
+     * @return a description of every interval the query returned other appointments for than the filter.
+     */
+    private List<String> compare(Random random, int queries) throws DAOException {
+        final List<String> mismatches = new ArrayList<>();
+        final int[] checkedByKind = new int[INTERVAL_KINDS];
+        for (int i = 0; i < queries; i++) {
+            final int kind = random.nextInt(INTERVAL_KINDS);
+            final Instant[] interval = interval(kind, history.get(random.nextInt(history.size())), random);
+            final Set<Integer> expected = ids(history.stream()
+                    .filter(appointment -> appointment.getStart().isBefore(interval[1])
+                            && appointment.getEnd().isAfter(interval[0]))
+                    .collect(Collectors.toList()));
+            final Set<Integer> actual =
+                    ids(appointmentRepository.getOverlappingAppointmentsByUser(userId, interval[0], interval[1]));
+            checkedByKind[kind]++;
+            if (!expected.equals(actual)) {
+                final Set<Integer> missing = new TreeSet<>(expected);
+                missing.removeAll(actual);
+                final Set<Integer> extra = new TreeSet<>(actual);
+                extra.removeAll(expected);
+                mismatches.add(String.format("[%s, %s) missing %s extra %s", interval[0], interval[1], missing, extra));
+            }
+        }
+        System.out.printf("checked %d intervals (random %d, touching end %d, touching start %d, containing %d, "
+                        + "within %d, equal %d), %d mismatched%n", queries, checkedByKind[0], checkedByKind[1],
+                checkedByKind[2], checkedByKind[3], checkedByKind[4], checkedByKind[5], mismatches.size());
+        return mismatches;
+    }
+
+    /**
+     * Draws an interval of the given kind around the appointment, in whole minutes as the db stores them.
+     */
+    private static Instant[] interval(int kind, Appointment appointment, Random random) {
+        final Instant start = appointment.getStart();
+        final Instant end = appointment.getEnd();
+        final long minutes = ChronoUnit.MINUTES.between(start, end);
+        switch (kind) {
+            case 0:
+                final Instant randomStart = start.plus(random.nextInt(241) - 120, ChronoUnit.MINUTES);
+                return new Instant[]{randomStart, randomStart.plus(1 + random.nextInt(240), ChronoUnit.MINUTES)};
+            case 1:
+                return new Instant[]{end, end.plus(1 + random.nextInt(120), ChronoUnit.MINUTES)};
+            case 2:
+                return new Instant[]{start.minus(1 + random.nextInt(120), ChronoUnit.MINUTES), start};
+            case 3:
+                return new Instant[]{start.minus(random.nextInt(120), ChronoUnit.MINUTES),
+                        end.plus(random.nextInt(120), ChronoUnit.MINUTES)};
+            case 4:
+                if (minutes < 2) {
+                    return new Instant[]{start, end};
+                }
+                final long offset = random.nextInt((int) minutes - 1);
+                return new Instant[]{start.plus(offset, ChronoUnit.MINUTES),
+                        start.plus(offset + 1 + random.nextInt((int) (minutes - offset - 1)), ChronoUnit.MINUTES)};
+            default:
+                return new Instant[]{start, end};
+        }
+    }
+
+    /**
+     * Queries random hour long intervals of the user's history, one after the other.
+     */
+    private BenchmarkResult time(long warmupNanos, long measureNanos) throws DAOException {
+        final Random random = new Random(history.size());
+        final LatencySamples samples = new LatencySamples();
+        final long measureStart = System.nanoTime() + warmupNanos;
+        final long measureEnd = measureStart + measureNanos;
+        long startNanos;
+        while ((startNanos = System.nanoTime()) < measureEnd) {
+            final Instant start = history.get(random.nextInt(history.size())).getStart()
+                    .plus(random.nextInt(121) - 60, ChronoUnit.MINUTES);
+            appointmentRepository.getOverlappingAppointmentsByUser(userId, start, start.plus(1, ChronoUnit.HOURS));
+            if (startNanos >= measureStart) {
+                samples.record(System.nanoTime() - startNanos);
+            }
+        }
+        return new BenchmarkResult(history.size(), "appointment.overlapping.history", 1,
+                samples.size() / (measureNanos / 1e9),
+                samples.percentile(0.5),
+                samples.percentile(0.99),
+                samples.percentile(0.999));
+    }
+
+    private static Set<Integer> ids(List<Appointment> appointments) {
+        final Set<Integer> ids = new TreeSet<>();
+        for (Appointment appointment : appointments) {
+            ids.add(appointment.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,86 @@
+package com.c195.util.concurrent;
+
+import com.c195.common.CheckedSupplier;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets work that is no longer wanted, such as the lookups of a view the user has navigated away from,
+ * be stopped while it waits on the db.
+ * <p>
+ * Work runs under a token by being wrapped with {@link #wrap(CheckedSupplier)}, which makes the token
+ * current on whichever thread runs it. What the work is waiting on registers a way to stop it with
+ * {@link #onCancel(Runnable)} for as long as it waits, and checks {@link #isCancelled()} before it starts.
+ * A token stays cancelled once cancelled, so a new one is used for the work that follows.
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> currentToken = new ThreadLocal<>();
+
+    private final Set<Runnable> cancelActions = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * @return the token of the work the thread is doing, or empty if it cannot be cancelled.
+     */
+    public static Optional<CancellationToken> current() {
+        return Optional.ofNullable(currentToken.get());
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the work, running the cancel actions of whatever it is waiting on. Cancelling again has no effect.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        cancelActions.forEach(Runnable::run);
+    }
+
+    /**
+     * Registers how to stop something the work is about to wait on. If the token is already cancelled
+     * the action is run right away.
+     *
+     * @return a registration to close once the wait is over, so the action is no longer run.
+     */
+    public Registration onCancel(Runnable cancelAction) {
+        cancelActions.add(cancelAction);
+        if (cancelled && cancelActions.remove(cancelAction)) {
+            cancelAction.run();
+        }
+        return () -> cancelActions.remove(cancelAction);
+    }
+
+    /**
+     * @return the supplier running with this token as the current one of whichever thread runs it.
+     */
+    public <T> CheckedSupplier<T> wrap(CheckedSupplier<T> supplier) {
+        return () -> {
+            final CancellationToken previous = currentToken.get();
+            currentToken.set(this);
+            try {
+                return supplier.getWithIO();
+            } finally {
+                if (previous == null) {
+                    currentToken.remove();
+                } else {
+                    currentToken.set(previous);
+                }
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.c195.util.concurrent;
+
+import java.util.Locale;
+
+/**
+ * How urgently work run by a {@link PriorityExecutor} is wanted, most urgent first.
+ */
+public enum Priority {
+
+    /**
+     * Work the user is waiting on to carry on, such as logging in, loading a form or the overlap check.
+     */
+    INTERACTIVE,
+
+    /**
+     * Work the user asked for but can see arrive a moment later, such as building a report.
+     */
+    NORMAL,
+
+    /**
+     * Work nobody is waiting on, such as warming up caches and indexes.
+     */
+    BACKGROUND;
+
+    /**
+     * @return the name used for the metrics of the priority, such as "interactive".
+     */
+    public String getMetricName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
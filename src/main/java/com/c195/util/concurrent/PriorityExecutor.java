@@ -0,0 +1,267 @@
+package com.c195.util.concurrent;
+
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.Timer;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs work on a pool of threads in order of its {@link Priority}, so slow work nobody is waiting on
+ * cannot hold up the work the user is waiting on.
+ * <p>
+ * Each priority may only run so much work at once. On top of that, some of the threads are reserved for
+ * interactive work, which the other priorities can never take up. Only threads are reserved: the DAOs share
+ * a single db connection that runs one statement at a time, so interactive work still waits for whatever
+ * statement is running on it, such as the query behind a report, to finish.
+ * <p>
+ * The next work to run is the most urgent work that is within its limits, oldest first. Work ages while
+ * it waits: for every aging interval it has waited it counts as one priority more urgent, so background
+ * work still runs while interactive work keeps coming. Threads are started as needed, up to the maximum,
+ * and stop once they have been idle for a minute.
+ * <p>
+ * How long work waited to run is timed as "executor.*.queue.wait" for each priority, and how much is
+ * waiting and running kept as the "executor.*.queued" and "executor.*.active" gauges.
+ */
+public final class PriorityExecutor {
+
+    private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final String threadName;
+    private final int maxThreads;
+    private final int sharedThreads;
+    private final Map<Priority, Integer> limits;
+    private final long agingNanos;
+    private final Map<Priority, ArrayDeque<QueuedTask>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> active = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> queueWaitTimers = new EnumMap<>(Priority.class);
+    private int threads;
+    private int idleThreads;
+
+    private PriorityExecutor(Builder builder, MetricRegistry metricRegistry) {
+        this.threadName = builder.threadName;
+        this.maxThreads = builder.maxThreads;
+        this.sharedThreads = builder.maxThreads - builder.reservedForInteractive;
+        this.limits = new EnumMap<>(builder.limits);
+        this.agingNanos = builder.aging.toNanos();
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            active.put(priority, 0);
+            limits.putIfAbsent(priority, builder.maxThreads);
+            queueWaitTimers.put(priority, metricRegistry.timer("executor." + priority.getMetricName() + ".queue.wait"));
+            metricRegistry.gauge("executor." + priority.getMetricName() + ".queued", () -> getQueued(priority));
+            metricRegistry.gauge("executor." + priority.getMetricName() + ".active", () -> getActive(priority));
+        }
+    }
+
+    /**
+     * Runs the work once a thread is free for it.
+     */
+    public void execute(Priority priority, Runnable command) {
+        synchronized (this) {
+            queues.get(priority).addLast(new QueuedTask(priority, command, System.nanoTime()));
+            if (idleThreads > 0) {
+                notifyAll();
+                return;
+            }
+            if (threads == maxThreads) {
+                return;
+            }
+            threads++;
+        }
+        final Thread thread = new Thread(this::work, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return an executor running all of its work at the priority, for handing to code that takes an
+     * {@link Executor}, such as a {@link java.util.concurrent.CompletableFuture}.
+     */
+    public Executor forPriority(Priority priority) {
+        return command -> execute(priority, command);
+    }
+
+    public synchronized int getPoolSize() {
+        return threads;
+    }
+
+    public synchronized int getActiveCount() {
+        return threads - idleThreads;
+    }
+
+    private synchronized int getQueued(Priority priority) {
+        return queues.get(priority).size();
+    }
+
+    private synchronized int getActive(Priority priority) {
+        return active.get(priority);
+    }
+
+    private void work() {
+        QueuedTask task;
+        while ((task = take()) != null) {
+            try {
+                task.command.run();
+            } catch (RuntimeException | Error e) {
+                // reported the way an uncaught failure would be, without losing the thread
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            } finally {
+                finished(task.priority);
+            }
+        }
+    }
+
+    /**
+     * @return the next work to run, or null once the thread has been idle for too long.
+     */
+    private synchronized QueuedTask take() {
+        long idleSinceNanos = System.nanoTime();
+        while (true) {
+            final long now = System.nanoTime();
+            final QueuedTask task = pollRunnable(now);
+            if (task != null) {
+                queueWaitTimers.get(task.priority).record(now - task.queuedAtNanos);
+                return task;
+            }
+            final long idleNanos = now - idleSinceNanos;
+            if (idleNanos >= KEEP_ALIVE_NANOS) {
+                threads--;
+                return null;
+            }
+            idleThreads++;
+            try {
+                // aging only changes the order of work that may run, so only added or finished work is waited on
+                TimeUnit.NANOSECONDS.timedWait(this, KEEP_ALIVE_NANOS - idleNanos);
+            } catch (InterruptedException e) {
+                threads--;
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                idleThreads--;
+            }
+        }
+    }
+
+    /**
+     * Removes the most urgent work that may run now, counting it as active.
+     */
+    private QueuedTask pollRunnable(long now) {
+        QueuedTask next = null;
+        for (Priority priority : Priority.values()) {
+            final QueuedTask head = queues.get(priority).peekFirst();
+            if (head == null || !canStart(priority)) {
+                continue;
+            }
+            if (next == null || isBefore(head, next, now)) {
+                next = head;
+            }
+        }
+        if (next != null) {
+            queues.get(next.priority).removeFirst();
+            active.merge(next.priority, 1, Integer::sum);
+        }
+        return next;
+    }
+
+    private boolean isBefore(QueuedTask task, QueuedTask other, long now) {
+        final long rank = task.rank(now, agingNanos);
+        final long otherRank = other.rank(now, agingNanos);
+        return rank < otherRank || (rank == otherRank && task.queuedAtNanos < other.queuedAtNanos);
+    }
+
+    private boolean canStart(Priority priority) {
+        if (active.get(priority) >= limits.get(priority)) {
+            return false;
+        }
+        return priority == Priority.INTERACTIVE
+                || active.get(Priority.NORMAL) + active.get(Priority.BACKGROUND) < sharedThreads;
+    }
+
+    private synchronized void finished(Priority priority) {
+        active.merge(priority, -1, Integer::sum);
+        // the finished work may have been what held other work back
+        notifyAll();
+    }
+
+    private static final class QueuedTask {
+
+        private final Priority priority;
+        private final Runnable command;
+        private final long queuedAtNanos;
+
+        private QueuedTask(Priority priority, Runnable command, long queuedAtNanos) {
+            this.priority = priority;
+            this.command = command;
+            this.queuedAtNanos = queuedAtNanos;
+        }
+
+        /**
+         * @return the priority the work counts as after aging, lower being more urgent.
+         */
+        private long rank(long now, long agingNanos) {
+            return Math.max(0, priority.ordinal() - (now - queuedAtNanos) / agingNanos);
+        }
+    }
+
+    public static class Builder {
+
+        private final String threadName;
+        private final Map<Priority, Integer> limits = new EnumMap<>(Priority.class);
+        private int maxThreads = 8;
+        private int reservedForInteractive;
+        private Duration aging = Duration.ofSeconds(2);
+
+        /**
+         * @param threadName the name of the executor's threads.
+         */
+        public Builder(String threadName) {
+            this.threadName = threadName;
+        }
+
+        public Builder withMaxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * Limits how much work of the priority runs at once. Work is only limited by the threads otherwise.
+         */
+        public Builder withLimit(Priority priority, int limit) {
+            this.limits.put(priority, limit);
+            return this;
+        }
+
+        /**
+         * Keeps threads free for interactive work, which work of the other priorities never runs on.
+         */
+        public Builder withReservedForInteractive(int reservedForInteractive) {
+            this.reservedForInteractive = reservedForInteractive;
+            return this;
+        }
+
+        /**
+         * @param aging how long work waits before it counts as one priority more urgent.
+         */
+        public Builder withAging(Duration aging) {
+            this.aging = aging;
+            return this;
+        }
+
+        public PriorityExecutor build(MetricRegistry metricRegistry) {
+            if (maxThreads < 1 || reservedForInteractive < 0 || reservedForInteractive >= maxThreads) {
+                throw new IllegalArgumentException(String.format(
+                        "%d threads cannot keep %d for interactive work", maxThreads, reservedForInteractive));
+            }
+            if (aging.isZero() || aging.isNegative()) {
+                throw new IllegalArgumentException("work has to wait a while before it ages");
+            }
+            return new PriorityExecutor(this, metricRegistry);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.c195.util.event;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Published once a row has been created, updated or deleted and the change has been committed.
+ *
+ * @param <T> the type of the changed row.
+ */
+public abstract class ChangeEvent<T> {
+
+    private final ChangeType type;
+    private final int id;
+    private final T value;
+    private final Instant lastUpdate;
+
+    protected ChangeEvent(ChangeType type, int id, T value) {
+        this(type, id, value, null);
+    }
+
+    /**
+     * @param lastUpdate the last update the row was committed with, for telling the change apart from later ones.
+     */
+    protected ChangeEvent(ChangeType type, int id, T value, Instant lastUpdate) {
+        this.type = type;
+        this.id = id;
+        this.value = value;
+        this.lastUpdate = lastUpdate;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the row as it was committed, empty for deletes.
+     */
+    public Optional<T> getValue() {
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * @return the last update the row was committed with, empty for deletes or if it was not given.
+     */
+    public Optional<Instant> getLastUpdate() {
+        return Optional.ofNullable(lastUpdate);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s %d]", getClass().getSimpleName(), type, id);
+    }
+}
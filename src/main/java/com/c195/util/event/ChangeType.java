@@ -0,0 +1,8 @@
+package com.c195.util.event;
+
+public enum ChangeType {
+
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,67 @@
+package com.c195.util.event;
+
+import com.c195.util.logging.Logger;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish and subscribe for the events the app raises, such as {@link ChangeEvent}s.
+ * <p>
+ * Events are handed to the subscribers of the event's class and of each of its superclasses, so subscribing
+ * to {@link ChangeEvent} receives every change. Subscribers run on the publishing thread, one after another,
+ * and a subscriber that needs the FX thread has to move there itself. A failing subscriber is logged and
+ * skipped so that it cannot stop the others from receiving the event.
+ */
+public final class EventBus {
+
+    private static final Logger logger = Logger.getLogger(EventBus.class);
+
+    private static EventBus busInstance;
+    private final ConcurrentMap<Class<?>, List<Consumer<Object>>> subscribers = new ConcurrentHashMap<>();
+
+    private EventBus() {
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (busInstance == null) {
+            busInstance = new EventBus();
+        }
+        return busInstance;
+    }
+
+    /**
+     * Subscribes to events of the given class and its subclasses.
+     *
+     * @param eventType  the class of the events.
+     * @param subscriber receives each event.
+     * @param <E>        the type of the events.
+     * @return the subscription, to be cancelled once the events are no longer needed.
+     */
+    public <E> Subscription subscribe(Class<E> eventType, Consumer<? super E> subscriber) {
+        final Consumer<Object> typedSubscriber = event -> subscriber.accept(eventType.cast(event));
+        final List<Consumer<Object>> eventSubscribers =
+                subscribers.computeIfAbsent(eventType, key -> new CopyOnWriteArrayList<>());
+        eventSubscribers.add(typedSubscriber);
+        return () -> eventSubscribers.remove(typedSubscriber);
+    }
+
+    public void publish(Object event) {
+        for (Class<?> eventType = event.getClass(); eventType != null; eventType = eventType.getSuperclass()) {
+            final List<Consumer<Object>> eventSubscribers = subscribers.get(eventType);
+            if (eventSubscribers == null) {
+                continue;
+            }
+            for (Consumer<Object> subscriber : eventSubscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    logger.log(String.format("subscriber failed to handle %s: %s", event, e));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.c195.util.event;
+
+/**
+ * Returned when subscribing to an {@link EventBus}, to stop receiving events once they are no longer needed.
+ */
+@FunctionalInterface
+public interface Subscription {
+
+    void cancel();
+}
@@ -0,0 +1,60 @@
+package com.c195.util.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class CsvReportWriter extends ReportWriter {
+
+    public CsvReportWriter(Path path, List<String> columns) throws IOException {
+        super(path, columns);
+        writeLine(columns.toArray(new String[0]));
+    }
+
+    @Override
+    public void writeRow(String... values) throws IOException {
+        validateRow(values);
+        writeLine(values);
+    }
+
+    private void writeLine(String... values) throws IOException {
+        final BufferedWriter writer = getWriter();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeValue(BufferedWriter writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!requiresQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean requiresQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
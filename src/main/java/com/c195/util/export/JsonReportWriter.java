@@ -0,0 +1,81 @@
+package com.c195.util.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes rows as a JSON array of objects keyed by column name.
+ */
+public class JsonReportWriter extends ReportWriter {
+
+    private boolean firstRow = true;
+
+    public JsonReportWriter(Path path, List<String> columns) throws IOException {
+        super(path, columns);
+        getWriter().write('[');
+    }
+
+    @Override
+    public void writeRow(String... values) throws IOException {
+        validateRow(values);
+        final BufferedWriter writer = getWriter();
+        final List<String> columns = getColumns();
+        writer.write(firstRow ? "\n  {" : ",\n  {");
+        firstRow = false;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(", ");
+            }
+            writeString(writer, columns.get(i));
+            writer.write(": ");
+            writeString(writer, values[i]);
+        }
+        writer.write('}');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            getWriter().write(firstRow ? "]\n" : "\n]\n");
+        } finally {
+            super.close();
+        }
+    }
+
+    private static void writeString(BufferedWriter writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
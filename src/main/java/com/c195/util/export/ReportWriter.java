@@ -0,0 +1,68 @@
+package com.c195.util.export;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes report rows one at a time to a file so that an export never has to hold
+ * more than the row being written in memory.
+ */
+public abstract class ReportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final BufferedWriter writer;
+    private final List<String> columns;
+
+    protected ReportWriter(Path path, List<String> columns) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.writer = new BufferedWriter(
+                Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        this.columns = columns;
+    }
+
+    /**
+     * Writes a single row. Values are expected in the same order as the columns
+     * the writer was created with.
+     *
+     * @param values of the row.
+     * @throws IOException if there are issues writing to the file.
+     */
+    public abstract void writeRow(String... values) throws IOException;
+
+    protected BufferedWriter getWriter() {
+        return writer;
+    }
+
+    protected List<String> getColumns() {
+        return columns;
+    }
+
+    protected void validateRow(String... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d values but received %d", columns.size(), values.length));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.flush();
+            channel.force(false);
+        } finally {
+            writer.close();
+        }
+    }
+}
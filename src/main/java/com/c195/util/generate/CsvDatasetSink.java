@@ -0,0 +1,151 @@
+package com.c195.util.generate;
+
+import com.c195.dao.DAOException;
+import com.c195.model.*;
+import com.c195.util.export.CsvReportWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a generated dataset to a CSV file per table in a directory, with the same columns as the
+ * tables, so it can be loaded into a db with LOAD DATA or inspected without one. Ids start at 1.
+ */
+public class CsvDatasetSink implements DatasetSink {
+
+    private static final List<String> METADATA_COLUMNS = Arrays.asList(
+            "createDate", "createdBy", "lastUpdate", "lastUpdateBy");
+
+    private final Path directory;
+    private final Map<DatasetTable, CsvReportWriter> writers = new EnumMap<>(DatasetTable.class);
+
+    public CsvDatasetSink(Path directory) throws DAOException {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new DAOException("There was an issue creating the dataset directory", e);
+        }
+    }
+
+    @Override
+    public int getFirstId(DatasetTable table) {
+        return 1;
+    }
+
+    @Override
+    public void writeCountry(Country country) throws DAOException {
+        write(DatasetTable.COUNTRY, country.getMetadata(),
+                Arrays.asList("countryId", "country"),
+                String.valueOf(country.getId()),
+                country.getCountry());
+    }
+
+    @Override
+    public void writeCity(City city) throws DAOException {
+        write(DatasetTable.CITY, city.getMetadata(),
+                Arrays.asList("cityId", "city", "countryId"),
+                String.valueOf(city.getId()),
+                city.getCity(),
+                String.valueOf(city.getCountry().getId()));
+    }
+
+    @Override
+    public void writeAddress(Address address) throws DAOException {
+        write(DatasetTable.ADDRESS, address.getMetadata(),
+                Arrays.asList("addressId", "address", "address2", "cityId", "postalCode", "phone"),
+                String.valueOf(address.getId()),
+                address.getAddress(),
+                address.getAddress2(),
+                String.valueOf(address.getCity().getId()),
+                address.getPostalCode(),
+                address.getPhone());
+    }
+
+    @Override
+    public void writeCustomer(Customer customer) throws DAOException {
+        write(DatasetTable.CUSTOMER, customer.getMetadata(),
+                Arrays.asList("customerId", "customerName", "addressId", "active"),
+                String.valueOf(customer.getId()),
+                customer.getName(),
+                String.valueOf(customer.getAddress().getId()),
+                customer.isActive() ? "1" : "0");
+    }
+
+    @Override
+    public void writeUser(User user) throws DAOException {
+        write(DatasetTable.USER, user.getMetadata(),
+                Arrays.asList("userId", "userName", "password", "active"),
+                String.valueOf(user.getId()),
+                user.getUsername(),
+                user.getPassword(),
+                user.isActive() ? "1" : "0");
+    }
+
+    @Override
+    public void writeAppointment(Appointment appointment) throws DAOException {
+        write(DatasetTable.APPOINTMENT, appointment.getMetadata(),
+                Arrays.asList("appointmentId", "customerId", "userId", "title", "description", "location",
+                        "contact", "type", "url", "start", "end"),
+                String.valueOf(appointment.getId()),
+                String.valueOf(appointment.getCustomer().getId()),
+                String.valueOf(appointment.getUser().getId()),
+                appointment.getTitle(),
+                appointment.getDescription(),
+                appointment.getLocation(),
+                appointment.getContact(),
+                appointment.getType(),
+                appointment.getUrl(),
+                appointment.getStart().toString(),
+                appointment.getEnd().toString());
+    }
+
+    /**
+     * Closes the files of the tables written so far, as no more rows are written to a table after it
+     * has been flushed.
+     */
+    @Override
+    public void flush() throws DAOException {
+        close();
+    }
+
+    @Override
+    public void close() throws DAOException {
+        try {
+            for (CsvReportWriter writer : writers.values()) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new DAOException("There was an issue writing the dataset", e);
+        } finally {
+            writers.clear();
+        }
+    }
+
+    private void write(DatasetTable table, Metadata metadata, List<String> columns, String... values)
+            throws DAOException {
+        try {
+            CsvReportWriter writer = writers.get(table);
+            if (writer == null) {
+                final List<String> allColumns = new ArrayList<>(columns);
+                allColumns.addAll(METADATA_COLUMNS);
+                writer = new CsvReportWriter(directory.resolve(table.getName() + ".csv"), allColumns);
+                writers.put(table, writer);
+            }
+            final String[] row = Arrays.copyOf(values, values.length + METADATA_COLUMNS.size());
+            row[values.length] = metadata.getCreatedDate().toString();
+            row[values.length + 1] = metadata.getCreatedBy();
+            row[values.length + 2] = metadata.getUpdatedDate().toString();
+            row[values.length + 3] = metadata.getUpdatedBy();
+            writer.writeRow(row);
+        } catch (IOException e) {
+            throw new DAOException("There was an issue writing the dataset", e);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.c195.util.generate;
+
+import com.c195.common.appointment.AppointmentLocation;
+import com.c195.common.appointment.AppointmentType;
+import com.c195.dao.DAOException;
+import com.c195.model.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Generates a dataset of the size given by a {@link DatasetSpec} for measuring the app against.
+ * <p>
+ * The appointments are spread the way a real schedule would be rather than evenly: a few customers and
+ * consultants have most of the appointments, support is booked more often than sales, most appointments
+ * are in New York, and they fall on weekdays within business hours in the location's time zone with a
+ * dip over lunch and fewer on Fridays. A user's appointments do not overlap unless their schedule is too
+ * full to find a free slot.
+ * <p>
+ * Everything is drawn from a single {@link Random} seeded from the spec, so the same spec generates the
+ * same rows on every run.
+ */
+public class DatasetGenerator {
+
+    private static final String[] COUNTRIES = {
+            "United States", "United Kingdom", "Canada", "Germany", "Mexico", "Ireland", "Australia", "Japan"};
+    private static final String[] CITIES = {
+            "Springfield", "Riverside", "Fairview", "Franklin", "Greenville", "Bristol", "Clinton", "Salem",
+            "Madison", "Georgetown", "Arlington", "Ashland", "Burlington", "Manchester", "Oxford", "Dover"};
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Carlos", "Aiko"};
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Wilson", "Anderson", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Tanaka"};
+    private static final String[] STREETS = {
+            "Main St", "Oak Ave", "Pine St", "Maple Ave", "Cedar Ln", "Elm St", "Washington Blvd", "Lake Dr",
+            "Hill Rd", "Park Pl", "High St", "Church Rd"};
+
+    private static final AppointmentType[] TYPES = {AppointmentType.SUPPORT, AppointmentType.SALES};
+    private static final double[] TYPE_WEIGHTS = {0.6, 0.4};
+    private static final AppointmentLocation[] LOCATIONS = {
+            AppointmentLocation.NEW_YORK, AppointmentLocation.PHOENIX, AppointmentLocation.LONDON};
+    private static final double[] LOCATION_WEIGHTS = {0.45, 0.3, 0.25};
+    // monday to friday
+    private static final double[] WEEKDAY_WEIGHTS = {0.22, 0.22, 0.21, 0.2, 0.15};
+    // the hour the appointment starts at, from 9 to 16
+    private static final double[] HOUR_WEIGHTS = {0.08, 0.14, 0.16, 0.12, 0.06, 0.12, 0.14, 0.18};
+    private static final int[] DURATIONS = {15, 30, 45, 60};
+    private static final double[] DURATION_WEIGHTS = {0.15, 0.4, 0.15, 0.3};
+    private static final int MAX_SLOT_ATTEMPTS = 10;
+    private static final double SKEW = 2.0;
+
+    private final DatasetSpec spec;
+    private final Random random;
+    private final String passwordHash;
+    private int overlappingAppointments;
+
+    /**
+     * @param passwordHash the stored password of every generated user.
+     */
+    public DatasetGenerator(DatasetSpec spec, String passwordHash) {
+        this.spec = spec;
+        this.random = new Random(spec.getSeed());
+        this.passwordHash = passwordHash;
+    }
+
+    /**
+     * Generates the dataset into the sink, table by table.
+     *
+     * @throws DAOException if the sink could not write the rows.
+     */
+    public void generate(DatasetSink sink) throws DAOException {
+        final int[] countryIds = generateCountries(sink);
+        sink.flush();
+        final int[] cityIds = generateCities(sink, countryIds);
+        sink.flush();
+        final int firstAddressId = sink.getFirstId(DatasetTable.ADDRESS);
+        generateAddresses(sink, cityIds, firstAddressId);
+        sink.flush();
+        final List<Customer> customers = generateCustomers(sink, firstAddressId);
+        sink.flush();
+        final List<User> users = generateUsers(sink);
+        sink.flush();
+        generateAppointments(sink, customers, users);
+        sink.flush();
+    }
+
+    /**
+     * @return how many appointments overlap another appointment of the same user, as no free slot was found.
+     */
+    public int getOverlappingAppointments() {
+        return overlappingAppointments;
+    }
+
+    private int[] generateCountries(DatasetSink sink) throws DAOException {
+        final int firstId = sink.getFirstId(DatasetTable.COUNTRY);
+        final int[] ids = new int[spec.getCountries()];
+        for (int i = 0; i < ids.length; i++) {
+            final Country country = new Country();
+            country.setId(firstId + i);
+            // the id keeps the unique names from colliding with existing rows
+            country.setCountry((COUNTRIES[i % COUNTRIES.length] + " " + country.getId()).toLowerCase());
+            country.setMetadata(metadata("generator"));
+            sink.writeCountry(country);
+            ids[i] = country.getId();
+        }
+        return ids;
+    }
+
+    private int[] generateCities(DatasetSink sink, int[] countryIds) throws DAOException {
+        final int firstId = sink.getFirstId(DatasetTable.CITY);
+        final int[] ids = new int[spec.getCities()];
+        for (int i = 0; i < ids.length; i++) {
+            final Country country = new Country();
+            country.setId(countryIds[skewed(countryIds.length)]);
+            final City city = new City();
+            city.setId(firstId + i);
+            city.setCity((CITIES[i % CITIES.length] + " " + city.getId()).toLowerCase());
+            city.setCountry(country);
+            city.setMetadata(metadata("generator"));
+            sink.writeCity(city);
+            ids[i] = city.getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Every customer has an address of their own, the same as customers saved through the app.
+     */
+    private void generateAddresses(DatasetSink sink, int[] cityIds, int firstId) throws DAOException {
+        for (int i = 0; i < spec.getCustomers(); i++) {
+            final City city = new City();
+            city.setId(cityIds[skewed(cityIds.length)]);
+            final Address address = new Address();
+            address.setId(firstId + i);
+            address.setAddress((1 + random.nextInt(9999)) + " " + pick(STREETS));
+            address.setAddress2(random.nextInt(4) == 0 ? "Apt " + (1 + random.nextInt(400)) : "");
+            address.setCity(city);
+            address.setPostalCode(String.format("%05d", random.nextInt(100_000)));
+            address.setPhone(String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10_000)));
+            address.setMetadata(metadata("generator"));
+            sink.writeAddress(address);
+        }
+    }
+
+    private List<Customer> generateCustomers(DatasetSink sink, int firstAddressId) throws DAOException {
+        final int firstId = sink.getFirstId(DatasetTable.CUSTOMER);
+        final List<Customer> customers = new ArrayList<>(spec.getCustomers());
+        for (int i = 0; i < spec.getCustomers(); i++) {
+            final Address address = new Address();
+            address.setId(firstAddressId + i);
+            final Customer customer = new Customer();
+            customer.setId(firstId + i);
+            customer.setName(pick(FIRST_NAMES) + " " + pick(LAST_NAMES));
+            customer.setAddress(address);
+            customer.setActive(random.nextInt(10) != 0);
+            customer.setMetadata(metadata("generator"));
+            sink.writeCustomer(customer);
+            customers.add(customer);
+        }
+        return customers;
+    }
+
+    private List<User> generateUsers(DatasetSink sink) throws DAOException {
+        final int firstId = sink.getFirstId(DatasetTable.USER);
+        final List<User> users = new ArrayList<>(spec.getUsers());
+        for (int i = 0; i < spec.getUsers(); i++) {
+            final User user = new User();
+            user.setId(firstId + i);
+            user.setUsername("user" + user.getId());
+            user.setPassword(passwordHash);
+            user.setActive(true);
+            user.setMetadata(metadata("generator"));
+            sink.writeUser(user);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private void generateAppointments(DatasetSink sink, List<Customer> customers, List<User> users)
+            throws DAOException {
+        final int firstId = sink.getFirstId(DatasetTable.APPOINTMENT);
+        final String[] contacts = new String[spec.getContacts()];
+        for (int i = 0; i < contacts.length; i++) {
+            contacts[i] = pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+        }
+        // the quarter hours taken by each user's appointments, counted from the epoch
+        final Map<Integer, Set<Long>> takenSlots = new HashMap<>();
+        for (int i = 0; i < spec.getAppointments(); i++) {
+            final User user = users.get(random.nextInt(users.size()));
+            final Customer customer = customers.get(skewed(customers.size()));
+            final AppointmentType type = TYPES[weighted(TYPE_WEIGHTS)];
+            final AppointmentLocation location = LOCATIONS[weighted(LOCATION_WEIGHTS)];
+            final Set<Long> userSlots = takenSlots.computeIfAbsent(user.getId(), id -> new HashSet<>());
+            ZonedDateTime start = null;
+            int duration = 0;
+            boolean free = false;
+            for (int attempt = 0; attempt < MAX_SLOT_ATTEMPTS && !free; attempt++) {
+                start = randomStart(location);
+                duration = Math.min(DURATIONS[weighted(DURATION_WEIGHTS)],
+                        (int) ChronoUnit.MINUTES.between(start, start.withHour(17).withMinute(0)));
+                free = isFree(userSlots, start, duration);
+            }
+            if (!free) {
+                overlappingAppointments++;
+            }
+            take(userSlots, start, duration);
+            final Appointment appointment = new Appointment();
+            appointment.setId(firstId + i);
+            appointment.setCustomer(customer);
+            appointment.setUser(user);
+            appointment.setTitle(type.getName() + " with " + customer.getName());
+            appointment.setDescription(type == AppointmentType.SALES ? "Product walkthrough" : "Follow up on open issue");
+            appointment.setLocation(location.getName());
+            appointment.setContact(contacts[skewed(contacts.length)]);
+            appointment.setType(type.getName());
+            appointment.setUrl("https://example.com/appointments/" + appointment.getId());
+            appointment.setStart(start.toInstant());
+            appointment.setEnd(start.plusMinutes(duration).toInstant());
+            appointment.setMetadata(metadata(user.getUsername(), start.toInstant()));
+            sink.writeAppointment(appointment);
+        }
+    }
+
+    private ZonedDateTime randomStart(AppointmentLocation location) {
+        final LocalDate date = spec.getStartDate()
+                .plusWeeks(random.nextInt(spec.getWeeks()))
+                .plusDays(weighted(WEEKDAY_WEIGHTS));
+        return date.atTime(9 + weighted(HOUR_WEIGHTS), 15 * random.nextInt(4))
+                .atZone(ZoneId.of(location.getZoneId()));
+    }
+
+    private static boolean isFree(Set<Long> userSlots, ZonedDateTime start, int duration) {
+        final long firstSlot = start.toEpochSecond() / 900;
+        for (long slot = firstSlot; slot < firstSlot + duration / 15; slot++) {
+            if (userSlots.contains(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void take(Set<Long> userSlots, ZonedDateTime start, int duration) {
+        final long firstSlot = start.toEpochSecond() / 900;
+        for (long slot = firstSlot; slot < firstSlot + duration / 15; slot++) {
+            userSlots.add(slot);
+        }
+    }
+
+    /**
+     * @return the metadata of a row created some time before the schedule starts.
+     */
+    private Metadata metadata(String createdBy) {
+        return metadata(createdBy, spec.getStartDate().atStartOfDay(ZoneId.of("UTC")).toInstant());
+    }
+
+    /**
+     * @return the metadata of a row created within the month before the given time.
+     */
+    private Metadata metadata(String createdBy, Instant before) {
+        final Instant createdDate = before.minus(1 + random.nextInt(30 * 24), ChronoUnit.HOURS);
+        return new Metadata.Builder()
+                .withCreatedDate(createdDate)
+                .withCreatedBy(createdBy)
+                .withUpdatedDate(createdDate)
+                .withUpdatedBy(createdBy)
+                .build();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * @return an index below the bound, where lower indexes are much more likely than higher ones.
+     */
+    private int skewed(int bound) {
+        return (int) (bound * Math.pow(random.nextDouble(), SKEW));
+    }
+
+    /**
+     * @return an index into the weights, picked with the probability of its weight.
+     */
+    private int weighted(double[] weights) {
+        double remaining = random.nextDouble() * Arrays.stream(weights).sum();
+        for (int i = 0; i < weights.length - 1; i++) {
+            remaining -= weights[i];
+            if (remaining < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
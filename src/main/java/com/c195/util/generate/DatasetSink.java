@@ -0,0 +1,36 @@
+package com.c195.util.generate;
+
+import com.c195.dao.DAOException;
+import com.c195.model.*;
+
+/**
+ * Where a generated dataset is written to. Rows are written table by table in the order of
+ * {@link DatasetTable}, with {@link #flush()} called after each table.
+ */
+public interface DatasetSink extends AutoCloseable {
+
+    /**
+     * @return the id the generated rows of the table start at, so they do not collide with existing rows.
+     */
+    int getFirstId(DatasetTable table) throws DAOException;
+
+    void writeCountry(Country country) throws DAOException;
+
+    void writeCity(City city) throws DAOException;
+
+    void writeAddress(Address address) throws DAOException;
+
+    void writeCustomer(Customer customer) throws DAOException;
+
+    void writeUser(User user) throws DAOException;
+
+    void writeAppointment(Appointment appointment) throws DAOException;
+
+    /**
+     * Writes out every row that is still held back, before the rows referencing them are written.
+     */
+    void flush() throws DAOException;
+
+    @Override
+    void close() throws DAOException;
+}
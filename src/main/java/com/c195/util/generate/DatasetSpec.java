@@ -0,0 +1,144 @@
+package com.c195.util.generate;
+
+import java.time.LocalDate;
+
+/**
+ * How much data to generate and from which seed. The same spec always generates the same dataset.
+ */
+public class DatasetSpec {
+
+    private final long seed;
+    private final int countries;
+    private final int cities;
+    private final int users;
+    private final int customers;
+    private final int contacts;
+    private final int appointments;
+    private final LocalDate startDate;
+    private final int weeks;
+
+    private DatasetSpec(Builder builder) {
+        this.seed = builder.seed;
+        this.countries = builder.countries;
+        this.cities = builder.cities;
+        this.users = builder.users;
+        this.customers = builder.customers;
+        this.contacts = builder.contacts;
+        this.appointments = builder.appointments;
+        this.startDate = builder.startDate;
+        this.weeks = builder.weeks;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCountries() {
+        return countries;
+    }
+
+    public int getCities() {
+        return cities;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    /**
+     * @return how many different consultants the appointments are spread across.
+     */
+    public int getContacts() {
+        return contacts;
+    }
+
+    public int getAppointments() {
+        return appointments;
+    }
+
+    /**
+     * @return the first day appointments are scheduled on.
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * @return how many weeks from the start date appointments are scheduled across.
+     */
+    public int getWeeks() {
+        return weeks;
+    }
+
+    public static class Builder {
+
+        private long seed = 1;
+        private int countries = 5;
+        private int cities = 50;
+        private int users = 10;
+        private int customers = 1000;
+        private int contacts = 25;
+        private int appointments = 10_000;
+        private LocalDate startDate = LocalDate.of(2020, 1, 6);
+        private int weeks = 52;
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder withCountries(int countries) {
+            this.countries = countries;
+            return this;
+        }
+
+        public Builder withCities(int cities) {
+            this.cities = cities;
+            return this;
+        }
+
+        public Builder withUsers(int users) {
+            this.users = users;
+            return this;
+        }
+
+        public Builder withCustomers(int customers) {
+            this.customers = customers;
+            return this;
+        }
+
+        public Builder withContacts(int contacts) {
+            this.contacts = contacts;
+            return this;
+        }
+
+        public Builder withAppointments(int appointments) {
+            this.appointments = appointments;
+            return this;
+        }
+
+        public Builder withStartDate(LocalDate startDate) {
+            this.startDate = startDate;
+            return this;
+        }
+
+        public Builder withWeeks(int weeks) {
+            this.weeks = weeks;
+            return this;
+        }
+
+        public DatasetSpec build() {
+            if (countries <= 0 || cities <= 0 || users <= 0 || customers <= 0 || contacts <= 0 || weeks <= 0) {
+                throw new IllegalStateException("Countries, cities, users, customers, contacts and weeks must be positive");
+            }
+            if (appointments < 0) {
+                throw new IllegalStateException("Appointments must not be negative");
+            }
+            return new DatasetSpec(this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.c195.util.generate;
+
+/**
+ * The tables a generated dataset fills, in the order they are written so that every row
+ * is written after the rows it references.
+ */
+public enum DatasetTable {
+
+    COUNTRY("country", "countryId"),
+    CITY("city", "cityId"),
+    ADDRESS("address", "addressId"),
+    CUSTOMER("customer", "customerId"),
+    USER("user", "userId"),
+    APPOINTMENT("appointment", "appointmentId");
+
+    private final String name;
+    private final String idColumn;
+
+    DatasetTable(String name, String idColumn) {
+        this.name = name;
+        this.idColumn = idColumn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIdColumn() {
+        return idColumn;
+    }
+}
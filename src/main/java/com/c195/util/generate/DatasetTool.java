@@ -0,0 +1,91 @@
+package com.c195.util.generate;
+
+import com.c195.dao.DAOException;
+import com.c195.dao.DatasetDAO;
+import com.c195.dao.config.DAOConfigException;
+import com.c195.dao.config.MysqlConfig;
+import com.c195.dao.config.MysqlConnection;
+import com.c195.util.security.PasswordHasher;
+import com.c195.util.security.SecurityConfig;
+import com.c195.util.security.SecurityConfigException;
+
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the db configured in mysql.properties with a generated dataset, or writes it to CSV files instead.
+ * <p>
+ * Arguments are given as --name=value: seed, countries, cities, users, customers, contacts, appointments,
+ * start (an ISO date), weeks and csv (the directory to write to instead of the db). Every generated user
+ * has the password "test".
+ */
+public final class DatasetTool {
+
+    private static final String PASSWORD = "test";
+
+    private DatasetTool() {
+    }
+
+    public static void main(String[] args) throws DAOException, DAOConfigException, SecurityConfigException {
+        final DatasetSpec.Builder specBuilder = new DatasetSpec.Builder();
+        String csvDirectory = null;
+        for (String arg : args) {
+            final String[] nameAndValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (nameAndValue.length != 2) {
+                throw new IllegalArgumentException("Expected an argument of the form --name=value but received " + arg);
+            }
+            final String value = nameAndValue[1];
+            switch (nameAndValue[0]) {
+                case "seed":
+                    specBuilder.withSeed(Long.parseLong(value));
+                    break;
+                case "countries":
+                    specBuilder.withCountries(Integer.parseInt(value));
+                    break;
+                case "cities":
+                    specBuilder.withCities(Integer.parseInt(value));
+                    break;
+                case "users":
+                    specBuilder.withUsers(Integer.parseInt(value));
+                    break;
+                case "customers":
+                    specBuilder.withCustomers(Integer.parseInt(value));
+                    break;
+                case "contacts":
+                    specBuilder.withContacts(Integer.parseInt(value));
+                    break;
+                case "appointments":
+                    specBuilder.withAppointments(Integer.parseInt(value));
+                    break;
+                case "start":
+                    specBuilder.withStartDate(LocalDate.parse(value));
+                    break;
+                case "weeks":
+                    specBuilder.withWeeks(Integer.parseInt(value));
+                    break;
+                case "csv":
+                    csvDirectory = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+        final DatasetSpec spec = specBuilder.build();
+        final String passwordHash =
+                new PasswordHasher(SecurityConfig.getInstance().getHashIterations()).hash(PASSWORD);
+        final DatasetGenerator generator = new DatasetGenerator(spec, passwordHash);
+        final long startNanos = System.nanoTime();
+        try (DatasetSink sink = csvDirectory != null
+                ? new CsvDatasetSink(Paths.get(csvDirectory))
+                : new DatasetDAO(MysqlConnection.openBatchConnection(MysqlConfig.getInstance()))) {
+            generator.generate(sink);
+        }
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.printf("generated %d countries, %d cities, %d customers, %d users and %d appointments in %dms%n",
+                spec.getCountries(), spec.getCities(), spec.getCustomers(), spec.getUsers(),
+                spec.getAppointments(), elapsedMillis);
+        System.out.printf("%d appointments overlap another appointment of the same user%n",
+                generator.getOverlappingAppointments());
+    }
+}
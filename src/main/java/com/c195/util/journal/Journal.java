@@ -0,0 +1,252 @@
+package com.c195.util.journal;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of records.
+ * <p>
+ * Each record is written as its length, a CRC32 of its bytes and then the bytes themselves. A crash can
+ * leave a partly written record at the end of the file, which fails the length or checksum check when the
+ * journal is replayed and is cut off, so the journal always ends at the last complete record.
+ * <p>
+ * Records appended together with {@link #appendAll(List)} are written as a single batch under one length and
+ * checksum, marked by the top bit of the length, so they are replayed either all together or not at all.
+ * A write that fails is cut off again right away, so the appends after it are not lost behind a torn record.
+ * <p>
+ * Appends are only forced to disk when the journal is opened with sync enabled. Otherwise they are left
+ * to the OS, which is much faster but can lose the most recent records if the machine itself goes down.
+ */
+public final class Journal implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_BATCH_BYTES = 1 << 30;
+    private static final int BATCH_FLAG = 0x80000000;
+    private static final int RECORD_LENGTH_BYTES = 4;
+
+    private final Path path;
+    private final boolean sync;
+    private FileChannel channel;
+    private long recordCount;
+
+    public Journal(Path path, boolean sync) throws IOException {
+        this.path = path;
+        this.sync = sync;
+        final Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = open(path);
+    }
+
+    /**
+     * Reads every complete record from the start of the journal, cutting off anything
+     * after the last complete record. Must be called before the first append.
+     *
+     * @param consumer receives each record in the order it was appended.
+     * @throws IOException if there are issues reading the journal.
+     */
+    public synchronized void replay(Consumer<byte[]> consumer) throws IOException {
+        long validBytes = 0;
+        recordCount = 0;
+        channel.position(0);
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        final CRC32 crc = new CRC32();
+        while (true) {
+            final byte[] frame;
+            final boolean batch;
+            try {
+                final int header = input.readInt();
+                final int checksum = input.readInt();
+                batch = (header & BATCH_FLAG) != 0;
+                final int length = header & ~BATCH_FLAG;
+                if (length > (batch ? MAX_BATCH_BYTES : MAX_RECORD_BYTES)) {
+                    break;
+                }
+                frame = new byte[length];
+                input.readFully(frame);
+                crc.reset();
+                crc.update(frame);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+            if (batch) {
+                final List<byte[]> records = readBatch(frame);
+                if (records == null) {
+                    break;
+                }
+                records.forEach(consumer);
+                recordCount += records.size();
+            } else {
+                consumer.accept(frame);
+                recordCount++;
+            }
+            validBytes += HEADER_BYTES + frame.length;
+        }
+        if (channel.size() > validBytes) {
+            channel.truncate(validBytes);
+        }
+        channel.position(validBytes);
+    }
+
+    public synchronized void append(byte[] record) throws IOException {
+        appendFrame(frame(record));
+        recordCount++;
+    }
+
+    /**
+     * Appends the records as a single batch, which is replayed whole or not at all.
+     *
+     * @param records to be appended in order.
+     * @throws IOException if there are issues writing to the journal, in which case none of the records are kept.
+     */
+    public synchronized void appendAll(List<byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        long size = 0;
+        for (byte[] record : records) {
+            size += RECORD_LENGTH_BYTES + record.length;
+        }
+        if (size > MAX_BATCH_BYTES) {
+            throw new IllegalArgumentException("Batch is too large: " + size);
+        }
+        final ByteBuffer batch = ByteBuffer.allocate((int) size);
+        records.forEach(record -> batch.putInt(record.length).put(record));
+        final CRC32 crc = new CRC32();
+        crc.update(batch.array());
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + batch.capacity());
+        buffer.putInt(BATCH_FLAG | batch.capacity());
+        buffer.putInt((int) crc.getValue());
+        buffer.put(batch.array());
+        buffer.flip();
+        appendFrame(buffer);
+        recordCount += records.size();
+    }
+
+    /**
+     * Writes the frame at the end of the journal, cutting the journal back to where it ended if the
+     * write fails part way, so the next append does not land behind a torn frame.
+     */
+    private void appendFrame(ByteBuffer buffer) throws IOException {
+        final long end = channel.position();
+        try {
+            write(channel, buffer);
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(end);
+                channel.position(end);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the records of a batch, or null if it does not split into whole records.
+     */
+    private static List<byte[]> readBatch(byte[] batch) {
+        final ByteBuffer buffer = ByteBuffer.wrap(batch);
+        final List<byte[]> records = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            if (buffer.remaining() < RECORD_LENGTH_BYTES) {
+                return null;
+            }
+            final int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                return null;
+            }
+            final byte[] record = new byte[length];
+            buffer.get(record);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Replaces the contents of the journal with the given records, e.g. to drop records that have since
+     * been superseded. The records are written to a separate file that is moved over the journal once
+     * complete, so a crash part way through leaves the original journal untouched.
+     *
+     * @param records the new contents of the journal.
+     * @throws IOException if there are issues writing the journal.
+     */
+    public synchronized void rewrite(Iterable<byte[]> records) throws IOException {
+        final Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        long count = 0;
+        try (final FileChannel compactedChannel = FileChannel.open(compacted,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (byte[] record : records) {
+                write(compactedChannel, frame(record));
+                count++;
+            }
+            compactedChannel.force(true);
+        }
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+        channel.position(channel.size());
+        recordCount = count;
+    }
+
+    /**
+     * @return the number of records in the journal, including any that have since been superseded.
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static ByteBuffer frame(byte[] record) {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + record.length);
+        putRecord(buffer, record);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void putRecord(ByteBuffer buffer, byte[] record) {
+        if (record.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Record is too large: " + record.length);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+        buffer.putInt(record.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(record);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
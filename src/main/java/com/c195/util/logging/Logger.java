@@ -1,5 +1,8 @@
 package com.c195.util.logging;
 
+import com.c195.util.metrics.MetricRegistry;
+import com.c195.util.metrics.Timer;
+
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -11,24 +14,50 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Logger {
 
+    // lines are written by the thread logging them, so the threads waiting on a write are the backlog
+    private static final AtomicInteger pendingWrites = new AtomicInteger();
+    private static final Timer writeTimer;
+
+    static {
+        final MetricRegistry metricRegistry = MetricRegistry.getInstance();
+        writeTimer = metricRegistry.timer("logger.write.latency");
+        metricRegistry.gauge("logger.writes.pending", pendingWrites::get);
+    }
+
     private final Class<?> clazz;
+    private final String fileSuffix;
     private final LoggingConfig loggingConfig;
     private final Clock clock;
 
     private Logger(Class<?> clazz,
+                   String fileSuffix,
                    LoggingConfig loggingConfig,
                    Clock clock) {
         this.clazz = clazz;
+        this.fileSuffix = fileSuffix;
         this.loggingConfig = loggingConfig;
         this.clock = clock;
     }
 
     public static Logger getLogger(Class<?> clazz) {
+        return getLogger(clazz, "");
+    }
+
+    /**
+     * Gets a logger that writes to a log of its own next to the day's log, such as 2020-01-06-slow-query.log.
+     *
+     * @param logName the name the log file ends with.
+     */
+    public static Logger getLogger(Class<?> clazz, String logName) {
         try {
-            return new Logger(clazz, LoggingConfig.getInstance(), Clock.systemDefaultZone());
+            return new Logger(clazz,
+                    logName.isEmpty() ? "" : "-" + logName,
+                    LoggingConfig.getInstance(),
+                    Clock.systemDefaultZone());
         } catch (LoggingConfigException e) {
             throw new LoggingException("There was an issue generating logging", e);
         }
@@ -39,16 +68,21 @@ public class Logger {
         final StandardOpenOption openOption = Files.exists(path)
                 ? StandardOpenOption.APPEND
                 : StandardOpenOption.CREATE;
+        final long startNanos = System.nanoTime();
+        pendingWrites.incrementAndGet();
         try {
             Files.write(path, Collections.singletonList(toLogMessage(content)), StandardCharsets.UTF_8, openOption);
         } catch (IOException e) {
             throw new LoggingException(e);
+        } finally {
+            pendingWrites.decrementAndGet();
+            writeTimer.recordSince(startNanos);
         }
     }
 
     private Path getFilePath() {
         final String fileName = DateTimeFormatter.ISO_LOCAL_DATE.format(LocalDate.now(clock));
-        return Paths.get(String.format("%s/%s.log", loggingConfig.getDirectory(), fileName));
+        return Paths.get(String.format("%s/%s%s.log", loggingConfig.getDirectory(), fileName, fileSuffix));
     }
 
     private String toLogMessage(String content) {
@@ -0,0 +1,22 @@
+package com.c195.util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that can be incremented from any thread without contention.
+ */
+public final class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
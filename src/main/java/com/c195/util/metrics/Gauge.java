@@ -0,0 +1,10 @@
+package com.c195.util.metrics;
+
+/**
+ * A value that is read when it is asked for, such as the number of threads busy in a pool.
+ */
+@FunctionalInterface
+public interface Gauge {
+
+    long getValue();
+}
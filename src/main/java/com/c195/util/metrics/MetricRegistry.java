@@ -0,0 +1,68 @@
+package com.c195.util.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Named counters, timers and gauges shared across the app.
+ * <p>
+ * Metrics are created the first time they are asked for and live for the life of the app,
+ * so callers can look them up once and keep the reference. Gauges are registered by whatever owns the
+ * value they read.
+ */
+public final class MetricRegistry {
+
+    private static MetricRegistry registryInstance;
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    private MetricRegistry() {
+    }
+
+    public static synchronized MetricRegistry getInstance() {
+        if (registryInstance == null) {
+            registryInstance = new MetricRegistry();
+        }
+        return registryInstance;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    /**
+     * Registers a gauge under the name, replacing any gauge registered under it before.
+     */
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * @return the counters sorted by name.
+     */
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(new TreeMap<>(counters));
+    }
+
+    /**
+     * @return the timers sorted by name.
+     */
+    public Map<String, Timer> getTimers() {
+        return Collections.unmodifiableMap(new TreeMap<>(timers));
+    }
+
+    /**
+     * @return the gauges sorted by name.
+     */
+    public Map<String, Gauge> getGauges() {
+        return Collections.unmodifiableMap(new TreeMap<>(gauges));
+    }
+}
@@ -0,0 +1,71 @@
+package com.c195.util.metrics;
+
+import com.c195.util.logging.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the phases of starting the app, which run partly on the FX thread and partly in the background.
+ * <p>
+ * Each phase is recorded as a "startup.*" timer in the {@link MetricRegistry}. Once every phase has
+ * ended a single line is logged with how long each phase took and how long after the JVM was launched
+ * the app was ready, so cold starts can be compared from one release to the next.
+ */
+public final class StartupTimer {
+
+    private static final Logger logger = Logger.getLogger(StartupTimer.class);
+    private static StartupTimer timerInstance;
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentMap<String, Long> startedPhases = new ConcurrentHashMap<>();
+    private final Map<String, Long> endedPhases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private boolean reported;
+
+    private StartupTimer(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    public static synchronized StartupTimer getInstance() {
+        if (timerInstance == null) {
+            timerInstance = new StartupTimer(MetricRegistry.getInstance());
+        }
+        return timerInstance;
+    }
+
+    /**
+     * Marks the start of a phase, unless it was already started. Phases that run in parallel should all
+     * be started before any of them can end, otherwise the report is logged before they are timed.
+     */
+    public void start(String phase) {
+        startedPhases.putIfAbsent(phase, System.nanoTime());
+    }
+
+    /**
+     * Marks the end of a phase, which is only recorded the first time it ends.
+     */
+    public void end(String phase) {
+        final Long startNanos = startedPhases.get(phase);
+        if (startNanos != null && endedPhases.putIfAbsent(phase, System.nanoTime() - startNanos) == null) {
+            metricRegistry.timer("startup." + phase).recordSince(startNanos);
+            reportIfEnded();
+        }
+    }
+
+    private synchronized void reportIfEnded() {
+        if (reported || endedPhases.size() < startedPhases.size()) {
+            return;
+        }
+        reported = true;
+        final StringJoiner phases = new StringJoiner(", ");
+        endedPhases.forEach((phase, nanos) -> phases.add(phase + " " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms"));
+        final Duration uptime = Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+        logger.log(String.format("started in %dms since launch (%s)", uptime.toMillis(), phases));
+    }
+}
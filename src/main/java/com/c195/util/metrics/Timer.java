@@ -0,0 +1,118 @@
+package com.c195.util.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long an operation takes, along with a histogram of how often it took how long.
+ * The histogram counts each time in the first bucket whose bound it is within, or in a last bucket
+ * for the times beyond every bound.
+ */
+public final class Timer {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000};
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MILLIS.length];
+    private static final List<Duration> BUCKET_BOUNDS;
+
+    static {
+        final List<Duration> bucketBounds = new ArrayList<>(BUCKET_BOUNDS_MILLIS.length);
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = TimeUnit.MILLISECONDS.toNanos(BUCKET_BOUNDS_MILLIS[i]);
+            bucketBounds.add(Duration.ofMillis(BUCKET_BOUNDS_MILLIS[i]));
+        }
+        BUCKET_BOUNDS = Collections.unmodifiableList(bucketBounds);
+    }
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_NANOS.length + 1];
+
+    Timer() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given start.
+     *
+     * @param startNanos the value of {@link System#nanoTime()} when the operation started.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long elapsedNanos) {
+        count.increment();
+        totalNanos.add(elapsedNanos);
+        maxNanos.accumulate(elapsedNanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_NANOS.length && elapsedNanos > BUCKET_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Duration getMean() {
+        final long count = getCount();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos.get());
+    }
+
+    /**
+     * @return the upper bound of each bucket of the histogram, shortest first. The last bucket has no bound.
+     */
+    public static List<Duration> getBucketBounds() {
+        return BUCKET_BOUNDS;
+    }
+
+    /**
+     * @return how many times were counted in each bucket, with the bucket beyond every bound last.
+     */
+    public long[] getBucketCounts() {
+        final long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates a percentile from the histogram, which is only as precise as its buckets.
+     *
+     * @param percentile such as 0.95.
+     * @return the bound of the bucket the percentile falls in, or the max if it is beyond every bound.
+     */
+    public Duration getPercentile(double percentile) {
+        final long[] counts = getBucketCounts();
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        final long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.size(); i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return BUCKET_BOUNDS.get(i);
+            }
+        }
+        return getMax();
+    }
+}
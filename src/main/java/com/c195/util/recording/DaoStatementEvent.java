@@ -0,0 +1,27 @@
+package com.c195.util.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A statement executed by a DAO, lasting from when it was sent to the db until the db answered.
+ */
+@Name("com.c195.DaoStatement")
+@Label("DAO Statement")
+@Category({"C195", "Database"})
+@Description("A statement executed by a DAO")
+public class DaoStatementEvent extends Event {
+
+    @Label("SQL Id")
+    public String sqlId;
+
+    @Label("Rows")
+    @Description("Rows read by a query or changed by an update")
+    public long rows;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,79 @@
+package com.c195.util.recording;
+
+import com.c195.util.logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A flight recording kept running for as long as the app runs, so when the app stalls there is a
+ * record of what it was doing, which can be saved to a file and opened in JDK Mission Control.
+ * <p>
+ * The recording uses the JDK's default settings, which are meant to be left on in production, along
+ * with the app's own events for DAO statements, service requests and navigation. Only the last
+ * {@link #MAX_AGE} of it is kept. It can be turned off with -Dc195.recording=false.
+ */
+public final class FlightRecording {
+
+    private static final String ENABLED_PROPERTY = "c195.recording";
+    private static final Duration MAX_AGE = Duration.ofMinutes(15);
+    private static final long MAX_SIZE_BYTES = 64L * 1024 * 1024;
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final Logger logger = Logger.getLogger(FlightRecording.class);
+
+    private static FlightRecording recordingInstance;
+    private Recording recording;
+
+    private FlightRecording() {
+    }
+
+    public static synchronized FlightRecording getInstance() {
+        if (recordingInstance == null) {
+            recordingInstance = new FlightRecording();
+        }
+        return recordingInstance;
+    }
+
+    /**
+     * Starts recording, unless it has been turned off or has already started.
+     */
+    public synchronized void start() {
+        if (recording != null || !Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("c195");
+            recording.setToDisk(true);
+            recording.setMaxAge(MAX_AGE);
+            recording.setMaxSize(MAX_SIZE_BYTES);
+            recording.start();
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            recording = null;
+            logger.log(String.format("there was an issue starting the flight recording: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Saves what has been recorded so far to a new file in the directory, while recording goes on.
+     *
+     * @return the file the recording was saved to.
+     * @throws IOException if nothing is being recorded or the file could not be written.
+     */
+    public synchronized Path dump(Path directory) throws IOException {
+        if (recording == null) {
+            throw new IOException("The flight recording is not running");
+        }
+        Files.createDirectories(directory);
+        final Path path = directory.resolve("c195-" + FILE_NAME_FORMAT.format(LocalDateTime.now()) + ".jfr");
+        recording.dump(path);
+        return path;
+    }
+}
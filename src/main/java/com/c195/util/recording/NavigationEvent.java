@@ -0,0 +1,21 @@
+package com.c195.util.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Showing a view, including loading it if it was not loaded yet.
+ */
+@Name("com.c195.Navigation")
+@Label("Navigation")
+@Category({"C195", "UI"})
+public class NavigationEvent extends Event {
+
+    @Label("View")
+    public String view;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,33 @@
+package com.c195.util.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A service operation requested by a controller, run either on the FX thread or in the background.
+ */
+@Name("com.c195.ServiceRequest")
+@Label("Service Request")
+@Category({"C195", "Service"})
+public class ServiceRequestEvent extends Event {
+
+    @Label("Caller")
+    @Description("The controller method that requested the operation")
+    public String caller;
+
+    @Label("Asynchronous")
+    public boolean asynchronous;
+
+    @Label("Queue Time")
+    @Description("How long a background operation waited for a thread before it started")
+    @Timespan
+    public long queueTime;
+
+    @Label("Outcome")
+    @Description("Succeeded, or the class of the exception the operation failed with")
+    public String outcome;
+}
@@ -4,10 +4,13 @@ import com.c195.common.appointment.AppointmentDTO;
 import com.c195.common.report.ReportAggregationDTO;
 import javafx.scene.control.TreeItem;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Only the aggregate nodes are created up front. The appointment nodes (and their text)
+ * for an aggregate are built the first time that aggregate is expanded.
+ */
 public class AppointmentReportTree extends ReportTree {
 
     private final String rootLabel;
@@ -26,7 +29,7 @@ public class AppointmentReportTree extends ReportTree {
     private List<TreeItem<String>> createAggregateNodes() {
         return reportAggregation.getData().entrySet()
                 .stream()
-                .map(entry -> createNode(entry.getKey(), createAppointmentNodes(entry.getValue())))
+                .map(entry -> createLazyNode(entry.getKey(), () -> createAppointmentNodes(entry.getValue())))
                 .collect(Collectors.toList());
     }
 
@@ -34,22 +37,24 @@ public class AppointmentReportTree extends ReportTree {
         return appointmentData
                 .stream()
                 .map(AppointmentReportTree::toAppointmentText)
-                .map(text -> createNode(text, Collections.emptyList()))
+                .map(ReportTree::createLeaf)
                 .collect(Collectors.toList());
     }
 
     private static String toAppointmentText(AppointmentDTO appointmentDTO) {
-        return "Title: " +
-                appointmentDTO.getTitle() +
-                "\n" +
-                "Location: " +
-                appointmentDTO.getLocation().getName() +
-                "\n" +
-                "Start: " +
-                appointmentDTO.getTime().getLocationStartISO() +
-                "\n" +
-                "End: " +
-                appointmentDTO.getTime().getLocationEndISO() +
-                "\n";
+        return new StringBuilder(128)
+                .append("Title: ")
+                .append(appointmentDTO.getTitle())
+                .append('\n')
+                .append("Location: ")
+                .append(appointmentDTO.getLocation().getName())
+                .append('\n')
+                .append("Start: ")
+                .append(appointmentDTO.getTime().getLocationStartISO())
+                .append('\n')
+                .append("End: ")
+                .append(appointmentDTO.getTime().getLocationEndISO())
+                .append('\n')
+                .toString();
     }
 }
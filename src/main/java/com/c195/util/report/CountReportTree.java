@@ -8,6 +8,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Only the aggregate nodes are created up front. The count nodes for an aggregate
+ * are built the first time that aggregate is expanded.
+ */
 public class CountReportTree extends ReportTree {
 
     private final String rootLabel;
@@ -23,19 +27,14 @@ public class CountReportTree extends ReportTree {
     }
 
     public TreeItem<String> getTree() {
-        final List<TreeItem<String>> treeNodes = createAggregateNodes().entrySet()
+        final List<TreeItem<String>> treeNodes = reportAggregation.getData().entrySet()
                 .stream()
-                .map(entry -> createNode(entry.getKey(), Collections.singletonList(entry.getValue())))
+                .map(entry -> createLazyNode(entry.getKey(),
+                        () -> Collections.singletonList(createCountNodes(entry.getValue()))))
                 .collect(Collectors.toList());
         return createNode(rootLabel, treeNodes);
     }
 
-    private Map<String, TreeItem<String>> createAggregateNodes() {
-        return reportAggregation.getData().entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> createCountNodes(entry.getValue())));
-    }
-
     private TreeItem<String> createCountNodes(Map<String, Long> countData) {
         final List<TreeItem<String>> countNodes = countData.entrySet()
                 .stream()
@@ -45,6 +44,6 @@ public class CountReportTree extends ReportTree {
     }
 
     private TreeItem<String> createCountNode(Long count) {
-        return createNode("Count: " + count, Collections.emptyList());
+        return createLeaf("Count: " + count);
     }
 }
@@ -0,0 +1,37 @@
+package com.c195.util.report;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Tree item that defers building its children until they are first requested,
+ * which the {@link javafx.scene.control.TreeView} only does once the item is expanded.
+ * Children are built once and kept, so collapsing and expanding again reuses them.
+ */
+public class LazyTreeItem extends TreeItem<String> {
+
+    private Supplier<List<TreeItem<String>>> childrenSupplier;
+
+    public LazyTreeItem(String value, Supplier<List<TreeItem<String>>> childrenSupplier) {
+        super(value);
+        this.childrenSupplier = childrenSupplier;
+    }
+
+    @Override
+    public ObservableList<TreeItem<String>> getChildren() {
+        if (childrenSupplier != null) {
+            final Supplier<List<TreeItem<String>>> supplier = childrenSupplier;
+            childrenSupplier = null;
+            super.getChildren().setAll(supplier.get());
+        }
+        return super.getChildren();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return childrenSupplier == null && super.getChildren().isEmpty();
+    }
+}
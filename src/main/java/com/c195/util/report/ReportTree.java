@@ -3,6 +3,7 @@ package com.c195.util.report;
 import javafx.scene.control.TreeItem;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ReportTree {
 
@@ -12,4 +13,19 @@ public class ReportTree {
         node.getChildren().setAll(children);
         return node;
     }
+
+    protected static TreeItem<String> createLeaf(String key) {
+        return new TreeItem<>(key);
+    }
+
+    /**
+     * Creates a collapsed node whose children are only built once the node is expanded.
+     *
+     * @param key              the label of the node.
+     * @param childrenSupplier builds the children of the node on first expansion.
+     * @return a lazily populated tree node.
+     */
+    protected static TreeItem<String> createLazyNode(String key, Supplier<List<TreeItem<String>>> childrenSupplier) {
+        return new LazyTreeItem(key, childrenSupplier);
+    }
 }
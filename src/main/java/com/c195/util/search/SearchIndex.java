@@ -0,0 +1,183 @@
+package com.c195.util.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In memory prefix index over the text fields of a document type.
+ * <p>
+ * Every field is split into lower case tokens and each token is added to a trie. Every node of the trie
+ * holds the ids of the documents that have a token starting with the node's prefix, so looking up a
+ * prefix only walks as many nodes as the prefix has characters. A query matches the documents that have
+ * a token starting with each of the query's tokens, e.g. "jo ph" matches a "John Smith" in "Phoenix".
+ * <p>
+ * Tokens are only indexed up to {@link #MAX_PREFIX_LENGTH} characters, which is more than enough for
+ * type-ahead while keeping the size of the trie bounded.
+ *
+ * @param <T> the type of the indexed documents.
+ */
+public class SearchIndex<T> {
+
+    private static final int MAX_PREFIX_LENGTH = 16;
+
+    private final Function<T, Integer> idExtractor;
+    private final Function<T, Stream<String>> fieldExtractor;
+    private final Node root = new Node();
+    private final Map<Integer, T> documents = new HashMap<>();
+    private final Map<Integer, Set<String>> documentTokens = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SearchIndex(Function<T, Integer> idExtractor, Function<T, Stream<String>> fieldExtractor) {
+        this.idExtractor = idExtractor;
+        this.fieldExtractor = fieldExtractor;
+    }
+
+    /**
+     * Adds the document to the index, replacing any document with the same id.
+     *
+     * @param document to be indexed.
+     */
+    public void put(T document) {
+        final Integer id = idExtractor.apply(document);
+        final Set<String> tokens = fieldExtractor.apply(document)
+                .flatMap(SearchIndex::tokenize)
+                .collect(Collectors.toSet());
+        lock.writeLock().lock();
+        try {
+            removeTokens(id);
+            documents.put(id, document);
+            documentTokens.put(id, tokens);
+            tokens.forEach(token -> addToken(token, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<T> documents) {
+        documents.forEach(this::put);
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            removeTokens(id);
+            documents.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.ids.clear();
+            documents.clear();
+            documentTokens.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the documents matching every token of the query as a prefix.
+     *
+     * @param query the text typed so far.
+     * @param limit the maximum number of documents to return.
+     * @return matching documents, in no particular order.
+     */
+    public List<T> search(String query, int limit) {
+        final List<String> queryTokens = tokenize(query)
+                .distinct()
+                .collect(Collectors.toList());
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            final List<Set<Integer>> matches = new ArrayList<>(queryTokens.size());
+            for (String token : queryTokens) {
+                final Node node = findNode(token);
+                if (node == null) {
+                    return Collections.emptyList();
+                }
+                matches.add(node.ids);
+            }
+            matches.sort(Comparator.comparingInt(Set::size));
+            final Set<Integer> smallest = matches.get(0);
+            final List<Set<Integer>> others = matches.subList(1, matches.size());
+            return smallest.stream()
+                    .filter(id -> others.stream().allMatch(ids -> ids.contains(id)))
+                    .limit(limit)
+                    .map(documents::get)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addToken(String token, Integer id) {
+        Node node = root;
+        for (int i = 0; i < token.length(); i++) {
+            node = node.children.computeIfAbsent(token.charAt(i), c -> new Node());
+            node.ids.add(id);
+        }
+    }
+
+    private void removeTokens(Integer id) {
+        final Set<String> tokens = documentTokens.remove(id);
+        if (tokens != null) {
+            tokens.forEach(token -> removeToken(root, token, 0, id));
+        }
+    }
+
+    private static void removeToken(Node node, String token, int index, Integer id) {
+        if (index == token.length()) {
+            return;
+        }
+        final Node child = node.children.get(token.charAt(index));
+        if (child == null) {
+            return;
+        }
+        child.ids.remove(id);
+        removeToken(child, token, index + 1, id);
+        if (child.ids.isEmpty()) {
+            node.children.remove(token.charAt(index));
+        }
+    }
+
+    private Node findNode(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static Stream<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Stream.empty();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .map(token -> token.length() > MAX_PREFIX_LENGTH ? token.substring(0, MAX_PREFIX_LENGTH) : token);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final Set<Integer> ids = new HashSet<>(4);
+    }
+}
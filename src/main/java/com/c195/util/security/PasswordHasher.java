@@ -0,0 +1,127 @@
+package com.c195.util.security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2 password hashes.
+ * <p>
+ * Hashes are stored as {@code pbkdf2-sha256$iterations$salt$hash} so the work factor can be raised
+ * later without invalidating existing hashes, {@link #needsRehash(String)} tells when a stored value
+ * should be replaced. Values without that prefix are treated as legacy plain text passwords.
+ * Every comparison is done in constant time so the time taken does not reveal how much of a
+ * password matched, and plain text passwords are checked only after deriving a hash at the configured
+ * work factor, so they take as long to check as hashed ones.
+ */
+public final class PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String SEPARATOR = "$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom secureRandom;
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+        this.secureRandom = new SecureRandom();
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password to be hashed.
+     * @return the encoded hash, including the work factor and salt.
+     */
+    public String hash(String password) {
+        final byte[] salt = new byte[SALT_BYTES];
+        secureRandom.nextBytes(salt);
+        final Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + SEPARATOR + iterations +
+                SEPARATOR + encoder.encodeToString(salt) +
+                SEPARATOR + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against a stored value.
+     *
+     * @param password the password that was entered.
+     * @param stored   the encoded hash, or a legacy plain text password.
+     * @return whether the password matches.
+     */
+    public boolean verify(String password, String stored) {
+        if (stored == null) {
+            return false;
+        }
+        if (!isHash(stored)) {
+            // derived only to take as long as checking a hash does, so the time taken does not tell
+            // users whose passwords are still plain text apart from the others
+            derive(password, new byte[SALT_BYTES], iterations);
+            // digesting both sides keeps the comparison the same length no matter the input
+            return MessageDigest.isEqual(sha256(password), sha256(stored));
+        }
+        final String[] parts = stored.split("\\" + SEPARATOR);
+        if (parts.length != 4) {
+            derive(password, new byte[SALT_BYTES], iterations);
+            return false;
+        }
+        try {
+            final Base64.Decoder decoder = Base64.getDecoder();
+            final byte[] expected = decoder.decode(parts[3]);
+            final byte[] actual = derive(password, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param stored the encoded hash, or a legacy plain text password.
+     * @return whether the stored value is plain text or was hashed with a lower work factor.
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !isHash(stored)) {
+            return true;
+        }
+        final String[] parts = stored.split("\\" + SEPARATOR);
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean isHash(String stored) {
+        return stored.startsWith(PREFIX + SEPARATOR);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        final PBEKeySpec keySpec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(keySpec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("There was an issue hashing a password", e);
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("There was an issue hashing a password", e);
+        }
+    }
+}
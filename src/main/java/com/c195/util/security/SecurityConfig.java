@@ -0,0 +1,55 @@
+package com.c195.util.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Properties;
+
+public class SecurityConfig {
+
+    private static final String DEFAULT_HASH_ITERATIONS = "120000";
+    private static final String DEFAULT_FAILED_LOGIN_SECONDS = "2";
+
+    private static SecurityConfig configInstance;
+    private final Properties securityProperties;
+
+    private SecurityConfig() throws SecurityConfigException {
+        this.securityProperties = new Properties();
+        loadProperties();
+    }
+
+    public static SecurityConfig getInstance() throws SecurityConfigException {
+        if (configInstance == null) {
+            configInstance = new SecurityConfig();
+        }
+        return configInstance;
+    }
+
+    private void loadProperties() throws SecurityConfigException {
+        try (InputStream inputStream = this.getClass()
+                .getClassLoader()
+                .getResourceAsStream("security.properties")) {
+            if (inputStream != null) {
+                securityProperties.load(inputStream);
+            }
+        } catch (IOException e) {
+            throw new SecurityConfigException("There was an issue loading security properties", e);
+        }
+    }
+
+    /**
+     * @return the PBKDF2 work factor used when hashing passwords.
+     */
+    public int getHashIterations() {
+        return Integer.parseInt(securityProperties.getProperty("security.hash.iterations", DEFAULT_HASH_ITERATIONS));
+    }
+
+    /**
+     * @return how long a failed login for a username is remembered, during which
+     * further attempts for that username are rejected without checking the db.
+     */
+    public Duration getFailedLoginDuration() {
+        return Duration.ofSeconds(Long.parseLong(
+                securityProperties.getProperty("security.login.failed.seconds", DEFAULT_FAILED_LOGIN_SECONDS)));
+    }
+}
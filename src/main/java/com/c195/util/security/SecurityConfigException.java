@@ -0,0 +1,8 @@
+package com.c195.util.security;
+
+public class SecurityConfigException extends Exception {
+
+    public SecurityConfigException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
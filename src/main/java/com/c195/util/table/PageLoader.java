@@ -0,0 +1,19 @@
+package com.c195.util.table;
+
+import com.c195.common.query.Page;
+import com.c195.common.query.QuerySpec;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Loads a page for a {@link PagedTableModel}, usually off the FX thread.
+ */
+@FunctionalInterface
+public interface PageLoader<T, C extends Enum<C>> {
+
+    /**
+     * @param pageConsumer receives the page on the FX thread, empty if it could not be loaded.
+     */
+    void load(QuerySpec<C> querySpec, Consumer<Optional<Page<T, C>>> pageConsumer);
+}
@@ -0,0 +1,184 @@
+package com.c195.util.table;
+
+import com.c195.common.query.Page;
+import com.c195.common.query.QuerySpec;
+import com.c195.common.query.SortDirection;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Backs a {@link TableView} with pages fetched from the service layer instead of a list of every row.
+ * <p>
+ * The first page is loaded up front and following pages are appended as the table is scrolled
+ * towards the bottom. Sorting by clicking a column header or changing a filter throws away the loaded
+ * rows and queries the first page again, letting the database do the sorting and filtering.
+ * Rows that change while they are loaded can be patched in place instead of reloading every page.
+ * <p>
+ * Pages are handed back by the {@link PageLoader} once they arrive, so they can be queried off the FX
+ * thread. One page is loaded at a time, and a page that arrives after the table was reloaded is dropped.
+ * A page that could not be loaded, such as one cancelled as its view was left, is loaded again by
+ * {@link #resume()}.
+ *
+ * @param <T> the type of the table rows.
+ * @param <C> the columns that can be filtered and sorted on.
+ */
+public class PagedTableModel<T, C extends Enum<C>> {
+
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    private final TableView<T> tableView;
+    private final PageLoader<T, C> pageLoader;
+    private final Map<TableColumn<T, ?>, C> sortColumns = new HashMap<>();
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+
+    private QuerySpec<C> firstPageSpec;
+    private QuerySpec<C> nextPageSpec;
+    private QuerySpec<C> failedPageSpec;
+    private int generation;
+    private boolean loading;
+
+    public PagedTableModel(TableView<T> tableView, PageLoader<T, C> pageLoader, QuerySpec<C> firstPageSpec) {
+        this.tableView = tableView;
+        this.pageLoader = pageLoader;
+        this.firstPageSpec = firstPageSpec;
+        tableView.setItems(items);
+        tableView.setSortPolicy(table -> {
+            applySortOrder();
+            return true;
+        });
+        tableView.skinProperty().addListener((observable, oldSkin, newSkin) -> Platform.runLater(this::watchScrollBar));
+    }
+
+    /**
+     * Allows the given table column to be sorted on, using the given query column.
+     *
+     * @param tableColumn the column of the table.
+     * @param column      the column to sort the query by.
+     * @return this model.
+     */
+    public PagedTableModel<T, C> withSortColumn(TableColumn<T, ?> tableColumn, C column) {
+        tableColumn.setSortable(true);
+        sortColumns.put(tableColumn, column);
+        return this;
+    }
+
+    public void setFilter(C column, String prefix) {
+        firstPageSpec = firstPageSpec.toBuilder()
+                .withFilter(column, prefix)
+                .build();
+        reload();
+    }
+
+    /**
+     * Clears the loaded rows and loads the first page again.
+     */
+    public void reload() {
+        items.clear();
+        nextPageSpec = firstPageSpec;
+        failedPageSpec = null;
+        // whatever page is still on its way belongs to the rows just cleared
+        generation++;
+        loading = false;
+        loadNextPage();
+    }
+
+    /**
+     * Loads the page that could not be loaded last time again, if there is one.
+     */
+    public void resume() {
+        if (failedPageSpec != null && !loading) {
+            nextPageSpec = failedPageSpec;
+            failedPageSpec = null;
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Replaces the loaded rows matching the predicate with the changed row, keeping their position until the
+     * next reload. Rows that have not been loaded yet are left to be queried along with their page.
+     *
+     * @param matches identifies the rows to replace.
+     * @param row     the row as it is now.
+     */
+    public void replace(Predicate<T> matches, T row) {
+        items.replaceAll(item -> matches.test(item) ? row : item);
+    }
+
+    public void remove(Predicate<T> matches) {
+        items.removeIf(matches);
+    }
+
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    private void applySortOrder() {
+        if (tableView.getSortOrder().isEmpty()) {
+            return;
+        }
+        final TableColumn<T, ?> tableColumn = tableView.getSortOrder().get(0);
+        final C column = sortColumns.get(tableColumn);
+        if (column == null) {
+            return;
+        }
+        final SortDirection direction = tableColumn.getSortType() == TableColumn.SortType.DESCENDING
+                ? SortDirection.DESCENDING
+                : SortDirection.ASCENDING;
+        if (column == firstPageSpec.getSortColumn() && direction == firstPageSpec.getSortDirection()) {
+            return;
+        }
+        firstPageSpec = firstPageSpec.toBuilder()
+                .withSort(column, direction)
+                .build();
+        reload();
+    }
+
+    private void loadNextPage() {
+        if (loading || nextPageSpec == null) {
+            return;
+        }
+        loading = true;
+        final int pageGeneration = generation;
+        final QuerySpec<C> spec = nextPageSpec;
+        nextPageSpec = null;
+        pageLoader.load(spec, page -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (page.isPresent()) {
+                appendPage(page.get());
+            } else {
+                failedPageSpec = spec;
+            }
+        });
+    }
+
+    private void appendPage(Page<T, C> page) {
+        items.addAll(page.getItems());
+        nextPageSpec = page.getNextSpec().orElse(null);
+    }
+
+    private void watchScrollBar() {
+        tableView.lookupAll(".scroll-bar")
+                .stream()
+                .filter(node -> node instanceof ScrollBar)
+                .map(node -> (ScrollBar) node)
+                .filter(scrollBar -> scrollBar.getOrientation() == Orientation.VERTICAL)
+                .findFirst()
+                .ifPresent(scrollBar -> scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * LOAD_THRESHOLD) {
+                        loadNextPage();
+                    }
+                }));
+    }
+}
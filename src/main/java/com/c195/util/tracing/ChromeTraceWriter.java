@@ -0,0 +1,115 @@
+package com.c195.util.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes spans in the Trace Event format read by chrome://tracing and the Perfetto UI. Each span is a
+ * complete event on the row of the thread it ran on, with its ids and attributes as the event's args,
+ * so nested spans on a thread show stacked under the span they were started in.
+ */
+final class ChromeTraceWriter {
+
+    private static final int PROCESS_ID = 1;
+
+    private ChromeTraceWriter() {
+    }
+
+    static void write(Path path, Iterable<Span> spans) throws IOException {
+        final Map<Long, String> threadNames = new LinkedHashMap<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (Span span : spans) {
+                threadNames.putIfAbsent(span.getThreadId(), span.getThreadName());
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+                writeSpan(writer, span);
+            }
+            for (Map.Entry<Long, String> threadName : threadNames.entrySet()) {
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+                writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + PROCESS_ID
+                        + ",\"tid\":" + threadName.getKey() + ",\"args\":{\"name\":");
+                writeString(writer, threadName.getValue());
+                writer.write("}}");
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    private static void writeSpan(BufferedWriter writer, Span span) throws IOException {
+        writer.write("{\"name\":");
+        writeString(writer, span.getName());
+        writer.write(",\"cat\":");
+        writeString(writer, span.isFailed() ? "failed" : "span");
+        writer.write(",\"ph\":\"X\",\"ts\":" + toEpochMicros(span.getStart())
+                + ",\"dur\":" + span.getDurationMicros()
+                + ",\"pid\":" + PROCESS_ID
+                + ",\"tid\":" + span.getThreadId()
+                + ",\"args\":{\"traceId\":");
+        writeString(writer, span.getTraceId());
+        writer.write(",\"spanId\":");
+        writeString(writer, span.getSpanId());
+        writer.write(",\"parentSpanId\":");
+        writeString(writer, span.getParentSpanId());
+        for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+            writer.write(',');
+            writeString(writer, attribute.getKey());
+            writer.write(':');
+            final Object value = attribute.getValue();
+            if (value instanceof Number || value instanceof Boolean) {
+                writer.write(value.toString());
+            } else {
+                writeString(writer, value == null ? null : value.toString());
+            }
+        }
+        writer.write("}}");
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        return TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(instant.getNano());
+    }
+
+    private static void writeString(BufferedWriter writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
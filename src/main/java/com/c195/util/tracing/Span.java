@@ -0,0 +1,141 @@
+package com.c195.util.tracing;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed piece of work, such as a controller action, a service call or a single statement, within a trace.
+ * Every span of a trace shares the trace id of the span the trace started with, and knows the span it
+ * was started under, so the trace can be put back together as a tree.
+ * <p>
+ * A span is started and ended through the {@link Tracer}, which keeps it once it has ended.
+ * Attributes are set by the thread doing the work, before the span ends.
+ */
+public final class Span {
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final String threadName;
+    private final long threadId;
+    private final Instant start;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private volatile long durationNanos = -1;
+    private volatile boolean failed;
+
+    private Span(String traceId, String parentSpanId, String name) {
+        final Thread thread = Thread.currentThread();
+        this.traceId = traceId;
+        this.spanId = newId();
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.threadName = thread.getName();
+        this.threadId = thread.getId();
+        this.start = Instant.now();
+        this.startNanos = System.nanoTime();
+    }
+
+    static Span newRoot(String name) {
+        return new Span(newId(), null, name);
+    }
+
+    static Span newChild(Span parent, String name) {
+        return new Span(parent.traceId, parent.spanId, name);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return the id of the span this one was started under, or null if it started the trace.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * @return how long the span took, or -1 while it has not ended.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(durationNanos);
+    }
+
+    public boolean isEnded() {
+        return durationNanos >= 0;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public Span setAttribute(String key, Object value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    /**
+     * Marks the span as failed, keeping what it failed with as an attribute.
+     */
+    public Span setFailure(Throwable failure) {
+        this.failed = true;
+        attributes.put("error", failure.getClass().getSimpleName() + ": " + failure.getMessage());
+        return this;
+    }
+
+    /**
+     * @return whether this call ended the span, which only the first call does.
+     */
+    boolean end() {
+        synchronized (this) {
+            if (durationNanos >= 0) {
+                return false;
+            }
+            durationNanos = System.nanoTime() - startNanos;
+            return true;
+        }
+    }
+
+    private static String newId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + traceId + "/" + spanId + "]";
+    }
+}
@@ -0,0 +1,28 @@
+package com.c195.util.tracing;
+
+/**
+ * Keeps a span as the thread's current span until it is closed, which ends the span and makes the span
+ * it was started under current again. Meant for try-with-resources, so spans started within are its children.
+ */
+public final class SpanScope implements AutoCloseable {
+
+    private final Tracer tracer;
+    private final Span span;
+    private final Span parent;
+
+    SpanScope(Tracer tracer, Span span, Span parent) {
+        this.tracer = tracer;
+        this.span = span;
+        this.parent = parent;
+    }
+
+    public Span getSpan() {
+        return span;
+    }
+
+    @Override
+    public void close() {
+        tracer.endSpan(span);
+        tracer.setCurrentSpan(parent);
+    }
+}
@@ -0,0 +1,146 @@
+package com.c195.util.tracing;
+
+import com.c195.common.CheckedSupplier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Follows what each user action does, from the controller through the services down to the statements
+ * the DAOs execute, as a trace of nested {@link Span}s.
+ * <p>
+ * The span a thread is working in is kept as its current span, and spans started on the thread are its
+ * children. Work handed to another thread is wrapped with {@link #wrap(CheckedSupplier)} to carry the
+ * current span along with it. The last {@link #CAPACITY} spans to end are kept, oldest first, and can be
+ * exported as a trace file that opens in chrome://tracing or the Perfetto UI.
+ */
+public final class Tracer {
+
+    private static final int CAPACITY = 10_000;
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static Tracer tracerInstance;
+    private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+    private final Span[] endedSpans = new Span[CAPACITY];
+    private int nextIndex;
+    private boolean wrapped;
+
+    private Tracer() {
+    }
+
+    public static synchronized Tracer getInstance() {
+        if (tracerInstance == null) {
+            tracerInstance = new Tracer();
+        }
+        return tracerInstance;
+    }
+
+    /**
+     * Starts a span under the current span, or a new trace if there is none, and makes it current
+     * until the returned scope is closed.
+     *
+     * @param name of the span, such as the class and method doing the work.
+     * @return the scope to close once the work is done.
+     */
+    public SpanScope startSpan(String name) {
+        final Span parent = currentSpan.get();
+        final Span span = parent == null ? Span.newRoot(name) : Span.newChild(parent, name);
+        currentSpan.set(span);
+        return new SpanScope(this, span, parent);
+    }
+
+    /**
+     * Starts a span under the current span without making it current, for work that does not end on the
+     * thread it started on, or within the call that started it. It is ended with {@link #endSpan(Span)}.
+     *
+     * @param name of the span.
+     * @return the span, or empty if the thread is not working within a trace.
+     */
+    public Optional<Span> startChildSpan(String name) {
+        return getCurrentSpan().map(parent -> Span.newChild(parent, name));
+    }
+
+    /**
+     * Ends the span and keeps it for exporting. Ending a span again has no effect.
+     */
+    public void endSpan(Span span) {
+        if (span.end()) {
+            synchronized (endedSpans) {
+                endedSpans[nextIndex] = span;
+                nextIndex = (nextIndex + 1) % CAPACITY;
+                wrapped |= nextIndex == 0;
+            }
+        }
+    }
+
+    public Optional<Span> getCurrentSpan() {
+        return Optional.ofNullable(currentSpan.get());
+    }
+
+    void setCurrentSpan(Span span) {
+        if (span == null) {
+            currentSpan.remove();
+        } else {
+            currentSpan.set(span);
+        }
+    }
+
+    /**
+     * Carries the current span over to whichever thread runs the supplier, so the spans it starts
+     * belong to the same trace.
+     *
+     * @return the supplier running within the span that was current when it was wrapped.
+     */
+    public <T> CheckedSupplier<T> wrap(CheckedSupplier<T> supplier) {
+        final Span span = currentSpan.get();
+        if (span == null) {
+            return supplier;
+        }
+        return () -> {
+            final Span previous = currentSpan.get();
+            currentSpan.set(span);
+            try {
+                return supplier.getWithIO();
+            } finally {
+                setCurrentSpan(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the spans kept so far, in the order they ended.
+     */
+    public List<Span> getEndedSpans() {
+        synchronized (endedSpans) {
+            final List<Span> spans = new ArrayList<>(wrapped ? CAPACITY : nextIndex);
+            if (wrapped) {
+                for (int i = nextIndex; i < CAPACITY; i++) {
+                    spans.add(endedSpans[i]);
+                }
+            }
+            for (int i = 0; i < nextIndex; i++) {
+                spans.add(endedSpans[i]);
+            }
+            return spans;
+        }
+    }
+
+    /**
+     * Saves the spans kept so far to a new trace file in the directory.
+     *
+     * @return the file the trace was saved to.
+     * @throws IOException if the file could not be written.
+     */
+    public Path export(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        final Path path = directory.resolve("c195-" + FILE_NAME_FORMAT.format(LocalDateTime.now()) + ".trace.json");
+        ChromeTraceWriter.write(path, getEndedSpans());
+        return path;
+    }
+}